@@ -7,8 +7,10 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @CustomLog
 public class AccountJsonLoader {
@@ -26,8 +28,16 @@ public class AccountJsonLoader {
         JsonObject object = new JsonObject();
         object.add("accounts", array);
         String string = new GsonBuilder().setPrettyPrinting().create().toJson(object);
-        try (OutputStream os = Files.newOutputStream(location)) {
-            os.write(string.getBytes(StandardCharsets.UTF_8));
+        // a process killed while writing must not leave a truncated file behind
+        Path tmp = location.resolveSibling(location.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                os.write(string.getBytes(StandardCharsets.UTF_8));
+            }
+
+            Files.move(tmp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
         }
     }
 
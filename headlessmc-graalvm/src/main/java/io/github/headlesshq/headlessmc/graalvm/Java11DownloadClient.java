@@ -4,6 +4,7 @@ import io.github.headlesshq.headlessmc.api.command.line.ProgressBarProvider;
 import io.github.headlesshq.headlessmc.api.command.line.Progressbar;
 import io.github.headlesshq.headlessmc.java.download.DownloadClient;
 
+import java.io.FilterInputStream;
 import java.io.IOError;
 import java.io.IOException;
 import java.io.InputStream;
@@ -62,4 +63,45 @@ public class Java11DownloadClient implements DownloadClient {
         }
     }
 
+    @Override
+    public void streamBigFile(String url, BodyHandler handler, String progressBarTitle, ProgressBarProvider progressBarProvider) throws IOException {
+        try (HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build()) {
+            HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (!(response.statusCode() >= 200 && response.statusCode() < 400)) {
+                response.body().close();
+                throw new IOException("HTTP error code: " + response.statusCode());
+            }
+
+            long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            try (InputStream is = response.body();
+                 Progressbar progressbar = progressBarProvider.displayProgressBar(
+                         new Progressbar.Configuration(progressBarTitle, contentLength, new Progressbar.Configuration.Unit("mb", 1_000_000)))) {
+                handler.handle(new FilterInputStream(is) {
+                    @Override
+                    public int read() throws IOException {
+                        int read = super.read();
+                        if (read != -1) {
+                            progressbar.stepBy(1);
+                        }
+
+                        return read;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int read = super.read(b, off, len);
+                        if (read > 0) {
+                            progressbar.stepBy(read);
+                        }
+
+                        return read;
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
 }
@@ -0,0 +1,144 @@
+package io.github.headlesshq.headlessmc.java;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import lombok.CustomLog;
+import lombok.Data;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent cache of scanned Java installations.
+ * Entries are keyed by the path of the executable and invalidated when the last modified time of the executable changes.
+ */
+@CustomLog
+public class JavaInstallationCache {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Type TYPE = new TypeToken<Map<String, Entry>>() {}.getType();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Path file;
+    private volatile boolean dirty;
+
+    public JavaInstallationCache(Path file) {
+        this.file = file;
+    }
+
+    public static JavaInstallationCache load(Path file) {
+        JavaInstallationCache cache = new JavaInstallationCache(file);
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                Map<String, Entry> entries = GSON.fromJson(reader, TYPE);
+                if (entries != null) {
+                    entries.forEach((key, value) -> {
+                        if (key != null && value != null) {
+                            cache.entries.put(key, value);
+                        }
+                    });
+                }
+            } catch (IOException | JsonParseException e) {
+                log.warn("Failed to read Java installation cache " + file + ": " + e.getMessage());
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * @param executable the Java executable.
+     * @return the cached entry for the executable, or {@code null} if there is none or the executable changed since.
+     */
+    public @Nullable Entry get(Path executable) {
+        Entry entry = entries.get(key(executable));
+        if (entry != null) {
+            Long lastModified = lastModified(executable);
+            if (lastModified != null && lastModified == entry.getLastModified()) {
+                return entry;
+            }
+
+            log.debug("Java installation cache entry for " + executable + " is outdated");
+            entries.remove(key(executable));
+            dirty = true;
+        }
+
+        return null;
+    }
+
+    public void put(Path executable, int version, @Nullable JavaReleaseFile releaseFile) {
+        Long lastModified = lastModified(executable);
+        if (lastModified != null) {
+            Entry entry = new Entry(lastModified, version,
+                    releaseFile == null ? null : releaseFile.getImplementor(),
+                    releaseFile == null ? null : releaseFile.getOsArch());
+            entries.put(key(executable), entry);
+            dirty = true;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes this cache to its file, if it has been modified.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        // unique, so that launchers saving at the same time do not write into the same file
+        Path tmp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                GSON.toJson(entries, TYPE, writer);
+            }
+
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        dirty = false;
+    }
+
+    private static String key(Path executable) {
+        return executable.toAbsolutePath().toString().replace("\\", "/");
+    }
+
+    private static @Nullable Long lastModified(Path executable) {
+        try {
+            return Files.getLastModifiedTime(executable).toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Data
+    public static class Entry {
+        private final long lastModified;
+        private final int version;
+        private final @Nullable String implementor;
+        private final @Nullable String osArch;
+    }
+
+}
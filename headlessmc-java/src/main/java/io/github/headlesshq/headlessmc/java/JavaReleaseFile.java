@@ -0,0 +1,102 @@
+package io.github.headlesshq.headlessmc.java;
+
+import lombok.Data;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The {@code release} file found in the home directory of most JDKs and JREs since Java 7.
+ * Reading it is a lot cheaper than spawning {@code java -version}.
+ */
+@Data
+public class JavaReleaseFile {
+    private final String javaVersion;
+    private final @Nullable String implementor;
+    private final @Nullable String osArch;
+
+    /**
+     * @return the major version parsed from {@link #getJavaVersion()}.
+     * @throws NumberFormatException if the version could not be parsed.
+     */
+    public int getMajorVersion() {
+        String version = javaVersion;
+        int hyphen = version.indexOf('-'); // 17-internal
+        if (hyphen != -1) {
+            version = version.substring(0, hyphen);
+        }
+
+        int plus = version.indexOf('+');
+        if (plus != -1) {
+            version = version.substring(0, plus);
+        }
+
+        int underscore = version.indexOf('_'); // 1.8.0_392
+        if (underscore != -1) {
+            version = version.substring(0, underscore);
+        }
+
+        return Integer.parseInt(JavaVersionParser.getMajorVersion(version));
+    }
+
+    /**
+     * Reads the release file of the given Java home.
+     *
+     * @param javaHome the Java home, the directory containing the bin directory.
+     * @return the parsed release file or {@code null} if there is no release file or it does not contain a JAVA_VERSION.
+     * @throws IOException if reading the file fails.
+     */
+    public static @Nullable JavaReleaseFile read(Path javaHome) throws IOException {
+        Path release = javaHome.resolve("release");
+        if (!Files.isRegularFile(release)) {
+            return null;
+        }
+
+        String javaVersion = null;
+        String implementor = null;
+        String osArch = null;
+        try (BufferedReader reader = Files.newBufferedReader(release, StandardCharsets.ISO_8859_1)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int equals = line.indexOf('=');
+                if (equals == -1) {
+                    continue;
+                }
+
+                String key = line.substring(0, equals).trim();
+                switch (key) {
+                    case "JAVA_VERSION":
+                        javaVersion = unquote(line.substring(equals + 1));
+                        break;
+                    case "IMPLEMENTOR":
+                        implementor = unquote(line.substring(equals + 1));
+                        break;
+                    case "OS_ARCH":
+                        osArch = unquote(line.substring(equals + 1));
+                        break;
+                    default:
+                }
+            }
+        }
+
+        if (javaVersion == null || javaVersion.isEmpty()) {
+            return null;
+        }
+
+        return new JavaReleaseFile(javaVersion, implementor, osArch);
+    }
+
+    private static String unquote(String value) {
+        String result = value.trim();
+        if (result.length() >= 2 && result.startsWith("\"") && result.endsWith("\"")) {
+            result = result.substring(1, result.length() - 1);
+        }
+
+        return result;
+    }
+
+}
@@ -16,7 +16,7 @@ public interface JavaScanner {
         }
 
         try {
-            int majorVersion = getParser().parseVersionCommand(path);
+            int majorVersion = getParser().readVersion(path);
             Java java = new Java(path.replace("\\", "/"), majorVersion);
             log.debug("Found Java: " + java);
             return java;
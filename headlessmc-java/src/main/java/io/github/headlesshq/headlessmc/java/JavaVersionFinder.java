@@ -10,6 +10,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @CustomLog
@@ -43,7 +44,7 @@ public class JavaVersionFinder {
     public List<Java> checkDirectory(JavaScanner javaScanner, Path javaDirPath, OS os, Collection<Java> alreadyIn) {
         if (Files.exists(javaDirPath) && Files.isDirectory(javaDirPath)) {
             try (Stream<Path> stream = Files.list(javaDirPath)) {
-                List<Java> result = new ArrayList<>();
+                List<String> candidates = new ArrayList<>();
                 stream.forEach(javaVersion -> {
                     Path executable = javaVersion.resolve("bin").resolve(os.getType() == OS.Type.WINDOWS ? "java.exe" : "java");
                     if (Files.exists(executable) && !Files.isDirectory(executable)) {
@@ -54,15 +55,17 @@ public class JavaVersionFinder {
 
                         String replaced = path.replace("\\", "/");
                         if (!alreadyIn.stream().anyMatch(java -> replaced.equals(java.getExecutable()))) {
-                            Java java = javaScanner.scanJava(log, path);
-                            if (java != null) {
-                                result.add(java);
-                            }
+                            candidates.add(path);
                         }
                     }
                 });
 
-                return result;
+                // most candidates are resolved through the cache or their release file,
+                // the remaining ones spawn a process, which we do not want to wait for one after another
+                return candidates.parallelStream()
+                        .map(path -> javaScanner.scanJava(log, path))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
             } catch (IOException e) {
                 log.error("Failed to list files in " + javaDirPath + " : " + e.getMessage());
             }
@@ -1,6 +1,9 @@
 package io.github.headlesshq.headlessmc.java;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -19,14 +22,95 @@ public class JavaVersionParser {
     private static final Pattern PATTERN = Pattern.compile("version \"(\\d+)[.-]?(\\d*)");
 
     private final boolean addFilePermissions;
+    @Getter
+    @Setter
+    private @Nullable JavaInstallationCache cache;
 
     public JavaVersionParser() {
         this(false);
     }
 
+    public JavaVersionParser(boolean addFilePermissions, @Nullable JavaInstallationCache cache) {
+        this(addFilePermissions);
+        this.cache = cache;
+    }
+
+    /**
+     * Determines the major version of the given Java executable.
+     * First consults the {@link JavaInstallationCache}, then the {@link JavaReleaseFile} of the installation
+     * and only spawns {@code java -version} if both are not available.
+     *
+     * @param path the path to the Java executable.
+     * @return the major version of the Java executable.
+     * @throws IOException if the version could not be determined.
+     */
+    public int readVersion(String path) throws IOException {
+        Path executable = Paths.get(path);
+        Path executableFile = Files.exists(executable) ? executable : Paths.get(path + ".exe");
+        JavaInstallationCache cache = this.cache;
+        if (cache != null) {
+            JavaInstallationCache.Entry entry = cache.get(executableFile);
+            if (entry != null) {
+                return entry.getVersion();
+            }
+        }
+
+        JavaReleaseFile releaseFile = readReleaseFile(executable);
+        int version;
+        if (releaseFile != null) {
+            addFilePermissions(executable);
+            version = releaseFile.getMajorVersion();
+        } else {
+            version = parseVersionCommand(path);
+        }
+
+        if (cache != null) {
+            cache.put(executableFile, version, releaseFile);
+        }
+
+        return version;
+    }
+
+    /**
+     * @param executable the Java executable, e.g. {@code JAVA_HOME/bin/java}.
+     * @return the release file of the installation or {@code null} if it could not be read.
+     */
+    public @Nullable JavaReleaseFile readReleaseFile(Path executable) {
+        Path bin = executable.toAbsolutePath().getParent();
+        Path javaHome = bin == null ? null : bin.getParent();
+        if (javaHome == null) {
+            return null;
+        }
+
+        try {
+            JavaReleaseFile releaseFile = JavaReleaseFile.read(javaHome);
+            if (releaseFile != null) {
+                releaseFile.getMajorVersion(); // validate
+            }
+
+            return releaseFile;
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
     public int parseVersionCommand(String path) throws IOException {
+        addFilePermissions(Paths.get(path));
+        Process prcs = new ProcessBuilder().command(path, "-version").start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(prcs.getErrorStream()))) {
+            StringBuilder builder = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                builder.append(line);
+            }
+
+            String output = builder.toString();
+            return parseVersion(output);
+        }
+    }
+
+    private void addFilePermissions(Path executable) throws IOException {
         if (addFilePermissions) {
-            Path executable = Paths.get(path);
             // we should probably take the permissions of the file and just add execute instead
             Set<PosixFilePermission> executePermissions = new HashSet<>();
             executePermissions.add(PosixFilePermission.OWNER_READ);
@@ -45,18 +129,6 @@ public class JavaVersionParser {
                 Files.setPosixFilePermissions(jspawnHelper, executePermissions);
             }
         }
-
-        Process prcs = new ProcessBuilder().command(path, "-version").start();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(prcs.getErrorStream()))) {
-            StringBuilder builder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                builder.append(line);
-            }
-
-            String output = builder.toString();
-            return parseVersion(output);
-        }
     }
 
     public int parseVersion(String output) throws IOException {
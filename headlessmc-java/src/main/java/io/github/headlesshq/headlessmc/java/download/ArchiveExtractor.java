@@ -4,78 +4,457 @@ import lombok.CustomLog;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+/**
+ * Extracts zip and tar.gz archives.
+ * Archives are decompressed from a stream, so that extraction can happen while the archive is still being downloaded.
+ * Small entries are written to disk in parallel while the next entries are decompressed,
+ * tar.gz archives keep their file permissions and links.
+ * Entries are extracted into a temporary sibling of the target directory first
+ * and only moved into the target once the whole archive has been verified,
+ * so that a failed or corrupted download never touches an existing installation.
+ */
 @CustomLog
 public class ArchiveExtractor {
+    /**
+     * Entries up to this size are buffered in memory and written by the worker threads.
+     * Larger entries, and entries of unknown size, are copied directly from the archive stream.
+     */
+    private static final int MAX_BUFFERED_ENTRY_SIZE = 8 * 1024 * 1024;
+    /**
+     * Maximum amount of buffered bytes waiting to be written.
+     */
+    private static final int MAX_BYTES_IN_FLIGHT = 64 * 1024 * 1024;
+
+    private final int threads;
+
+    public ArchiveExtractor() {
+        this(Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public ArchiveExtractor(int threads) {
+        this.threads = threads;
+    }
+
     public void extract(Path path, boolean toParentDir) throws IOException {
         String fileName = path.getFileName().toString();
-        if (fileName.endsWith(".zip")) {
-            if (toParentDir) {
-                unzip(path, path.getParent());
-            } else {
-                String dirName = fileName.substring(0, fileName.lastIndexOf("."));
-                unzip(path, path.getParent().resolve(dirName));
-            }
+        Path target;
+        if (toParentDir) {
+            target = path.getParent();
+        } else if (fileName.endsWith(".zip")) {
+            target = path.getParent().resolve(fileName.substring(0, fileName.lastIndexOf(".")));
         } else if (fileName.endsWith(".tar.gz")) {
-            if (toParentDir) {
-                untar(path, path.getParent());
-            } else {
-                String dirName = fileName.substring(0, fileName.length() - ".tar.gz".length());
-                untar(path, path.getParent().resolve(dirName));
-            }
+            target = path.getParent().resolve(fileName.substring(0, fileName.length() - ".tar.gz".length()));
         } else {
             throw new IOException("Failed to extract " + path + ", unknown format");
         }
+
+        log.debug("Extracting " + path.toAbsolutePath() + " to " + target.toAbsolutePath());
+        try (InputStream is = Files.newInputStream(path)) {
+            extract(is, fileName, target, null, null);
+        }
     }
 
-    private void unzip(Path from, Path to) throws IOException {
-        log.debug("Extracting zip " + from.toAbsolutePath() + " to " + to.toAbsolutePath());
-        try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(from))) {
-            ZipEntry entry;
-            while ((entry = zipInputStream.getNextEntry()) != null) {
-                Path entryPath = to.resolve(entry.getName());
-                if (entry.isDirectory()) {
-                    if (!Files.exists(entryPath)) {
-                        Files.createDirectories(entryPath);
-                    }
+    /**
+     * Extracts an archive from the given stream.
+     * The stream is consumed entirely, so that the hash can be verified over the whole archive.
+     * The top level entries of the archive replace existing files in the target directory only if the hash matches,
+     * otherwise nothing in the target directory is changed.
+     *
+     * @param stream the stream to read the archive from, e.g. the body of an HTTP response.
+     * @param fileName the name of the archive, used to determine its format.
+     * @param to the directory to extract to.
+     * @param algorithm the {@link MessageDigest} algorithm of the expected hash, e.g. SHA-256.
+     * @param expectedHash the expected hex hash of the archive, or {@code null} to not verify the archive.
+     * @throws IOException if extraction fails or the hash does not match.
+     */
+    public void extract(InputStream stream, String fileName, Path to, @Nullable String algorithm, @Nullable String expectedHash) throws IOException {
+        MessageDigest digest = null;
+        InputStream in = stream;
+        if (algorithm != null && expectedHash != null) {
+            try {
+                digest = MessageDigest.getInstance(algorithm);
+                in = new DigestInputStream(stream, digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+        }
+
+        if (!fileName.endsWith(".zip") && !fileName.endsWith(".tar.gz")) {
+            throw new IOException("Failed to extract " + fileName + ", unknown format");
+        }
+
+        long nanos = System.nanoTime();
+        Path target = to.toAbsolutePath().normalize();
+        Path parent = target.getParent() == null ? target : target.getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempDirectory(parent, target.getFileName() + ".extract-");
+        try {
+            EntryWriter writer = new EntryWriter(tmp, threads);
+            try {
+                if (fileName.endsWith(".zip")) {
+                    unzip(in, writer);
                 } else {
-                    Files.createDirectories(entryPath.getParent());
-                    try {
-                        Files.copy(zipInputStream, entryPath, StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException ioe) {
-                        zipInputStream.closeEntry();
-                        throw ioe;
-                    }
+                    untar(in, writer);
                 }
 
-                zipInputStream.closeEntry();
+                // the archive might have trailing bytes after the last entry, which are part of the hash
+                byte[] buffer = new byte[8192];
+                //noinspection StatementWithEmptyBody
+                while (in.read(buffer) != -1) { }
+                writer.finish();
+            } catch (IOException | RuntimeException e) {
+                writer.abort();
+                throw e;
+            } finally {
+                writer.close();
+            }
+
+            if (digest != null) {
+                String hash = toHex(digest.digest());
+                if (!hash.equalsIgnoreCase(expectedHash)) {
+                    throw new IOException("Failed to verify " + fileName + ", expected " + algorithm + " " + expectedHash + " but got " + hash);
+                }
             }
+
+            moveIntoPlace(tmp, target);
+            log.debug("Extracted " + writer.getWritten().size() + " files from " + fileName + " in " + ((System.nanoTime() - nanos) / 1_000_000.0) + "ms");
+        } finally {
+            deleteRecursively(tmp);
         }
     }
 
-    private void untar(Path from, Path to) throws IOException {
-        log.debug("Extracting tar " + from.toAbsolutePath() + " to " + to.toAbsolutePath());
-        try (GzipCompressorInputStream gzipIn = new GzipCompressorInputStream(Files.newInputStream(from));
-             TarArchiveInputStream tarIn = new TarArchiveInputStream(gzipIn)) {
-            TarArchiveEntry entry;
-
-            while ((entry = tarIn.getNextEntry()) != null) {
-                Path entryPath = to.resolve(entry.getName());
-                if (entry.isDirectory()) {
-                    if (!Files.exists(entryPath)) {
-                        Files.createDirectories(entryPath);
-                    }
-                } else {
-                    Files.createDirectories(entryPath.getParent());
-                    Files.copy(tarIn, entryPath, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Moves the top level entries of the temporary directory into the target directory.
+     * Existing entries are renamed first and only deleted once the new entry is in place, so they can be restored on failure.
+     */
+    private static void moveIntoPlace(Path tmp, Path target) throws IOException {
+        Files.createDirectories(target);
+        List<Path> children;
+        try (Stream<Path> stream = Files.list(tmp)) {
+            children = stream.collect(Collectors.toList());
+        }
+
+        for (Path child : children) {
+            Path destination = target.resolve(child.getFileName().toString());
+            if (!Files.exists(destination, LinkOption.NOFOLLOW_LINKS)) {
+                Files.move(child, destination, StandardCopyOption.ATOMIC_MOVE);
+                continue;
+            }
+
+            Path old = destination.resolveSibling(destination.getFileName() + ".old-" + UUID.randomUUID());
+            Files.move(destination, old, StandardCopyOption.ATOMIC_MOVE);
+            try {
+                Files.move(child, destination, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(old, destination, StandardCopyOption.ATOMIC_MOVE);
+                throw e;
+            }
+
+            deleteRecursively(old);
+        }
+    }
+
+    private static void deleteRecursively(Path path) {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+
+        // Files.walk does not follow symbolic links, so links pointing outside are deleted, not their targets
+        try (Stream<Path> stream = Files.walk(path)) {
+            for (Path file : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void unzip(InputStream from, EntryWriter writer) throws IOException {
+        ZipInputStream zipInputStream = new ZipInputStream(from);
+        ZipEntry entry;
+        while ((entry = zipInputStream.getNextEntry()) != null) {
+            Path entryPath = writer.resolve(entry.getName());
+            if (entry.isDirectory()) {
+                writer.directory(entryPath, null);
+            } else {
+                writer.file(entryPath, zipInputStream, entry.getSize(), null);
+            }
+
+            zipInputStream.closeEntry();
+        }
+    }
+
+    private void untar(InputStream from, EntryWriter writer) throws IOException {
+        GzipCompressorInputStream gzipIn = new GzipCompressorInputStream(from);
+        TarArchiveInputStream tarIn = new TarArchiveInputStream(gzipIn);
+        TarArchiveEntry entry;
+        while ((entry = tarIn.getNextEntry()) != null) {
+            Path entryPath = writer.resolve(entry.getName());
+            Set<PosixFilePermission> permissions = writer.isPosix() ? toPermissions(entry.getMode()) : null;
+            if (entry.isDirectory()) {
+                writer.directory(entryPath, permissions);
+            } else if (entry.isSymbolicLink()) {
+                writer.symbolicLink(entryPath, entry.getLinkName());
+            } else if (entry.isLink()) {
+                writer.link(entryPath, writer.resolve(entry.getLinkName()));
+            } else if (entry.isFile()) {
+                writer.file(entryPath, tarIn, entry.getSize(), permissions);
+            }
+        }
+    }
+
+    static Set<PosixFilePermission> toPermissions(int mode) {
+        Set<PosixFilePermission> result = EnumSet.noneOf(PosixFilePermission.class);
+        PosixFilePermission[] values = {
+                PosixFilePermission.OTHERS_EXECUTE, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_READ,
+                PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_READ,
+                PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_READ
+        };
+
+        for (int i = 0; i < values.length; i++) {
+            if ((mode & (1 << i)) != 0) {
+                result.add(values[i]);
+            }
+        }
+
+        return result;
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hexArray = "0123456789abcdef".toCharArray();
+        char[] hexChars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            hexChars[i * 2] = hexArray[v >>> 4];
+            hexChars[i * 2 + 1] = hexArray[v & 0x0F];
+        }
+
+        return new String(hexChars);
+    }
+
+    /**
+     * Writes the entries of an archive, small files get written by a thread pool.
+     * Links and directory permissions are applied at the end, once all files have been written.
+     */
+    private static final class EntryWriter implements Closeable {
+        private final Queue<Path> written = new ConcurrentLinkedQueue<>();
+        private final Set<Path> symbolicLinks = new HashSet<>();
+        private final List<Future<?>> futures = new ArrayList<>();
+        private final Map<Path, Path> links = new LinkedHashMap<>();
+        private final Map<Path, Set<PosixFilePermission>> directoryPermissions = new LinkedHashMap<>();
+        private final Semaphore bytesInFlight = new Semaphore(MAX_BYTES_IN_FLIGHT);
+        private final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        private final ExecutorService executor;
+        private final Path root;
+
+        public EntryWriter(Path root, int threads) {
+            this.root = root;
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "HeadlessMc-ArchiveExtractor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        public boolean isPosix() {
+            return posix;
+        }
+
+        public Queue<Path> getWritten() {
+            return written;
+        }
+
+        /**
+         * Resolves the name of an archive entry against the directory extracted to.
+         *
+         * @param name the name of the entry.
+         * @return the path to write the entry to.
+         * @throws IOException if the entry would be written outside of the directory or through a symbolic link of the archive.
+         */
+        public Path resolve(String name) throws IOException {
+            Path result = root.resolve(name).normalize();
+            if (!result.startsWith(root)) {
+                throw new IOException("Archive entry " + name + " is outside of the target directory");
+            }
+
+            // the lexical check above does not see symbolic links created by earlier entries
+            for (Path path = result; path != null && !path.equals(root); path = path.getParent()) {
+                if (symbolicLinks.contains(path)) {
+                    throw new IOException("Archive entry " + name + " would be written through the symbolic link " + root.relativize(path));
+                }
+            }
+
+            return result;
+        }
+
+        public void directory(Path path, @Nullable Set<PosixFilePermission> permissions) throws IOException {
+            Files.createDirectories(path);
+            if (permissions != null) {
+                directoryPermissions.put(path, permissions);
+            }
+        }
+
+        public void symbolicLink(Path path, String target) throws IOException {
+            Path linkTarget = Paths.get(target);
+            Path resolved = path.getParent().resolve(linkTarget).normalize();
+            if (linkTarget.isAbsolute() || !resolved.startsWith(root)) {
+                throw new IOException("Symbolic link " + root.relativize(path) + " points outside of the target directory: " + target);
+            }
+
+            Files.createDirectories(path.getParent());
+            Files.deleteIfExists(path);
+            Files.createSymbolicLink(path, linkTarget);
+            symbolicLinks.add(path);
+            written.add(path);
+        }
+
+        public void link(Path path, Path target) throws IOException {
+            if (symbolicLinks.contains(target)) {
+                // a hard link to a relative symbolic link would resolve relative to its own location
+                throw new IOException("Hard link " + root.relativize(path) + " points to the symbolic link " + root.relativize(target));
+            }
+
+            links.put(path, target);
+        }
+
+        public void file(Path path, InputStream in, long size, @Nullable Set<PosixFilePermission> permissions) throws IOException {
+            checkFailures();
+            Files.createDirectories(path.getParent());
+            if (size < 0 || size > MAX_BUFFERED_ENTRY_SIZE) {
+                Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+                written.add(path);
+                setPermissions(path, permissions);
+                return;
+            }
+
+            int length = (int) size;
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(bytes, offset, length - offset);
+                if (read == -1) {
+                    throw new IOException("Unexpected end of archive while reading " + path);
+                }
+
+                offset += read;
+            }
+
+            try {
+                bytesInFlight.acquire(length);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while extracting " + path, e);
+            }
+
+            futures.add(executor.submit(() -> {
+                try {
+                    Files.write(path, bytes);
+                    written.add(path);
+                    setPermissions(path, permissions);
+                } finally {
+                    bytesInFlight.release(length);
                 }
+
+                return null;
+            }));
+        }
+
+        public void finish() throws IOException {
+            for (Future<?> future : futures) {
+                await(future);
+            }
+
+            for (Map.Entry<Path, Path> link : links.entrySet()) {
+                Files.createDirectories(link.getKey().getParent());
+                Files.deleteIfExists(link.getKey());
+                try {
+                    Files.createLink(link.getKey(), link.getValue());
+                } catch (UnsupportedOperationException | IOException e) {
+                    Files.copy(link.getValue(), link.getKey(), StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                written.add(link.getKey());
+            }
+
+            for (Map.Entry<Path, Set<PosixFilePermission>> entry : directoryPermissions.entrySet()) {
+                setPermissions(entry.getKey(), entry.getValue());
+            }
+        }
+
+        public void abort() {
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+        }
+
+        /**
+         * Stops the worker threads and waits for them, so that no file is written once the temporary directory gets deleted.
+         */
+        @Override
+        public void close() {
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.warn("Timed out waiting for the archive writers to stop");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void checkFailures() throws IOException {
+            Iterator<Future<?>> itr = futures.iterator();
+            while (itr.hasNext()) {
+                Future<?> future = itr.next();
+                if (!future.isDone()) {
+                    break;
+                }
+
+                await(future);
+                itr.remove();
+            }
+        }
+
+        private void setPermissions(Path path, @Nullable Set<PosixFilePermission> permissions) throws IOException {
+            if (posix && permissions != null && !permissions.isEmpty()) {
+                Files.setPosixFilePermissions(path, permissions);
+            }
+        }
+
+        private static void await(Future<?> future) throws IOException {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while extracting", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+
+                throw new IOException(e.getCause());
             }
         }
     }
@@ -3,6 +3,8 @@ package io.github.headlesshq.headlessmc.java.download;
 import io.github.headlesshq.headlessmc.api.command.line.ProgressBarProvider;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 public interface DownloadClient {
@@ -10,4 +12,33 @@ public interface DownloadClient {
 
     void downloadBigFile(String url, Path destination, String progressBarTitle, ProgressBarProvider progressBarProvider) throws IOException;
 
+    /**
+     * Downloads a big file and passes the response body to the given handler.
+     * Implementations should pass the body while it is still being received,
+     * so that the handler can process the bytes as they arrive.
+     * The default implementation downloads to a temporary file first.
+     *
+     * @param url the url to download from.
+     * @param handler the handler consuming the body.
+     * @param progressBarTitle the title of the progress bar to display.
+     * @param progressBarProvider provides the progress bar.
+     * @throws IOException if downloading or handling the body fails.
+     */
+    default void streamBigFile(String url, BodyHandler handler, String progressBarTitle, ProgressBarProvider progressBarProvider) throws IOException {
+        Path tempFile = Files.createTempFile("hmc-download", ".tmp");
+        try {
+            downloadBigFile(url, tempFile, progressBarTitle, progressBarProvider);
+            try (InputStream is = Files.newInputStream(tempFile)) {
+                handler.handle(is);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @FunctionalInterface
+    interface BodyHandler {
+        void handle(InputStream body) throws IOException;
+    }
+
 }
@@ -20,14 +20,14 @@ public class TemurinDownloader implements JavaDownloader {
     public void download(Path javaVersionsDir, JavaDownloadRequest request) throws IOException {
         TemurinPackage temurinPackage = getPackage(request);
         Files.createDirectories(javaVersionsDir);
-        Path downloadPath = javaVersionsDir.resolve(getFileNameFromPackage(temurinPackage.getLink()));
-        try {
-            request.getClient().downloadBigFile(temurinPackage.getLink(), downloadPath, request.getProgressBarTitle(), request.getProgressBarProvider());
-            downloadPath.toFile().deleteOnExit();
-            new ArchiveExtractor().extract(downloadPath, true/* zip contains one jre folder so we unzip to HeadlessMC/java directly*/);
-        } finally {
-            Files.delete(downloadPath);
-        }
+        String fileName = getFileNameFromPackage(temurinPackage.getLink());
+        ArchiveExtractor extractor = new ArchiveExtractor();
+        // the archive contains one jre folder so we extract to HeadlessMC/java directly, while it is being downloaded
+        request.getClient().streamBigFile(
+                temurinPackage.getLink(),
+                body -> extractor.extract(body, fileName, javaVersionsDir, "SHA-256", temurinPackage.getChecksum()),
+                request.getProgressBarTitle(),
+                request.getProgressBarProvider());
     }
 
     TemurinPackage getPackage(JavaDownloadRequest request) throws IOException {
@@ -85,7 +85,7 @@ public class TemurinDownloader implements JavaDownloader {
     public static class TemurinPackage {
         private final String link;
         private final String imageType;
-        // could also check the checksum? private final String checksum_link;
+        private final @Nullable String checksum;
 
         // TODO: at some point use gson reflection to get this
         //  but for graalvm this is simpler for now
@@ -99,7 +99,11 @@ public class TemurinDownloader implements JavaDownloader {
                         if (pkg != null && pkg.isJsonObject()) {
                             JsonElement link = pkg.getAsJsonObject().get("link");
                             if (link != null && link.isJsonPrimitive()) {
-                                return new TemurinPackage(link.getAsString(), imageType.getAsString());
+                                JsonElement checksum = pkg.getAsJsonObject().get("checksum");
+                                return new TemurinPackage(
+                                        link.getAsString(),
+                                        imageType.getAsString(),
+                                        checksum != null && checksum.isJsonPrimitive() ? checksum.getAsString() : null);
                             }
                         }
                     }
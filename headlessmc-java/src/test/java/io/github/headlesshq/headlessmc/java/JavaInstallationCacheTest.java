@@ -0,0 +1,65 @@
+package io.github.headlesshq.headlessmc.java;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaInstallationCacheTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReleaseFile() throws IOException {
+        Path javaHome = tempDir.resolve("jdk-17");
+        Files.createDirectories(javaHome);
+        Files.write(javaHome.resolve("release"), ("IMPLEMENTOR=\"Eclipse Adoptium\"\n"
+                + "JAVA_VERSION=\"17.0.9\"\n"
+                + "OS_ARCH=\"x86_64\"\n").getBytes(StandardCharsets.UTF_8));
+
+        JavaReleaseFile releaseFile = JavaReleaseFile.read(javaHome);
+        assertNotNull(releaseFile);
+        assertEquals(17, releaseFile.getMajorVersion());
+        assertEquals("Eclipse Adoptium", releaseFile.getImplementor());
+        assertEquals("x86_64", releaseFile.getOsArch());
+
+        assertEquals(8, new JavaReleaseFile("1.8.0_392", null, null).getMajorVersion());
+        assertEquals(21, new JavaReleaseFile("21", null, null).getMajorVersion());
+        assertEquals(17, new JavaReleaseFile("17-internal", null, null).getMajorVersion());
+        assertNull(JavaReleaseFile.read(tempDir.resolve("does-not-exist")));
+    }
+
+    @Test
+    public void testReadVersionWithoutSpawningProcess() throws IOException {
+        Path javaHome = tempDir.resolve("jdk-21");
+        Path executable = javaHome.resolve("bin").resolve("java");
+        Files.createDirectories(executable.getParent());
+        // not an actual executable, so parsing would fail if a process was spawned
+        Files.write(executable, new byte[0]);
+        Files.write(javaHome.resolve("release"), "JAVA_VERSION=\"21.0.1\"".getBytes(StandardCharsets.UTF_8));
+
+        Path cacheFile = tempDir.resolve("java_cache.json");
+        JavaInstallationCache cache = JavaInstallationCache.load(cacheFile);
+        JavaVersionParser parser = new JavaVersionParser(false, cache);
+        assertEquals(21, parser.readVersion(executable.toString()));
+        cache.save();
+
+        // the release file is gone, the version has to come from the cache
+        Files.delete(javaHome.resolve("release"));
+        JavaInstallationCache loaded = JavaInstallationCache.load(cacheFile);
+        assertEquals(1, loaded.size());
+        assertEquals(21, new JavaVersionParser(false, loaded).readVersion(executable.toString()));
+
+        // modifying the executable invalidates the entry
+        Files.setLastModifiedTime(executable, FileTime.fromMillis(Files.getLastModifiedTime(executable).toMillis() - 10_000L));
+        assertNull(loaded.get(executable));
+        assertThrows(IOException.class, () -> new JavaVersionParser(false, loaded).readVersion(executable.toString()));
+    }
+
+}
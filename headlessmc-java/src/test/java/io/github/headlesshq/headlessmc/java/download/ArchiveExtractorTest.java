@@ -0,0 +1,203 @@
+package io.github.headlesshq.headlessmc.java.download;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ArchiveExtractorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testZip() throws IOException, NoSuchAlgorithmException {
+        byte[] large = new byte[10 * 1024 * 1024]; // larger than what gets buffered
+        new Random(0).nextBytes(large);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(baos)) {
+            zip.putNextEntry(new ZipEntry("jdk/"));
+            zip.closeEntry();
+            for (int i = 0; i < 100; i++) {
+                zip.putNextEntry(new ZipEntry("jdk/lib/file" + i + ".txt"));
+                zip.write(("file" + i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+
+            zip.putNextEntry(new ZipEntry("jdk/lib/modules"));
+            zip.write(large);
+            zip.closeEntry();
+        }
+
+        byte[] archive = baos.toByteArray();
+        new ArchiveExtractor(4).extract(new ByteArrayInputStream(archive), "jdk.zip", tempDir, "SHA-256", sha256(archive));
+        for (int i = 0; i < 100; i++) {
+            assertEquals("file" + i, new String(Files.readAllBytes(tempDir.resolve("jdk/lib/file" + i + ".txt")), StandardCharsets.UTF_8));
+        }
+
+        assertArrayEquals(large, Files.readAllBytes(tempDir.resolve("jdk/lib/modules")));
+
+        Path other = tempDir.resolve("other");
+        assertThrows(IOException.class, () -> new ArchiveExtractor().extract(new ByteArrayInputStream(archive), "jdk.zip", other, "SHA-256", "0000"));
+        assertFalse(Files.exists(other.resolve("jdk/lib/file0.txt")));
+        assertFalse(Files.exists(other.resolve("jdk/lib/modules")));
+    }
+
+    @Test
+    public void testTarGzPermissionsAndLinks() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(baos))) {
+            TarArchiveEntry bin = new TarArchiveEntry("jdk/bin/");
+            tar.putArchiveEntry(bin);
+            tar.closeArchiveEntry();
+
+            byte[] content = "#!/bin/sh".getBytes(StandardCharsets.UTF_8);
+            TarArchiveEntry java = new TarArchiveEntry("jdk/bin/java");
+            java.setMode(0100755);
+            java.setSize(content.length);
+            tar.putArchiveEntry(java);
+            tar.write(content);
+            tar.closeArchiveEntry();
+
+            TarArchiveEntry link = new TarArchiveEntry("jdk/bin/java-link", TarArchiveEntry.LF_SYMLINK);
+            link.setLinkName("java");
+            tar.putArchiveEntry(link);
+            tar.closeArchiveEntry();
+        }
+
+        new ArchiveExtractor().extract(new ByteArrayInputStream(baos.toByteArray()), "jdk.tar.gz", tempDir, null, null);
+        Path java = tempDir.resolve("jdk/bin/java");
+        assertEquals("#!/bin/sh", new String(Files.readAllBytes(java), StandardCharsets.UTF_8));
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertTrue(Files.getPosixFilePermissions(java).contains(PosixFilePermission.OWNER_EXECUTE));
+            assertTrue(Files.isSymbolicLink(tempDir.resolve("jdk/bin/java-link")));
+            assertEquals("#!/bin/sh", new String(Files.readAllBytes(tempDir.resolve("jdk/bin/java-link")), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testEntryOutsideOfTarget() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(baos)) {
+            zip.putNextEntry(new ZipEntry("../evil.txt"));
+            zip.write(1);
+            zip.closeEntry();
+        }
+
+        Path target = tempDir.resolve("target");
+        assertThrows(IOException.class, () -> new ArchiveExtractor().extract(new ByteArrayInputStream(baos.toByteArray()), "evil.zip", target, null, null));
+        assertFalse(Files.exists(tempDir.resolve("evil.txt")));
+    }
+
+    @Test
+    public void testFailedVerificationKeepsExistingInstallation() throws IOException {
+        Path existing = tempDir.resolve("jdk/lib/file0.txt");
+        Files.createDirectories(existing.getParent());
+        Files.write(existing, "working".getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(baos)) {
+            zip.putNextEntry(new ZipEntry("jdk/lib/file0.txt"));
+            zip.write("corrupted".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        assertThrows(IOException.class, () -> new ArchiveExtractor().extract(new ByteArrayInputStream(baos.toByteArray()), "jdk.zip", tempDir, "SHA-256", "0000"));
+        assertEquals("working", new String(Files.readAllBytes(existing), StandardCharsets.UTF_8));
+        // the temporary directory has been deleted again
+        try (Stream<Path> stream = Files.list(tempDir.getParent())) {
+            assertTrue(stream.noneMatch(p -> p.getFileName().toString().startsWith(tempDir.getFileName() + ".extract-")));
+        }
+    }
+
+    @Test
+    public void testSymbolicLinkOutsideOfTarget() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path target = tempDir.resolve("target");
+        Path outside = tempDir.resolve("outside");
+        Files.createDirectories(outside);
+
+        byte[] escaping = tar(tar -> {
+            symbolicLink(tar, "jdk/escape", "../../outside");
+            file(tar, "jdk/escape/evil.txt", "evil");
+        });
+
+        assertThrows(IOException.class, () -> new ArchiveExtractor().extract(new ByteArrayInputStream(escaping), "jdk.tar.gz", target, null, null));
+        assertFalse(Files.exists(outside.resolve("evil.txt")));
+        assertFalse(Files.exists(target.resolve("jdk")));
+
+        // even links which stay inside must not be written through
+        byte[] through = tar(tar -> {
+            file(tar, "jdk/lib/real.txt", "real");
+            symbolicLink(tar, "jdk/bin", "lib");
+            file(tar, "jdk/bin/real.txt", "overwritten");
+        });
+
+        assertThrows(IOException.class, () -> new ArchiveExtractor().extract(new ByteArrayInputStream(through), "jdk.tar.gz", target, null, null));
+        assertFalse(Files.exists(target.resolve("jdk")));
+    }
+
+    @Test
+    public void testPermissions() {
+        assertEquals(9, ArchiveExtractor.toPermissions(0777).size());
+        assertTrue(ArchiveExtractor.toPermissions(0644).contains(PosixFilePermission.OWNER_WRITE));
+        assertFalse(ArchiveExtractor.toPermissions(0644).contains(PosixFilePermission.OWNER_EXECUTE));
+    }
+
+    private static byte[] tar(TarWriter writer) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(baos))) {
+            writer.write(tar);
+        }
+
+        return baos.toByteArray();
+    }
+
+    private static void symbolicLink(TarArchiveOutputStream tar, String name, String target) throws IOException {
+        TarArchiveEntry link = new TarArchiveEntry(name, TarArchiveEntry.LF_SYMLINK);
+        link.setLinkName(target);
+        tar.putArchiveEntry(link);
+        tar.closeArchiveEntry();
+    }
+
+    private static void file(TarArchiveOutputStream tar, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        tar.putArchiveEntry(entry);
+        tar.write(bytes);
+        tar.closeArchiveEntry();
+    }
+
+    private interface TarWriter {
+        void write(TarArchiveOutputStream tar) throws IOException;
+    }
+
+    private static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            sb.append(String.format("%02x", b));
+        }
+
+        return sb.toString();
+    }
+
+}
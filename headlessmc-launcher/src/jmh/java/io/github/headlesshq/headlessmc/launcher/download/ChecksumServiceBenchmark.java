@@ -0,0 +1,72 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares verifying a file with the {@link ChecksumService}, which reuses its digest and a direct buffer and compares raw hashes,
+ * with the previous approach of reading the file through an {@link InputStream} with a new digest and comparing hex strings.
+ * The sizes correspond to a small asset and a large jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChecksumServiceBenchmark {
+    @Param({ "4096", "16777216" })
+    public int size;
+
+    private final ChecksumService checksumService = new ChecksumService();
+    private Path file;
+    private String hash;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(0).nextBytes(bytes);
+        file = Files.createTempFile("headlessmc-checksum", ".bin");
+        Files.write(file, bytes);
+        hash = checksumService.hash(bytes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public boolean checksumService() throws IOException {
+        return checksumService.checkIntegrity(file, (long) size, hash);
+    }
+
+    @Benchmark
+    public boolean inputStream() throws IOException {
+        MessageDigest digest = checksumService.getHashFunction();
+        byte[] buffer = new byte[8096];
+        long totalReadBytes = 0;
+        try (InputStream is = Files.newInputStream(file)) {
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+                totalReadBytes += n;
+            }
+        }
+
+        StringBuilder hashBuilder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hashBuilder.append(String.format("%02x", b));
+        }
+
+        return totalReadBytes == size && hash.equalsIgnoreCase(hashBuilder.toString());
+    }
+
+}
@@ -0,0 +1,79 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the {@link TestCaseMatcher} with evaluating every action through its
+ * {@link TestCase.Action.Type#getFunction()}, for a test case with multiple conditions checked against every line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestCaseMatcherBenchmark {
+    private static final String[] TEMPLATES = {
+            "[%02d:%02d:%02d] [Render thread/INFO]: Loaded %d recipes",
+            "[%02d:%02d:%02d] [Worker-Main-%d/WARN]: Missing sound for event: minecraft:item.goat_horn.play",
+            "[%02d:%02d:%02d] [Render thread/INFO]: Created: 1024x512x4 minecraft:textures/atlas/blocks.png-atlas (%d)",
+            "[%02d:%02d:%02d] [Server thread/INFO]: Preparing spawn area: %d%%",
+    };
+
+    @Param({ "false", "true" })
+    public boolean ignoreCase;
+
+    private final List<TestCase.Action> actions = new ArrayList<>();
+    private String[] lines;
+    private TestCaseMatcher matcher;
+
+    @Setup
+    public void setup() {
+        actions.add(action(TestCase.Action.Type.CONTAINS, "Done ("));
+        actions.add(action(TestCase.Action.Type.ENDS_WITH, "For help, type \"help\""));
+        actions.add(action(TestCase.Action.Type.CONTAINS, "Exception in thread"));
+        actions.add(action(TestCase.Action.Type.CONTAINS, "Reported exception thrown!"));
+        actions.add(action(TestCase.Action.Type.ENDS_WITH, "has crashed!"));
+        actions.add(action(TestCase.Action.Type.REGEX, ".*Preparing spawn area: 100%"));
+        matcher = new TestCaseMatcher(new TestCase(actions, "benchmark", null, null, null));
+
+        Random random = new Random(0);
+        lines = new String[4096];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = String.format(TEMPLATES[random.nextInt(TEMPLATES.length)],
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4096)
+    public void actionFunctions(Blackhole blackhole) throws IOException {
+        for (String line : lines) {
+            for (TestCase.Action action : actions) {
+                blackhole.consume(action.getType().getFunction().evaluate(null, action, line));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4096)
+    public void compiledMatcher(Blackhole blackhole) {
+        for (String line : lines) {
+            for (TestCase.Action action : actions) {
+                blackhole.consume(matcher.evaluate(action, line));
+            }
+        }
+    }
+
+    private TestCase.Action action(TestCase.Action.Type type, String message) {
+        return new TestCase.Action(type, ignoreCase, null, message, null, null, null, null);
+    }
+
+}
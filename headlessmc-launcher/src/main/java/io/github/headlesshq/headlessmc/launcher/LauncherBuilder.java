@@ -21,10 +21,12 @@ import io.github.headlesshq.headlessmc.launcher.command.LaunchContext;
 import io.github.headlesshq.headlessmc.launcher.command.download.VersionInfoCache;
 import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
 import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
+import io.github.headlesshq.headlessmc.launcher.download.MetadataCache;
 import io.github.headlesshq.headlessmc.launcher.files.*;
 import io.github.headlesshq.headlessmc.launcher.java.JavaService;
 import io.github.headlesshq.headlessmc.launcher.launch.ProcessFactory;
 import io.github.headlesshq.headlessmc.launcher.mods.ModManager;
+import io.github.headlesshq.headlessmc.launcher.mods.files.ModFileCache;
 import io.github.headlesshq.headlessmc.launcher.plugin.PluginManager;
 import io.github.headlesshq.headlessmc.launcher.server.ServerManager;
 import io.github.headlesshq.headlessmc.launcher.specifics.VersionSpecificModManager;
@@ -110,6 +112,23 @@ public class LauncherBuilder {
                             .setHeader(Headers.USER_AGENT, configService.getConfig().get(LauncherProperties.HTTP_USER_AGENT, "Mozilla/5.0")));
         }
 
+        downloadService.setParallelRanges((int) Math.max(1L, configService.getConfig().get(LauncherProperties.DOWNLOAD_PARALLEL_RANGES, 4L)));
+        downloadService.setMinRangeSize(Math.max(1L, configService.getConfig().get(LauncherProperties.DOWNLOAD_RANGE_MIN_SIZE, 8_000_000L)));
+        downloadService.setRetries((int) Math.max(1L, configService.getConfig().get(LauncherProperties.DOWNLOAD_RETRIES, 3L)));
+        if (configService.getConfig().get(LauncherProperties.HTTP_CACHE, true)) {
+            downloadService.setMetadataCache(new MetadataCache(
+                    downloadService,
+                    requireNonNull(fileManager, "FileManager was null!").getDir("httpcache").toPath(),
+                    Math.max(0L, configService.getConfig().get(LauncherProperties.HTTP_CACHE_TTL, 600_000L))));
+        }
+
+        versionInfoCache.setDownloadService(downloadService);
+        downloadService.setMaxConnectionsPerHost((int) Math.max(1L, configService.getConfig().get(LauncherProperties.HTTP_MAX_CONNECTIONS_PER_HOST, 8L)));
+
+        if (configService.getConfig().get(LauncherProperties.HTTP_METRICS, false)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> log.info(downloadService.getMetrics().getSummary()), "HeadlessMc-HttpMetrics"));
+        }
+
         return this;
     }
 
@@ -117,7 +136,15 @@ public class LauncherBuilder {
         return ifNull(
                 LauncherBuilder::modManager,
                 LauncherBuilder::modManager,
-                () -> ModManager.create(requireNonNull(downloadService(), "DownloadService not initialized")));
+                () -> {
+                    ModManager modManager = ModManager.create(requireNonNull(downloadService(), "DownloadService not initialized"));
+                    if (requireNonNull(configService, "ConfigHolder was null!").getConfig().get(LauncherProperties.MODS_CACHE, true)) {
+                        modManager.getModFileReaderManager().setCache(new ModFileCache(
+                                requireNonNull(fileManager, "FileManager was null!").getDir("cache").toPath().resolve("mod-files.json")));
+                    }
+
+                    return modManager;
+                });
     }
 
     public LauncherBuilder initDefaultServices() {
@@ -137,6 +164,11 @@ public class LauncherBuilder {
             AccountStore accountStore = new AccountStore(requireNonNull(launcherConfig));
             this.accountManager = new AccountManager(new AccountValidator(), new OfflineChecker(requireNonNull(configService)), accountStore);
             accountManager.load(configService.getConfig());
+            if (configService.getConfig().get(LauncherProperties.BACKGROUND_REFRESH, true)) {
+                AccountRefreshService refreshService = new AccountRefreshService(accountManager, configService::getConfig);
+                // started by the interactive command line, see AccountManager.startBackgroundRefresh
+                accountManager.setRefreshService(refreshService);
+            }
         }
 
         return this;
@@ -74,6 +74,7 @@ public interface LauncherProperties extends HmcProperties {
     Property<Boolean> ASSETS_CHECK_FILE_HASH = bool("hmc.assets.check.file.hash");
     Property<Boolean> ASSETS_BACKOFF = bool("hmc.assets.backoff");
     Property<Boolean> ALWAYS_DOWNLOAD_ASSETS_INDEX = bool("hmc.always.download.assets.index");
+    Property<Boolean> ASSETS_LINK = bool("hmc.assets.link");
 
     Property<Boolean> LIBRARIES_CHECK_HASH = bool("hmc.libraries.check.hash");
     Property<Boolean> LIBRARIES_CHECK_SIZE = bool("hmc.libraries.check.size"); // < implied by check hash
@@ -91,6 +92,9 @@ public interface LauncherProperties extends HmcProperties {
     Property<Boolean> REFRESH_ON_GAME_LAUNCH = bool("hmc.account.refresh.on.game.launch");
     Property<Boolean> REFRESH_FAILURE_DELETE = bool("hmc.account.delete.on.refresh.failure");
     Property<Boolean> FAIL_LAUNCH_ON_REFRESH_FAILURE = bool("hmc.account.fail.launch.on.refresh.failure");
+    Property<Boolean> BACKGROUND_REFRESH = bool("hmc.account.background.refresh");
+    Property<Long> ACCOUNT_REFRESH_MARGIN = number("hmc.account.refresh.margin");
+    Property<Long> ENTITLEMENTS_CACHE_TTL = number("hmc.account.entitlements.cache.ttl");
 
     // TODO: actual cache for each version?
     Property<String> EXTRACTED_FILE_CACHE_UUID = string("hmc.extracted.file.cache.uuid");
@@ -98,6 +102,17 @@ public interface LauncherProperties extends HmcProperties {
     Property<Boolean> HTTP_USER_AGENT_ENABLED = bool("hmc.http.user.agent.enabled");
     Property<String> HTTP_USER_AGENT = string("hmc.http.user.agent");
 
+    Property<Long> DOWNLOAD_PARALLEL_RANGES = number("hmc.download.parallel.ranges");
+    Property<Long> DOWNLOAD_RANGE_MIN_SIZE = number("hmc.download.range.min.size");
+    Property<Long> DOWNLOAD_RETRIES = number("hmc.download.retries");
+    Property<Long> PREFETCH_PARALLELISM = number("hmc.prefetch.parallelism");
+
+    Property<Boolean> HTTP_CACHE = bool("hmc.http.cache");
+    Property<Long> HTTP_CACHE_TTL = number("hmc.http.cache.ttl");
+    Property<Long> HTTP_MAX_CONNECTIONS_PER_HOST = number("hmc.http.max.connections.per.host");
+    Property<Boolean> HTTP_METRICS = bool("hmc.http.metrics");
+    Property<Boolean> MODS_CACHE = bool("hmc.mods.cache");
+
     Property<Boolean> GAME_DIR_FOR_EACH_VERSION = bool("hmc.game.dir.for.each.version");
 
     Property<Boolean> INSTALL_LOGGING = bool("hmc.install.mc.logging");
@@ -111,9 +126,15 @@ public interface LauncherProperties extends HmcProperties {
     Property<Boolean> REQUIRE_EXACT_JAVA = bool("hmc.java.require.exact");
     Property<String> JAVA_DISTRIBUTION = string("hmc.auto.java.distribution");
     Property<Boolean> JAVA_ALWAYS_ADD_FILE_PERMISSIONS = bool("hmc.java.always.add.file.permissions");
+    Property<Boolean> JAVA_CACHE = bool("hmc.java.cache");
+
+    Property<Boolean> FORGE_INSTALL_CACHE = bool("hmc.forge.install.cache");
+    Property<Boolean> FORGE_IN_PROCESS_PROCESSORS = bool("hmc.forge.in.process.processors");
+    Property<Long> FORGE_PROCESSOR_THREADS = number("hmc.forge.processor.threads");
 
     Property<Boolean> CRASH_REPORT_WATCHER = bool("hmc.crash.report.watcher");
     Property<Boolean> CRASH_REPORT_WATCHER_EXIT = bool("hmc.crash.report.watcher.exit");
+    Property<Long> CRASH_GRACE_PERIOD = number("hmc.crash.grace.period");
 
     Property<Boolean> SERVER_LAUNCH_FOR_EULA = bool("hmc.server.launch.for.eula");
     Property<Boolean> SERVER_ACCEPT_EULA = bool("hmc.server.accept.eula");
@@ -122,6 +143,7 @@ public interface LauncherProperties extends HmcProperties {
     Property<Boolean> SERVER_TEST = bool("hmc.server.test");
     Property<Boolean> SERVER_TEST_CACHE = bool("hmc.server.test.cache");
     Property<Boolean> SERVER_TEST_CACHE_USE_MC_DIR = bool("hmc.server.test.cache.use.mc.dir");
+    Property<Boolean> SERVER_TEST_POOL = bool("hmc.server.test.pool");
 
     Property<String> SERVER_TEST_DIR = string("hmc.server.test.dir");
     Property<String> SERVER_TEST_NAME = string("hmc.server.test.name");
@@ -130,8 +152,10 @@ public interface LauncherProperties extends HmcProperties {
     Property<String> SERVER_TEST_BUILD = string("hmc.server.test.build");
 
     Property<String> TEST_FILE = string("hmc.test.filename");
+    Property<Boolean> TEST_UPDATE_BASELINE = bool("hmc.test.update.baseline");
     Property<Boolean> LEAVE_AFTER_TEST = bool("hmc.test.leave.after");
     Property<Boolean> NO_TEST_TIMEOUT = bool("hmc.test.no.timeout");
+    Property<Long> TEST_MATRIX_PARALLELISM = number("hmc.test.matrix.parallelism");
 
     Property<Boolean> AUTO_DOWNLOAD_SPECIFICS = bool("hmc.auto.download.specifics");
 
@@ -65,6 +65,7 @@ public final class Main {
             log.info(String.format("Detected: %s", builder.os()));
             log.info(String.format("Minecraft Dir: %s", launcher.getMcFiles()));
             launcher.log(VersionUtil.makeTable(VersionUtil.releases(launcher.getVersionService().getContents())));
+            launcher.getAccountManager().startBackgroundRefresh();
             launcher.getCommandLine().read(launcher.getHeadlessMc());
         }
     }
@@ -47,6 +47,7 @@ public class QuickExitCliHandler {
             clm.getCommandConsumer().accept(cmd);
             if (clm.isWaitingForInput()) {
                 log.debug("Waiting for more input...");
+                launcher.getAccountManager().startBackgroundRefresh();
                 clm.read(launcher);
             }
 
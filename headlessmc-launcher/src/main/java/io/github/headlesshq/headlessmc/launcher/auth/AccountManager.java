@@ -6,6 +6,7 @@ import io.github.headlesshq.headlessmc.auth.ValidatedAccount;
 import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
 import net.lenni0451.commons.httpclient.HttpClient;
 import net.raphimc.minecraftauth.MinecraftAuth;
+import net.raphimc.minecraftauth.step.java.StepMCToken;
 import net.raphimc.minecraftauth.step.java.session.StepFullJavaSession;
 import net.raphimc.minecraftauth.step.msa.StepCredentialsMsaCode;
 import org.jetbrains.annotations.Nullable;
@@ -25,6 +26,10 @@ public class AccountManager {
     private final AccountValidator accountValidator;
     private final OfflineChecker offlineChecker;
     private final AccountStore accountStore;
+    @Getter(AccessLevel.NONE)
+    private final Object refreshLock = new Object();
+    @Setter
+    private @Nullable AccountRefreshService refreshService;
 
     @Synchronized
     public @Nullable ValidatedAccount getPrimaryAccount() {
@@ -45,17 +50,23 @@ public class AccountManager {
         save();
     }
 
-    @Synchronized
+    /**
+     * Refreshes the given account and replaces it with the refreshed account.
+     * The accounts are only locked to swap in the refreshed account, not during the round trip to the authentication servers.
+     *
+     * @param account the account to refresh.
+     * @param config the config to use, if {@code null} the account will not be deleted if refreshing fails.
+     * @return the refreshed account.
+     * @throws AuthException if refreshing fails.
+     */
     public ValidatedAccount refreshAccount(ValidatedAccount account, @Nullable Config config) throws AuthException {
+        ValidatedAccount refreshedAccount;
         try {
             log.debug("Refreshing account " + account);
-            HttpClient httpClient = MinecraftAuth.createHttpClient();
+            HttpClient httpClient = accountValidator.getHttpClient();
             StepFullJavaSession.FullJavaSession refreshedSession = MinecraftAuth.JAVA_DEVICE_CODE_LOGIN.refresh(httpClient, account.getSession());
-            ValidatedAccount refreshedAccount = new ValidatedAccount(refreshedSession, account.getXuid());
+            refreshedAccount = new ValidatedAccount(refreshedSession, account.getXuid());
             log.debug("Refreshed account: " + refreshedAccount);
-            removeAccount(account);
-            addAccount(refreshedAccount);
-            return refreshedAccount;
         } catch (Exception e) {
             if (config != null && config.get(LauncherProperties.REFRESH_FAILURE_DELETE, false)) {
                 removeAccount(account);
@@ -63,14 +74,104 @@ public class AccountManager {
 
             throw new AuthException(e.getMessage(), e);
         }
+
+        replaceAccount(account, refreshedAccount);
+        return refreshedAccount;
     }
 
     @Deprecated
-    @Synchronized
     public ValidatedAccount refreshAccount(ValidatedAccount account) throws AuthException {
         return refreshAccount(account, null);
     }
 
+    /**
+     * Refreshes the given account only if its Minecraft token expires within the given margin.
+     * If the account has already been refreshed, e.g. by the {@link AccountRefreshService}, the refreshed account is used.
+     * Calls of this method are serialized, so that an account is not refreshed twice at the same time,
+     * but like {@link #refreshAccount(ValidatedAccount, Config)} they do not block the other methods of this manager.
+     *
+     * @param account the account to refresh.
+     * @param config the config to use, if {@code null} the account will not be deleted if refreshing fails.
+     * @param margin the time in milliseconds the token has to remain valid for.
+     * @return an account whose token remains valid for the margin.
+     * @throws AuthException if refreshing fails.
+     */
+    public ValidatedAccount refreshAccountIfExpiring(ValidatedAccount account, @Nullable Config config, long margin) throws AuthException {
+        synchronized (refreshLock) {
+            ValidatedAccount current = getCurrentAccount(account);
+            if (!isExpiring(current, margin)) {
+                log.debug("Token of " + current.getName() + " is still valid, not refreshing");
+                return current;
+            }
+
+            return refreshAccount(current, config);
+        }
+    }
+
+    /**
+     * Starts the {@link AccountRefreshService}, if there is one.
+     * Only interactive sessions need it, a single command does not run long enough for a token to expire.
+     */
+    public void startBackgroundRefresh() {
+        AccountRefreshService refreshService = this.refreshService;
+        if (refreshService != null) {
+            refreshService.start();
+        }
+    }
+
+    @Synchronized
+    private ValidatedAccount getCurrentAccount(ValidatedAccount account) {
+        if (!accounts.contains(account)) {
+            for (ValidatedAccount current : accounts) {
+                if (Objects.equals(account.getName(), current.getName())) {
+                    return current;
+                }
+            }
+        }
+
+        return account;
+    }
+
+    @Synchronized
+    private void replaceAccount(ValidatedAccount account, ValidatedAccount refreshedAccount) {
+        removeAccount(account);
+        addAccount(refreshedAccount);
+    }
+
+    /**
+     * @param account the account to check.
+     * @param margin the time in milliseconds.
+     * @return {@code true} if the Minecraft token of the account expires within the given margin.
+     */
+    public boolean isExpiring(ValidatedAccount account, long margin) {
+        StepMCToken.MCToken token = account.getSession().getMcProfile().getMcToken();
+        return token == null || token.getExpireTimeMs() - margin <= System.currentTimeMillis();
+    }
+
+    /**
+     * Validates that the account owns the game, using the xuid cached in the {@link AccountStore} if available.
+     *
+     * @param session the session to validate.
+     * @param config the config to get the time to cache the validation for from.
+     * @return the validated account.
+     * @throws AuthException if the account does not own the game or the validation failed.
+     */
+    public ValidatedAccount validate(StepFullJavaSession.FullJavaSession session, Config config) throws AuthException {
+        String xuid = accountStore.getCachedXuid(session.getMcProfile().getId());
+        if (xuid != null) {
+            log.debug("Using cached entitlements for " + session.getMcProfile().getName());
+            return new ValidatedAccount(session, xuid);
+        }
+
+        ValidatedAccount account = accountValidator.validate(session);
+        long ttl = config.get(LauncherProperties.ENTITLEMENTS_CACHE_TTL, 86_400_000L);
+        if (ttl > 0) {
+            accountStore.cacheXuid(session.getMcProfile().getId(), account.getXuid(), ttl);
+        }
+
+        return account;
+    }
+
     @Synchronized
     public void load(Config config) throws AuthException {
         try {
@@ -86,10 +187,10 @@ public class AccountManager {
         if (email != null && password != null) {
             log.info("Logging in with Email and password...");
             try {
-                HttpClient httpClient = MinecraftAuth.createHttpClient();
+                HttpClient httpClient = accountValidator.getHttpClient();
                 StepFullJavaSession.FullJavaSession session = MinecraftAuth.JAVA_CREDENTIALS_LOGIN.getFromInput(
                     httpClient, new StepCredentialsMsaCode.MsaCredentials(email, password));
-                ValidatedAccount validatedAccount = accountValidator.validate(session);
+                ValidatedAccount validatedAccount = validate(session, config);
                 addAccount(validatedAccount);
             } catch (Exception e) {
                 throw new AuthException(e.getMessage(), e);
@@ -116,6 +217,14 @@ public class AccountManager {
         }
     }
 
+    public LaunchAccount toLaunchAccount(ValidatedAccount account) {
+        return new LaunchAccount("msa",
+            account.getSession().getMcProfile().getName(),
+            account.getSession().getMcProfile().getId().toString(),
+            account.getSession().getMcProfile().getMcToken().getAccessToken(),
+            account.getXuid());
+    }
+
     public LaunchAccount getOfflineAccount(Config config) throws AuthException {
         return new LaunchAccount(
             config.get(LauncherProperties.OFFLINE_TYPE, "msa"),
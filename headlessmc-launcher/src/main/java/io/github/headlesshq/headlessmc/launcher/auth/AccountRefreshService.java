@@ -0,0 +1,88 @@
+package io.github.headlesshq.headlessmc.launcher.auth;
+
+import io.github.headlesshq.headlessmc.api.config.Config;
+import io.github.headlesshq.headlessmc.auth.ValidatedAccount;
+import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
+import lombok.CustomLog;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Periodically refreshes the primary account on a daemon thread before its Minecraft token expires,
+ * so that launching the game can use the stored session without talking to the authentication servers.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class AccountRefreshService {
+    public static final long DEFAULT_MARGIN = 14_400_000L;
+
+    private final AccountManager accountManager;
+    private final Supplier<Config> config;
+    private @Nullable ScheduledExecutorService executor;
+    private @Nullable ScheduledFuture<?> future;
+
+    /**
+     * Starts refreshing in the background.
+     * The primary account is checked every quarter of the configured margin, but at least every 30 minutes.
+     * The first check happens after one such period, a launch refreshes an expiring account itself.
+     */
+    public synchronized void start() {
+        if (future != null) {
+            return;
+        }
+
+        long margin = getMargin(config.get());
+        long period = Math.max(30_000L, Math.min(margin / 4, 1_800_000L));
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HeadlessMc-AccountRefresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        future = executor.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+        log.debug("Started background account refresh, checking every " + period + "ms");
+    }
+
+    public synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    void refresh() {
+        try {
+            ValidatedAccount account = accountManager.getPrimaryAccount();
+            if (account == null || accountManager.getOfflineChecker().isOffline()) {
+                return;
+            }
+
+            // no config, a temporary failure in the background should not delete the account
+            accountManager.refreshAccountIfExpiring(account, null, getMargin(config.get()));
+        } catch (AuthException e) {
+            log.warn("Failed to refresh account in the background: " + e.getMessage());
+        } catch (Throwable t) {
+            log.error("Unexpected error while refreshing account", t);
+        }
+    }
+
+    /**
+     * @param config the config to read the margin from.
+     * @return the time in milliseconds before the expiration of a token at which it gets refreshed.
+     */
+    public static long getMargin(Config config) {
+        return Math.max(0L, config.get(LauncherProperties.ACCOUNT_REFRESH_MARGIN, DEFAULT_MARGIN));
+    }
+
+}
@@ -1,21 +1,36 @@
 package io.github.headlesshq.headlessmc.launcher.auth;
 
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
 import lombok.CustomLog;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import io.github.headlesshq.headlessmc.auth.AccountJsonLoader;
 import io.github.headlesshq.headlessmc.auth.ValidatedAccount;
 import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
 import io.github.headlesshq.headlessmc.launcher.files.LauncherConfig;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @CustomLog
 @RequiredArgsConstructor
 public class AccountStore {
     private final AccountJsonLoader accountJsonLoader;
     private final LauncherConfig launcherConfig;
+    private @Nullable Map<String, CachedEntitlement> entitlements;
 
     public AccountStore(LauncherConfig launcherConfig) {
         this(new AccountJsonLoader(), launcherConfig);
@@ -35,4 +50,79 @@ public class AccountStore {
         return accountJsonLoader.load(file.toPath());
     }
 
+    /**
+     * Returns the xuid of a profile that has been validated to own the game before.
+     *
+     * @param profileId the id of the Minecraft profile.
+     * @return the cached xuid or {@code null} if the profile has not been validated or the validation expired.
+     */
+    public synchronized @Nullable String getCachedXuid(UUID profileId) {
+        CachedEntitlement entitlement = getEntitlements().get(profileId.toString());
+        if (entitlement == null || entitlement.getExpires() <= System.currentTimeMillis()) {
+            return null;
+        }
+
+        return entitlement.getXuid();
+    }
+
+    /**
+     * Caches the result of a successful validation.
+     *
+     * @param profileId the id of the Minecraft profile.
+     * @param xuid the xuid parsed from the entitlements.
+     * @param ttl the time in milliseconds for which the validation stays valid.
+     */
+    public synchronized void cacheXuid(UUID profileId, String xuid, long ttl) {
+        Map<String, CachedEntitlement> entitlements = getEntitlements();
+        long now = System.currentTimeMillis();
+        entitlements.values().removeIf(entitlement -> entitlement.getExpires() <= now);
+        entitlements.put(profileId.toString(), new CachedEntitlement(xuid, now + ttl));
+        if (!launcherConfig.getConfig().getConfig().get(LauncherProperties.STORE_ACCOUNTS, true)) {
+            return;
+        }
+
+        try {
+            Path file = launcherConfig.getFileManager().create("auth", ".entitlements.json").toPath();
+            // like the accounts, a crash or another launcher must not leave a truncated file behind
+            Path tmp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    JsonUtil.GSON.toJson(entitlements, writer);
+                }
+
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            log.error("Failed to save entitlements: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, CachedEntitlement> getEntitlements() {
+        if (entitlements == null) {
+            entitlements = new HashMap<>();
+            try {
+                File file = launcherConfig.getFileManager().create("auth", ".entitlements.json");
+                try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    Map<String, CachedEntitlement> loaded = JsonUtil.GSON.fromJson(reader, new TypeToken<Map<String, CachedEntitlement>>(){}.getType());
+                    if (loaded != null) {
+                        loaded.values().removeIf(entitlement -> entitlement == null || entitlement.getXuid() == null);
+                        entitlements.putAll(loaded);
+                    }
+                }
+            } catch (IOException | JsonParseException e) {
+                log.warn("Failed to read cached entitlements: " + e.getMessage());
+            }
+        }
+
+        return entitlements;
+    }
+
+    @Data
+    private static final class CachedEntitlement {
+        private final String xuid;
+        private final long expires;
+    }
+
 }
@@ -21,18 +21,50 @@ import java.util.List;
 
 /**
  * Validates that an account actually owns the game.
+ * The {@link HttpClient} used for this is shared with the {@link AccountManager} for refreshing accounts.
  */
 @CustomLog
 public class AccountValidator {
     private static final URL URL = URLs.url("https://api.minecraftservices.com/entitlements/mcstore");
 
+    private final URL entitlementsUrl;
+    private volatile HttpClient httpClient;
+
+    public AccountValidator() {
+        this(URL);
+    }
+
+    /**
+     * @param entitlementsUrl the url of the entitlements endpoint, can be changed for testing.
+     */
+    public AccountValidator(URL entitlementsUrl) {
+        this.entitlementsUrl = entitlementsUrl;
+    }
+
+    /**
+     * @return the HttpClient used to talk to the Minecraft and Microsoft services, created on first use.
+     */
+    public HttpClient getHttpClient() {
+        HttpClient result = httpClient;
+        if (result == null) {
+            synchronized (this) {
+                result = httpClient;
+                if (result == null) {
+                    result = MinecraftAuth.createHttpClient();
+                    httpClient = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
     public ValidatedAccount validate(StepFullJavaSession.FullJavaSession session) throws AuthException {
         log.debug("Validating session " + session.getMcProfile().getName() + " : " + session.getMcProfile().getId());
         try {
-            HttpClient httpClient = MinecraftAuth.createHttpClient();
-            GetRequest getRequest = new GetRequest(URL);
+            GetRequest getRequest = new GetRequest(entitlementsUrl);
             getRequest.appendHeader("Authorization", "Bearer " + session.getMcProfile().getMcToken().getAccessToken());
-            JsonObject je = httpClient.execute(getRequest, new MinecraftResponseHandler());
+            JsonObject je = getHttpClient().execute(getRequest, new MinecraftResponseHandler());
             log.debug(je.toString());
 
             Entitlements entitlements = JsonUtil.GSON.fromJson(je, Entitlements.class);
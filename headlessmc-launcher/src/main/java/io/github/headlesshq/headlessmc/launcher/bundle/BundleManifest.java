@@ -0,0 +1,51 @@
+package io.github.headlesshq.headlessmc.launcher.bundle;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The manifest of a bundle, stored as the first entry of the bundle archive.
+ */
+@Data
+public class BundleManifest {
+    public static final int FORMAT = 1;
+
+    @SerializedName("format")
+    private int format = FORMAT;
+    @SerializedName("version")
+    private String version;
+    @SerializedName("os")
+    private String os;
+    @SerializedName("created")
+    private long created;
+    @SerializedName("files")
+    private List<Entry> files = new ArrayList<>();
+
+    @Data
+    public static class Entry {
+        /**
+         * The root directory this file belongs to, e.g. {@link BundleService#MINECRAFT}.
+         */
+        @SerializedName("root")
+        private final String root;
+        /**
+         * The path of this file relative to its root, separated by {@code /}.
+         */
+        @SerializedName("path")
+        private final String path;
+        @SerializedName("sha1")
+        private final String sha1;
+        @SerializedName("size")
+        private final long size;
+        @SerializedName("executable")
+        private final boolean executable;
+
+        public String getEntryName() {
+            return root + "/" + path;
+        }
+    }
+
+}
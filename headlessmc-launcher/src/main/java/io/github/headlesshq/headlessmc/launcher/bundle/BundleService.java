@@ -0,0 +1,356 @@
+package io.github.headlesshq.headlessmc.launcher.bundle;
+
+import com.google.gson.JsonParseException;
+import io.github.headlesshq.headlessmc.launcher.download.AssetIndex;
+import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
+import io.github.headlesshq.headlessmc.launcher.launch.VersionMerger;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import io.github.headlesshq.headlessmc.launcher.version.Features;
+import io.github.headlesshq.headlessmc.launcher.version.Library;
+import io.github.headlesshq.headlessmc.launcher.version.Logging;
+import io.github.headlesshq.headlessmc.launcher.version.Rule;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import io.github.headlesshq.headlessmc.launcher.version.family.FamilyUtil;
+import io.github.headlesshq.headlessmc.os.OS;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports the files a version needs to launch into a single archive and imports such archives on another machine.
+ * The archive is a zip file, its first entry is a {@link BundleManifest} containing the SHA-1 hash and size of every file.
+ * Files are stored as {@code <root>/<path>}, where the root is either the {@code .minecraft} directory
+ * or the Java directory of HeadlessMc.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class BundleService {
+    public static final String MANIFEST = "bundle.json";
+    public static final String MINECRAFT = "minecraft";
+    public static final String JAVA = "java";
+
+    private final ChecksumService checksumService;
+
+    /**
+     * Collects the files the given version needs to launch on the given OS:
+     * the version jsons of the version and its parents, the client jar, the libraries and natives,
+     * the asset index and its objects and the logging configuration.
+     *
+     * @param version the version to collect the files for.
+     * @param os the os the bundle is for, which decides which libraries and natives get collected.
+     * @param mcDir the .minecraft directory.
+     * @return the files, by their path relative to the .minecraft directory.
+     * @throws IOException if a file is missing, e.g. because the version has never been launched.
+     */
+    public Map<String, Path> collect(Version version, OS os, Path mcDir) throws IOException {
+        Version merged = new VersionMerger(version);
+        Map<String, Path> files = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<Version> family = new ArrayList<>();
+        FamilyUtil.iterateTopDown(version, family::add);
+        for (Version member : family) {
+            File[] jsons = member.getFolder().listFiles((dir, name) -> name.endsWith(".json"));
+            if (jsons == null || jsons.length == 0) {
+                missing.add(member.getName() + ".json");
+                continue;
+            }
+
+            for (File json : jsons) {
+                add(files, missing, mcDir, json.toPath(), true);
+            }
+        }
+
+        add(files, missing, mcDir, merged.getFolder().toPath().resolve(merged.getName() + ".jar"), true);
+        Path libraries = mcDir.resolve("libraries");
+        for (Library library : merged.getLibraries()) {
+            if (library.getRule().apply(os, Features.EMPTY) == Rule.Action.ALLOW) {
+                add(files, missing, mcDir, libraries.resolve(library.getPath(os)), true);
+            }
+        }
+
+        Path index = mcDir.resolve("assets").resolve("indexes").resolve(merged.getAssets() + ".json");
+        if (add(files, missing, mcDir, index, true)) {
+            AssetIndex assetIndex;
+            try {
+                assetIndex = AssetIndex.read(index);
+            } catch (JsonParseException e) {
+                throw new IOException("Failed to read asset index " + index, e);
+            }
+
+            Path objects = mcDir.resolve("assets").resolve("objects");
+            for (int i = 0; i < assetIndex.getSize(); i++) {
+                String hash = assetIndex.getHash(i);
+                add(files, missing, mcDir, objects.resolve(hash.substring(0, 2)).resolve(hash), true);
+            }
+        }
+
+        Logging logging = merged.getLogging();
+        if (logging != null) {
+            // only downloaded if hmc.install.mc.logging is enabled
+            add(files, missing, mcDir, mcDir.resolve("logging").resolve(logging.getFile().getId()), false);
+        }
+
+        if (!missing.isEmpty()) {
+            throw new IOException(missing.size() + " files of " + version.getName() + " are missing, e.g. " + missing.get(0)
+                                      + ". Launch the version once with -prepare to download them.");
+        }
+
+        return files;
+    }
+
+    /**
+     * Collects all files inside the given directory, e.g. a Java installation.
+     *
+     * @param dir the directory to collect.
+     * @param prefix the path the files inside the directory should get, relative to their root.
+     * @return the files, by their path relative to their root.
+     * @throws IOException if walking the directory fails.
+     */
+    public Map<String, Path> collectDirectory(Path dir, String prefix) throws IOException {
+        Map<String, Path> files = new LinkedHashMap<>();
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path file : stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                files.put(prefix + "/" + toRelative(dir, file), file);
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Hashes the given files in parallel and writes them into a bundle archive.
+     *
+     * @param versionName the name of the bundled version.
+     * @param os the os the bundle has been collected for.
+     * @param roots the files to bundle by their root.
+     * @param archive the archive to write.
+     * @return the manifest of the written bundle.
+     * @throws IOException if reading a file or writing the archive fails.
+     */
+    public BundleManifest export(String versionName, OS os, Map<String, Map<String, Path>> roots, Path archive) throws IOException {
+        List<Source> sources = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Path>> root : roots.entrySet()) {
+            for (Map.Entry<String, Path> file : root.getValue().entrySet()) {
+                sources.add(new Source(root.getKey(), file.getKey(), file.getValue()));
+            }
+        }
+
+        try {
+            sources.parallelStream().forEach(source -> {
+                try {
+                    source.setSha1(checksumService.hash(source.getFile()));
+                    source.setSize(Files.size(source.getFile()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        BundleManifest manifest = new BundleManifest();
+        manifest.setVersion(versionName);
+        manifest.setOs(os.getType().name());
+        manifest.setCreated(System.currentTimeMillis());
+        for (Source source : sources) {
+            manifest.getFiles().add(new BundleManifest.Entry(source.getRoot(), source.getPath(), source.getSha1(), source.getSize(),
+                                                             Files.isExecutable(source.getFile())));
+        }
+
+        Path parent = archive.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path tmp = archive.resolveSibling(archive.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(tmp))) {
+            zip.putNextEntry(new ZipEntry(MANIFEST));
+            Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+            JsonUtil.GSON.toJson(manifest, writer);
+            writer.flush();
+            zip.closeEntry();
+            for (Source source : sources) {
+                zip.putNextEntry(new ZipEntry(source.getRoot() + "/" + source.getPath()));
+                Files.copy(source.getFile(), zip);
+                zip.closeEntry();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return manifest;
+    }
+
+    /**
+     * Imports a bundle archive.
+     * Files which already exist with the correct size and hash are skipped,
+     * all other files are extracted and verified in parallel.
+     * Each file is written to a temporary file first and only moved to its target if its hash matches the manifest.
+     *
+     * @param archive the archive to import.
+     * @param roots the directories to extract the roots of the bundle into.
+     * @return the result of the import.
+     * @throws IOException if the archive is invalid, a file does not match its hash or writing fails.
+     */
+    public Result importBundle(Path archive, Map<String, Path> roots) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            BundleManifest manifest = readManifest(zip);
+            AtomicInteger extracted = new AtomicInteger();
+            AtomicInteger skipped = new AtomicInteger();
+            try {
+                manifest.getFiles().parallelStream().forEach(entry -> {
+                    try {
+                        if (importEntry(zip, entry, roots)) {
+                            extracted.incrementAndGet();
+                        } else {
+                            skipped.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            return new Result(manifest, extracted.get(), skipped.get());
+        }
+    }
+
+    private boolean importEntry(ZipFile zip, BundleManifest.Entry entry, Map<String, Path> roots) throws IOException {
+        Path root = roots.get(entry.getRoot());
+        if (root == null) {
+            throw new IOException("Unknown root " + entry.getRoot() + " for " + entry.getPath());
+        }
+
+        root = root.toAbsolutePath().normalize();
+        Path target = root.resolve(entry.getPath()).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new IOException("Invalid path in bundle: " + entry.getEntryName());
+        }
+
+        if (Files.isRegularFile(target)
+                && Files.size(target) == entry.getSize()
+                && checksumService.checkIntegrity(target, entry.getSize(), entry.getSha1())) {
+            log.debug(() -> "Skipping existing " + entry.getEntryName());
+            return false;
+        }
+
+        ZipEntry zipEntry = zip.getEntry(entry.getEntryName());
+        if (zipEntry == null) {
+            throw new IOException("Bundle is missing " + entry.getEntryName());
+        }
+
+        Files.createDirectories(target.getParent());
+        // unique, another process might import into the same directory
+        Path tmp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest digest = checksumService.getHashFunction();
+            long size;
+            try (InputStream is = new DigestInputStream(zip.getInputStream(zipEntry), digest)) {
+                size = Files.copy(is, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if (size != entry.getSize() || !entry.getSha1().equalsIgnoreCase(checksumService.toHashString(digest.digest()))) {
+                throw new IOException("Integrity check failed for " + entry.getEntryName());
+            }
+
+            if (entry.isExecutable() && !tmp.toFile().setExecutable(true)) {
+                log.warn("Failed to make " + target + " executable");
+            }
+
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        log.debug(() -> "Extracted " + entry.getEntryName());
+        return true;
+    }
+
+    private BundleManifest readManifest(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(MANIFEST);
+        if (entry == null) {
+            throw new IOException(zip.getName() + " is not a bundle, it does not contain a " + MANIFEST);
+        }
+
+        try (Reader reader = new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8)) {
+            BundleManifest manifest = JsonUtil.GSON.fromJson(reader, BundleManifest.class);
+            if (manifest == null || manifest.getFiles() == null) {
+                throw new IOException("Invalid bundle manifest in " + zip.getName());
+            }
+
+            if (manifest.getFormat() > BundleManifest.FORMAT) {
+                throw new IOException("Unsupported bundle format " + manifest.getFormat() + ", please update HeadlessMc");
+            }
+
+            return manifest;
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid bundle manifest in " + zip.getName(), e);
+        }
+    }
+
+    private static boolean add(Map<String, Path> files, List<String> missing, Path mcDir, Path file, boolean required) {
+        String relative = toRelative(mcDir, file);
+        if (Files.isRegularFile(file)) {
+            files.put(relative, file);
+            return true;
+        } else if (required) {
+            missing.add(relative);
+        }
+
+        return false;
+    }
+
+    private static String toRelative(Path base, Path file) {
+        return base.toAbsolutePath().normalize()
+                   .relativize(file.toAbsolutePath().normalize())
+                   .toString()
+                   .replace(File.separatorChar, '/');
+    }
+
+    @Data
+    public static class Result {
+        private final BundleManifest manifest;
+        private final int extracted;
+        private final int skipped;
+    }
+
+    @Data
+    private static class Source {
+        private final String root;
+        private final String path;
+        private final Path file;
+        private String sha1;
+        private long size;
+    }
+
+}
@@ -15,14 +15,17 @@ import io.github.headlesshq.headlessmc.launcher.launch.ExitToWrapperException;
 import io.github.headlesshq.headlessmc.launcher.launch.LaunchException;
 import io.github.headlesshq.headlessmc.launcher.server.commands.LaunchServerCommand;
 import io.github.headlesshq.headlessmc.launcher.test.CommandTest;
+import io.github.headlesshq.headlessmc.launcher.test.CrashDetector;
 import io.github.headlesshq.headlessmc.launcher.test.CrashReportWatcher;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Method;
 import java.nio.file.Path;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 import static io.github.headlesshq.headlessmc.api.command.CommandUtil.flag;
@@ -46,13 +49,29 @@ public abstract class AbstractLaunchProcessLifecycle {
     protected FileManager files;
     protected boolean quit;
     protected boolean prepare;
+    protected @Nullable String versionName;
 
     protected abstract Path getGameDir();
 
     protected abstract @Nullable Process createProcess() throws LaunchException, AuthException, IOException, CommandException;
 
+    /**
+     * @return {@code true} if the game runs inside this JVM, {@link #createProcess()} only returns after it has ended then.
+     */
+    protected boolean isInMemory() {
+        return false;
+    }
+
+    /**
+     * Hook to delete a game directory created for this launch, called during cleanup after the process has ended.
+     */
+    protected void cleanupGameDir() {
+        // to be implemented by subclasses
+    }
+
     public void run(HasName version) throws CommandException {
         prepare = CommandUtil.hasFlag("-prepare", args);
+        versionName = version.getName();
         val uuid = UUID.fromString(ctx.getConfig().get(LauncherProperties.EXTRACTED_FILE_CACHE_UUID, UUID.randomUUID().toString()));
         ctx.log((prepare ? "Preparing" : "Launching") + " version " + version.getName() + ", " + uuid);
         ctx.getLoggingService().setLevel(Level.INFO, true);
@@ -136,24 +155,27 @@ public abstract class AbstractLaunchProcessLifecycle {
 
             CrashReportWatcher crashReportWatcher = null;
             try {
-                AtomicReference<Process> processRef = new AtomicReference<>();
-                AtomicReference<Path> crashReport = new AtomicReference<>();
-                crashReportWatcher = createCrashReportWatcher(processRef, crashReport);
-
+                long start = System.currentTimeMillis();
+                crashReportWatcher = createCrashReportWatcher();
                 Process process = createProcess();
-                processRef.set(process);
                 if (prepare) {
                     return 0;
                 }
 
+                // the game directory is only known after creating the process, e.g. for pooled servers
+                CrashDetector crashDetector = ctx.getConfig().get(LauncherProperties.CRASH_REPORT_WATCHER, false)
+                        ? new CrashDetector(getGameDir(), start)
+                        : null;
+
                 if (process == null) {
                     ctx.log("InMemory main thread ended.");
                 }
 
-                runTest(process);
+                runTest(process, crashDetector);
                 if (quit || process == null) {
-                    if (crashReport.get() != null) {
-                        throw new LaunchException("CrashReport detected " + crashReport.get());
+                    CrashDetector.Crash crash = crashDetector == null ? null : crashDetector.analyze(null);
+                    if (crash != null) {
+                        throw new LaunchException(crash.getSummary());
                     }
 
                     cleanup(files, args);
@@ -170,11 +192,18 @@ public abstract class AbstractLaunchProcessLifecycle {
                     Thread.currentThread().interrupt();
                 }
 
-                if (status == 0) {
-                    if (crashReport.get() != null) {
-                        throw new LaunchException("CrashReport detected " + crashReport.get());
+                if (crashDetector != null) {
+                    CrashDetector.Crash crash = crashDetector.analyze(status);
+                    if (crash != null) {
+                        ctx.log(crash.getSummary());
+                        // a plain non-zero exit code is handled like before, by retrying and returning the status
+                        if (crash.getType() != CrashDetector.Type.EXIT_CODE) {
+                            throw new LaunchException(crash.getSummary());
+                        }
                     }
+                }
 
+                if (status == 0) {
                     break;
                 }
             } catch (ExitToWrapperException e) {
@@ -221,12 +250,23 @@ public abstract class AbstractLaunchProcessLifecycle {
         }
     }
 
-    private void runTest(@Nullable Process process) throws Exception {
+    private void runTest(@Nullable Process process, @Nullable CrashDetector crashDetector) throws Exception {
         try (CommandTest commandTest = CommandTest.create(process, ctx)) {
             if (commandTest == null) {
+                if (process != null && crashDetector != null && !quit) {
+                    readOutput(process, crashDetector, true);
+                    readOutput(process, crashDetector, false);
+                }
+
                 return;
             }
 
+            commandTest.setVersionId(versionName);
+            if (crashDetector != null) {
+                commandTest.setCrashDetector(crashDetector);
+                readOutput(process, crashDetector, false);
+            }
+
             log.info("Running CommandTest");
             commandTest.run();
             if (commandTest.wasSuccessful()) {
@@ -263,21 +303,20 @@ public abstract class AbstractLaunchProcessLifecycle {
         return status;
     }
 
-    private @Nullable CrashReportWatcher createCrashReportWatcher(
-            AtomicReference<Process> processRef,
-            AtomicReference<Path> crashReport) throws IOException, InterruptedException
-    {
+    /**
+     * The output of a game running in memory can not be read by the {@link CrashDetector},
+     * and the launch only returns after the game has ended.
+     * So while it runs, crash reports are watched, and we exit if one is created.
+     */
+    private @Nullable CrashReportWatcher createCrashReportWatcher() throws IOException, InterruptedException {
         CrashReportWatcher crashReportWatcher = null;
-        if (ctx.getConfig().get(LauncherProperties.CRASH_REPORT_WATCHER, false)) {
+        if (isInMemory() && !prepare && ctx.getConfig().get(LauncherProperties.CRASH_REPORT_WATCHER, false)) {
             Path gameDir = getGameDir();
             log.info("Initializing Crash Report Watcher for " + gameDir);
             crashReportWatcher = CrashReportWatcher.forGameDir(gameDir);
             crashReportWatcher.addListener(reportPath -> {
                 log.error("Crash Report created at :" + reportPath);
-                crashReport.set(reportPath);
-                if (processRef.get() != null) {
-                    processRef.get().destroy();
-                } else if (ctx.getConfig().get(LauncherProperties.CRASH_REPORT_WATCHER_EXIT, true)) {
+                if (ctx.getConfig().get(LauncherProperties.CRASH_REPORT_WATCHER_EXIT, true)) {
                     System.exit(-1);
                 } else {
                     log.info("Crash Report Watcher cannot exit.");
@@ -290,6 +329,42 @@ public abstract class AbstractLaunchProcessLifecycle {
         return crashReportWatcher;
     }
 
+    /**
+     * Reads the output of a process, which has been piped because crash detection is enabled,
+     * prints it like an inherited output would have been, and ends the process early if it crashed.
+     */
+    private void readOutput(Process process, CrashDetector crashDetector, boolean stdout) {
+        boolean print = !quit && !CommandUtil.hasFlag("-noout", args);
+        long gracePeriod = ctx.getConfig().get(LauncherProperties.CRASH_GRACE_PERIOD, 10_000L);
+        Thread thread = new Thread(() -> {
+            InputStream stream = stdout ? process.getInputStream() : process.getErrorStream();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (print) {
+                        ctx.log(line);
+                    }
+
+                    CrashDetector.Crash crash = crashDetector.onLine(line);
+                    if (crash != null) {
+                        ctx.log(crash.getSummary());
+                        // keep reading, so that the process does not block on a full pipe while writing its crash report
+                        Thread terminator = new Thread(() -> CrashDetector.terminate(process, gracePeriod));
+                        terminator.setDaemon(true);
+                        terminator.setName("HeadlessMc-CrashDetector-Terminate");
+                        terminator.start();
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Stopped reading output of process: " + e.getMessage());
+            }
+        });
+
+        thread.setDaemon(true);
+        thread.setName("HeadlessMc-CrashDetector-" + (stdout ? "Out" : "Err"));
+        thread.start();
+    }
+
     private void cleanup(FileManager files, String... args) {
         // for some reason both ShutdownHooks and File.deleteOnExit are
         // not really working, that's why we Main.deleteOldFiles, too.
@@ -300,6 +375,8 @@ public abstract class AbstractLaunchProcessLifecycle {
             } catch (IOException e) {
                 log.error("Couldn't delete files of game " + files.getBase().getName(), e);
             }
+
+            cleanupGameDir();
         }
     }
 
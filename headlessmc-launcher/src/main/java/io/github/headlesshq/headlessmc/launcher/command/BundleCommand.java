@@ -0,0 +1,97 @@
+package io.github.headlesshq.headlessmc.launcher.command;
+
+import io.github.headlesshq.headlessmc.api.command.CommandException;
+import io.github.headlesshq.headlessmc.api.command.CommandUtil;
+import io.github.headlesshq.headlessmc.java.Java;
+import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.bundle.BundleManifest;
+import io.github.headlesshq.headlessmc.launcher.bundle.BundleService;
+import io.github.headlesshq.headlessmc.launcher.launch.VersionMerger;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import io.github.headlesshq.headlessmc.os.OS;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BundleCommand extends AbstractVersionCommand {
+    public BundleCommand(Launcher ctx) {
+        super(ctx, "bundle", "Exports a version with all its files into an archive or imports such an archive.");
+        args.put("<version>", "The version to export.");
+        args.put("--export", "The archive to export the version to.");
+        args.put("--import", "The archive to import.");
+        args.put("-java", "Also exports the Java version needed to launch the version.");
+    }
+
+    @Override
+    public void execute(String line, String... args) throws CommandException {
+        String archive = CommandUtil.getOption("--import", args);
+        if (archive != null) {
+            importBundle(Paths.get(archive));
+        } else {
+            super.execute(line, args);
+        }
+    }
+
+    @Override
+    public void execute(Version version, String... args) throws CommandException {
+        String archive = CommandUtil.getOption("--export", args);
+        if (archive == null) {
+            throw new CommandException("Please specify the archive to export to with --export <file>.");
+        }
+
+        BundleService bundleService = new BundleService(ctx.getSha1Service());
+        OS os = ctx.getProcessFactory().getOs();
+        Map<String, Map<String, Path>> roots = new LinkedHashMap<>();
+        try {
+            roots.put(BundleService.MINECRAFT, bundleService.collect(version, os, ctx.getMcFiles().getBase().toPath()));
+            if (CommandUtil.hasFlag("-java", args)) {
+                int javaVersion = new VersionMerger(version).getJava();
+                Java java = ctx.getJavaService().findBestVersion(ctx, javaVersion);
+                if (java == null) {
+                    throw new CommandException("Failed to find Java " + javaVersion + " for " + version.getName() + ".");
+                }
+
+                Path javaHome = Paths.get(java.getPath()).toAbsolutePath().normalize();
+                Path javaDir = ctx.getFileManager().getDir("java").toPath().toAbsolutePath().normalize();
+                String prefix = javaHome.startsWith(javaDir) && !javaHome.equals(javaDir)
+                    ? javaDir.relativize(javaHome).toString().replace('\\', '/')
+                    : String.valueOf(javaHome.getFileName());
+                ctx.log("Bundling Java " + java.getVersion() + " at " + javaHome);
+                roots.put(BundleService.JAVA, bundleService.collectDirectory(javaHome, prefix));
+            }
+
+            ctx.log("Exporting " + version.getName() + " to " + archive + "...");
+            BundleManifest manifest = bundleService.export(version.getName(), os, roots, Paths.get(archive));
+            long size = manifest.getFiles().stream().mapToLong(BundleManifest.Entry::getSize).sum();
+            ctx.log("Exported " + manifest.getFiles().size() + " files (" + (size / 1_000_000L) + " MB) to " + archive + ".");
+        } catch (IOException e) {
+            throw new CommandException("Failed to export " + version.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void importBundle(Path archive) throws CommandException {
+        BundleService bundleService = new BundleService(ctx.getSha1Service());
+        Map<String, Path> roots = new LinkedHashMap<>();
+        roots.put(BundleService.MINECRAFT, ctx.getMcFiles().getBase().toPath());
+        roots.put(BundleService.JAVA, ctx.getFileManager().getDir("java").toPath());
+        try {
+            ctx.log("Importing " + archive + "...");
+            BundleService.Result result = bundleService.importBundle(archive, roots);
+            BundleManifest manifest = result.getManifest();
+            if (!ctx.getProcessFactory().getOs().getType().name().equals(manifest.getOs())) {
+                ctx.log("Warning: " + archive + " has been exported for " + manifest.getOs() + ", natives might be missing.");
+            }
+
+            ctx.getVersionService().refresh();
+            ctx.getJavaService().refreshHeadlessMcJavaVersions();
+            ctx.log("Imported " + manifest.getVersion() + ": " + result.getExtracted() + " files extracted, "
+                        + result.getSkipped() + " already present.");
+        } catch (IOException e) {
+            throw new CommandException("Failed to import " + archive + ": " + e.getMessage());
+        }
+    }
+
+}
@@ -7,9 +7,11 @@ import java.nio.file.Paths;
 import org.jetbrains.annotations.Nullable;
 
 import io.github.headlesshq.headlessmc.api.command.CommandException;
+import io.github.headlesshq.headlessmc.api.command.CommandUtil;
 import io.github.headlesshq.headlessmc.auth.ValidatedAccount;
 import io.github.headlesshq.headlessmc.launcher.Launcher;
 import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
+import io.github.headlesshq.headlessmc.launcher.auth.AccountRefreshService;
 import io.github.headlesshq.headlessmc.launcher.auth.AuthException;
 import io.github.headlesshq.headlessmc.launcher.auth.LaunchAccount;
 import io.github.headlesshq.headlessmc.launcher.command.download.AbstractDownloadingVersionCommand;
@@ -67,6 +69,11 @@ public class LaunchCommand extends AbstractDownloadingVersionCommand {
                     .toAbsolutePath();
         }
 
+        @Override
+        protected boolean isInMemory() {
+            return CommandUtil.hasFlag("-inmemory", args) || ctx.getConfig().get(LauncherProperties.ALWAYS_IN_MEMORY, false);
+        }
+
         @Override
         protected @Nullable Process createProcess() throws LaunchException, AuthException, IOException {
             return ctx.getProcessFactory().run(
@@ -94,7 +101,9 @@ public class LaunchCommand extends AbstractDownloadingVersionCommand {
             } else {
                 if (ctx.getConfig().get(LauncherProperties.REFRESH_ON_GAME_LAUNCH, true)) {
                     try {
-                        account = ctx.getAccountManager().refreshAccount(account, ctx.getConfig());
+                        // usually the AccountRefreshService has already refreshed the account in the background
+                        long margin = AccountRefreshService.getMargin(ctx.getConfig());
+                        account = ctx.getAccountManager().refreshAccountIfExpiring(account, ctx.getConfig(), margin);
                     } catch (AuthException e) {
                         if (ctx.getConfig().get(LauncherProperties.FAIL_LAUNCH_ON_REFRESH_FAILURE, false)) {
                             throw e;
@@ -102,19 +111,11 @@ public class LaunchCommand extends AbstractDownloadingVersionCommand {
                     }
                 }
 
-                return toLaunchAccount(account);
+                return ctx.getAccountManager().toLaunchAccount(account);
             }
         } catch (AuthException e) {
             throw new CommandException(e.getMessage());
         }
     }
 
-    private LaunchAccount toLaunchAccount(ValidatedAccount account) {
-        return new LaunchAccount("msa",
-                account.getSession().getMcProfile().getName(),
-                account.getSession().getMcProfile().getId().toString(),
-                account.getSession().getMcProfile().getMcToken().getAccessToken(),
-                account.getXuid());
-    }
-
 }
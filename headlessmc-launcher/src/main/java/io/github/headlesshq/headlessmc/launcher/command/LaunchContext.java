@@ -24,9 +24,12 @@ public class LaunchContext extends CommandContextImpl {
         add(new QuitCommand(ctx));
         add(new FabricCommand(ctx));
         add(new IntegrityCommand(ctx));
+        add(new PrefetchCommand(ctx));
+        add(new BundleCommand(ctx));
         add(ForgeCommand.lexforge(ctx));
         add(ForgeCommand.neoforge(ctx));
         add(new JsonCommand(ctx));
+        add(new MatrixCommand(ctx));
         add(new HelpCommand(ctx));
         add(new JavaCommand(ctx));
         add(new MemoryCommand(ctx));
@@ -0,0 +1,138 @@
+package io.github.headlesshq.headlessmc.launcher.command;
+
+import io.github.headlesshq.headlessmc.api.command.CommandException;
+import io.github.headlesshq.headlessmc.api.command.CommandUtil;
+import io.github.headlesshq.headlessmc.api.command.ParseUtil;
+import io.github.headlesshq.headlessmc.api.util.Table;
+import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
+import io.github.headlesshq.headlessmc.launcher.auth.LaunchAccount;
+import io.github.headlesshq.headlessmc.launcher.command.download.AbstractDownloadingVersionCommand;
+import io.github.headlesshq.headlessmc.launcher.test.TestCase;
+import io.github.headlesshq.headlessmc.launcher.test.TestMatrix;
+import io.github.headlesshq.headlessmc.launcher.test.TestMatrixReport;
+import io.github.headlesshq.headlessmc.launcher.test.TestMatrixRunner;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import lombok.CustomLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@CustomLog
+public class MatrixCommand extends AbstractDownloadingVersionCommand {
+    public MatrixCommand(Launcher ctx) {
+        super(ctx, "matrix", "Launches multiple versions concurrently and runs tests against them.");
+        args.put("<file>", "A json file specifying the versions to launch and the tests to run.");
+        args.put("--parallelism", "The amount of versions to run at the same time.");
+        args.put("--report", "The directory to write the JUnit-XML and JSON reports to.");
+        args.put("-offline", "Launch the versions in offline mode.");
+    }
+
+    @Override
+    public void execute(String line, String... args) throws CommandException {
+        if (args.length < 2) {
+            throw new CommandException("Please specify a test matrix file.");
+        }
+
+        Path file = Paths.get(args[1]).toAbsolutePath();
+        TestMatrix matrix;
+        try {
+            matrix = TestMatrix.load(file);
+        } catch (IOException e) {
+            throw new CommandException(e.getMessage());
+        }
+
+        String parallelismOption = CommandUtil.getOption("--parallelism", args);
+        int parallelism = parallelismOption == null
+                ? ctx.getConfig().get(LauncherProperties.TEST_MATRIX_PARALLELISM, 2L).intValue()
+                : ParseUtil.parseI(parallelismOption);
+        if (parallelism < 1) {
+            throw new CommandException("Parallelism needs to be at least 1, but was " + parallelism);
+        }
+
+        if (CommandUtil.hasFlag("-offline", args)) {
+            ctx.getAccountManager().getOfflineChecker().setOffline(true);
+        }
+
+        // versions are resolved one after another, as this might install modloaders
+        List<TestMatrixRunner.Entry> entries = new ArrayList<>(matrix.getRuns().size());
+        Map<Path, TestCase> testCases = new HashMap<>();
+        for (TestMatrix.Run run : matrix.getRuns()) {
+            List<String> runArgs = run.getArgs() != null ? run.getArgs() : matrix.getArgs();
+            String[] launchArgs = runArgs == null ? new String[0] : runArgs.toArray(new String[0]);
+            Version version = findObject(false, false, run.getVersion(), launchArgs);
+            if (version == null) {
+                throw new CommandException("Failed to find version " + run.getVersion() + " for run " + run.getName());
+            }
+
+            String test = run.getTest() != null ? run.getTest() : matrix.getTest();
+            if (test == null) {
+                throw new CommandException("Run " + run.getName() + " does not specify a test.");
+            }
+
+            TestCase testCase = loadTestCase(file.getParent().resolve(test), testCases);
+            entries.add(new TestMatrixRunner.Entry(run.getName(), version, testCase, launchArgs));
+        }
+
+        LaunchAccount account = new LaunchCommand(ctx).getAccount();
+        ctx.log("Running test matrix " + matrix.getName() + " with " + entries.size() + " runs, " + parallelism + " at a time.");
+        TestMatrixReport report = new TestMatrixRunner(ctx, parallelism).run(matrix.getName(), entries, account);
+        ctx.log(new Table<TestMatrixReport.Result>()
+                .withColumn("name", TestMatrixReport.Result::getName)
+                .withColumn("version", TestMatrixReport.Result::getVersion)
+                .withColumn("result", result -> result.isSuccessful() ? "success" : "failure")
+                .withColumn("time", result -> String.format(Locale.ROOT, "%.1fs", result.getTime()))
+                .withColumn("crash", result -> result.getCrash() == null ? "" : result.getCrash())
+                // crash summaries span multiple lines, the full message is in the reports
+                .withColumn("message", result -> result.getMessage() == null ? "" : result.getMessage().split("\n", 2)[0])
+                .addAll(report.getResults())
+                .build());
+
+        String reportOption = CommandUtil.getOption("--report", args);
+        Path reportDir = reportOption == null
+                ? ctx.getFileManager().getDir("matrix", matrix.getName()).toPath()
+                : Paths.get(reportOption);
+        try {
+            Files.createDirectories(reportDir);
+            report.writeJUnitXml(reportDir.resolve("TEST-" + matrix.getName() + ".xml"));
+            report.writeJson(reportDir.resolve(matrix.getName() + ".json"));
+            ctx.log("Wrote reports to " + reportDir.toAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to write reports", e);
+            throw new CommandException("Failed to write reports to " + reportDir + ": " + e.getMessage());
+        }
+
+        if (report.getFailures() > 0) {
+            throw new CommandException(report.getFailures() + " of " + report.getResults().size() + " runs failed.");
+        }
+    }
+
+    @Override
+    public void execute(Version version, String... args) throws CommandException {
+        throw new CommandException("Please specify a test matrix file.");
+    }
+
+    private TestCase loadTestCase(Path path, Map<Path, TestCase> testCases) throws CommandException {
+        TestCase testCase = testCases.get(path);
+        if (testCase == null) {
+            try (InputStream is = Files.newInputStream(path)) {
+                testCase = TestCase.load(is);
+            } catch (IOException e) {
+                throw new CommandException("Failed to load test " + path + ": " + e.getMessage());
+            }
+
+            testCases.put(path, testCase);
+        }
+
+        return testCase;
+    }
+
+}
@@ -0,0 +1,114 @@
+package io.github.headlesshq.headlessmc.launcher.command;
+
+import io.github.headlesshq.headlessmc.api.command.CommandException;
+import io.github.headlesshq.headlessmc.api.command.CommandUtil;
+import io.github.headlesshq.headlessmc.api.command.ParseUtil;
+import io.github.headlesshq.headlessmc.api.command.line.Progressbar;
+import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
+import io.github.headlesshq.headlessmc.launcher.command.download.AbstractDownloadingVersionCommand;
+import io.github.headlesshq.headlessmc.launcher.download.PrefetchService;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import lombok.CustomLog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@CustomLog
+public class PrefetchCommand extends AbstractDownloadingVersionCommand {
+    public PrefetchCommand(Launcher ctx) {
+        super(ctx, "prefetch", "Downloads everything multiple versions need to launch in one go.");
+        args.put("<versions...>", "The versions to download, modloader versions like fabric:1.21.4 are installed if missing.");
+        args.put("--parallelism", "The amount of files to download at the same time.");
+        args.put("-prepare", "Also prepares each version like launch -prepare, extracting natives and instrumenting jars.");
+        args.put("-offline", "Prepares the versions in offline mode.");
+    }
+
+    @Override
+    public void execute(String line, String... args) throws CommandException {
+        // versions are resolved one after another, as this might install modloaders
+        Set<Version> versions = new LinkedHashSet<>();
+        for (String versionArg : getVersionArgs(args)) {
+            Version version = findObject(false, false, versionArg, args);
+            if (version == null) {
+                throw new CommandException("Failed to find version " + versionArg + ".");
+            }
+
+            versions.add(version);
+        }
+
+        if (versions.isEmpty()) {
+            throw new CommandException("Please specify at least one version to prefetch.");
+        }
+
+        String parallelismOption = CommandUtil.getOption("--parallelism", args);
+        int parallelism = parallelismOption == null
+                ? ctx.getConfig().get(LauncherProperties.PREFETCH_PARALLELISM, 16L).intValue()
+                : ParseUtil.parseI(parallelismOption);
+        if (parallelism < 1) {
+            throw new CommandException("Parallelism needs to be at least 1, but was " + parallelism);
+        }
+
+        PrefetchService prefetchService = new PrefetchService(
+                ctx.getDownloadService(), ctx, ctx.getProcessFactory().getOs(), ctx.getMcFiles().getBase().toPath());
+        PrefetchService.Result result;
+        try {
+            ctx.log("Collecting files of " + versions.size() + " versions...");
+            PrefetchService.Plan plan = prefetchService.plan(versions);
+            try (Progressbar progressbar = plan.getDownloads().isEmpty()
+                    ? Progressbar.dummy()
+                    : ctx.getCommandLine().displayProgressBar(new Progressbar.Configuration("Prefetching", plan.getDownloads().size()))) {
+                result = prefetchService.execute(plan, parallelism, progressbar);
+            }
+        } catch (IOException e) {
+            throw new CommandException("Failed to prefetch: " + e.getMessage());
+        }
+
+        ctx.log(String.format(Locale.ROOT, "Prefetched %d versions in %.1fs: %d files (%.2f MB) downloaded, %d already present, %d shared between versions, %d failed.",
+                              versions.size(), result.getNanos() / 1_000_000_000.0, result.getDownloaded(), result.getBytes() / 1_000_000.0,
+                              result.getPresent(), result.getDuplicates(), result.getFailures().size()));
+        if (!result.getFailures().isEmpty()) {
+            throw new CommandException("Failed to download " + result.getFailures().size() + " files, e.g. " + result.getFailures().get(0));
+        }
+
+        if (CommandUtil.hasFlag("-prepare", args)) {
+            LaunchCommand launchCommand = new LaunchCommand(ctx);
+            for (Version version : versions) {
+                List<String> launchArgs = new ArrayList<>();
+                launchArgs.add("launch");
+                launchArgs.add(version.getName());
+                for (String arg : args) {
+                    // passes on -prepare and flags like -lwjgl or -offline, which change the preparation
+                    if (arg.startsWith("-") && !arg.startsWith("--")) {
+                        launchArgs.add(arg);
+                    }
+                }
+
+                launchCommand.execute(version, launchArgs.toArray(new String[0]));
+            }
+        }
+    }
+
+    @Override
+    public void execute(Version version, String... args) throws CommandException {
+        execute("", "prefetch", version.getName());
+    }
+
+    private static List<String> getVersionArgs(String... args) {
+        List<String> result = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                i++; // skip the value of the option
+            } else if (!args[i].startsWith("-")) {
+                result.add(args[i]);
+            }
+        }
+
+        return result;
+    }
+
+}
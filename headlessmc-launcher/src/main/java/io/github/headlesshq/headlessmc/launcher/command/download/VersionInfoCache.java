@@ -4,12 +4,15 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import lombok.CustomLog;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.experimental.Delegate;
 import lombok.val;
+import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
 import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
 import io.github.headlesshq.headlessmc.launcher.util.URLs;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -28,13 +31,19 @@ public class VersionInfoCache implements Collection<VersionInfo> {
     private String latestRelease = "unknown";
     @Getter
     private boolean cached = false;
+    /**
+     * Used to download the version manifest through its metadata cache, if set.
+     */
+    @Setter
+    private @Nullable DownloadService downloadService;
 
     public List<VersionInfo> cache(boolean force) {
         if (infos != EMPTY && !force) {
             return infos;
         }
 
-        try (val is = URL.openStream()) {
+        DownloadService downloadService = this.downloadService;
+        try (val is = downloadService == null ? URL.openStream() : new ByteArrayInputStream(downloadService.downloadMetadata(URL).getContent())) {
             val jo = JsonUtil.fromInput(is);
             if (!jo.isJsonObject()) {
                 throw new IOException(jo + " is not a JsonObject!");
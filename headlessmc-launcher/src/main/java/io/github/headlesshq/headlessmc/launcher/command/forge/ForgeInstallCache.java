@@ -0,0 +1,361 @@
+package io.github.headlesshq.headlessmc.launcher.command.forge;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A content-addressed cache of Forge and NeoForge installations.
+ * An installation is keyed by the SHA-1 of the installer jar and the side it has been installed for.
+ * It records the version json and every library the installer downloaded or produced with its processors,
+ * so that the same installer does not have to run its processors again for another game directory.
+ * Files are copied in both directions, so that changes made in a game directory afterwards do not alter the cache.
+ * Every file is recorded with its SHA-1, which is used to verify the cache and the files already present in a game directory.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class ForgeInstallCache {
+    private static final String MANIFEST = "manifest.json";
+    private static final String FILES = "files";
+
+    private final Path directory;
+    private final ChecksumService checksumService;
+
+    public String getKey(Path installer, boolean server) throws IOException {
+        MessageDigest digest = checksumService.getHashFunction();
+        try (InputStream is = Files.newInputStream(installer)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return checksumService.toHashString(digest.digest()) + (server ? "-server" : "-client");
+    }
+
+    /**
+     * Places the files of the cached installation into the given directory.
+     *
+     * @param key the key of the installation.
+     * @param root the .minecraft directory for a client or the server directory.
+     * @return {@code true} if the installation was cached and has been placed.
+     * @throws IOException if placing the files fails.
+     */
+    public boolean materialize(String key, Path root) throws IOException {
+        Path entry = directory.resolve(key);
+        Manifest manifest = readManifest(entry);
+        if (manifest == null) {
+            return false;
+        }
+
+        Path files = entry.resolve(FILES);
+        for (CachedFile file : manifest.getFiles()) {
+            Path cached = files.resolve(file.getPath());
+            // entries written before hashes have been recorded are rebuilt as well
+            if (file.getSha1() == null || !Files.exists(cached) || !checksumService.checkIntegrity(cached, file.getSize(), file.getSha1())) {
+                log.warn("Forge install cache " + key + " is corrupted at " + file.getPath() + ", deleting it");
+                deleteDirectory(entry);
+                return false;
+            }
+        }
+
+        int copied = 0;
+        for (CachedFile file : manifest.getFiles()) {
+            Path target = resolve(root, file.getPath());
+            // an existing file of the same size might be a stale library or processor output of another installation
+            if (Files.exists(target) && checksumService.checkIntegrity(target, file.getSize(), file.getSha1())) {
+                continue;
+            }
+
+            Files.createDirectories(target.getParent());
+            Files.copy(files.resolve(file.getPath()), target, StandardCopyOption.REPLACE_EXISTING);
+            copied++;
+        }
+
+        log.info("Placed " + manifest.getFiles().size() + " files from Forge install cache " + key + ", " + copied + " of them copied");
+        return true;
+    }
+
+    /**
+     * Records the files relevant for an installation, before the installer runs.
+     *
+     * @param root the .minecraft directory for a client or the server directory.
+     * @param server whether this is a server installation.
+     * @return a snapshot of the sizes and modification times of the files.
+     * @throws IOException if walking the directory fails.
+     */
+    public Snapshot snapshot(Path root, boolean server) throws IOException {
+        Snapshot snapshot = new Snapshot();
+        for (Path scope : getScopes(root, server)) {
+            if (!Files.isDirectory(scope)) {
+                continue;
+            }
+
+            try (Stream<Path> stream = Files.walk(scope)) {
+                for (Path path : (Iterable<Path>) stream::iterator) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        snapshot.files.put(relativize(root, path), new long[] { attributes.size(), attributes.lastModifiedTime().toMillis() });
+                    }
+                }
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Stores a successful installation in the cache.
+     * Files that have been created or modified since the snapshot are recorded,
+     * as well as the libraries the installer references, which might have existed already.
+     *
+     * @param key the key of the installation.
+     * @param installer the installer jar.
+     * @param before the snapshot taken before the installer ran.
+     * @param root the .minecraft directory for a client or the server directory.
+     * @param server whether this is a server installation.
+     * @throws IOException if the installation could not be stored.
+     */
+    public void record(String key, Path installer, Snapshot before, Path root, boolean server) throws IOException {
+        Set<String> paths = new LinkedHashSet<>();
+        Snapshot after = snapshot(root, server);
+        for (Map.Entry<String, long[]> entry : after.files.entrySet()) {
+            long[] previous = before.files.get(entry.getKey());
+            if ((previous == null || previous[0] != entry.getValue()[0] || previous[1] != entry.getValue()[1])
+                    && !entry.getKey().endsWith(".log")) {
+                paths.add(entry.getKey());
+            }
+        }
+
+        for (String library : getInstallerLibraries(installer, server)) {
+            if (Files.isRegularFile(resolve(root, library))) {
+                paths.add(library);
+            }
+        }
+
+        if (paths.isEmpty()) {
+            log.warn("Forge installer " + key + " did not produce any files, not caching it");
+            return;
+        }
+
+        Path entry = directory.resolve(key);
+        Path tmp = directory.resolve(key + "-" + UUID.randomUUID() + ".tmp");
+        Manifest manifest = new Manifest();
+        try {
+            for (String path : paths) {
+                Path file = resolve(root, path);
+                Path cached = resolve(tmp.resolve(FILES), path);
+                Files.createDirectories(cached.getParent());
+                Files.copy(file, cached);
+                manifest.getFiles().add(new CachedFile(path, Files.size(cached), checksumService.hash(cached)));
+            }
+
+            try (Writer writer = Files.newBufferedWriter(tmp.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+                JsonUtil.GSON.toJson(manifest, writer);
+            }
+
+            Files.move(tmp, entry);
+            log.info("Stored " + paths.size() + " files in Forge install cache " + key);
+        } catch (FileAlreadyExistsException e) {
+            log.debug("Forge install cache " + key + " has already been stored by another process");
+        } finally {
+            deleteDirectory(tmp);
+        }
+    }
+
+    /**
+     * Reads the libraries from the version json inside the installer,
+     * and the artifacts its processors produce for the given side.
+     */
+    List<String> getInstallerLibraries(Path installer, boolean server) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(installer.toFile())) {
+            JsonObject profile = readJsonObject(zipFile, "install_profile.json");
+            if (profile == null) {
+                return result;
+            }
+
+            JsonElement versionJson = profile.get("json");
+            JsonObject version = versionJson != null && versionJson.isJsonPrimitive()
+                    ? readJsonObject(zipFile, versionJson.getAsString())
+                    : profile.has("versionInfo") && profile.get("versionInfo").isJsonObject()
+                        ? profile.getAsJsonObject("versionInfo") // legacy installers
+                        : null;
+            if (version != null && version.has("libraries") && version.get("libraries").isJsonArray()) {
+                addLibraries(version.getAsJsonArray("libraries"), result);
+            }
+
+            if (profile.has("data") && profile.get("data").isJsonObject()) {
+                for (Map.Entry<String, JsonElement> entry : profile.getAsJsonObject("data").entrySet()) {
+                    if (entry.getValue().isJsonObject()) {
+                        JsonElement value = entry.getValue().getAsJsonObject().get(server ? "server" : "client");
+                        if (value != null && value.isJsonPrimitive()) {
+                            String artifact = value.getAsString();
+                            if (artifact.startsWith("[") && artifact.endsWith("]")) {
+                                result.add("libraries/" + getMavenPath(artifact.substring(1, artifact.length() - 1)));
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Failed to read installer " + installer + ": " + e.getMessage(), e);
+        }
+
+        return result;
+    }
+
+    private void addLibraries(JsonArray libraries, List<String> result) {
+        for (JsonElement element : libraries) {
+            if (!element.isJsonObject()) {
+                continue;
+            }
+
+            JsonObject library = element.getAsJsonObject();
+            JsonElement path = JsonUtil.getElement(library, "downloads", "artifact", "path");
+            if (path != null && path.isJsonPrimitive()) {
+                result.add("libraries/" + path.getAsString());
+            } else if (library.has("name")) {
+                result.add("libraries/" + getMavenPath(library.get("name").getAsString()));
+            }
+        }
+    }
+
+    /**
+     * Converts an artifact in the form of {@code group:name:version[:classifier][@extension]} to its path in a maven repository.
+     */
+    static String getMavenPath(String artifact) {
+        String extension = "jar";
+        int at = artifact.indexOf('@');
+        if (at != -1) {
+            extension = artifact.substring(at + 1);
+            artifact = artifact.substring(0, at);
+        }
+
+        String[] split = artifact.split(":");
+        if (split.length < 3) {
+            throw new IllegalStateException("Invalid artifact " + artifact);
+        }
+
+        return split[0].replace('.', '/') + "/" + split[1] + "/" + split[2] + "/"
+                + split[1] + "-" + split[2] + (split.length > 3 ? "-" + split[3] : "") + "." + extension;
+    }
+
+    private List<Path> getScopes(Path root, boolean server) {
+        if (server) {
+            return Collections.singletonList(root);
+        }
+
+        List<Path> scopes = new ArrayList<>(2);
+        scopes.add(root.resolve("libraries"));
+        scopes.add(root.resolve("versions"));
+        return scopes;
+    }
+
+    private @Nullable Manifest readManifest(Path entry) {
+        Path manifestFile = entry.resolve(MANIFEST);
+        if (!Files.exists(manifestFile)) {
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            Manifest manifest = JsonUtil.GSON.fromJson(reader, Manifest.class);
+            return manifest == null || manifest.getFiles() == null ? null : manifest;
+        } catch (IOException | JsonParseException e) {
+            log.warn("Failed to read Forge install cache " + manifestFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static @Nullable JsonObject readJsonObject(ZipFile zipFile, String name) throws IOException {
+        ZipEntry entry = zipFile.getEntry(name.startsWith("/") ? name.substring(1) : name);
+        if (entry == null) {
+            return null;
+        }
+
+        try (Reader reader = new InputStreamReader(zipFile.getInputStream(entry), StandardCharsets.UTF_8)) {
+            JsonElement element = JsonUtil.GSON.fromJson(reader, JsonElement.class);
+            return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+        }
+    }
+
+    private static Path resolve(Path root, String path) throws IOException {
+        Path result = root.resolve(path).normalize();
+        if (!result.startsWith(root.normalize())) {
+            throw new IOException("Path " + path + " is outside of " + root);
+        }
+
+        return result;
+    }
+
+    private static String relativize(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try (Stream<Path> stream = Files.walk(directory)) {
+            List<Path> paths = new ArrayList<>();
+            stream.forEach(paths::add);
+            Collections.reverse(paths);
+            for (Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * The files found before an installation.
+     */
+    public static final class Snapshot {
+        private final Map<String, long[]> files = new HashMap<>();
+    }
+
+    @Data
+    private static final class Manifest {
+        private List<CachedFile> files = new ArrayList<>();
+    }
+
+    @Data
+    private static final class CachedFile {
+        private final String path;
+        private final long size;
+        private final @Nullable String sha1;
+    }
+
+}
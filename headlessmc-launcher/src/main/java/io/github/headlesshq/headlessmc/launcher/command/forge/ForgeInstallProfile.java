@@ -0,0 +1,137 @@
+package io.github.headlesshq.headlessmc.launcher.command.forge;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.Data;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The {@code install_profile.json} of a Forge or NeoForge installer, with spec version 1 or newer.
+ * Legacy installers, which contain an {@code install} and a {@code versionInfo} object, are not supported.
+ */
+@Data
+public class ForgeInstallProfile {
+    @SerializedName("spec")
+    private int spec;
+
+    @SerializedName("minecraft")
+    private String minecraft;
+
+    @SerializedName("json")
+    private String json;
+
+    @SerializedName("data")
+    private @Nullable Map<String, DataEntry> data;
+
+    @SerializedName("processors")
+    private @Nullable List<Processor> processors;
+
+    @SerializedName("libraries")
+    private @Nullable List<Library> libraries;
+
+    /**
+     * @return {@code true} if this profile can be installed by the {@link ForgeProcessorRunner}.
+     */
+    public boolean isSupported() {
+        return minecraft != null && json != null;
+    }
+
+    /**
+     * Reads the install profile from an installer jar.
+     *
+     * @param installer the installer jar.
+     * @return the install profile or {@code null} if the installer does not contain one.
+     * @throws IOException if reading the installer fails.
+     */
+    public static @Nullable ForgeInstallProfile read(Path installer) throws IOException {
+        try (ZipFile zipFile = new ZipFile(installer.toFile())) {
+            ZipEntry entry = zipFile.getEntry("install_profile.json");
+            if (entry == null) {
+                return null;
+            }
+
+            try (Reader reader = new InputStreamReader(zipFile.getInputStream(entry), StandardCharsets.UTF_8)) {
+                return JsonUtil.GSON.fromJson(reader, ForgeInstallProfile.class);
+            }
+        } catch (JsonParseException e) {
+            throw new IOException("Failed to read install_profile.json of " + installer + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Data
+    public static class DataEntry {
+        @SerializedName("client")
+        private @Nullable String client;
+
+        @SerializedName("server")
+        private @Nullable String server;
+    }
+
+    @Data
+    public static class Processor {
+        @SerializedName("jar")
+        private String jar;
+
+        @SerializedName("sides")
+        private @Nullable List<String> sides;
+
+        @SerializedName("classpath")
+        private @Nullable List<String> classpath;
+
+        @SerializedName("args")
+        private @Nullable List<String> args;
+
+        @SerializedName("outputs")
+        private @Nullable Map<String, String> outputs;
+
+        public boolean isForSide(String side) {
+            return sides == null || sides.contains(side);
+        }
+    }
+
+    @Data
+    public static class Library {
+        @SerializedName("name")
+        private String name;
+
+        @SerializedName("downloads")
+        private @Nullable Downloads downloads;
+
+        public @Nullable Artifact getArtifact() {
+            return downloads == null ? null : downloads.getArtifact();
+        }
+    }
+
+    @Data
+    public static class Downloads {
+        @SerializedName("artifact")
+        private @Nullable Artifact artifact;
+    }
+
+    @Data
+    public static class Artifact {
+        @SerializedName("path")
+        private @Nullable String path;
+
+        @SerializedName("url")
+        private @Nullable String url;
+
+        @SerializedName("sha1")
+        private @Nullable String sha1;
+
+        @SerializedName("size")
+        private @Nullable Long size;
+    }
+
+}
@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import io.github.headlesshq.headlessmc.java.Java;
 import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
 import io.github.headlesshq.headlessmc.launcher.files.FileManager;
 import io.github.headlesshq.headlessmc.launcher.instrumentation.ResourceExtractor;
 import io.github.headlesshq.headlessmc.launcher.launch.SimpleInMemoryLauncher;
@@ -47,6 +48,33 @@ public class ForgeInstaller {
         File installer = fileManager.create(fileName);
         downloadInstaller(version, installer);
 
+        Path root = installDir.getBase().toPath();
+        ForgeInstallCache cache = getInstallCache();
+        String key = null;
+        ForgeInstallCache.Snapshot snapshot = null;
+        if (cache != null) {
+            key = cache.getKey(installer.toPath(), server);
+            if (cache.materialize(key, root)) {
+                launcher.log(String.format("%s %s installed from cache!", forgeName, version.getFullName()));
+                return;
+            }
+
+            snapshot = cache.snapshot(root, server);
+        }
+
+        if (inMemory && !server && launcher.getConfig().get(LauncherProperties.FORGE_IN_PROCESS_PROCESSORS, true)) {
+            ForgeInstallProfile profile = ForgeInstallProfile.read(installer.toPath());
+            if (profile != null && profile.isSupported()) {
+                int threads = launcher.getConfig().get(LauncherProperties.FORGE_PROCESSOR_THREADS, (long) Runtime.getRuntime().availableProcessors()).intValue();
+                new ForgeProcessorRunner(launcher, threads).installClient(installer.toPath(), profile, vanillaVersion, root, fileManager.getDir("processor-data").toPath());
+                launcher.log(String.format("%s %s installed successfully!", forgeName, version.getFullName()));
+                record(cache, key, installer, snapshot, root, server, version);
+                return;
+            }
+
+            log.debug("Installer " + fileName + " uses a legacy install profile, running the installer");
+        }
+
         int bestJavaVersion = vanillaVersion == null ? 8 : (vanillaVersion.getJava() == null ? 21 : vanillaVersion.getJava());
         Java java = inMemory ? launcher.getJavaService().getCurrent() : launcher.getJavaService().findBestVersion(launcher, bestJavaVersion, true);
         if (java == null) {
@@ -68,6 +96,27 @@ public class ForgeInstaller {
 
             launch(version, cli.toPath(), fileManager.getBase().toPath(), command, inMemory);
         }
+
+        record(cache, key, installer, snapshot, root, server, version);
+    }
+
+    private void record(@Nullable ForgeInstallCache cache, @Nullable String key, File installer, @Nullable ForgeInstallCache.Snapshot snapshot,
+                        Path root, boolean server, ForgeVersion version) {
+        if (cache != null && key != null && snapshot != null) {
+            try {
+                cache.record(key, installer.toPath(), snapshot, root, server);
+            } catch (IOException e) {
+                log.warn("Failed to cache " + forgeName + " " + version.getFullName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    protected @Nullable ForgeInstallCache getInstallCache() {
+        if (!launcher.getConfig().get(LauncherProperties.FORGE_INSTALL_CACHE, true)) {
+            return null;
+        }
+
+        return new ForgeInstallCache(launcher.getFileManager().getDir("forge").toPath().resolve("installations"), launcher.getSha1Service());
     }
 
     private void launch(ForgeVersion version, Path jar, Path installDir, List<String> command, boolean inMemory) throws IOException {
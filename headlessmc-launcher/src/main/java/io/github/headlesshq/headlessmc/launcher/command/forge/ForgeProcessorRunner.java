@@ -0,0 +1,559 @@
+package io.github.headlesshq.headlessmc.launcher.command.forge;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.download.LibraryDownloader;
+import io.github.headlesshq.headlessmc.launcher.util.IOConsumer;
+import io.github.headlesshq.headlessmc.launcher.util.IOUtil;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import io.github.headlesshq.headlessmc.launcher.version.VersionExecutable;
+import lombok.CustomLog;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Installs the client of a Forge or NeoForge installer inside this JVM, without running the installer itself.
+ * The {@code install_profile.json} is parsed, the libraries get downloaded or extracted from the installer,
+ * and the processors are run with one {@link URLClassLoader} per processor artifact.
+ * A processor waits for an earlier one if either of them writes a file the other one uses.
+ * Processors which do not declare their outputs are assumed to write every file passed to them,
+ * apart from the inputs of the installation, e.g. the Minecraft jar, the libraries and the extracted data.
+ * Runs of the same processor artifact are serialised, because processors keep static state.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class ForgeProcessorRunner {
+    private static final String SIDE = "client";
+
+    private final Launcher launcher;
+    private final int threads;
+
+    public void installClient(Path installer, ForgeInstallProfile profile, @Nullable Version vanillaVersion, Path mcDir, Path tempDir) throws IOException {
+        Path librariesDir = mcDir.resolve("libraries");
+        Path minecraftJar = mcDir.resolve("versions").resolve(profile.getMinecraft()).resolve(profile.getMinecraft() + ".jar");
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), new ProcessorThreadFactory());
+        Map<List<Path>, URLClassLoader> classLoaders = new ConcurrentHashMap<>();
+        try (ZipFile zipFile = new ZipFile(installer.toFile())) {
+            downloadMinecraftJar(profile, vanillaVersion, minecraftJar);
+            List<ForgeInstallProfile.Library> versionLibraries = extractVersionJson(zipFile, profile, mcDir);
+
+            List<CompletableFuture<Void>> downloads = new ArrayList<>();
+            Set<String> paths = new HashSet<>();
+            // libraries of the profile and downloaded libraries are never written by processors
+            Set<String> inputs = new HashSet<>();
+            List<ForgeInstallProfile.Library> profileLibraries = profile.getLibraries() == null ? Collections.emptyList() : profile.getLibraries();
+            for (ForgeInstallProfile.Library library : profileLibraries) {
+                String path = getPath(library);
+                inputs.add(librariesDir.resolve(path).toAbsolutePath().toString());
+                if (paths.add(path)) {
+                    downloads.add(CompletableFuture.runAsync(() -> wrap(() -> ensureLibrary(zipFile, library, path, librariesDir, true)), executor));
+                }
+            }
+
+            for (ForgeInstallProfile.Library library : versionLibraries) {
+                String path = getPath(library);
+                ForgeInstallProfile.Artifact artifact = library.getArtifact();
+                if (artifact != null && artifact.getUrl() != null && !artifact.getUrl().isEmpty()) {
+                    inputs.add(librariesDir.resolve(path).toAbsolutePath().toString());
+                }
+
+                if (paths.add(path)) {
+                    // libraries of the version json without a url are produced by the processors
+                    downloads.add(CompletableFuture.runAsync(() -> wrap(() -> ensureLibrary(zipFile, library, path, librariesDir, false)), executor));
+                }
+            }
+
+            join(downloads);
+            Map<String, String> data = getData(zipFile, profile, installer, mcDir, minecraftJar, tempDir, inputs);
+            List<Task> tasks = createTasks(profile, data, librariesDir, inputs);
+            log.info("Running " + tasks.size() + " processors on " + threads + " threads");
+            runTasks(tasks, executor, task -> run(task, classLoaders));
+        } finally {
+            executor.shutdownNow();
+            // processors can not be interrupted, their files must not be touched until they are done
+            try {
+                if (!executor.awaitTermination(10L, TimeUnit.MINUTES)) {
+                    log.warn("Processors are still running after 10 minutes");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            for (URLClassLoader classLoader : classLoaders.values()) {
+                try {
+                    classLoader.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close ClassLoader of processor " + classLoader, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs every task once all of its dependencies have been run successfully.
+     *
+     * @param tasks the tasks, in the order of the install profile.
+     * @param executor the executor to run the tasks on.
+     * @param runner runs a single task.
+     * @throws IOException if any task failed.
+     */
+    static void runTasks(List<Task> tasks, ExecutorService executor, IOConsumer<Task> runner) throws IOException {
+        Map<Task, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            CompletableFuture<?>[] dependencies = task.getDependencies().stream().map(futures::get).toArray(CompletableFuture[]::new);
+            futures.put(task, CompletableFuture.allOf(dependencies).thenRunAsync(() -> wrap(() -> runner.accept(task)), executor));
+        }
+
+        join(new ArrayList<>(futures.values()));
+    }
+
+    private void downloadMinecraftJar(ForgeInstallProfile profile, @Nullable Version vanillaVersion, Path minecraftJar) throws IOException {
+        if (Files.exists(minecraftJar)) {
+            return;
+        }
+
+        VersionExecutable clientDownload = vanillaVersion == null ? null : vanillaVersion.getClientDownload();
+        if (clientDownload == null) {
+            throw new IOException("Failed to find client download for Minecraft " + profile.getMinecraft());
+        }
+
+        log.info("Downloading Minecraft " + profile.getMinecraft() + " from " + clientDownload.getUrl());
+        libraryDownloader().downloadBigFile(clientDownload.getUrl(), minecraftJar, clientDownload.getSha1(), clientDownload.getSize());
+    }
+
+    private List<ForgeInstallProfile.Library> extractVersionJson(ZipFile zipFile, ForgeInstallProfile profile, Path mcDir) throws IOException {
+        byte[] bytes = readEntry(zipFile, profile.getJson());
+        try {
+            JsonObject version = JsonUtil.GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), JsonObject.class);
+            String id = JsonUtil.getString(version, "id");
+            if (id == null) {
+                throw new IOException("Version json " + profile.getJson() + " does not have an id");
+            }
+
+            Path versionJson = mcDir.resolve("versions").resolve(id).resolve(id + ".json");
+            Files.createDirectories(versionJson.getParent());
+            Files.write(versionJson, bytes);
+
+            List<ForgeInstallProfile.Library> result = new ArrayList<>();
+            JsonArray libraries = JsonUtil.getArray(version, "libraries");
+            if (libraries != null) {
+                for (JsonElement library : libraries) {
+                    result.add(JsonUtil.GSON.fromJson(library, ForgeInstallProfile.Library.class));
+                }
+            }
+
+            return result;
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Failed to read version json " + profile.getJson() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void ensureLibrary(ZipFile zipFile, ForgeInstallProfile.Library library, String path, Path librariesDir, boolean required) throws IOException {
+        Path file = librariesDir.resolve(path);
+        ForgeInstallProfile.Artifact artifact = library.getArtifact();
+        String sha1 = artifact == null ? null : artifact.getSha1();
+        if (Files.exists(file) && (sha1 == null || launcher.getSha1Service().checkIntegrity(file, null, sha1))) {
+            return;
+        }
+
+        String url = artifact == null ? null : artifact.getUrl();
+        if (url != null && !url.isEmpty()) {
+            log.debug("Downloading library " + path + " from " + url);
+            libraryDownloader().download(url, file, sha1, artifact.getSize());
+            return;
+        }
+
+        ZipEntry entry = zipFile.getEntry("maven/" + path);
+        if (entry != null) {
+            log.debug("Extracting library " + path + " from installer");
+            Files.createDirectories(file.getParent());
+            try (InputStream is = zipFile.getInputStream(entry)) {
+                Files.copy(is, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } else if (required) {
+            throw new IOException("Failed to find library " + library.getName());
+        }
+    }
+
+    private Map<String, String> getData(ZipFile zipFile, ForgeInstallProfile profile, Path installer, Path mcDir, Path minecraftJar, Path tempDir,
+                                        Set<String> inputs) throws IOException {
+        Map<String, String> data = new HashMap<>();
+        data.put("SIDE", SIDE);
+        data.put("MINECRAFT_JAR", minecraftJar.toAbsolutePath().toString());
+        data.put("MINECRAFT_VERSION", profile.getMinecraft());
+        data.put("ROOT", mcDir.toAbsolutePath().toString());
+        data.put("INSTALLER", installer.toAbsolutePath().toString());
+        data.put("LIBRARY_DIR", mcDir.resolve("libraries").toAbsolutePath().toString());
+        inputs.add(data.get("MINECRAFT_JAR"));
+        inputs.add(data.get("ROOT"));
+        inputs.add(data.get("INSTALLER"));
+        inputs.add(data.get("LIBRARY_DIR"));
+        if (profile.getData() == null) {
+            return data;
+        }
+
+        for (Map.Entry<String, ForgeInstallProfile.DataEntry> entry : profile.getData().entrySet()) {
+            String value = entry.getValue().getClient();
+            if (value == null) {
+                continue;
+            }
+
+            if (value.startsWith("[") && value.endsWith("]")) {
+                value = mcDir.resolve("libraries").resolve(ForgeInstallCache.getMavenPath(value.substring(1, value.length() - 1))).toAbsolutePath().toString();
+            } else if (value.startsWith("'") && value.endsWith("'")) {
+                value = value.substring(1, value.length() - 1);
+            } else if (value.startsWith("/")) {
+                Path file = tempDir.resolve(value.substring(1)).normalize();
+                if (!file.startsWith(tempDir)) {
+                    throw new IOException("Invalid data path " + value);
+                }
+
+                Files.createDirectories(file.getParent());
+                Files.write(file, readEntry(zipFile, value));
+                value = file.toAbsolutePath().toString();
+                inputs.add(value);
+            }
+
+            data.put(entry.getKey(), value);
+        }
+
+        return data;
+    }
+
+    /**
+     * Creates the tasks for the processors of the client side and determines their dependencies.
+     *
+     * @param profile the install profile.
+     * @param data the resolved data of the profile.
+     * @param librariesDir the libraries directory.
+     * @param inputs absolute paths which are only read by the processors, e.g. the Minecraft jar and the libraries.
+     * @return the tasks, in the order of the install profile.
+     * @throws IOException if the arguments of a processor can not be resolved.
+     */
+    List<Task> createTasks(ForgeInstallProfile profile, Map<String, String> data, Path librariesDir, Set<String> inputs) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        if (profile.getProcessors() == null) {
+            return tasks;
+        }
+
+        for (ForgeInstallProfile.Processor processor : profile.getProcessors()) {
+            if (!processor.isForSide(SIDE)) {
+                continue;
+            }
+
+            Task task = new Task(tasks.size(), librariesDir.resolve(ForgeInstallCache.getMavenPath(processor.getJar())));
+            if (processor.getClasspath() != null) {
+                for (String artifact : processor.getClasspath()) {
+                    task.getClasspath().add(librariesDir.resolve(ForgeInstallCache.getMavenPath(artifact)));
+                }
+            }
+
+            for (String arg : processor.getArgs() == null ? Collections.<String>emptyList() : processor.getArgs()) {
+                String replaced = replace(arg, data, librariesDir);
+                task.getArgs().add(replaced);
+                task.getFiles().add(replaced);
+                // --key=value
+                int equals = replaced.indexOf('=');
+                if (replaced.startsWith("--") && equals != -1) {
+                    task.getFiles().add(replaced.substring(equals + 1));
+                }
+            }
+
+            if (processor.getOutputs() != null) {
+                for (Map.Entry<String, String> entry : processor.getOutputs().entrySet()) {
+                    String file = replace(entry.getKey(), data, librariesDir);
+                    task.getOutputs().put(file, replace(entry.getValue(), data, librariesDir));
+                }
+            }
+
+            // without declared outputs we can not know which files a processor writes
+            Iterable<String> written = task.getOutputs().isEmpty() ? task.getFiles() : task.getOutputs().keySet();
+            for (String file : written) {
+                Path path = toAbsolutePath(file);
+                if (path != null && (!task.getOutputs().isEmpty() || !inputs.contains(file))) {
+                    task.getWritten().add(path);
+                }
+            }
+
+            for (String file : task.getFiles()) {
+                Path path = toAbsolutePath(file);
+                if (path != null) {
+                    task.getUsed().add(path);
+                }
+            }
+
+            task.getUsed().addAll(task.getWritten());
+            tasks.add(task);
+        }
+
+        for (Task task : tasks) {
+            for (int i = 0; i < task.getIndex(); i++) {
+                Task earlier = tasks.get(i);
+                if (dependsOn(task, earlier)) {
+                    task.getDependencies().add(earlier);
+                }
+            }
+        }
+
+        return tasks;
+    }
+
+    private static boolean dependsOn(Task task, Task earlier) {
+        return overlaps(earlier.getWritten(), task.getUsed()) || overlaps(task.getWritten(), earlier.getUsed());
+    }
+
+    /**
+     * @return {@code true} if a path of the first set equals a path of the second one, or if one contains the other,
+     * e.g. a processor writing into the libraries directory and another one reading the whole directory.
+     */
+    private static boolean overlaps(Set<Path> written, Set<Path> used) {
+        for (Path file : written) {
+            for (Path other : used) {
+                if (file.startsWith(other) || other.startsWith(file)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static @Nullable Path toAbsolutePath(String arg) {
+        try {
+            Path path = Paths.get(arg);
+            return path.isAbsolute() ? path.normalize() : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private void run(Task task, Map<List<Path>, URLClassLoader> classLoaders) throws IOException {
+        if (!task.getOutputs().isEmpty() && checkOutputs(task)) {
+            log.debug("Outputs of processor " + task.getJar().getFileName() + " are valid, skipping it");
+            return;
+        }
+
+        List<Path> classpath = new ArrayList<>();
+        classpath.add(task.getJar());
+        classpath.addAll(task.getClasspath());
+        URL[] urls = new URL[classpath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = classpath.get(i).toUri().toURL();
+        }
+
+        URLClassLoader classLoader = classLoaders.computeIfAbsent(classpath, k -> new URLClassLoader(urls, getParentClassLoader()));
+        Thread thread = Thread.currentThread();
+        ClassLoader classLoaderBefore = thread.getContextClassLoader();
+        // processors keep static state, runs of the same artifact must not overlap
+        synchronized (classLoader) {
+            log.info("Running processor " + task.getJar().getFileName() + " " + task.getArgs());
+            try {
+                thread.setContextClassLoader(classLoader);
+                Class<?> mainClass = Class.forName(getMainClass(task.getJar()), true, classLoader);
+                Method main = mainClass.getDeclaredMethod("main", String[].class);
+                main.invoke(null, (Object) task.getArgs().toArray(new String[0]));
+            } catch (InvocationTargetException e) {
+                throw new IOException("Processor " + task.getJar().getFileName() + " failed: " + e.getCause(), e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("Failed to run processor " + task.getJar().getFileName(), e);
+            } finally {
+                thread.setContextClassLoader(classLoaderBefore);
+            }
+        }
+
+        if (!task.getOutputs().isEmpty() && !checkOutputs(task)) {
+            throw new IOException("Outputs of processor " + task.getJar().getFileName() + " are invalid");
+        }
+    }
+
+    private boolean checkOutputs(Task task) throws IOException {
+        for (Map.Entry<String, String> output : task.getOutputs().entrySet()) {
+            Path file = Paths.get(output.getKey());
+            if (!Files.exists(file) || !launcher.getSha1Service().checkIntegrity(file, null, output.getValue())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static String replace(String arg, Map<String, String> data, Path librariesDir) throws IOException {
+        if (arg.startsWith("[") && arg.endsWith("]")) {
+            return librariesDir.resolve(ForgeInstallCache.getMavenPath(arg.substring(1, arg.length() - 1))).toAbsolutePath().toString();
+        }
+
+        StringBuilder result = new StringBuilder(arg.length());
+        for (int i = 0; i < arg.length(); i++) {
+            char c = arg.charAt(i);
+            if (c == '\\' && i + 1 < arg.length()) {
+                result.append(arg.charAt(++i));
+            } else if (c == '{') {
+                int end = arg.indexOf('}', i);
+                if (end == -1) {
+                    throw new IOException("Unclosed token in " + arg);
+                }
+
+                String key = arg.substring(i + 1, end);
+                String value = data.get(key);
+                if (value == null) {
+                    throw new IOException("Missing data " + key + " for " + arg);
+                }
+
+                result.append(value);
+                i = end;
+            } else if (c == '\'' && (i == 0 || i == arg.length() - 1)) {
+                continue; // quoted literal
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.toString();
+    }
+
+    private LibraryDownloader libraryDownloader() {
+        return new LibraryDownloader(launcher.getDownloadService(), launcher.getConfigService(), launcher.getProcessFactory().getOs());
+    }
+
+    private static String getPath(ForgeInstallProfile.Library library) {
+        ForgeInstallProfile.Artifact artifact = library.getArtifact();
+        if (artifact != null && artifact.getPath() != null) {
+            return artifact.getPath();
+        }
+
+        return ForgeInstallCache.getMavenPath(library.getName());
+    }
+
+    private static String getMainClass(Path jar) throws IOException {
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Manifest manifest = jarFile.getManifest();
+            String mainClass = manifest == null ? null : manifest.getMainAttributes().getValue("Main-Class");
+            if (mainClass == null) {
+                throw new IOException("Processor " + jar + " did not contain a Main-Class!");
+            }
+
+            return mainClass;
+        }
+    }
+
+    private static byte[] readEntry(ZipFile zipFile, String name) throws IOException {
+        ZipEntry entry = zipFile.getEntry(name.startsWith("/") ? name.substring(1) : name);
+        if (entry == null) {
+            throw new IOException("Installer does not contain " + name);
+        }
+
+        try (InputStream is = zipFile.getInputStream(entry)) {
+            return IOUtil.toBytes(is);
+        }
+    }
+
+    /**
+     * @return the platform ClassLoader on Java 9+, the bootstrap ClassLoader on Java 8, like the Forge installer.
+     */
+    private static @Nullable ClassLoader getParentClassLoader() {
+        try {
+            return (ClassLoader) ClassLoader.class.getMethod("getPlatformClassLoader").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static void join(List<CompletableFuture<Void>> futures) throws IOException {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static void wrap(IORunnable runnable) {
+        try {
+            runnable.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IORunnable {
+        void run() throws IOException;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static final class Task {
+        private final int index;
+        private final Path jar;
+        private final List<Path> classpath = new ArrayList<>();
+        private final List<String> args = new ArrayList<>();
+        private final Map<String, String> outputs = new LinkedHashMap<>();
+        /**
+         * The arguments of the processor, and the values of {@code --key=value} arguments, which might be files.
+         */
+        private final Set<String> files = new HashSet<>();
+        /**
+         * The absolute paths this processor might write, its declared outputs if there are any.
+         */
+        private final Set<Path> written = new HashSet<>();
+        /**
+         * The absolute paths this processor reads or writes.
+         */
+        private final Set<Path> used = new HashSet<>();
+        private final List<Task> dependencies = new ArrayList<>();
+    }
+
+    private static final class ProcessorThreadFactory implements ThreadFactory {
+        private final AtomicInteger id = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "HeadlessMc-ForgeProcessor-" + id.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -26,7 +26,7 @@ public class LoginCommand extends AbstractLoginCommand {
     protected void onSuccessfulLogin(StepFullJavaSession.FullJavaSession session) {
         ValidatedAccount validatedAccount;
         try {
-            validatedAccount = launcher.getAccountManager().getAccountValidator().validate(session);
+            validatedAccount = launcher.getAccountManager().validate(session, launcher.getConfig());
         } catch (AuthException e) {
             ctx.log(e.getMessage());
             return;
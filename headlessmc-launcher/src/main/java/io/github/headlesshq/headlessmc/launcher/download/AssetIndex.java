@@ -0,0 +1,224 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A compact, read-only representation of an asset index.
+ * Instead of an object per asset, the index is stored as parallel arrays,
+ * the SHA-1 hashes are kept as raw bytes.
+ * The index is read with a streaming {@link JsonReader}, no Json tree is built.
+ */
+public final class AssetIndex {
+    private static final int HASH_LENGTH = 20;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Getter
+    private final int size;
+    private final String[] names;
+    private final byte[] hashes;
+    private final long[] sizes;
+    private final BitSet mapToResources;
+    /**
+     * If the index itself is marked as {@code map_to_resources}, which means every asset gets mapped.
+     */
+    @Getter
+    private final boolean mapAllToResources;
+    @Getter
+    private final boolean virtual;
+
+    private AssetIndex(int size, String[] names, byte[] hashes, long[] sizes, BitSet mapToResources, boolean mapAllToResources, boolean virtual) {
+        this.size = size;
+        this.names = names;
+        this.hashes = hashes;
+        this.sizes = sizes;
+        this.mapToResources = mapToResources;
+        this.mapAllToResources = mapAllToResources;
+        this.virtual = virtual;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @param index the index of the asset.
+     * @return the lower case hex SHA-1 hash of the asset.
+     */
+    public String getHash(int index) {
+        char[] chars = new char[HASH_LENGTH * 2];
+        int offset = index * HASH_LENGTH;
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int v = hashes[offset + i] & 0xFF;
+            chars[i * 2] = HEX[v >>> 4];
+            chars[i * 2 + 1] = HEX[v & 0x0F];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * @param index the index of the asset.
+     * @return a copy of the raw SHA-1 hash of the asset.
+     */
+    public byte[] getHashBytes(int index) {
+        return Arrays.copyOfRange(hashes, index * HASH_LENGTH, (index + 1) * HASH_LENGTH);
+    }
+
+    /**
+     * @param index the index of the asset.
+     * @return the size of the asset or {@code null} if the index does not specify one.
+     */
+    public Long getSize(int index) {
+        long size = sizes[index];
+        return size < 0 ? null : size;
+    }
+
+    public boolean isMapToResources(int index) {
+        return mapAllToResources || mapToResources.get(index);
+    }
+
+    public static AssetIndex read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(new JsonReader(reader));
+        } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+            throw new IOException("Couldn't read contents of " + file.toAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    static AssetIndex read(JsonReader reader) throws IOException {
+        Builder builder = new Builder();
+        boolean foundObjects = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            switch (key) {
+                case "objects":
+                    foundObjects = true;
+                    readObjects(reader, builder);
+                    break;
+                case "map_to_resources":
+                    builder.mapAllToResources = readBoolean(reader);
+                    break;
+                case "virtual":
+                    builder.virtual = readBoolean(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+        if (!foundObjects) {
+            throw new IOException("Asset index does not contain objects");
+        }
+
+        return builder.build();
+    }
+
+    private static void readObjects(JsonReader reader, Builder builder) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            String hash = null;
+            long size = -1L;
+            boolean mapToResources = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "hash":
+                        hash = reader.nextString();
+                        break;
+                    case "size":
+                        size = reader.nextLong();
+                        break;
+                    case "map_to_resources":
+                        mapToResources = readBoolean(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+
+            reader.endObject();
+            if (hash == null) {
+                throw new IOException("Asset " + name + " does not have a hash");
+            }
+
+            builder.add(name, hash, size, mapToResources);
+        }
+
+        reader.endObject();
+    }
+
+    private static boolean readBoolean(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BOOLEAN) {
+            return reader.nextBoolean();
+        }
+
+        return Boolean.parseBoolean(reader.nextString());
+    }
+
+    private static final class Builder {
+        private String[] names = new String[4096];
+        private byte[] hashes = new byte[4096 * HASH_LENGTH];
+        private long[] sizes = new long[4096];
+        private final BitSet mapToResources = new BitSet();
+        private boolean mapAllToResources;
+        private boolean virtual;
+        private int size;
+
+        void add(String name, String hash, long assetSize, boolean map) throws IOException {
+            if (hash.length() != HASH_LENGTH * 2) {
+                throw new IOException("Invalid hash " + hash + " for asset " + name);
+            }
+
+            if (size == names.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                hashes = Arrays.copyOf(hashes, capacity * HASH_LENGTH);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+
+            int offset = size * HASH_LENGTH;
+            for (int i = 0; i < HASH_LENGTH; i++) {
+                int high = Character.digit(hash.charAt(i * 2), 16);
+                int low = Character.digit(hash.charAt(i * 2 + 1), 16);
+                if (high == -1 || low == -1) {
+                    throw new IOException("Invalid hash " + hash + " for asset " + name);
+                }
+
+                hashes[offset + i] = (byte) ((high << 4) | low);
+            }
+
+            names[size] = name;
+            sizes[size] = assetSize;
+            if (map) {
+                mapToResources.set(size);
+            }
+
+            size++;
+        }
+
+        AssetIndex build() {
+            return new AssetIndex(size,
+                    Arrays.copyOf(names, size),
+                    Arrays.copyOf(hashes, size * HASH_LENGTH),
+                    Arrays.copyOf(sizes, size),
+                    mapToResources,
+                    mapAllToResources,
+                    virtual);
+        }
+    }
+
+}
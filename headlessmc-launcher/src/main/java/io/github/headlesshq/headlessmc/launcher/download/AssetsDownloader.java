@@ -1,16 +1,16 @@
 package io.github.headlesshq.headlessmc.launcher.download;
 
-import com.google.gson.JsonObject;
 import lombok.CustomLog;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.val;
 import io.github.headlesshq.headlessmc.api.command.line.CommandLine;
 import io.github.headlesshq.headlessmc.api.command.line.Progressbar;
+import io.github.headlesshq.headlessmc.api.config.Config;
 import io.github.headlesshq.headlessmc.api.config.HasConfig;
 import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
+import io.github.headlesshq.headlessmc.launcher.files.FileLinker;
 import io.github.headlesshq.headlessmc.launcher.files.FileManager;
-import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
@@ -18,12 +18,11 @@ import java.io.OutputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 @CustomLog
 @RequiredArgsConstructor
 public class AssetsDownloader {
-    private static final String URL = "https://resources.download.minecraft.net/";
+    public static final String URL = "https://resources.download.minecraft.net/";
 
     private final ChecksumService checksumService = new ChecksumService();
     private final DummyAssets dummyAssets = new DummyAssets();
@@ -37,6 +36,16 @@ public class AssetsDownloader {
 
     @Setter
     protected boolean shouldLog = true;
+    private FileLinker legacyLinker;
+    private FileLinker resourcesLinker;
+
+    // snapshot of the config for one download, so that we do not need to query it for every asset
+    private Path objectsDir;
+    private boolean virtual;
+    private boolean useDummyAssets;
+    private boolean checkHash;
+    private boolean checkSize;
+    private boolean checkFileHash;
 
     public void download() throws IOException {
         Path index = files.getDir("assets").toPath().resolve("indexes").resolve(id + ".json");
@@ -46,47 +55,59 @@ public class AssetsDownloader {
             downloadService.download(url, index.toAbsolutePath());
         }
 
-        JsonObject objects = JsonUtil.getObject(JsonUtil.fromFile(index.toFile()), "objects");
-        if (objects == null || !objects.isJsonObject()) {
-            throw new IOException("Couldn't read contents of " + index.toAbsolutePath());
-        }
-
+        AssetIndex assetIndex = AssetIndex.read(index);
+        Config cfg = config.getConfig();
         ParallelIOService ioService = new ParallelIOService(
-                config.getConfig().get(LauncherProperties.ASSETS_DELAY, 0L),
-                Math.max(1, config.getConfig().get(LauncherProperties.ASSETS_RETRIES, 3L).intValue()),
-                config.getConfig().get(LauncherProperties.ASSETS_PARALLEL, true),
-                config.getConfig().get(LauncherProperties.ASSETS_BACKOFF, true)
+                cfg.get(LauncherProperties.ASSETS_DELAY, 0L),
+                Math.max(1, cfg.get(LauncherProperties.ASSETS_RETRIES, 3L).intValue()),
+                cfg.get(LauncherProperties.ASSETS_PARALLEL, true),
+                cfg.get(LauncherProperties.ASSETS_BACKOFF, true)
         );
 
+        objectsDir = files.getDir("assets").toPath().resolve("objects");
+        virtual = assetIndex.isVirtual();
+        useDummyAssets = cfg.get(LauncherProperties.DUMMY_ASSETS, false);
+        checkHash = cfg.get(LauncherProperties.ASSETS_CHECK_HASH, true);
+        checkSize = checkHash || cfg.get(LauncherProperties.ASSETS_CHECK_SIZE, true);
+        checkFileHash = cfg.get(LauncherProperties.ASSETS_CHECK_FILE_HASH, false);
+        boolean link = cfg.get(LauncherProperties.ASSETS_LINK, true);
+        legacyLinker = new FileLinker("Legacy assets", link);
+        resourcesLinker = new FileLinker("Resources", link);
         // TODO: provide better ETA, later assets take longer
-        try (Progressbar progressbar = commandLine.displayProgressBar(new Progressbar.Configuration("Downloading Assets", objects.size()))) {
+        try (Progressbar progressbar = commandLine.displayProgressBar(new Progressbar.Configuration("Downloading Assets", assetIndex.getSize()))) {
             ioService.setShouldLog(progressbar.isDummy());
             shouldLog = progressbar.isDummy();
 
-            objects.getAsJsonObject().entrySet().forEach(entry -> ioService.addTask(progress -> {
-                JsonObject jo = entry.getValue().getAsJsonObject();
-                downloadAsset(
-                        progress,
-                        entry.getKey(),
-                        jo.get("hash").getAsString(),
-                        jo.get("size") == null ? null : jo.get("size").getAsLong(),
-                        jo.get("map_to_resources") != null && jo.get("map_to_resources").getAsBoolean()
-                );
-
-                progressbar.step();
-            }));
+            for (int i = 0; i < assetIndex.getSize(); i++) {
+                int asset = i;
+                ioService.addTask(progress -> {
+                    downloadAsset(
+                            progress,
+                            assetIndex.getName(asset),
+                            assetIndex.getHash(asset),
+                            assetIndex.getHashBytes(asset),
+                            assetIndex.getSize(asset),
+                            assetIndex.isMapToResources(asset)
+                    );
+
+                    progressbar.step();
+                });
+            }
 
             ioService.execute();
         }
+
+        legacyLinker.logSummary();
+        resourcesLinker.logSummary();
     }
 
-    protected void downloadAsset(String progress, String name, String hash, @Nullable Long size, boolean mapToResources) throws IOException {
+    protected void downloadAsset(String progress, String name, String hash, byte[] hashBytes, @Nullable Long size, boolean mapToResources) throws IOException {
         val firstTwo = hash.substring(0, 2);
-        val to = files.getDir("assets").toPath().resolve("objects").resolve(firstTwo).resolve(hash);
-        Path file = getAssetsFile(name, to, hash, size);
+        val to = objectsDir.resolve(firstTwo).resolve(hash);
+        Path file = getAssetsFile(name, to, hashBytes, size);
         if (!Files.exists(file)) {
             byte[] bytes = null;
-            if (config.getConfig().get(LauncherProperties.DUMMY_ASSETS, false)) {
+            if (useDummyAssets) {
                 log.debug("Using dummy asset for " + name);
                 bytes = dummyAssets.getResource(name);
             }
@@ -103,8 +124,8 @@ public class AssetsDownloader {
             }
         }
 
-        copyToLegacy(name, file, hash, size, true);
-        mapToResources(name, file, mapToResources, hash, size, true);
+        copyToLegacy(name, file, hashBytes, size, true);
+        mapToResources(name, file, mapToResources, hashBytes, size, true);
     }
 
     protected byte @Nullable [] download(String firstTwo, String hash, String progress, String name, Path to, @Nullable Long size) throws IOException {
@@ -113,52 +134,56 @@ public class AssetsDownloader {
             log.info(progress + " Downloading: " + name + " from " + from + " to " + to);
         }
 
-        boolean checkHash = config.getConfig().get(LauncherProperties.ASSETS_CHECK_HASH, true);
-        boolean checkSize = checkHash || config.getConfig().get(LauncherProperties.ASSETS_CHECK_SIZE, true);
         Long expectedSize = checkSize ? size : null;
         String expectedHash = checkHash ? hash : null;
         return downloadService.download(new URL(from), expectedSize, expectedHash);
     }
 
-    protected Path getAssetsFile(String name, Path file, @Nullable String hash, @Nullable Long size) throws IOException {
+    protected Path getAssetsFile(String name, Path file, byte @Nullable [] hash, @Nullable Long size) throws IOException {
         integrityCheck("Asset (" + name + ")", file, hash, size);
         return file;
     }
 
     protected boolean shouldCheckFileHash() {
-        return config.getConfig().get(LauncherProperties.ASSETS_CHECK_FILE_HASH, false);
+        return checkFileHash;
     }
 
-    protected void copyToLegacy(String name, Path file, String hash, @Nullable Long size, boolean copy) throws IOException {
-        if ("pre-1.6".equals(id)) {
-            // TODO: old versions have the map_to_resource thing, copy to resources
-            val legacy = files.getDir("assets").toPath().resolve("virtual").resolve("legacy").resolve(name);
+    protected void copyToLegacy(String name, Path file, byte @Nullable [] hash, @Nullable Long size, boolean copy) throws IOException {
+        if ("pre-1.6".equals(id) || virtual) {
+            val legacy = objectsDir.resolveSibling("virtual").resolve("legacy").resolve(name);
             if (shouldLog) {
                 log.info("Legacy version, copying to " + legacy);
             } else {
                 log.debug("Legacy version, copying to " + legacy);
             }
 
-            integrityCheck("Legacy", legacy, hash, size);
-            if (copy && !Files.exists(legacy)) {
-                Files.copy(file, legacy, StandardCopyOption.REPLACE_EXISTING);
+            // a linked file is the object itself, which has been verified already
+            if (!legacyLinker.isLinked(file, legacy)) {
+                integrityCheck("Legacy", legacy, hash, size);
+            }
+
+            if (copy) {
+                legacyLinker.place(file, legacy);
             }
         }
     }
 
-    protected void mapToResources(String name, Path file, boolean mapToResources, String hash, @Nullable Long size, boolean copy) throws IOException {
+    protected void mapToResources(String name, Path file, boolean mapToResources, byte @Nullable [] hash, @Nullable Long size, boolean copy) throws IOException {
         if (mapToResources) {
             val resources = files.getDir("resources").toPath().resolve(name);
             log.debug("Mapping " + name + " to resources " + resources);
-            integrityCheck("Resources", resources, hash, size);
-            if (copy && !Files.exists(resources)) {
-                Files.copy(file, resources, StandardCopyOption.REPLACE_EXISTING);
+            if (!resourcesLinker.isLinked(file, resources)) {
+                integrityCheck("Resources", resources, hash, size);
+            }
+
+            if (copy) {
+                resourcesLinker.place(file, resources);
             }
         }
     }
 
-    protected boolean integrityCheck(String type, Path file, String hash, @Nullable Long size) throws IOException {
-        if (shouldCheckFileHash() && Files.exists(file) && !checksumService.checkIntegrity(file, size, hash)) {
+    protected boolean integrityCheck(String type, Path file, byte @Nullable [] hash, @Nullable Long size) throws IOException {
+        if (shouldCheckFileHash() && Files.exists(file) && !checksumService.checkIntegrity(file, size == null ? -1L : size, hash)) {
             log.warn(type + " file " + file + " failed the integrity check, deleting...");
             Files.delete(file);
             return false;
@@ -6,41 +6,76 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A service for verifying hashes. Default implementation verifies SHA1.
+ * <p>
+ * Every thread reuses one {@link MessageDigest} per algorithm and one direct buffer for reading files,
+ * shared by all instances, and expected hashes are compared as raw bytes instead of hex strings.
  */
 public class ChecksumService {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
     public boolean checkIntegrity(byte[] bytes, @Nullable Long size, @Nullable String hash) {
+        // an invalid hash string decodes to null and never matches
+        return checkIntegrity(bytes, size, hash == null ? null : fromHashString(hash), hash != null);
+    }
+
+    private boolean checkIntegrity(byte[] bytes, @Nullable Long size, byte @Nullable [] hash, boolean checkHash) {
         if (size != null && size >= 0L && size != bytes.length) {
             return false;
         }
 
-        if (hash != null) {
-            String byteHash = hash(bytes);
-            return hash.equalsIgnoreCase(byteHash);
-        }
-
-        return true;
+        return !checkHash || hash != null && MessageDigest.isEqual(hash, hashBytes(bytes));
     }
 
     public boolean checkIntegrity(Path path, @Nullable Long size, @Nullable String hash) throws IOException {
-        if (size == null && hash == null) {
+        return checkIntegrity(path, size, hash == null ? null : fromHashString(hash), hash != null);
+    }
+
+    /**
+     * Checks a file against a hash that has already been decoded, e.g. by {@link #fromHashString(String)},
+     * so that checking many files does not decode their hashes again for every check.
+     *
+     * @param path the file to check.
+     * @param size the expected size of the file, or a negative value to not check the size.
+     * @param hash the expected raw hash of the file, or {@code null} to not check the hash.
+     * @return {@code true} if the file has the expected size and hash.
+     * @throws IOException if reading the file fails.
+     */
+    public boolean checkIntegrity(Path path, long size, byte @Nullable [] hash) throws IOException {
+        return checkIntegrity(path, size < 0L ? null : size, hash, hash != null);
+    }
+
+    private boolean checkIntegrity(Path path, @Nullable Long size, byte @Nullable [] hash, boolean checkHash) throws IOException {
+        if (size == null && !checkHash) {
             return true;
         }
 
-        try (InputStream is = Files.newInputStream(path)) {
-            return checkIntegrity(is, size, hash, new byte[8096], i -> {});
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the size can be checked without reading the file
+            if (size != null && size != channel.size()) {
+                return false;
+            }
+
+            return !checkHash || hash != null && MessageDigest.isEqual(hash, hashBytes(channel));
         }
     }
 
     public boolean checkIntegrity(InputStream is, @Nullable Long size, @Nullable String hash, byte[] buffer, IOConsumer<Integer> readBytesConsumer) throws IOException {
         int n = 0;
-        int totalReadBytes = 0;
-        MessageDigest digest = getHashFunction();
+        long totalReadBytes = 0;
+        MessageDigest digest = getDigest();
         while (n != -1) {
             n = is.read(buffer);
             readBytesConsumer.accept(n);
@@ -50,31 +85,109 @@ public class ChecksumService {
             }
         }
 
-        return (size == null || size == totalReadBytes) && (hash == null || hash.equalsIgnoreCase(toHashString(digest.digest())));
+        if (size != null && size != totalReadBytes) {
+            return false;
+        }
+
+        byte[] expected = hash == null ? null : fromHashString(hash);
+        return hash == null || expected != null && MessageDigest.isEqual(expected, digest.digest());
     }
 
     public String hash(byte[] bytes) {
         return toHashString(hashBytes(bytes));
     }
 
+    /**
+     * Hashes the contents of the given file.
+     *
+     * @param path the file to hash.
+     * @return the hash as a lower case hex string.
+     * @throws IOException if reading the file fails.
+     */
+    public String hash(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return toHashString(hashBytes(channel));
+        }
+    }
+
     public byte[] hashBytes(byte[] bytes) {
-        MessageDigest hashFunction = getHashFunction();
-        hashFunction.digest(bytes);
-        return hashFunction.digest(bytes);
+        return getDigest().digest(bytes);
+    }
+
+    private byte[] hashBytes(FileChannel channel) throws IOException {
+        MessageDigest digest = getDigest();
+        ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+
+        return digest.digest();
     }
 
     public String toHashString(byte[] bytes) {
-        StringBuilder hashBuilder = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            hashBuilder.append(String.format("%02x", b));
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            chars[i * 2] = HEX[v >>> 4];
+            chars[i * 2 + 1] = HEX[v & 0x0F];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Decodes a hex string, as produced by {@link #toHashString(byte[])}, case-insensitively.
+     *
+     * @param hash the hex string to decode.
+     * @return the decoded bytes or {@code null} if the string is not valid hex.
+     */
+    public byte @Nullable [] fromHashString(String hash) {
+        if (hash.length() % 2 != 0) {
+            return null;
         }
 
-        return hashBuilder.toString();
+        byte[] result = new byte[hash.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            int high = Character.digit(hash.charAt(i * 2), 16);
+            int low = Character.digit(hash.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+
+            result[i] = (byte) ((high << 4) | low);
+        }
+
+        return result;
     }
 
+    /**
+     * Creates a new {@link MessageDigest} for the hash function of this service.
+     * The returned digest is not shared and can be used for long-running, incremental hashing.
+     *
+     * @return a new MessageDigest.
+     */
     @SneakyThrows
     public MessageDigest getHashFunction() {
-        return MessageDigest.getInstance("SHA-1");
+        return MessageDigest.getInstance(getAlgorithm());
+    }
+
+    /**
+     * @return the name of the hash function of this service, as used by {@link MessageDigest#getInstance(String)}.
+     */
+    public String getAlgorithm() {
+        return "SHA-1";
+    }
+
+    /**
+     * @return the reset {@link MessageDigest} of the current thread, which must not be used across calls.
+     */
+    protected MessageDigest getDigest() {
+        MessageDigest result = DIGESTS.get().computeIfAbsent(getAlgorithm(), algorithm -> getHashFunction());
+        result.reset();
+        return result;
     }
 
 }
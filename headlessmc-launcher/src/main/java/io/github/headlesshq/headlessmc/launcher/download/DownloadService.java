@@ -1,5 +1,6 @@
 package io.github.headlesshq.headlessmc.launcher.download;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -8,13 +9,22 @@ import io.github.headlesshq.headlessmc.java.download.DownloadClient;
 import io.github.headlesshq.headlessmc.launcher.files.IOService;
 import io.github.headlesshq.headlessmc.launcher.util.IOConsumer;
 import net.lenni0451.commons.httpclient.HttpClient;
+import net.lenni0451.commons.httpclient.requests.HttpRequest;
 import net.lenni0451.commons.httpclient.HttpResponse;
 import net.lenni0451.commons.httpclient.RetryHandler;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOError;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 @Getter
@@ -22,8 +32,37 @@ import java.util.function.Supplier;
 public class DownloadService extends IOService implements DownloadClient {
     private final ChecksumService defaultChecksumService = new ChecksumService();
     private final ChecksumService checksumService;
-    @Setter
+    private final HttpMetrics metrics = new HttpMetrics();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Semaphore> hostLimits = new ConcurrentHashMap<>();
     private Supplier<HttpClient> httpClientFactory = this::getDefaultHttpClient;
+    @Getter(AccessLevel.NONE)
+    private volatile @Nullable HttpClient httpClient;
+    /**
+     * The maximum amount of concurrent requests to the same host.
+     */
+    @Setter
+    private int maxConnectionsPerHost = 8;
+    /**
+     * The maximum amount of ranges a big file gets split into, which are downloaded in parallel.
+     */
+    @Setter
+    private int parallelRanges = 4;
+    /**
+     * The minimum size of a range a big file gets split into.
+     */
+    @Setter
+    private long minRangeSize = 8_000_000L;
+    /**
+     * How often the download of a big file gets resumed before failing.
+     */
+    @Setter
+    private int retries = 3;
+    /**
+     * Caches metadata, like version manifests and API responses, on disk if set.
+     */
+    @Setter
+    private @Nullable MetadataCache metadataCache;
 
     public DownloadService() {
         this(new ChecksumService());
@@ -66,8 +105,109 @@ public class DownloadService extends IOService implements DownloadClient {
         return ref[0];
     }
 
+    /**
+     * Downloads metadata, like a version manifest or an API response, through the {@link MetadataCache} if one has been set.
+     *
+     * @param url the url to download.
+     * @return a successful response.
+     * @throws IOException if downloading failed and no cached response was available.
+     */
+    public HttpResponse downloadMetadata(URL url) throws IOException {
+        MetadataCache cache = metadataCache;
+        return cache == null ? download(url) : cache.get(url);
+    }
+
     public HttpResponse get(URL url) throws IOException {
-        return httpClientFactory.get().get(url).execute();
+        return execute(url, getHttpClient().get(url), () -> 0L);
+    }
+
+    public HttpResponse get(URL url, Map<String, String> headers) throws IOException {
+        if (headers.isEmpty()) {
+            return get(url);
+        }
+
+        HttpRequest request = getHttpClient().get(url);
+        headers.forEach(request::setHeader);
+        return execute(url, request, () -> 0L);
+    }
+
+    /**
+     * Executes a GET request whose body is handed to the handler while it is being received, instead of being buffered.
+     * Like all other requests of this service the request counts towards the connection limit of its host and the {@link HttpMetrics}.
+     *
+     * @param url the url to request.
+     * @param headers additional headers for the request.
+     * @param handler handles the body of a successful response.
+     * @return the response, with an empty body if it has been handed to the handler.
+     * @throws IOException if the request or the handler fails.
+     */
+    HttpResponse stream(URL url, Map<String, String> headers, LargeFileRequestExecutor.ConnectionHandler handler) throws IOException {
+        AtomicLong received = new AtomicLong();
+        HttpClient client = httpClientFactory.get().setExecutor(hc -> new LargeFileRequestExecutor(hc, (connection, body) ->
+                handler.handle(connection, new LargeFileRequestExecutor.CountingInputStream(body, received::addAndGet))));
+        HttpRequest request = client.get(url);
+        headers.forEach(request::setHeader);
+        try {
+            return execute(url, request, received::get);
+        } catch (IOError e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the HttpClient shared by all requests of this service.
+     * Requests which need their own executor, like the downloads of big files, get a new client from the factory.
+     * The client does not own any connections, HttpURLConnection keeps connections alive for the whole JVM,
+     * sharing it only saves creating a client for every request.
+     *
+     * @return the shared HttpClient, created with the {@link #setHttpClientFactory(Supplier) factory} on first use.
+     */
+    public HttpClient getHttpClient() {
+        HttpClient result = httpClient;
+        if (result == null) {
+            synchronized (this) {
+                result = httpClient;
+                if (result == null) {
+                    result = httpClientFactory.get();
+                    httpClient = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public synchronized void setHttpClientFactory(Supplier<HttpClient> httpClientFactory) {
+        this.httpClientFactory = httpClientFactory;
+        this.httpClient = null;
+    }
+
+    private HttpResponse execute(URL url, HttpRequest request, LongSupplier streamed) throws IOException {
+        String host = url.getHost() + ":" + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+        Semaphore limit = hostLimits.computeIfAbsent(host, h -> new Semaphore(Math.max(1, maxConnectionsPerHost), true));
+        long start = System.nanoTime();
+        try {
+            limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to " + host);
+        }
+
+        long acquired = System.nanoTime();
+        try {
+            HttpResponse response = request.execute();
+            metrics.onResponse(url.getHost(), response.getStatusCode(), response.getContent().length + streamed.getAsLong(), acquired - start, System.nanoTime() - acquired);
+            return response;
+        } catch (IOException | RuntimeException | IOError e) {
+            metrics.onFailure(url.getHost(), acquired - start, System.nanoTime() - acquired);
+            throw e;
+        } finally {
+            limit.release();
+        }
     }
 
     public HttpClient getDefaultHttpClient() {
@@ -91,9 +231,23 @@ public class DownloadService extends IOService implements DownloadClient {
 
     @Override
     public void downloadBigFile(String url, Path destination, String progressBarTitle, ProgressBarProvider progressBarProvider) throws IOException {
-        HttpClient httpClient = httpClientFactory.get()
-                .setExecutor(hc -> new LargeFileRequestExecutor(hc, progressBarProvider, progressBarTitle, destination));
-        HttpResponse httpResponse = httpClient.get(new URL(url)).execute();
+        downloadBigFile(new URL(url), destination, null, null, progressBarTitle, progressBarProvider);
+    }
+
+    /**
+     * Downloads a big file into a {@code .part} file first, which is resumed with range requests if the download fails.
+     *
+     * @see ResumableDownloader
+     */
+    public void downloadBigFile(URL url, Path destination, @Nullable Long size, @Nullable String hash,
+                                String progressBarTitle, ProgressBarProvider progressBarProvider) throws IOException {
+        new ResumableDownloader(this, checksumService, parallelRanges, minRangeSize, retries)
+                .download(url, destination, size, hash, progressBarTitle, progressBarProvider);
+    }
+
+    @Override
+    public void streamBigFile(String url, BodyHandler handler, String progressBarTitle, ProgressBarProvider progressBarProvider) throws IOException {
+        HttpResponse httpResponse = stream(new URL(url), Collections.emptyMap(), LargeFileRequestExecutor.withProgressbar(progressBarProvider, progressBarTitle, handler));
         if (httpResponse.getStatusCode() > 299 || httpResponse.getStatusCode() < 200) {
             throw new IOException("Failed to download " + url + ", response " + httpResponse.getStatusCode() + ": " + httpResponse.getContentAsString());
         }
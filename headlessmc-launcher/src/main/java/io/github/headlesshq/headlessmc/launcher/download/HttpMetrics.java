@@ -0,0 +1,104 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the requests made by the {@link DownloadService}: requests and failures per host, bytes received,
+ * time spent waiting for the per-host connection limit, and a histogram of request latencies.
+ */
+public class HttpMetrics {
+    private static final long[] BUCKETS_MS = { 10L, 50L, 100L, 250L, 500L, 1_000L, 2_500L, 5_000L, 10_000L };
+
+    private final Map<String, AtomicLong> requestsPerHost = new ConcurrentHashMap<>();
+    private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS_MS.length + 1);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public void onResponse(String host, int statusCode, long contentLength, long waitNanos, long nanos) {
+        onRequest(host, waitNanos, nanos);
+        if (statusCode >= 400) {
+            failures.incrementAndGet();
+        }
+
+        bytes.addAndGet(Math.max(0L, contentLength));
+    }
+
+    public void onFailure(String host, long waitNanos, long nanos) {
+        onRequest(host, waitNanos, nanos);
+        failures.incrementAndGet();
+    }
+
+    private void onRequest(String host, long waitNanos, long nanos) {
+        requests.incrementAndGet();
+        requestsPerHost.computeIfAbsent(host, h -> new AtomicLong()).incrementAndGet();
+        this.waitNanos.addAndGet(waitNanos);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BUCKETS_MS.length && millis >= BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+
+        latencies.incrementAndGet(bucket);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getRequests(String host) {
+        AtomicLong count = requestsPerHost.get(host);
+        return count == null ? 0L : count.get();
+    }
+
+    /**
+     * @return the number of requests per latency bucket, the bucket at index {@code i} contains requests faster than
+     * {@link #getBucketLimit(int)}, the last bucket contains all slower requests.
+     */
+    public long[] getLatencyHistogram() {
+        long[] result = new long[latencies.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = latencies.get(i);
+        }
+
+        return result;
+    }
+
+    public static long getBucketLimit(int bucket) {
+        return bucket < BUCKETS_MS.length ? BUCKETS_MS[bucket] : Long.MAX_VALUE;
+    }
+
+    public String getSummary() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT,
+                "HTTP: %d requests, %d failed, %.2f MB received, %.2fs waited for connection limits%n",
+                requests.get(), failures.get(), bytes.get() / 1_000_000.0, waitNanos.get() / 1_000_000_000.0));
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(requestsPerHost).entrySet()) {
+            builder.append("  ").append(entry.getKey()).append(": ").append(entry.getValue().get()).append(" requests").append(System.lineSeparator());
+        }
+
+        builder.append("  latency:");
+        long[] histogram = getLatencyHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            builder.append(i < BUCKETS_MS.length ? " <" + BUCKETS_MS[i] + "ms=" : " >=" + BUCKETS_MS[BUCKETS_MS.length - 1] + "ms=")
+                   .append(histogram[i]);
+        }
+
+        return builder.toString();
+    }
+
+}
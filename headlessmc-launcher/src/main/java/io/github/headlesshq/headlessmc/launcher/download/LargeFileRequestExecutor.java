@@ -2,6 +2,8 @@ package io.github.headlesshq.headlessmc.launcher.download;
 
 import io.github.headlesshq.headlessmc.api.command.line.ProgressBarProvider;
 import io.github.headlesshq.headlessmc.api.command.line.Progressbar;
+import io.github.headlesshq.headlessmc.java.download.DownloadClient;
+import io.github.headlesshq.headlessmc.launcher.util.IOUtil;
 import net.lenni0451.commons.httpclient.HttpClient;
 import net.lenni0451.commons.httpclient.HttpResponse;
 import net.lenni0451.commons.httpclient.executor.RequestExecutor;
@@ -14,6 +16,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.net.ssl.HttpsURLConnection;
+import java.io.FilterInputStream;
 import java.io.IOError;
 import java.io.IOException;
 import java.io.InputStream;
@@ -21,28 +24,23 @@ import java.io.OutputStream;
 import java.net.CookieManager;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
  * This is just {@link net.lenni0451.commons.httpclient.executor.URLConnectionExecutor}
- * but the InputStream from the connection is written to the given file.
+ * but the InputStream from the connection is handed to a {@link ConnectionHandler}
+ * or a {@link DownloadClient.BodyHandler} while it is being received.
  */
 final class LargeFileRequestExecutor extends RequestExecutor {
-    private final ProgressBarProvider progressBarProvider;
-    private final String progressBarTitle;
-    private final Path file;
+    private final ConnectionHandler handler;
 
-    public LargeFileRequestExecutor(HttpClient client, ProgressBarProvider progressBarProvider, String progressBarTitle, Path file) {
+    public LargeFileRequestExecutor(HttpClient client, ConnectionHandler handler) {
         super(client);
-        this.progressBarProvider = progressBarProvider;
-        this.progressBarTitle = progressBarTitle;
-        this.file = file;
+        this.handler = handler;
     }
 
     @Override
@@ -99,28 +97,22 @@ final class LargeFileRequestExecutor extends RequestExecutor {
                 os.flush();
             }
 
-            InputStream inputStream;
-            if (connection.getResponseCode() >= 400) inputStream = connection.getErrorStream();
-            else inputStream = connection.getInputStream();
-
-            long contentLength = connection.getHeaderFields().getOrDefault("Content-Length", Collections.emptyList()).stream().map(Long::parseLong).findFirst().orElse(-1L);
-            try (InputStream is = inputStream;
-                 OutputStream os = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-                 Progressbar progressbar = progressBarProvider.displayProgressBar(
-                         new Progressbar.Configuration(progressBarTitle, contentLength, new Progressbar.Configuration.Unit("mb", 1_000_000))))
-            {
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-
-                while ((bytesRead = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, bytesRead);
-                    progressbar.stepBy(bytesRead);
+            byte[] body = new byte[0];
+            if (connection.getResponseCode() >= 400) {
+                // do not hand error pages to the handler
+                try (InputStream is = connection.getErrorStream()) {
+                    if (is != null) {
+                        body = IOUtil.toBytes(is);
+                    }
+                }
+            } else {
+                try (InputStream is = connection.getInputStream()) {
+                    handler.handle(connection, is);
+                } catch (IOException e) {
+                    throw new IOError(e);
                 }
-            } catch (IOException e) {
-                throw new IOError(e);
             }
 
-            byte[] body = new byte[0];
             HttpResponse response = new HttpResponse(
                     request.getURL(),
                     connection.getResponseCode(),
@@ -139,4 +131,73 @@ final class LargeFileRequestExecutor extends RequestExecutor {
         }
     }
 
+    /**
+     * Creates a {@link ConnectionHandler} which displays a progressbar while the body is handed to the given handler.
+     *
+     * @param progressBarProvider provides the progressbar.
+     * @param progressBarTitle the title of the progressbar.
+     * @param handler the handler for the body.
+     * @return a ConnectionHandler for the handler.
+     */
+    static ConnectionHandler withProgressbar(ProgressBarProvider progressBarProvider, String progressBarTitle, DownloadClient.BodyHandler handler) {
+        return (connection, body) -> {
+            long contentLength = connection.getHeaderFields().getOrDefault("Content-Length", Collections.emptyList()).stream().map(Long::parseLong).findFirst().orElse(-1L);
+            try (Progressbar progressbar = progressBarProvider.displayProgressBar(
+                    new Progressbar.Configuration(progressBarTitle, contentLength, new Progressbar.Configuration.Unit("mb", 1_000_000))))
+            {
+                handler.handle(new CountingInputStream(body, progressbar::stepBy));
+            }
+        };
+    }
+
+    /**
+     * Handles the body of a successful response, with access to the response headers.
+     */
+    @FunctionalInterface
+    interface ConnectionHandler {
+        void handle(HttpURLConnection connection, InputStream body) throws IOException;
+    }
+
+    /**
+     * Reports every byte read, e.g. to step a progressbar.
+     */
+    static final class CountingInputStream extends FilterInputStream {
+        private final LongConsumer onRead;
+
+        CountingInputStream(InputStream in, LongConsumer onRead) {
+            super(in);
+            this.onRead = onRead;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                onRead.accept(1L);
+            }
+
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                onRead.accept(read);
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            if (skipped > 0) {
+                onRead.accept(skipped);
+            }
+
+            return skipped;
+        }
+    }
+
 }
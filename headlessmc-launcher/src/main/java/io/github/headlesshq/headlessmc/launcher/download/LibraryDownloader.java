@@ -3,6 +3,7 @@ package io.github.headlesshq.headlessmc.launcher.download;
 import lombok.CustomLog;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import io.github.headlesshq.headlessmc.api.command.line.ProgressBarProvider;
 import io.github.headlesshq.headlessmc.api.config.HasConfig;
 import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
 import io.github.headlesshq.headlessmc.launcher.util.URLs;
@@ -83,4 +84,17 @@ public class LibraryDownloader {
         downloadService.download(url, to, expectedSize, expectedHash);
     }
 
+    /**
+     * Downloads a large file, like the game jar, which is resumed if the download fails.
+     *
+     * @see DownloadService#downloadBigFile(URL, Path, Long, String, String, ProgressBarProvider)
+     */
+    public void downloadBigFile(String url, Path to, @Nullable String hash, @Nullable Long size) throws IOException {
+        boolean checkHash = config.getConfig().get(LauncherProperties.LIBRARIES_CHECK_HASH, true);
+        boolean checkSize = checkHash || config.getConfig().get(LauncherProperties.LIBRARIES_CHECK_SIZE, true);
+        Long expectedSize = checkSize ? size : null;
+        String expectedHash = checkHash ? hash : null;
+        downloadService.downloadBigFile(new URL(url), to, expectedSize, expectedHash, "Downloading " + to.getFileName(), ProgressBarProvider.dummy());
+    }
+
 }
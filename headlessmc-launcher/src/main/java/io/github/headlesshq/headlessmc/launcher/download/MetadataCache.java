@@ -0,0 +1,180 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.lenni0451.commons.httpclient.HttpResponse;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Caches small metadata responses, like the version manifest, the Forge indices or API responses of Modrinth and GitHub, on disk.
+ * A cached response is used without a request until it is older than the ttl.
+ * After that it gets revalidated with a conditional request, using its {@code ETag} and {@code Last-Modified} headers.
+ * If the request fails, e.g. because we are offline, the stale response is used instead.
+ */
+@Getter
+@CustomLog
+@RequiredArgsConstructor
+public class MetadataCache {
+    private final DownloadService downloadService;
+    private final Path cacheDir;
+    /**
+     * The time in milliseconds for which a cached response is used without revalidating it.
+     */
+    private final long ttl;
+
+    /**
+     * Gets the response for the given url from the cache or downloads it.
+     *
+     * @param url the url to get.
+     * @return a successful response.
+     * @throws IOException if the response could neither be downloaded nor found in the cache.
+     */
+    public HttpResponse get(URL url) throws IOException {
+        String key = downloadService.getChecksumService().hash(url.toString().getBytes(StandardCharsets.UTF_8));
+        Path entryFile = cacheDir.resolve(key + ".json");
+        Path bodyFile = cacheDir.resolve(key);
+        Entry entry = readEntry(entryFile, bodyFile);
+        long now = System.currentTimeMillis();
+        if (entry != null && now >= entry.getFetched() && now - entry.getFetched() < ttl) {
+            log.debug(() -> "Using cached response for " + url);
+            return cached(url, bodyFile);
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        if (entry != null && entry.getEtag() != null) {
+            headers.put("If-None-Match", entry.getEtag());
+        }
+
+        if (entry != null && entry.getLastModified() != null) {
+            headers.put("If-Modified-Since", entry.getLastModified());
+        }
+
+        HttpResponse response;
+        try {
+            response = downloadService.get(url, headers);
+        } catch (IOException e) {
+            if (entry == null) {
+                throw e;
+            }
+
+            log.warn("Failed to get " + url + ", using cached response from " + entry.getFetched() + ": " + e.getMessage());
+            return cached(url, bodyFile);
+        }
+
+        if (response.getStatusCode() == 304 && entry != null) {
+            log.debug(() -> "Cached response for " + url + " has not been modified");
+            entry.setFetched(now);
+            writeEntry(entryFile, entry);
+            return cached(url, bodyFile);
+        }
+
+        if (response.getStatusCode() >= 200 && response.getStatusCode() <= 299) {
+            byte[] content = response.getContent();
+            Files.createDirectories(cacheDir);
+            // other launcher processes might write the same entry, they all run on a main thread with the same id
+            Path tmp = cacheDir.resolve(key + "." + UUID.randomUUID() + ".tmp");
+            try {
+                Files.write(tmp, content);
+                Files.move(tmp, bodyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+
+            writeEntry(entryFile, new Entry(url.toString(), getHeader(response, "ETag"), getHeader(response, "Last-Modified"), content.length, now));
+            return response;
+        }
+
+        if (entry != null && response.getStatusCode() >= 500) {
+            log.warn("Failed to get " + url + ", response " + response.getStatusCode() + ", using cached response from " + entry.getFetched());
+            return cached(url, bodyFile);
+        }
+
+        throw new IOException("Failed to get " + url + ", response " + response.getStatusCode() + ": " + response.getContentAsString());
+    }
+
+    private HttpResponse cached(URL url, Path bodyFile) throws IOException {
+        return new HttpResponse(url, 200, Files.readAllBytes(bodyFile), new HashMap<>());
+    }
+
+    private @Nullable Entry readEntry(Path entryFile, Path bodyFile) {
+        if (!Files.exists(entryFile)) {
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(entryFile, StandardCharsets.UTF_8)) {
+            Entry entry = JsonUtil.GSON.fromJson(reader, Entry.class);
+            // the body might have been written by another process without its entry
+            if (entry != null && Files.exists(bodyFile) && Files.size(bodyFile) == entry.getSize()) {
+                return entry;
+            }
+        } catch (IOException | JsonParseException e) {
+            log.debug("Failed to read cache entry " + entryFile + ": " + e);
+        }
+
+        return null;
+    }
+
+    private void writeEntry(Path entryFile, Entry entry) throws IOException {
+        Path tmp = entryFile.resolveSibling(entryFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                JsonUtil.GSON.toJson(entry, writer);
+            }
+
+            Files.move(tmp, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static @Nullable String getHeader(HttpResponse response, String name) {
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+
+        return null;
+    }
+
+    @Data
+    private static class Entry {
+        @SerializedName("url")
+        private final String url;
+        @SerializedName("etag")
+        private final @Nullable String etag;
+        @SerializedName("lastModified")
+        private final @Nullable String lastModified;
+        @SerializedName("size")
+        private final long size;
+        @SerializedName("fetched")
+        private long fetched;
+
+        public Entry(String url, @Nullable String etag, @Nullable String lastModified, long size, long fetched) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.fetched = fetched;
+        }
+    }
+
+}
@@ -0,0 +1,268 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import com.google.gson.JsonParseException;
+import io.github.headlesshq.headlessmc.api.command.line.Progressbar;
+import io.github.headlesshq.headlessmc.api.config.HasConfig;
+import io.github.headlesshq.headlessmc.launcher.launch.VersionMerger;
+import io.github.headlesshq.headlessmc.launcher.util.IOConsumer;
+import io.github.headlesshq.headlessmc.launcher.version.Features;
+import io.github.headlesshq.headlessmc.launcher.version.Library;
+import io.github.headlesshq.headlessmc.launcher.version.Logging;
+import io.github.headlesshq.headlessmc.launcher.version.Rule;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import io.github.headlesshq.headlessmc.launcher.version.VersionExecutable;
+import io.github.headlesshq.headlessmc.os.OS;
+import lombok.AccessLevel;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads the files multiple versions need to launch in a single pass:
+ * the client jars, libraries and natives, asset objects and logging configurations of all versions are collected,
+ * deduplicated and then downloaded by a fixed amount of threads.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class PrefetchService {
+    private final DownloadService downloadService;
+    private final HasConfig config;
+    private final OS os;
+    private final Path mcDir;
+
+    @Setter
+    private String assetsUrl = AssetsDownloader.URL;
+
+    /**
+     * Collects the files which are missing or fail their integrity check for the given versions.
+     * Asset indices are downloaded during this step if they are missing or invalid, as they are needed to find the asset objects.
+     *
+     * @param versions the versions to collect the files for.
+     * @return a plan containing a download for every missing file.
+     * @throws IOException if an asset index could not be downloaded or read.
+     */
+    public Plan plan(Collection<Version> versions) throws IOException {
+        Plan plan = new Plan(downloadService.getChecksumService());
+        LibraryDownloader libraryDownloader = new LibraryDownloader(downloadService, config, os);
+        libraryDownloader.setShouldLog(false);
+        for (Version version : versions) {
+            Version merged = new VersionMerger(version);
+            VersionExecutable client = merged.getClientDownload();
+            if (client != null) {
+                plan.add(merged.getFolder().toPath().resolve(merged.getName() + ".jar"), client.getSize(), client.getSha1(),
+                         to -> libraryDownloader.download(client.getUrl(), to, client.getSha1(), client.getSize()));
+            }
+
+            for (Library library : merged.getLibraries()) {
+                if (library.getRule().apply(os, Features.EMPTY) == Rule.Action.ALLOW) {
+                    plan.add(mcDir.resolve("libraries").resolve(library.getPath(os)), library.getSize(), library.getSha1(),
+                             to -> libraryDownloader.download(library, to));
+                }
+            }
+
+            if (merged.getAssets() != null && merged.getAssetsUrl() != null) {
+                addAssets(plan, merged);
+            }
+
+            Logging logging = merged.getLogging();
+            if (logging != null && logging.getFile() != null && logging.getFile().getUrl() != null) {
+                Logging.File file = logging.getFile();
+                plan.add(mcDir.resolve("logging").resolve(file.getId()), file.getSize(), file.getSha1(),
+                         to -> downloadService.download(file.getUrl(), to, file.getSize(), file.getSha1()));
+            }
+        }
+
+        plan.verify();
+        return plan;
+    }
+
+    private void addAssets(Plan plan, Version version) throws IOException {
+        Path index = mcDir.resolve("assets").resolve("indexes").resolve(version.getAssets() + ".json");
+        if (!Files.exists(index) || !downloadService.getChecksumService().checkIntegrity(index, version.getAssetsSize(), version.getAssetsSha1())) {
+            log.info("Downloading asset index " + version.getAssets() + " from " + version.getAssetsUrl());
+            downloadService.download(version.getAssetsUrl(), index, version.getAssetsSize(), version.getAssetsSha1());
+        }
+
+        AssetIndex assetIndex;
+        try {
+            assetIndex = AssetIndex.read(index);
+        } catch (JsonParseException e) {
+            throw new IOException("Failed to read asset index " + index, e);
+        }
+
+        Path objects = mcDir.resolve("assets").resolve("objects");
+        for (int i = 0; i < assetIndex.getSize(); i++) {
+            String hash = assetIndex.getHash(i);
+            Long size = assetIndex.getSize(i);
+            String firstTwo = hash.substring(0, 2);
+            plan.add(objects.resolve(firstTwo).resolve(hash), size == null ? -1L : size, assetIndex.getHashBytes(i),
+                     to -> downloadService.download(new URL(this.assetsUrl + firstTwo + "/" + hash), to, size, hash));
+        }
+    }
+
+    /**
+     * Executes the downloads of the given plan.
+     * A download which fails, after the retries of the {@link DownloadService}, does not stop the other downloads.
+     *
+     * @param plan the plan to execute.
+     * @param parallelism the amount of downloads to run at the same time.
+     * @param progressbar a progressbar which gets stepped for every finished download.
+     * @return the result of all downloads.
+     */
+    public Result execute(Plan plan, int parallelism, Progressbar progressbar) {
+        long nanos = System.nanoTime();
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "HeadlessMc-Prefetch-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicLong bytes = new AtomicLong();
+        List<String> failures = new ArrayList<>();
+        try {
+            Map<Path, Future<?>> futures = new LinkedHashMap<>();
+            for (Map.Entry<Path, IOConsumer<Path>> download : plan.getDownloads().entrySet()) {
+                futures.put(download.getKey(), executor.submit(() -> {
+                    download.getValue().accept(download.getKey());
+                    if (!Files.exists(download.getKey())) {
+                        throw new IOException("Download did not create " + download.getKey());
+                    }
+
+                    bytes.addAndGet(Files.size(download.getKey()));
+                    progressbar.step();
+                    return null;
+                }));
+            }
+
+            for (Map.Entry<Path, Future<?>> future : futures.entrySet()) {
+                try {
+                    future.getValue().get();
+                } catch (ExecutionException e) {
+                    log.error("Failed to download " + future.getKey(), e.getCause());
+                    failures.add(future.getKey() + ": " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.add(future.getKey() + ": interrupted");
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int downloaded = plan.getDownloads().size() - failures.size();
+        return new Result(downloaded, plan.getPresent(), plan.getDuplicates(), bytes.get(), failures, System.nanoTime() - nanos);
+    }
+
+    /**
+     * The deduplicated downloads needed for a set of versions.
+     * A file only counts as present if it has the expected size and hash.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class Plan {
+        private final Map<Path, IOConsumer<Path>> downloads = new LinkedHashMap<>();
+        @Getter(AccessLevel.NONE)
+        private final Map<Path, Candidate> candidates = new LinkedHashMap<>();
+        @Getter(AccessLevel.NONE)
+        private final ChecksumService checksumService;
+        private int present;
+        private int duplicates;
+
+        void add(Path file, @Nullable Long size, @Nullable String hash, IOConsumer<Path> download) {
+            byte[] hashBytes = hash == null ? null : checksumService.fromHashString(hash);
+            if (hash != null && hashBytes == null) {
+                log.warn("Invalid hash " + hash + " for " + file);
+                // an invalid hash never matches, leave it to the download to fail
+                add(file.toAbsolutePath().normalize(), new Candidate(-1L, null, download, false));
+            } else {
+                add(file, size == null ? -1L : size, hashBytes, download);
+            }
+        }
+
+        void add(Path file, long size, byte @Nullable [] hash, IOConsumer<Path> download) {
+            add(file.toAbsolutePath().normalize(), new Candidate(size, hash, download, true));
+        }
+
+        private void add(Path path, Candidate candidate) {
+            if (candidates.putIfAbsent(path, candidate) != null) {
+                duplicates++;
+            }
+        }
+
+        /**
+         * Checks the files which exist already in parallel, every file that is missing or fails its check gets downloaded.
+         * On a warm cache this hashes thousands of asset objects, which would take longer than the downloads on one thread.
+         */
+        void verify() throws IOException {
+            Set<Path> valid = ConcurrentHashMap.newKeySet();
+            try {
+                candidates.entrySet().parallelStream().forEach(entry -> {
+                    Candidate candidate = entry.getValue();
+                    try {
+                        if (candidate.isCheckable() && Files.exists(entry.getKey())
+                                && checksumService.checkIntegrity(entry.getKey(), candidate.getSize(), candidate.getHash())) {
+                            valid.add(entry.getKey());
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            for (Map.Entry<Path, Candidate> entry : candidates.entrySet()) {
+                if (valid.contains(entry.getKey())) {
+                    present++;
+                } else {
+                    downloads.put(entry.getKey(), entry.getValue().getDownload());
+                }
+            }
+
+            candidates.clear();
+        }
+    }
+
+    @Data
+    private static class Candidate {
+        private final long size;
+        private final byte @Nullable [] hash;
+        private final IOConsumer<Path> download;
+        private final boolean checkable;
+    }
+
+    @Data
+    public static class Result {
+        private final int downloaded;
+        private final int present;
+        private final int duplicates;
+        private final long bytes;
+        private final List<String> failures;
+        private final long nanos;
+    }
+
+}
@@ -0,0 +1,545 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import com.google.gson.JsonParseException;
+import io.github.headlesshq.headlessmc.api.command.line.ProgressBarProvider;
+import io.github.headlesshq.headlessmc.api.command.line.Progressbar;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.CustomLog;
+import lombok.RequiredArgsConstructor;
+import net.lenni0451.commons.httpclient.HttpResponse;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads large files into a {@code .part} file next to the destination.
+ * The downloaded ranges, the length and the ETag of the file are recorded in a {@code .part.json} file,
+ * so that a download that failed, even in an earlier run of the launcher, continues with {@code Range} requests.
+ * If the server supports ranges, large files are split into multiple ranges which are downloaded in parallel.
+ * If the size of the file is known up front, all ranges are requested at once,
+ * otherwise the first request has to find out the length of the file.
+ * All requests go through the {@link DownloadService}, so they count towards its connection limit per host.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class ResumableDownloader {
+    private static final long SAVE_INTERVAL = 8 * 1024 * 1024;
+
+    private final DownloadService downloadService;
+    private final ChecksumService checksumService;
+    private final int parallelRanges;
+    private final long minRangeSize;
+    private final int retries;
+
+    public void download(URL url, Path destination, @Nullable Long size, @Nullable String hash,
+                         String progressBarTitle, ProgressBarProvider progressBarProvider) throws IOException {
+        Path part = destination.resolveSibling(destination.getFileName() + ".part");
+        Path statePath = destination.resolveSibling(destination.getFileName() + ".part.json");
+        if (destination.getParent() != null) {
+            Files.createDirectories(destination.getParent());
+        }
+
+        PartState state = loadState(url, part, statePath);
+        if (state == null) {
+            state = new PartState(url.toString());
+            Files.deleteIfExists(part);
+        } else {
+            log.info("Resuming download of " + url + " at " + state.getDownloaded() + "/" + state.length + " bytes");
+        }
+
+        Session session = new Session(url, part, statePath, state, size, progressBarTitle, progressBarProvider);
+        try {
+            IOException failure = null;
+            for (int attempt = 0; attempt < Math.max(1, retries); attempt++) {
+                if (attempt > 0) {
+                    sleep(attempt);
+                }
+
+                boolean splitBeforeProbe = session.splitBeforeProbe;
+                try {
+                    download(session);
+                    failure = null;
+                    break;
+                } catch (IOException e) {
+                    failure = e;
+                    if (e instanceof RestartException || !session.state.rangesSupported) {
+                        log.warn("Restarting download of " + url + ": " + e.getMessage());
+                        if (splitBeforeProbe && !session.splitBeforeProbe) {
+                            attempt--; // the ranges were rejected, probing the file does not count as a retry
+                        }
+
+                        session.reset();
+                    } else {
+                        log.warn("Download of " + url + " failed at " + session.state.getDownloaded() + " bytes, retrying...", e);
+                        session.save();
+                    }
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            session.closeProgressbar();
+        }
+
+        verify(session, size, hash);
+        Files.move(part, destination, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(statePath);
+    }
+
+    private void download(Session session) throws IOException {
+        if (session.state.length < 0L || session.state.segments.isEmpty()) {
+            if (session.size != null && session.size > 0L && session.splitBeforeProbe) {
+                // assume that ranges are supported, the responses tell us if they are not
+                session.reset();
+                session.state.rangesSupported = true;
+                session.state.length = session.size;
+                session.state.segments = split(session.size, true);
+            } else {
+                probe(session);
+            }
+        }
+
+        session.openProgressbar();
+        List<Segment> remaining = new ArrayList<>();
+        for (Segment segment : session.state.segments) {
+            if (!segment.isComplete()) {
+                remaining.add(segment);
+            }
+        }
+
+        if (remaining.size() == 1) {
+            downloadSegment(session, remaining.get(0));
+        } else if (!remaining.isEmpty()) {
+            downloadParallel(session, remaining);
+        }
+    }
+
+    private void downloadParallel(Session session, List<Segment> segments) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelRanges, segments.size()), runnable -> {
+            Thread thread = new Thread(runnable, "HeadlessMc-RangeDownload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(segments.size());
+            for (Segment segment : segments) {
+                futures.add(executor.submit(() -> {
+                    downloadSegment(session, segment);
+                    return null;
+                }));
+            }
+
+            IOException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while downloading " + session.url, e);
+                } catch (ExecutionException e) {
+                    IOException cause = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                    // a restart has priority, the other segments are useless then
+                    if (failure == null || cause instanceof RestartException) {
+                        failure = cause;
+                    }
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Requests the whole file to find out its length and whether the server supports ranges.
+     * The first segment is downloaded from the same response.
+     */
+    private void probe(Session session) throws IOException {
+        session.reset();
+        execute(session, "bytes=0-", null, (connection, body) -> {
+            PartState state = session.state;
+            state.etag = connection.getHeaderField("ETag");
+            state.lastModified = connection.getHeaderField("Last-Modified");
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+                state.rangesSupported = true;
+                state.length = parseContentRangeLength(connection.getHeaderField("Content-Range"));
+            } else {
+                state.rangesSupported = false;
+                state.length = connection.getContentLengthLong();
+            }
+
+            state.segments = split(state.length, state.rangesSupported);
+            session.save();
+            session.openProgressbar();
+            read(session, state.segments.get(0), body);
+        });
+    }
+
+    private void downloadSegment(Session session, Segment segment) throws IOException {
+        String range = "bytes=" + segment.position + "-" + (segment.end == Long.MAX_VALUE ? "" : String.valueOf(segment.end - 1));
+        PartState state = session.state;
+        String ifRange = state.etag != null ? state.etag : state.lastModified;
+        execute(session, range, ifRange, (connection, body) -> {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                // the server might not support ranges at all, probe the file next time
+                session.splitBeforeProbe = false;
+                throw new RestartException("Server answered range request with " + connection.getResponseCode() + ", the file might have changed");
+            }
+
+            session.validate(connection);
+            read(session, segment, body);
+        });
+    }
+
+    private void execute(Session session, String range, @Nullable String ifRange, LargeFileRequestExecutor.ConnectionHandler handler) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Range", range);
+        if (ifRange != null) {
+            headers.put("If-Range", ifRange);
+        }
+
+        HttpResponse response = downloadService.stream(session.url, headers, handler);
+
+        if (response.getStatusCode() == 416) { // Range Not Satisfiable
+            throw new RestartException("Range " + range + " not satisfiable");
+        }
+
+        if (response.getStatusCode() > 299 || response.getStatusCode() < 200) {
+            throw new IOException("Failed to download " + session.url + ", response " + response.getStatusCode() + ": " + response.getContentAsString());
+        }
+    }
+
+    private void read(Session session, Segment segment, InputStream body) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        try (FileChannel channel = FileChannel.open(session.part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long sinceSave = 0L;
+            while (segment.position < segment.end) {
+                int read = body.read(buffer, 0, (int) Math.min(buffer.length, segment.end - segment.position));
+                if (read == -1) {
+                    break;
+                }
+
+                byteBuffer.clear();
+                byteBuffer.limit(read);
+                long position = segment.position;
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+
+                session.hash(segment, buffer, read);
+                segment.position = position;
+                session.step(read);
+                sinceSave += read;
+                if (sinceSave >= SAVE_INTERVAL) {
+                    sinceSave = 0L;
+                    session.save();
+                }
+            }
+        }
+
+        if (segment.end == Long.MAX_VALUE) { // unknown length, the end of the stream is the end of the file
+            segment.end = segment.position;
+            session.state.length = segment.position;
+        } else if (segment.position < segment.end) {
+            throw new EOFException("Connection closed at " + segment.position + ", expected " + segment.end);
+        }
+    }
+
+    private void verify(Session session, @Nullable Long size, @Nullable String hash) throws IOException {
+        long actualSize = Files.size(session.part);
+        boolean valid = (size == null || size == actualSize) && (session.state.length < 0L || session.state.length == actualSize);
+        if (valid && hash != null) {
+            valid = hash.equalsIgnoreCase(checksumService.toHashString(session.finishDigest()));
+        }
+
+        if (!valid) {
+            Files.deleteIfExists(session.part);
+            Files.deleteIfExists(session.statePath);
+            throw new IOException("Failed to verify download of " + session.url + ", size " + actualSize + ", expected " + size + " " + hash);
+        }
+    }
+
+    private List<Segment> split(long length, boolean rangesSupported) {
+        List<Segment> result = new ArrayList<>();
+        if (length < 0L) {
+            result.add(new Segment(0L, Long.MAX_VALUE));
+        } else if (!rangesSupported || parallelRanges <= 1 || length < minRangeSize * 2) {
+            result.add(new Segment(0L, length));
+        } else {
+            int count = (int) Math.min(parallelRanges, length / minRangeSize);
+            long rangeSize = length / count;
+            for (int i = 0; i < count; i++) {
+                long start = i * rangeSize;
+                result.add(new Segment(start, i == count - 1 ? length : start + rangeSize));
+            }
+        }
+
+        return result;
+    }
+
+    private static long parseContentRangeLength(@Nullable String contentRange) {
+        // bytes 0-1023/146515
+        if (contentRange != null) {
+            int slash = contentRange.lastIndexOf('/');
+            if (slash != -1 && !"*".equals(contentRange.substring(slash + 1).trim())) {
+                try {
+                    return Long.parseLong(contentRange.substring(slash + 1).trim());
+                } catch (NumberFormatException ignored) {
+                    // unknown length
+                }
+            }
+        }
+
+        return -1L;
+    }
+
+    private @Nullable PartState loadState(URL url, Path part, Path statePath) {
+        if (!Files.exists(part) || !Files.exists(statePath)) {
+            return null;
+        }
+
+        try (Reader reader = Files.newBufferedReader(statePath, StandardCharsets.UTF_8)) {
+            PartState state = JsonUtil.GSON.fromJson(reader, PartState.class);
+            if (state != null && url.toString().equals(state.url) && state.rangesSupported && state.length >= 0L && state.segments != null) {
+                return state;
+            }
+        } catch (IOException | JsonParseException e) {
+            log.debug("Failed to read download state " + statePath + ": " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    private void sleep(int attempt) throws IOException {
+        try {
+            Thread.sleep(500L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    private final class Session {
+        private final URL url;
+        private final Path part;
+        private final Path statePath;
+        private final @Nullable Long size;
+        private final String progressBarTitle;
+        private final ProgressBarProvider progressBarProvider;
+        private volatile boolean splitBeforeProbe = true;
+        private PartState state;
+        private @Nullable Progressbar progressbar;
+        /**
+         * Hashes the file while it is being streamed, as long as the bytes arrive in order.
+         */
+        private MessageDigest digest;
+        private long hashedUpTo;
+
+        private Session(URL url, Path part, Path statePath, PartState state, @Nullable Long size,
+                        String progressBarTitle, ProgressBarProvider progressBarProvider) throws IOException {
+            this.url = url;
+            this.part = part;
+            this.statePath = statePath;
+            this.state = state;
+            this.size = size;
+            this.progressBarTitle = progressBarTitle;
+            this.progressBarProvider = progressBarProvider;
+            initDigest();
+        }
+
+        private void initDigest() throws IOException {
+            digest = checksumService.getHashFunction();
+            hashedUpTo = 0L;
+            Segment first = state.segments.isEmpty() ? null : state.segments.get(0);
+            if (first != null && first.position > 0L) { // resumed, hash what we already have
+                try (InputStream is = Files.newInputStream(part)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    long remaining = first.position;
+                    while (remaining > 0L) {
+                        int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (read == -1) {
+                            throw new EOFException("Part file " + part + " is shorter than expected");
+                        }
+
+                        digest.update(buffer, 0, read);
+                        remaining -= read;
+                    }
+                }
+
+                hashedUpTo = first.position;
+            }
+        }
+
+        private void hash(Segment segment, byte[] buffer, int length) {
+            // only the segment at the start of the file can be hashed in order, the others are hashed at the end
+            if (segment.start == 0L && segment.position == hashedUpTo) {
+                digest.update(buffer, 0, length);
+                hashedUpTo += length;
+            }
+        }
+
+        /**
+         * Hashes the ranges that have not been hashed while streaming, because they were downloaded in parallel.
+         */
+        private byte[] finishDigest() throws IOException {
+            long position = hashedUpTo;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                int read;
+                while ((read = channel.read(buffer, position)) != -1) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                    position += read;
+                }
+            }
+
+            return digest.digest();
+        }
+
+        /**
+         * Checks that a partial response belongs to the file the other ranges have been downloaded from.
+         * The first response of a download that has been split before any response arrived records the validators.
+         */
+        private synchronized void validate(HttpURLConnection connection) throws IOException {
+            long length = parseContentRangeLength(connection.getHeaderField("Content-Range"));
+            if (length != state.length) {
+                splitBeforeProbe = false;
+                throw new RestartException("Server reported a length of " + length + ", expected " + state.length);
+            }
+
+            String etag = connection.getHeaderField("ETag");
+            String lastModified = connection.getHeaderField("Last-Modified");
+            if (state.etag == null && state.lastModified == null) {
+                state.etag = etag;
+                state.lastModified = lastModified;
+            } else if (state.etag != null ? !state.etag.equals(etag) : !state.lastModified.equals(lastModified)) {
+                throw new RestartException("The file has changed while it was being downloaded");
+            }
+        }
+
+        private void reset() throws IOException {
+            state = new PartState(url.toString());
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(statePath);
+            initDigest();
+            closeProgressbar();
+        }
+
+        private void openProgressbar() {
+            if (progressbar == null) {
+                progressbar = progressBarProvider.displayProgressBar(
+                        new Progressbar.Configuration(progressBarTitle, state.length, new Progressbar.Configuration.Unit("mb", 1_000_000)));
+                progressbar.stepBy(state.getDownloaded());
+            }
+        }
+
+        private synchronized void step(int bytes) {
+            Progressbar progressbar = this.progressbar;
+            if (progressbar != null) {
+                progressbar.stepBy(bytes);
+            }
+        }
+
+        private void closeProgressbar() {
+            if (progressbar != null) {
+                progressbar.close();
+                progressbar = null;
+            }
+        }
+
+        private synchronized void save() {
+            if (!state.rangesSupported) {
+                return; // cannot be resumed anyway
+            }
+
+            Path tmp = statePath.resolveSibling(statePath.getFileName() + ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    JsonUtil.GSON.toJson(state, writer);
+                }
+
+                Files.move(tmp, statePath, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                log.warn("Failed to save download state " + statePath + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class PartState {
+        private final String url;
+        private @Nullable String etag;
+        private @Nullable String lastModified;
+        private boolean rangesSupported;
+        private long length = -1L;
+        private List<Segment> segments = new ArrayList<>();
+
+        private PartState(String url) {
+            this.url = url;
+        }
+
+        private long getDownloaded() {
+            long result = 0L;
+            for (Segment segment : segments) {
+                result += segment.position - segment.start;
+            }
+
+            return result;
+        }
+    }
+
+    private static final class Segment {
+        private final long start;
+        private long end;
+        private volatile long position;
+
+        private Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.position = start;
+        }
+
+        private boolean isComplete() {
+            return position >= end;
+        }
+    }
+
+    /**
+     * Thrown if the partially downloaded file cannot be continued.
+     */
+    private static final class RestartException extends IOException {
+        private RestartException(String message) {
+            super(message);
+        }
+    }
+
+}
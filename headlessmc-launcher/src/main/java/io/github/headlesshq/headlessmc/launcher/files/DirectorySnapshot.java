@@ -0,0 +1,332 @@
+package io.github.headlesshq.headlessmc.launcher.files;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Copies large directories, like servers with their worlds and libraries, without duplicating their content where possible.
+ * On file systems supporting reflinks (e.g. btrfs or xfs) whole trees are cloned copy-on-write with GNU {@code cp --reflink}.
+ * Elsewhere immutable files, the libraries and the server jar, are hard-linked and all other files are copied in parallel.
+ * {@link #sync(Path, Path)} additionally records a manifest of the source in the target,
+ * so that restoring the same directory again only touches the files that changed.
+ */
+@CustomLog
+@UtilityClass
+public class DirectorySnapshot {
+    public static final String MANIFEST = ".hmc-manifest.json";
+
+    private static final int PARALLELISM = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final Map<FileStore, Boolean> REFLINK_SUPPORT = new ConcurrentHashMap<>();
+
+    /**
+     * Copies the source directory into the target directory, replacing existing files.
+     *
+     * @param src the directory to copy.
+     * @param dest the directory to copy to.
+     * @throws IOException if any file could not be copied.
+     */
+    public static void copy(Path src, Path dest) throws IOException {
+        if (!Files.exists(dest) && reflink(src, dest)) {
+            Files.deleteIfExists(dest.resolve(MANIFEST));
+            return;
+        }
+
+        List<String> directories = new ArrayList<>();
+        Map<String, FileState> files = scan(src, directories);
+        for (String directory : directories) {
+            Files.createDirectories(dest.resolve(directory));
+        }
+
+        transfer(src, dest, new ArrayList<>(files.keySet()));
+    }
+
+    /**
+     * Makes the target directory equal to the source directory.
+     * Only files which changed since the last sync, according to the manifest, or which have been modified in the target are copied.
+     * Files which have been removed from the source since the last sync are deleted, other files in the target are left untouched.
+     *
+     * @param src the directory to copy.
+     * @param dest the directory to synchronize.
+     * @throws IOException if any file could not be copied or deleted.
+     */
+    public static void sync(Path src, Path dest) throws IOException {
+        long time = System.nanoTime();
+        Map<String, FileState> source = scan(src);
+        if (!Files.exists(dest)) {
+            copy(src, dest);
+        } else {
+            Map<String, FileState> manifest = readManifest(dest);
+            Map<String, FileState> target = scan(dest);
+            List<String> changed = new ArrayList<>();
+            for (Map.Entry<String, FileState> entry : source.entrySet()) {
+                if (!entry.getValue().equals(manifest.get(entry.getKey())) || !entry.getValue().equals(target.get(entry.getKey()))) {
+                    changed.add(entry.getKey());
+                }
+            }
+
+            for (String relative : manifest.keySet()) {
+                if (!source.containsKey(relative)) {
+                    log.debug(() -> "Deleting " + relative + " from " + dest);
+                    Files.deleteIfExists(dest.resolve(relative));
+                }
+            }
+
+            log.debug(() -> "Synchronizing " + changed.size() + " of " + source.size() + " files from " + src + " to " + dest);
+            transfer(src, dest, changed);
+        }
+
+        writeManifest(dest, source);
+        log.debug(() -> "Synchronized " + src + " to " + dest + " in " + (System.nanoTime() - time) / 1_000_000L + "ms");
+    }
+
+    /**
+     * Lists the regular files in a directory, excluding the manifest.
+     *
+     * @param dir the directory to scan.
+     * @return the paths of the files relative to the directory, separated by {@code /}, mapped to their size and modification time.
+     */
+    public static Map<String, FileState> scan(Path dir) throws IOException {
+        return scan(dir, null);
+    }
+
+    private static Map<String, FileState> scan(Path dir, @Nullable List<String> directories) throws IOException {
+        Map<String, FileState> result = new HashMap<>();
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) stream::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                String relative = relativize(dir, file);
+                if (attributes.isDirectory() && directories != null) {
+                    directories.add(relative);
+                } else if (attributes.isRegularFile() && !MANIFEST.equals(relative)) {
+                    result.put(relative, new FileState(attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param dir a directory written by {@link #sync(Path, Path)}.
+     * @return the state of the source when it was synchronized into the directory, or an empty map if there is no manifest.
+     */
+    public static Map<String, FileState> readManifest(Path dir) throws IOException {
+        Path manifest = dir.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return new HashMap<>();
+        }
+
+        try (Reader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            Map<String, FileState> result = JsonUtil.GSON.fromJson(reader, new TypeToken<Map<String, FileState>>(){}.getType());
+            return result == null ? new HashMap<>() : result;
+        } catch (JsonParseException e) {
+            log.warn("Invalid manifest " + manifest + ", synchronizing all files: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Copies the given files from the source to the target directory in parallel, replacing existing files.
+     * Immutable files are hard-linked if possible.
+     *
+     * @param src the source directory.
+     * @param dest the target directory.
+     * @param files the files to copy, relative to the directories.
+     */
+    public static void transfer(Path src, Path dest, List<String> files) throws IOException {
+        Files.createDirectories(dest);
+        if (files.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(PARALLELISM, files.size()), runnable -> {
+            Thread thread = new Thread(runnable, "HeadlessMc-DirectorySnapshot-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(files.size());
+            for (String relative : files) {
+                futures.add(executor.submit(() -> {
+                    transfer(src.resolve(relative), dest.resolve(relative), relative);
+                    return null;
+                }));
+            }
+
+            List<String> failures = new ArrayList<>();
+            IOException failure = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    failures.add(files.get(i));
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while copying " + src + " to " + dest, e);
+                }
+            }
+
+            if (failure != null) {
+                throw new IOException("Failed to copy " + failures + " from " + src + " to " + dest, failure);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void transfer(Path file, Path destination, String relative) throws IOException {
+        Files.createDirectories(destination.getParent());
+        // deleting first, so that hard-linked files are replaced instead of written through
+        Files.deleteIfExists(destination);
+        if (!isImmutable(relative) || !link(file, destination)) {
+            Files.copy(file, destination, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    /**
+     * Files which are never modified in place, so that copies can share them:
+     * the libraries and the jars directly in the server directory.
+     * Plugins, mods and everything else can be overwritten by users and are always copied.
+     *
+     * @param relative the path of the file, relative to the directory it is copied from.
+     * @return {@code true} if the file can be hard-linked.
+     */
+    public static boolean isImmutable(String relative) {
+        String lowerCase = relative.toLowerCase(Locale.ENGLISH);
+        return lowerCase.startsWith("libraries/") || lowerCase.endsWith(".jar") && lowerCase.indexOf('/') == -1;
+    }
+
+    private static boolean link(Path file, Path destination) {
+        try {
+            Files.createLink(destination, file);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            // e.g. a file system without hard links, or another file system
+            log.debug(() -> "Failed to link " + file + ": " + e);
+            return false;
+        }
+    }
+
+    private static boolean reflink(Path src, Path dest) throws IOException {
+        Path parent = dest.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        if (!isReflinkSupported(parent)) {
+            return false;
+        }
+
+        log.debug(() -> "Cloning " + src + " to " + dest);
+        if (run("cp", "-R", "--preserve=mode,timestamps", "--reflink=always",
+                src.toAbsolutePath() + File.separator + ".", dest.toAbsolutePath().toString())) {
+            return true;
+        }
+
+        log.warn("Failed to clone " + src + " to " + dest + ", copying it instead.");
+        if (Files.exists(dest)) {
+            new FileManager(dest.toAbsolutePath().toString()).delete(dest.toFile());
+        }
+
+        return false;
+    }
+
+    private static boolean isReflinkSupported(Path dir) throws IOException {
+        if (File.separatorChar != '/') {
+            return false;
+        }
+
+        FileStore store = Files.getFileStore(dir);
+        Boolean supported = REFLINK_SUPPORT.get(store);
+        if (supported == null) {
+            Path probe = Files.createTempFile(dir, "hmc-reflink", ".tmp");
+            Path clone = probe.resolveSibling(probe.getFileName() + ".clone");
+            try {
+                supported = run("cp", "--reflink=always", probe.toString(), clone.toString());
+            } finally {
+                Files.deleteIfExists(probe);
+                Files.deleteIfExists(clone);
+            }
+
+            log.debug("Reflinks supported on " + store + ": " + supported);
+            REFLINK_SUPPORT.put(store, supported);
+        }
+
+        return supported;
+    }
+
+    private static boolean run(String... command) {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.to(new File("/dev/null")))
+                    .start();
+            if (!process.waitFor(10, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                return false;
+            }
+
+            return process.exitValue() == 0;
+        } catch (IOException e) {
+            // cp does not exist
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void writeManifest(Path dest, Map<String, FileState> manifest) throws IOException {
+        Path tmp = dest.resolve(MANIFEST + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            JsonUtil.GSON.toJson(manifest, writer);
+        }
+
+        Files.move(tmp, dest.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String relativize(Path dir, Path file) {
+        return dir.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    @Data
+    public static class FileState {
+        @SerializedName("size")
+        private final long size;
+        @SerializedName("modified")
+        private final long modified;
+    }
+
+}
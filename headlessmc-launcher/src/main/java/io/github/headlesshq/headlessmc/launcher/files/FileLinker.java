@@ -0,0 +1,101 @@
+package io.github.headlesshq.headlessmc.launcher.files;
+
+import lombok.CustomLog;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Places files which are shared between multiple locations, e.g. asset objects from {@code assets/objects}
+ * in virtual directories like {@code assets/virtual/legacy}, or cached Forge installations in a game directory.
+ * Instead of copying the file, a hard link is created, so that the data only exists once on disk.
+ * If the target is on another file system or the file system does not support hard links, the file is copied.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class FileLinker {
+    @Getter
+    private final AtomicLong bytesSaved = new AtomicLong();
+    @Getter
+    private final AtomicInteger linked = new AtomicInteger();
+    @Getter
+    private final AtomicInteger copied = new AtomicInteger();
+    private final String name;
+    private final boolean link;
+
+    private volatile boolean linksSupported = true;
+
+    /**
+     * Makes the given target contain the object, by linking or copying it.
+     * If the target is already linked to the object nothing happens.
+     * A target that is not linked and has a different size than the object is replaced.
+     *
+     * @param object the verified file to place.
+     * @param target the location to place it at.
+     * @throws IOException if placing the object fails.
+     */
+    public void place(Path object, Path target) throws IOException {
+        long size = Files.size(object);
+        if (Files.exists(target)) {
+            if (isLinked(object, target)) {
+                bytesSaved.addAndGet(size);
+                linked.incrementAndGet();
+                return;
+            }
+
+            if (Files.size(target) == size) {
+                return; // an existing copy, its contents are verified by the integrity check
+            }
+
+            Files.delete(target);
+        }
+
+        Files.createDirectories(target.getParent());
+        if (link && linksSupported) {
+            try {
+                Files.createLink(target, object);
+                bytesSaved.addAndGet(size);
+                linked.incrementAndGet();
+                return;
+            } catch (FileAlreadyExistsException e) {
+                throw e;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                // most likely another file system, which will not work for any of the following files either
+                log.debug("Failed to link " + target + " to " + object + ", copying instead: " + e.getMessage());
+                linksSupported = false;
+            }
+        }
+
+        Files.copy(object, target, StandardCopyOption.REPLACE_EXISTING);
+        copied.incrementAndGet();
+    }
+
+    /**
+     * @param object the placed file.
+     * @param target the location it has been placed at.
+     * @return {@code true} if both paths point to the same file.
+     */
+    public boolean isLinked(Path object, Path target) {
+        try {
+            return Files.exists(target) && Files.isSameFile(object, target);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void logSummary() {
+        if (linked.get() > 0 || copied.get() > 0) {
+            log.info(name + ": " + linked.get() + " files linked, " + copied.get() + " copied, "
+                    + String.format("%.2f", bytesSaved.get() / 1_000_000.0) + "MB saved.");
+        }
+    }
+
+}
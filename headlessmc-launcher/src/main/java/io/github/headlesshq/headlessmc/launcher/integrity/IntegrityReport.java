@@ -0,0 +1,94 @@
+package io.github.headlesshq.headlessmc.launcher.integrity;
+
+import com.google.gson.annotations.SerializedName;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.Data;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of an integrity check, written as Json by the integrity command.
+ */
+@Data
+public class IntegrityReport {
+    @SerializedName("version")
+    private final String version;
+    @SerializedName("started")
+    private final long started;
+    @SerializedName("finished")
+    private long finished;
+    @SerializedName("checked")
+    private int checked;
+    @SerializedName("successful")
+    private int successful;
+    /**
+     * Files which have been verified by an earlier, interrupted run and did not change since.
+     */
+    @SerializedName("resumed")
+    private int resumed;
+    @SerializedName("failed")
+    private final List<Entry> failed = new ArrayList<>();
+    @SerializedName("missing")
+    private final List<Entry> missing = new ArrayList<>();
+    @SerializedName("repaired")
+    private final List<Entry> repaired = new ArrayList<>();
+
+    synchronized void addSuccessful(boolean resumed) {
+        checked++;
+        successful++;
+        if (resumed) {
+            this.resumed++;
+        }
+    }
+
+    synchronized void addFailed(Entry entry) {
+        checked++;
+        failed.add(entry);
+    }
+
+    synchronized void addMissing(Entry entry) {
+        checked++;
+        missing.add(entry);
+    }
+
+    synchronized void addRepaired(Entry entry) {
+        repaired.add(entry);
+    }
+
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            JsonUtil.GSON.toJson(this, writer);
+        }
+    }
+
+    @Data
+    public static class Entry {
+        @SerializedName("type")
+        private final String type;
+        @SerializedName("name")
+        private final String name;
+        @SerializedName("path")
+        private final String path;
+        @SerializedName("expectedSha1")
+        private final @Nullable String expectedSha1;
+        @SerializedName("actualSha1")
+        private final @Nullable String actualSha1;
+        @SerializedName("expectedSize")
+        private final @Nullable Long expectedSize;
+        @SerializedName("actualSize")
+        private final @Nullable Long actualSize;
+    }
+
+}
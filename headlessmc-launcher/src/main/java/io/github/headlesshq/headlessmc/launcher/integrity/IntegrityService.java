@@ -0,0 +1,324 @@
+package io.github.headlesshq.headlessmc.launcher.integrity;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import io.github.headlesshq.headlessmc.api.config.HasConfig;
+import io.github.headlesshq.headlessmc.launcher.download.AssetIndex;
+import io.github.headlesshq.headlessmc.launcher.download.AssetsDownloader;
+import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
+import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
+import io.github.headlesshq.headlessmc.launcher.download.LibraryDownloader;
+import io.github.headlesshq.headlessmc.launcher.launch.VersionMerger;
+import io.github.headlesshq.headlessmc.launcher.util.IOConsumer;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import io.github.headlesshq.headlessmc.launcher.version.Features;
+import io.github.headlesshq.headlessmc.launcher.version.Library;
+import io.github.headlesshq.headlessmc.launcher.version.Rule;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import io.github.headlesshq.headlessmc.launcher.version.VersionExecutable;
+import io.github.headlesshq.headlessmc.os.OS;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies the files of a version in parallel.
+ * Files are hashed by the {@link ChecksumService}, which reuses a digest and a direct buffer per thread.
+ * Verified files are written to a checkpoint every few seconds,
+ * so that a run which has been interrupted only needs to hash the files which have not been verified yet or changed since.
+ * Files which fail the check are deleted and can be downloaded again with {@link #repair(IntegrityReport, List)}.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class IntegrityService {
+    private static final long CHECKPOINT_INTERVAL = 5_000L;
+
+    private final ChecksumService checksumService;
+    private final DownloadService downloadService;
+    private final HasConfig config;
+    private final OS os;
+    private final Path mcDir;
+
+    @Setter
+    private String assetsUrl = AssetsDownloader.URL;
+
+    /**
+     * Collects the files of the given version which can be verified: the client jar and the libraries,
+     * and if requested the assets including their legacy and resources copies.
+     *
+     * @param version the version to collect the files of.
+     * @param assets {@code true} if the assets should be collected, too.
+     * @return the files to verify, each with a way to download it again.
+     * @throws IOException if the asset index could not be read.
+     */
+    public List<Item> collect(Version version, boolean assets) throws IOException {
+        Version merged = new VersionMerger(version);
+        Map<Path, Item> items = new LinkedHashMap<>();
+        LibraryDownloader libraryDownloader = new LibraryDownloader(downloadService, config, os);
+        libraryDownloader.setShouldLog(false);
+        VersionExecutable client = merged.getClientDownload();
+        Path jar = merged.getFolder().toPath().resolve(merged.getName() + ".jar");
+        add(items, new Item("client", jar, client == null ? null : client.getSha1(), client == null ? null : client.getSize(),
+                            client == null ? null : to -> libraryDownloader.download(client.getUrl(), to, client.getSha1(), client.getSize()), false));
+        for (Library library : merged.getLibraries()) {
+            if (library.getRule().apply(os, Features.EMPTY) == Rule.Action.ALLOW) {
+                Path path = mcDir.resolve("libraries").resolve(library.getPath(os));
+                add(items, new Item("library", path, library.getSha1(), library.getSize(), to -> libraryDownloader.download(library, to), false));
+            }
+        }
+
+        if (assets && merged.getAssets() != null) {
+            Path assetsDir = mcDir.resolve("assets");
+            Path index = assetsDir.resolve("indexes").resolve(merged.getAssets() + ".json");
+            if (!Files.exists(index)) {
+                String indexUrl = merged.getAssetsUrl();
+                add(items, new Item("assetIndex", index, null, null, indexUrl == null ? null : to -> downloadService.download(indexUrl, to), false));
+                return new ArrayList<>(items.values());
+            }
+
+            AssetIndex assetIndex = AssetIndex.read(index);
+            boolean legacy = "pre-1.6".equals(merged.getAssets()) || assetIndex.isVirtual();
+            for (int i = 0; i < assetIndex.getSize(); i++) {
+                String hash = assetIndex.getHash(i);
+                Long size = assetIndex.getSize(i);
+                String firstTwo = hash.substring(0, 2);
+                Path object = assetsDir.resolve("objects").resolve(firstTwo).resolve(hash);
+                add(items, new Item("asset", object, hash, size, to -> downloadService.download(new URL(assetsUrl + firstTwo + "/" + hash), to, size, hash), false));
+                IOConsumer<Path> copy = to -> {
+                    Files.createDirectories(to.getParent());
+                    Files.copy(object, to, StandardCopyOption.REPLACE_EXISTING);
+                };
+
+                if (legacy) {
+                    add(items, new Item("legacyAsset", assetsDir.resolve("virtual").resolve("legacy").resolve(assetIndex.getName(i)), hash, size, copy, true));
+                }
+
+                if (assetIndex.isMapToResources(i)) {
+                    add(items, new Item("resource", mcDir.resolve("resources").resolve(assetIndex.getName(i)), hash, size, copy, true));
+                }
+            }
+        }
+
+        return new ArrayList<>(items.values());
+    }
+
+    /**
+     * Verifies the given files in parallel. Files which fail the check are deleted.
+     *
+     * @param version the name of the version, used for the report.
+     * @param items the files to verify.
+     * @param checkpoint a file to store the progress in, so that an interrupted run can be resumed.
+     *                   It gets deleted once all files have been verified.
+     * @return a report of the check.
+     * @throws IOException if reading the files fails.
+     */
+    public IntegrityReport verify(String version, List<Item> items, @Nullable Path checkpoint) throws IOException {
+        IntegrityReport report = new IntegrityReport(version, System.currentTimeMillis());
+        Map<String, Checkpoint> previous = readCheckpoint(checkpoint);
+        Map<String, Checkpoint> verified = new ConcurrentHashMap<>();
+        AtomicLong lastCheckpoint = new AtomicLong(System.currentTimeMillis());
+        try {
+            items.parallelStream().forEach(item -> {
+                try {
+                    verify(item, report, previous, verified);
+                    long last = lastCheckpoint.get();
+                    long now = System.currentTimeMillis();
+                    if (checkpoint != null && now - last >= CHECKPOINT_INTERVAL && lastCheckpoint.compareAndSet(last, now)) {
+                        writeCheckpoint(checkpoint, verified);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            if (checkpoint != null) {
+                writeCheckpoint(checkpoint, verified);
+            }
+
+            throw e.getCause();
+        }
+
+        if (checkpoint != null) {
+            Files.deleteIfExists(checkpoint);
+        }
+
+        report.setFinished(System.currentTimeMillis());
+        return report;
+    }
+
+    private void verify(Item item, IntegrityReport report, Map<String, Checkpoint> previous, Map<String, Checkpoint> verified) throws IOException {
+        Path file = item.getFile();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            log.debug(() -> "Failed to find " + file);
+            report.addMissing(item.toEntry(mcDir, null, null));
+            return;
+        }
+
+        String key = file.toAbsolutePath().toString();
+        Checkpoint state = new Checkpoint(attributes.size(), attributes.lastModifiedTime().toMillis(), item.getSha1());
+        if (state.equals(previous.get(key))) {
+            verified.put(key, state);
+            report.addSuccessful(true);
+            return;
+        }
+
+        String actualSha1 = null;
+        boolean valid = item.getSize() == null || item.getSize() < 0L || item.getSize() == attributes.size();
+        if (valid && item.getSha1() != null) {
+            log.debug(() -> "Checking " + file);
+            actualSha1 = checksumService.hash(file);
+            valid = item.getSha1().equalsIgnoreCase(actualSha1);
+        }
+
+        if (valid) {
+            verified.put(key, state);
+            report.addSuccessful(false);
+        } else {
+            log.warn("Integrity check failed! Deleting " + file);
+            report.addFailed(item.toEntry(mcDir, actualSha1, attributes.size()));
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Downloads the failed and missing files of the given report again and verifies them.
+     * Successfully repaired files are added to the report.
+     *
+     * @param report the report of the check.
+     * @param items the items which have been checked.
+     * @throws IOException if a file could not be repaired.
+     */
+    public void repair(IntegrityReport report, List<Item> items) throws IOException {
+        Set<String> broken = new HashSet<>();
+        for (IntegrityReport.Entry entry : report.getFailed()) {
+            broken.add(entry.getPath());
+        }
+
+        for (IntegrityReport.Entry entry : report.getMissing()) {
+            broken.add(entry.getPath());
+        }
+
+        List<IOException> failures = new ArrayList<>();
+        // copies like legacy assets are repaired after the objects they are copied from
+        for (boolean copies : new boolean[] { false, true }) {
+            items.parallelStream()
+                 .filter(item -> item.isCopy() == copies && item.getRepair() != null && broken.contains(item.getFile().toAbsolutePath().toString()))
+                 .forEach(item -> {
+                     try {
+                         log.info("Repairing " + item.getFile());
+                         item.getRepair().accept(item.getFile());
+                         String sha1 = item.getSha1() == null ? null : checksumService.hash(item.getFile());
+                         if (sha1 != null && !item.getSha1().equalsIgnoreCase(sha1)) {
+                             Files.deleteIfExists(item.getFile());
+                             throw new IOException("Repaired file " + item.getFile() + " does not match " + item.getSha1());
+                         }
+
+                         report.addRepaired(item.toEntry(mcDir, sha1, Files.size(item.getFile())));
+                     } catch (IOException e) {
+                         log.error("Failed to repair " + item.getFile() + ": " + e.getMessage());
+                         synchronized (failures) {
+                             failures.add(e);
+                         }
+                     }
+                 });
+        }
+
+        if (!failures.isEmpty()) {
+            throw new IOException("Failed to repair " + failures.size() + " files, e.g. " + failures.get(0).getMessage(), failures.get(0));
+        }
+    }
+
+    private Map<String, Checkpoint> readCheckpoint(@Nullable Path checkpoint) {
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            try (Reader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+                Map<String, Checkpoint> result = JsonUtil.GSON.fromJson(reader, new TypeToken<Map<String, Checkpoint>>(){}.getType());
+                if (result != null) {
+                    log.info("Resuming integrity check from " + checkpoint + ", " + result.size() + " files have been verified already.");
+                    return result;
+                }
+            } catch (IOException | JsonParseException e) {
+                log.warn("Failed to read integrity checkpoint " + checkpoint + ": " + e.getMessage());
+            }
+        }
+
+        return new HashMap<>();
+    }
+
+    private synchronized void writeCheckpoint(Path checkpoint, Map<String, Checkpoint> verified) throws IOException {
+        Path parent = checkpoint.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            JsonUtil.GSON.toJson(new HashMap<>(verified), writer);
+        }
+
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void add(Map<Path, Item> items, Item item) {
+        items.putIfAbsent(item.getFile().toAbsolutePath().normalize(), item);
+    }
+
+    @Data
+    public static class Item {
+        private final String type;
+        private final Path file;
+        private final @Nullable String sha1;
+        private final @Nullable Long size;
+        /**
+         * Downloads or copies the file again, {@code null} if this is not possible.
+         */
+        private final @Nullable IOConsumer<Path> repair;
+        /**
+         * If this file is a copy of another file, which needs to be repaired first.
+         */
+        private final boolean copy;
+
+        IntegrityReport.Entry toEntry(Path mcDir, @Nullable String actualSha1, @Nullable Long actualSize) {
+            String name = file.startsWith(mcDir) ? mcDir.relativize(file).toString().replace(File.separatorChar, '/') : file.toString();
+            return new IntegrityReport.Entry(type, name, file.toAbsolutePath().toString(), sha1, actualSha1, size, actualSize);
+        }
+    }
+
+    @Data
+    private static class Checkpoint {
+        @SerializedName("size")
+        private final long size;
+        @SerializedName("modified")
+        private final long modified;
+        @SerializedName("sha1")
+        private final @Nullable String sha1;
+    }
+
+}
@@ -3,6 +3,7 @@ package io.github.headlesshq.headlessmc.launcher.java;
 import lombok.CustomLog;
 import lombok.Getter;
 import io.github.headlesshq.headlessmc.java.Java;
+import io.github.headlesshq.headlessmc.java.JavaInstallationCache;
 import io.github.headlesshq.headlessmc.java.JavaScanner;
 import io.github.headlesshq.headlessmc.java.JavaVersionFinder;
 import io.github.headlesshq.headlessmc.java.JavaVersionParser;
@@ -31,6 +32,7 @@ public class JavaService extends LazyService<Java> implements JavaScanner {
     private final JavaVersionParser parser;
     private final ConfigService cfg;
     private final OS os;
+    private final @Nullable JavaInstallationCache cache;
 
     private volatile Java current;
 
@@ -39,7 +41,10 @@ public class JavaService extends LazyService<Java> implements JavaScanner {
         this.os = os;
         boolean addFilePermissions = os.getType() == OS.Type.LINUX || os.getType() == OS.Type.OSX;
         addFilePermissions &= cfg.getConfig().get(LauncherProperties.JAVA_ALWAYS_ADD_FILE_PERMISSIONS, false);
-        this.parser = new JavaVersionParser(addFilePermissions);
+        this.cache = cfg.getConfig().get(LauncherProperties.JAVA_CACHE, true)
+                ? JavaInstallationCache.load(cfg.getFileManager().getBase().toPath().resolve("java_cache.json"))
+                : null;
+        this.parser = new JavaVersionParser(addFilePermissions, cache);
     }
 
     @Override
@@ -74,6 +79,7 @@ public class JavaService extends LazyService<Java> implements JavaScanner {
             newVersions.add(current);
         }
 
+        saveCache();
         nanos = System.nanoTime() - nanos;
         log.debug("Java refresh took " + (nanos / 1_000_000.0) + "ms.");
         return newVersions;
@@ -82,10 +88,21 @@ public class JavaService extends LazyService<Java> implements JavaScanner {
     public void refreshHeadlessMcJavaVersions() {
         Set<Java> versions = new HashSet<>(contents);
         boolean addFilePermissions = os.getType() == OS.Type.LINUX || os.getType() == OS.Type.OSX;
-        JavaScanner javaScanner = JavaScanner.of(new JavaVersionParser(addFilePermissions));
+        JavaScanner javaScanner = JavaScanner.of(new JavaVersionParser(addFilePermissions, cache));
         JavaVersionFinder javaVersionFinder = new JavaVersionFinder();
         versions.addAll(javaVersionFinder.checkDirectory(javaScanner, cfg.getFileManager().getDir("java").toPath(), os, versions));
         contents = versions;
+        saveCache();
+    }
+
+    private void saveCache() {
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException e) {
+                log.warn("Failed to save Java installation cache", e);
+            }
+        }
     }
 
     public @Nullable Java scanJava(String path) {
@@ -95,7 +112,7 @@ public class JavaService extends LazyService<Java> implements JavaScanner {
         }
 
         try {
-            int majorVersion = parser.parseVersionCommand(path);
+            int majorVersion = parser.readVersion(path);
             Java java = new Java(path.replace("\\", "/"), majorVersion);
             log.debug("Found Java: " + java);
             return java;
@@ -11,7 +11,7 @@ import java.io.File;
 
 @UtilityClass
 class ArgumentAdapterHelper {
-    public static ArgumentAdapter create(Launcher launcher, Version version, String natives, LaunchAccount account) {
+    public static ArgumentAdapter create(Launcher launcher, Version version, String natives, LaunchAccount account, File gameDir) {
         val config = launcher.getConfig();
         val adapter = new ArgumentAdapter(version.getArguments());
 
@@ -26,11 +26,10 @@ class ArgumentAdapterHelper {
 
         adapter.add("${version_name}", version.getName());
         adapter.add("${version_type}", "release");
-        val dir = new File(config.get(LauncherProperties.GAME_DIR, launcher.getGameDir(version).getPath()));
         //noinspection ResultOfMethodCallIgnored
-        dir.mkdirs();
+        gameDir.mkdirs();
 
-        adapter.add("${game_directory}", dir.getAbsolutePath());
+        adapter.add("${game_directory}", gameDir.getAbsolutePath());
         adapter.add("${assets_index_name}", version.getAssets());
         adapter.add("${auth_access_token}", account.getToken());
         adapter.add("${user_type}", account.getType());
@@ -39,6 +39,10 @@ public class JavaLaunchCommandBuilder {
     private final Launcher launcher;
     private final Version version;
     private final String natives;
+    /**
+     * The directory to run the game in, as resolved by {@link LaunchOptions#resolveGameDir()}.
+     */
+    private final File gameDir;
     private final boolean runtime;
     private final boolean lwjgl;
     private final boolean inMemory;
@@ -128,7 +132,7 @@ public class JavaLaunchCommandBuilder {
         result.add("-cp");
         result.add(String.join("" + File.pathSeparatorChar, classpath) + config.get(LauncherProperties.CLASS_PATH, ""));
 
-        ArgumentAdapter adapter = ArgumentAdapterHelper.create(launcher, version, natives, account);
+        ArgumentAdapter adapter = ArgumentAdapterHelper.create(launcher, version, natives, account, gameDir);
         result.addAll(adapter.build(os, Features.EMPTY, "jvm"));
         addIgnoreList(result);
         getActualMainClass(result);
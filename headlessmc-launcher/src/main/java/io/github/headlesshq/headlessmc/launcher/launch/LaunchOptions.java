@@ -8,6 +8,8 @@ import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.ALWAYS
 import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.ALWAYS_NO_AUTH_FLAG;
 import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.ALWAYS_PAULS_FLAG;
 import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.AUTO_DOWNLOAD_SPECIFICS;
+import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.CRASH_REPORT_WATCHER;
+import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.GAME_DIR;
 import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.INVERT_JNDI_FLAG;
 import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.INVERT_LOOKUP_FLAG;
 import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.INVERT_LWJGL_FLAG;
@@ -16,6 +18,7 @@ import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.INVERT
 import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.SERVER_TEST;
 import static io.github.headlesshq.headlessmc.launcher.LauncherProperties.TEST_FILE;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -29,6 +32,7 @@ import io.github.headlesshq.headlessmc.launcher.version.Version;
 import lombok.Builder;
 import lombok.CustomLog;
 import lombok.Data;
+import org.jetbrains.annotations.Nullable;
 
 @Data
 @Builder
@@ -56,6 +60,21 @@ public class LaunchOptions {
     private final boolean prepare;
     private final boolean specifics;
     private final boolean closeCommandLine;
+    /**
+     * The directory to run the game in, if {@code null} the configured game directory for the version is used.
+     */
+    private final @Nullable File gameDir;
+
+    /**
+     * @return the directory to run the game in.
+     */
+    public File resolveGameDir() {
+        if (gameDir != null) {
+            return gameDir;
+        }
+
+        return new File(launcher.getConfig().get(GAME_DIR, launcher.getGameDir(version).getPath()));
+    }
 
     @SuppressWarnings("unused")
     public static class LaunchOptionsBuilder {
@@ -89,6 +108,9 @@ public class LaunchOptions {
                     || launcher.getConfig().get(TEST_FILE, null) != null) {
                 noOut = true;
                 noIn = true;
+            } else if (launcher.getConfig().get(CRASH_REPORT_WATCHER, false)) {
+                // the output is read by the CrashDetector and printed by the launcher
+                noOut = true;
             }
 
             boolean specifics = CommandUtil.hasFlag("-specifics", args)
@@ -8,6 +8,7 @@ import io.github.headlesshq.headlessmc.api.command.line.Progressbar;
 import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
 import io.github.headlesshq.headlessmc.launcher.auth.AuthException;
 import io.github.headlesshq.headlessmc.launcher.download.AssetsDownloader;
+import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
 import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
 import io.github.headlesshq.headlessmc.launcher.download.LibraryDownloader;
 import io.github.headlesshq.headlessmc.launcher.files.FileManager;
@@ -21,6 +22,7 @@ import io.github.headlesshq.headlessmc.launcher.specifics.VersionSpecificModMana
 import io.github.headlesshq.headlessmc.launcher.specifics.VersionSpecificModRepository;
 import io.github.headlesshq.headlessmc.launcher.specifics.VersionSpecificMods;
 import io.github.headlesshq.headlessmc.launcher.version.Features;
+import io.github.headlesshq.headlessmc.launcher.version.Library;
 import io.github.headlesshq.headlessmc.launcher.version.Rule;
 import io.github.headlesshq.headlessmc.launcher.version.Version;
 import io.github.headlesshq.headlessmc.launcher.version.VersionExecutable;
@@ -78,7 +80,7 @@ public class ProcessFactory {
         downloadAssets(options, config.getMcFiles(), version);
         debugCommand(command, commandBuilder);
 
-        val dir = new File(launcher.getConfig().get(LauncherProperties.GAME_DIR, launcher.getGameDir(version).getPath()));
+        val dir = options.resolveGameDir();
         log.info("Game will run in " + dir);
         //noinspection ResultOfMethodCallIgnored
         dir.mkdirs();
@@ -124,6 +126,7 @@ public class ProcessFactory {
                 .runtime(options.isRuntime())
                 .version(version)
                 .launcher(options.getLauncher())
+                .gameDir(options.resolveGameDir())
                 .inMemory(options.isInMemory())
                 .lwjgl(options.isLwjgl());
     }
@@ -164,7 +167,7 @@ public class ProcessFactory {
             }
 
             log.info("Downloading " + version.getName() + " from " + clientDownload.getUrl());
-            downloader.download(clientDownload.getUrl(), gameJar.toPath().toAbsolutePath(), clientDownload.getSha1(), clientDownload.getSize());
+            downloader.downloadBigFile(clientDownload.getUrl(), gameJar.toPath().toAbsolutePath(), clientDownload.getSha1(), clientDownload.getSize());
         }
 
         targets.add(new Target(true, gameJar.getAbsolutePath()));
@@ -179,6 +182,8 @@ public class ProcessFactory {
         Set<String> libPaths = new HashSet<>();
         LibraryDownloader libraryDownloader = new LibraryDownloader(downloadService, config.getConfig(), os);
         int librariesTODownload = 0;
+        boolean checkFileHash = config.getConfig().getConfig().get(LauncherProperties.LIBRARIES_CHECK_FILE_HASH, false);
+        ChecksumService checksumService = downloadService.getChecksumService();
         for (val library : version.getLibraries()) {
             if (library.getRule().apply(os, features) == Rule.Action.ALLOW) {
                 String libPath = library.getPath(os);
@@ -188,9 +193,9 @@ public class ProcessFactory {
 
                 val path = config.getMcFiles().getDir("libraries").toPath().resolve(libPath);
                 if ((library.getSha1() != null || library.getSize() != null)
-                        && config.getConfig().getConfig().get(LauncherProperties.LIBRARIES_CHECK_FILE_HASH, false)
+                        && checkFileHash
                         && Files.exists(path)
-                        && !downloadService.getChecksumService().checkIntegrity(path, library.getSize(), library.getSha1())) {
+                        && !checkIntegrity(checksumService, path, library)) {
                     log.warn("Library " + libPath + " failed integrity check, deleting...");
                     Files.delete(path);
                 }
@@ -251,6 +256,19 @@ public class ProcessFactory {
         return result;
     }
 
+    private static boolean checkIntegrity(ChecksumService checksumService, Path path, Library library) throws IOException {
+        byte[] hash = null;
+        if (library.getSha1() != null) {
+            hash = checksumService.fromHashString(library.getSha1());
+            if (hash == null) {
+                log.warn("Library " + library.getName() + " has an invalid hash " + library.getSha1());
+                return false;
+            }
+        }
+
+        return checksumService.checkIntegrity(path, library.getSize() == null ? -1L : library.getSize(), hash);
+    }
+
     protected Process run(ProcessBuilder builder) throws IOException {
         return builder.start();
     }
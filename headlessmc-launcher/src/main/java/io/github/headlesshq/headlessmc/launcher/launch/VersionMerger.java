@@ -13,7 +13,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @CustomLog
-class VersionMerger extends DelegatingVersion {
+public class VersionMerger extends DelegatingVersion {
     public VersionMerger(Version version) {
         super(version);
     }
@@ -43,6 +43,16 @@ class VersionMerger extends DelegatingVersion {
         return get(Version::getAssetsUrl);
     }
 
+    @Override
+    public @Nullable String getAssetsSha1() {
+        return get(Version::getAssetsSha1);
+    }
+
+    @Override
+    public @Nullable Long getAssetsSize() {
+        return get(Version::getAssetsSize);
+    }
+
     @Override
     public List<Library> getLibraries() {
         return mergeLibraries();
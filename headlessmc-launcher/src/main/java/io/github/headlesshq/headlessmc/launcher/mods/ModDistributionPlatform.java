@@ -13,4 +13,10 @@ public interface ModDistributionPlatform extends HasName {
 
     void download(ModdableGame game, String modName) throws IOException;
 
+    default void download(ModdableGame game, List<String> modNames) throws IOException {
+        for (String modName : modNames) {
+            download(game, modName);
+        }
+    }
+
 }
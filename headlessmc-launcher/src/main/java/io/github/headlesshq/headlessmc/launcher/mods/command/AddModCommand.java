@@ -7,6 +7,8 @@ import io.github.headlesshq.headlessmc.launcher.mods.ModdableGame;
 import io.github.headlesshq.headlessmc.launcher.mods.ModdableGameProvider;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AddModCommand extends AbstractDownloadingModdableGameCommand {
     public AddModCommand(Launcher ctx, ModdableGameProvider provider) {
@@ -15,17 +17,23 @@ public class AddModCommand extends AbstractDownloadingModdableGameCommand {
 
     @Override
     public void execute(ModdableGame game, String... args) throws CommandException {
-        if (args.length <= 2) {
+        // the mods are followed by the flags and options of the version
+        List<String> modNames = new ArrayList<>();
+        for (int i = 2; i < args.length && !args[i].startsWith("-"); i++) {
+            modNames.add(args[i]);
+        }
+
+        if (modNames.isEmpty()) {
             throw new CommandException("Please specify a mod to add to " + game.getName());
         }
 
-        String modName = args[2];
+        String mods = String.join(", ", modNames);
         ModDistributionPlatform modDistributionPlatform = getPlatform(args);
         try {
-            modDistributionPlatform.download(game, modName);
-            ctx.log("Downloaded mod " + modName + " from " + modDistributionPlatform.getName() + " successfully.");
+            modDistributionPlatform.download(game, modNames);
+            ctx.log("Downloaded " + (modNames.size() == 1 ? "mod " : "mods ") + mods + " from " + modDistributionPlatform.getName() + " successfully.");
         } catch (IOException e) {
-            throw new CommandException("Failed to download " + modName + ": " + e.getMessage());
+            throw new CommandException("Failed to download " + mods + ": " + e.getMessage());
         }
     }
 
@@ -17,24 +17,22 @@ import java.util.jar.JarFile;
 
 public class FabricModFileReader implements ModFileReader {
     @Override
-    public List<ModFile> read(Supplier<Integer> id, Path path) throws IOException {
-        try (JarFile jarFile = new JarFile(path.toFile())) {
-            JarEntry entry = jarFile.getJarEntry("fabric.mod.json");
-            if (entry == null) {
-                return Collections.emptyList();
-            }
+    public List<ModFile> read(Supplier<Integer> id, Path path, JarFile jarFile) throws IOException {
+        JarEntry entry = jarFile.getJarEntry("fabric.mod.json");
+        if (entry == null) {
+            return Collections.emptyList();
+        }
 
-            try (InputStream is = jarFile.getInputStream(entry);
-                 InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
-                FabricModJson fabricMod = JsonUtil.GSON.fromJson(reader, FabricModJson.class);
-                return Collections.singletonList(new ModFile(
-                        fabricMod.getId(),
-                        id.get(),
-                        fabricMod.getDescription(),
-                        fabricMod.getAuthors() == null ? Collections.emptyList() : fabricMod.getAuthors(),
-                        path
-                ));
-            }
+        try (InputStream is = jarFile.getInputStream(entry);
+             InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            FabricModJson fabricMod = JsonUtil.GSON.fromJson(reader, FabricModJson.class);
+            return Collections.singletonList(new ModFile(
+                    fabricMod.getId(),
+                    id.get(),
+                    fabricMod.getDescription(),
+                    fabricMod.getAuthors() == null ? Collections.emptyList() : fabricMod.getAuthors(),
+                    path
+            ));
         }
     }
 
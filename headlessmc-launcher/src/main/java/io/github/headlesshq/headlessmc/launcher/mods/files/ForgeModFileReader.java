@@ -29,19 +29,17 @@ public class ForgeModFileReader implements ModFileReader {
     }
 
     @Override
-    public List<ModFile> read(Supplier<Integer> id, Path path) throws IOException {
-        try (JarFile jarFile = new JarFile(path.toFile())) {
-            for (String tomlName : tomlNames) {
-                JarEntry entry = jarFile.getJarEntry(tomlName);
-                if (entry != null) {
-                    return readModsToml(id, entry, jarFile, path);
-                }
+    public List<ModFile> read(Supplier<Integer> id, Path path, JarFile jarFile) throws IOException {
+        for (String tomlName : tomlNames) {
+            JarEntry entry = jarFile.getJarEntry(tomlName);
+            if (entry != null) {
+                return readModsToml(id, entry, jarFile, path);
             }
-
-            return mcModInfoEnabled
-                    ? readMcModInfo(id, jarFile, path)
-                    : Collections.emptyList();
         }
+
+        return mcModInfoEnabled
+                ? readMcModInfo(id, jarFile, path)
+                : Collections.emptyList();
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,180 @@
+package io.github.headlesshq.headlessmc.launcher.mods.files;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import io.github.headlesshq.headlessmc.launcher.api.Platform;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persists the mods read from mod files, so that an unchanged mods folder does not need to be parsed again.
+ * Entries are keyed by the path of the mod file and only used as long as its size and modification time did not change.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class ModFileCache {
+    private static final Type TYPE = new TypeToken<Map<String, Entry>>(){}.getType();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Path file;
+    private boolean loaded;
+    private volatile boolean dirty;
+
+    /**
+     * Reads the cache file, if it has not been read already.
+     * An invalid cache file is ignored.
+     */
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Entry> result = JsonUtil.GSON.fromJson(reader, TYPE);
+            if (result != null) {
+                result.values().removeIf(entry -> entry == null || entry.getMods() == null);
+                entries.putAll(result);
+            }
+        } catch (IOException | JsonParseException e) {
+            log.warn("Failed to read mod file cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param platform the platform the mod file has been read for.
+     * @param path the mod file.
+     * @param attributes the current attributes of the mod file.
+     * @return the cached mods of the file, with an id of 0, or {@code null} if the file is not cached or changed since.
+     */
+    public @Nullable List<ModFile> get(Platform platform, Path path, BasicFileAttributes attributes) {
+        Entry entry = entries.get(key(path));
+        if (entry == null
+                || !platform.name().equals(entry.getPlatform())
+                || entry.getSize() != attributes.size()
+                || entry.getModified() != attributes.lastModifiedTime().toMillis()) {
+            return null;
+        }
+
+        List<ModFile> result = new ArrayList<>(entry.getMods().size());
+        for (CachedMod mod : entry.getMods()) {
+            result.add(new ModFile(mod.getName(), 0, mod.getDescription(), mod.getAuthors() == null ? new ArrayList<>() : mod.getAuthors(), path));
+        }
+
+        return result;
+    }
+
+    public void put(Platform platform, Path path, BasicFileAttributes attributes, List<ModFile> mods) {
+        List<CachedMod> cachedMods = new ArrayList<>(mods.size());
+        for (ModFile mod : mods) {
+            cachedMods.add(new CachedMod(mod.getName(), mod.getDescription(), mod.getAuthors()));
+        }
+
+        entries.put(key(path), new Entry(platform.name(), attributes.size(), attributes.lastModifiedTime().toMillis(), cachedMods));
+        dirty = true;
+    }
+
+    /**
+     * Removes the entries for files in the given directory which are not contained in the given files anymore.
+     *
+     * @param directory the directory that has been read.
+     * @param files the files currently in the directory.
+     */
+    public void retain(Path directory, Collection<Path> files) {
+        Path dir = directory.toAbsolutePath().normalize();
+        Set<String> keys = new HashSet<>();
+        for (Path path : files) {
+            keys.add(key(path));
+        }
+
+        if (entries.keySet().removeIf(key -> !keys.contains(key) && dir.equals(Paths.get(key).getParent()))) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the cache file, if any entries changed since it has been read.
+     * Failures are logged, as the cache can always be recreated.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+
+        dirty = false;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            // a unique name, so that other launcher processes saving at the same time do not write into the same file
+            Path tmp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    JsonUtil.GSON.toJson(entries, TYPE, writer);
+                }
+
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write mod file cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    @Data
+    private static class Entry {
+        @SerializedName("platform")
+        private final String platform;
+        @SerializedName("size")
+        private final long size;
+        @SerializedName("modified")
+        private final long modified;
+        @SerializedName("mods")
+        private final List<CachedMod> mods;
+    }
+
+    @Data
+    private static class CachedMod {
+        @SerializedName("name")
+        private final String name;
+        @SerializedName("description")
+        private final @Nullable String description;
+        @SerializedName("authors")
+        private final List<String> authors;
+    }
+
+}
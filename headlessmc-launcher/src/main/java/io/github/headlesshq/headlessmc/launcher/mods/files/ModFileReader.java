@@ -4,8 +4,24 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.function.Supplier;
+import java.util.jar.JarFile;
 
 public interface ModFileReader {
-    List<ModFile> read(Supplier<Integer> id, Path path) throws IOException;
+    default List<ModFile> read(Supplier<Integer> id, Path path) throws IOException {
+        try (JarFile jarFile = new JarFile(path.toFile())) {
+            return read(id, path, jarFile);
+        }
+    }
+
+    /**
+     * Reads the mods from a jar file which has already been opened, so that it does not have to be opened again for every reader.
+     *
+     * @param id supplies the id for each mod read.
+     * @param path the path of the jar file.
+     * @param jarFile the opened jar file, which is closed by the caller.
+     * @return the mods in the given jar file, empty if it does not contain mods for this reader.
+     * @throws IOException if reading the jar file fails.
+     */
+    List<ModFile> read(Supplier<Integer> id, Path path, JarFile jarFile) throws IOException;
 
 }
@@ -2,18 +2,25 @@ package io.github.headlesshq.headlessmc.launcher.mods.files;
 
 import io.github.headlesshq.headlessmc.launcher.api.Platform;
 import io.github.headlesshq.headlessmc.launcher.mods.ModdableGame;
+import lombok.Getter;
+import lombok.Setter;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class ModFileReaderManager {
     private final Map<Platform, ModFileReader> readers = new HashMap<>();
+    @Getter
+    @Setter
+    private @Nullable ModFileCache cache;
 
     public @Nullable ModFileReader getReader(Platform platform) {
         return readers.get(platform);
@@ -23,6 +30,15 @@ public class ModFileReaderManager {
         readers.put(platform, reader);
     }
 
+    /**
+     * Reads the mods in the mods directory of the given game.
+     * Mod files are read in parallel and, if a {@link ModFileCache} has been set, only if they changed since they have been cached.
+     * Mods get their ids in the order of the file names.
+     *
+     * @param game the game to read the mods of.
+     * @return the mods of the game and the amount of files which did not contain any mods.
+     * @throws IOException if a mod file could not be read.
+     */
     public ModFileReadResult read(ModdableGame game) throws IOException {
         try {
             Files.createDirectories(game.getModsDirectory());
@@ -30,6 +46,7 @@ public class ModFileReaderManager {
                 List<Path> modFiles = stream
                         .filter(p -> !Files.isDirectory(p))
                         .filter(p -> p.toString().toLowerCase(Locale.ENGLISH).endsWith(".jar"))
+                        .sorted(Comparator.comparing(p -> p.getFileName().toString()))
                         .collect(Collectors.toList());
 
                 ModFileReader reader = getReader(game.getPlatform());
@@ -37,15 +54,39 @@ public class ModFileReaderManager {
                     throw new IOException("Unsupported platform: " + game.getPlatform());
                 }
 
+                ModFileCache cache = this.cache;
+                if (cache != null) {
+                    cache.load();
+                }
+
+                List<List<ModFile>> modsInFiles;
+                try {
+                    modsInFiles = modFiles.parallelStream().map(modFile -> {
+                        try {
+                            return read(reader, game.getPlatform(), modFile, cache);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }).collect(Collectors.toList());
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+
+                if (cache != null) {
+                    cache.retain(game.getModsDirectory(), modFiles);
+                    cache.save();
+                }
+
+                int id = 0;
                 int nonModFiles = 0;
                 List<ModFile> mods = new ArrayList<>();
-                AtomicInteger counter = new AtomicInteger();
-                for (Path modFile : modFiles) {
-                    List<ModFile> modsInFile = reader.read(counter::getAndIncrement, modFile);
+                for (List<ModFile> modsInFile : modsInFiles) {
                     if (modsInFile.isEmpty()) {
                         nonModFiles++;
                     } else {
-                        mods.addAll(modsInFile);
+                        for (ModFile mod : modsInFile) {
+                            mods.add(new ModFile(mod.getName(), id++, mod.getDescription(), mod.getAuthors(), mod.getPath()));
+                        }
                     }
                 }
 
@@ -56,6 +97,28 @@ public class ModFileReaderManager {
         }
     }
 
+    private List<ModFile> read(ModFileReader reader, Platform platform, Path modFile, @Nullable ModFileCache cache) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(modFile, BasicFileAttributes.class);
+        if (cache != null) {
+            List<ModFile> cached = cache.get(platform, modFile, attributes);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<ModFile> result;
+        // the jar is opened only once and shared by everything the reader looks up
+        try (JarFile jarFile = new JarFile(modFile.toFile())) {
+            result = reader.read(() -> 0, modFile, jarFile);
+        }
+
+        if (cache != null) {
+            cache.put(platform, modFile, attributes, result);
+        }
+
+        return result;
+    }
+
     public static ModFileReaderManager create() {
         ModFileReaderManager manager = new ModFileReaderManager();
         manager.add(Platform.FABRIC, new FabricModFileReader());
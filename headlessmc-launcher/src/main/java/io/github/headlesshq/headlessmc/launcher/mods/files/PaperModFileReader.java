@@ -22,41 +22,39 @@ public class PaperModFileReader implements ModFileReader {
 
     @Override
     @SuppressWarnings("unchecked")
-    public List<ModFile> read(Supplier<Integer> id, Path path) throws IOException {
-        try (JarFile jarFile = new JarFile(path.toFile())) {
-            for (String yml : ymls) {
-                JarEntry entry = jarFile.getJarEntry(yml);
-                if (entry == null) {
-                    return Collections.emptyList();
-                }
+    public List<ModFile> read(Supplier<Integer> id, Path path, JarFile jarFile) throws IOException {
+        for (String yml : ymls) {
+            JarEntry entry = jarFile.getJarEntry(yml);
+            if (entry == null) {
+                return Collections.emptyList();
+            }
 
-                try (InputStream is = jarFile.getInputStream(entry)) {
-                    Yaml yaml = new Yaml();
-                    Map<String, Object> obj = yaml.load(is);
-                    List<String> authors = new ArrayList<>();
-                    if (obj.get("author") == null) {
-                        authors = (List<String>) obj.get("authors");
-                        if (authors == null) {
-                            authors = new ArrayList<>();
-                        }
-                    } else if (obj.get("author") instanceof List) {
-                        authors = (List<String>) obj.get("author");
-                    } else {
-                        authors.add((String) obj.get("author"));
+            try (InputStream is = jarFile.getInputStream(entry)) {
+                Yaml yaml = new Yaml();
+                Map<String, Object> obj = yaml.load(is);
+                List<String> authors = new ArrayList<>();
+                if (obj.get("author") == null) {
+                    authors = (List<String>) obj.get("authors");
+                    if (authors == null) {
+                        authors = new ArrayList<>();
                     }
-
-                    return Collections.singletonList(new ModFile(
-                        (String) obj.get("name"),
-                            id.get(),
-                            (String) obj.get("description"),
-                            authors,
-                            path
-                    ));
-                } catch (IOException e) {
-                    throw e;
-                } catch (Exception e) {
-                    throw new IOException(e);
+                } else if (obj.get("author") instanceof List) {
+                    authors = (List<String>) obj.get("author");
+                } else {
+                    authors.add((String) obj.get("author"));
                 }
+
+                return Collections.singletonList(new ModFile(
+                    (String) obj.get("name"),
+                        id.get(),
+                        (String) obj.get("description"),
+                        authors,
+                        path
+                ));
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
             }
         }
 
@@ -18,7 +18,9 @@ import org.jetbrains.annotations.VisibleForTesting;
 
 import java.io.IOException;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -26,6 +28,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class Modrinth implements ModDistributionPlatform {
     private static final URL DEFAULT_MODRINTH_API = URLs.url("https://api.modrinth.com/v2/");
+    private static final int BATCH_SIZE = 100;
 
     private final DownloadService downloadService;
     private final URL api;
@@ -48,7 +51,7 @@ public class Modrinth implements ModDistributionPlatform {
     }
 
     private List<Mod> searchUrl(String url) throws IOException {
-        HttpResponse response = downloadService.download(new URL(url));
+        HttpResponse response = downloadService.downloadMetadata(new URL(url));
         try {
             String content = response.getContentAsString();
             SearchResult searchResult = JsonUtil.GSON.fromJson(content, SearchResult.class);
@@ -66,31 +69,28 @@ public class Modrinth implements ModDistributionPlatform {
 
     @Override
     public void download(ModdableGame game, String modName) throws IOException {
-        List<ModrinthProjectVersion> versions = getVersions(game.getVersionId(), modName);
-        if (versions.isEmpty()) {
-            throw new IOException("No versions of " + modName + " found for " + game.getVersionId());
-        }
-
-        ModrinthProjectVersion version = versions.get(0);
-        if (version.getFiles().isEmpty()) {
-            throw new IOException("No files found for version " + game.getVersionId() + " of " + modName);
-        }
+        download(game, Collections.singletonList(modName));
+    }
 
-        ModrinthFile file = version.getFiles().get(0);
-        for (ModrinthFile primaryFile : version.getFiles()) {
-            if (primaryFile.isPrimary()) {
-                file = primaryFile;
-                break;
+    /**
+     * Resolves the given mods and their required dependencies for the game and downloads them concurrently.
+     *
+     * @param game the game to download the mods for.
+     * @param modNames the slugs or ids of the mods to download.
+     * @throws IOException if a mod or one of its dependencies could not be resolved or downloaded.
+     */
+    @Override
+    public void download(ModdableGame game, List<String> modNames) throws IOException {
+        ModrinthResolver resolver = new ModrinthResolver(this, downloadService);
+        List<ModrinthResolver.ResolvedMod> mods = resolver.resolve(game.getVersionId(), modNames);
+        for (ModrinthResolver.ResolvedMod mod : mods) {
+            if (mod.isDependency()) {
+                log.info("Adding dependency " + mod.getSlug() + " " + mod.getVersionNumber());
             }
         }
 
-        log.debug("Downloading " + file + " to " + game.getModsDirectory().resolve(file.getFilename()));
-        downloadService.download(
-                file.getUrl(),
-                game.getModsDirectory().resolve(file.getFilename()),
-                file.getSize(),
-                file.getHashes().getSha1()
-        );
+        int downloaded = resolver.download(mods, game.getModsDirectory());
+        log.debug("Downloaded " + downloaded + " of " + mods.size() + " mods to " + game.getModsDirectory());
     }
 
     @Override
@@ -101,7 +101,7 @@ public class Modrinth implements ModDistributionPlatform {
     @VisibleForTesting
     List<ModrinthProjectVersion> getVersions(VersionId version, String name) throws IOException {
         String url = String.format("%sproject/%s/version?game_versions=[%%22%s%%22]&loaders=[%%22%s%%22]", api, name, version.getName(), version.getPlatform().getName());
-        HttpResponse response = downloadService.download(new URL(url));
+        HttpResponse response = downloadService.downloadMetadata(new URL(url));
         try {
             String content = response.getContentAsString();
             TypeToken<List<ModrinthProjectVersion>> type = new TypeToken<List<ModrinthProjectVersion>>() {};
@@ -111,6 +111,56 @@ public class Modrinth implements ModDistributionPlatform {
         }
     }
 
+    /**
+     * Looks up multiple projects with one request per {@value #BATCH_SIZE} projects.
+     * Projects which do not exist are not contained in the result.
+     *
+     * @param ids the ids or slugs of the projects.
+     * @return the projects that have been found.
+     * @throws IOException if a request fails.
+     */
+    List<ModrinthProject> getProjects(Collection<String> ids) throws IOException {
+        return getBatch("projects", ids, new TypeToken<List<ModrinthProject>>() {});
+    }
+
+    /**
+     * Looks up multiple versions, possibly of different projects, with one request per {@value #BATCH_SIZE} versions.
+     *
+     * @param ids the ids of the versions.
+     * @return the versions that have been found.
+     * @throws IOException if a request fails.
+     */
+    List<ModrinthProjectVersion> getVersionsById(Collection<String> ids) throws IOException {
+        return getBatch("versions", ids, new TypeToken<List<ModrinthProjectVersion>>() {});
+    }
+
+    private <T> List<T> getBatch(String endpoint, Collection<String> ids, TypeToken<List<T>> type) throws IOException {
+        List<String> list = new ArrayList<>(ids);
+        List<T> result = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i += BATCH_SIZE) {
+            StringBuilder idArray = new StringBuilder();
+            for (String id : list.subList(i, Math.min(list.size(), i + BATCH_SIZE))) {
+                if (idArray.length() > 0) {
+                    idArray.append(',');
+                }
+
+                idArray.append("%22").append(URLEncoder.encode(id, "UTF-8")).append("%22");
+            }
+
+            HttpResponse response = downloadService.downloadMetadata(new URL(String.format("%s%s?ids=[%s]", api, endpoint, idArray)));
+            try {
+                List<T> batch = JsonUtil.GSON.fromJson(response.getContentAsString(), type);
+                if (batch != null) {
+                    result.addAll(batch);
+                }
+            } catch (JsonParseException e) {
+                throw new IOException(e);
+            }
+        }
+
+        return result;
+    }
+
     @Data
     private static class SearchResult {
         @SerializedName("hits")
@@ -0,0 +1,19 @@
+package io.github.headlesshq.headlessmc.launcher.mods.modrinth;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Data;
+import org.jetbrains.annotations.Nullable;
+
+@Data
+class ModrinthDependency {
+    public static final String REQUIRED = "required";
+    public static final String INCOMPATIBLE = "incompatible";
+
+    @SerializedName("version_id")
+    private final @Nullable String versionId;
+    @SerializedName("project_id")
+    private final @Nullable String projectId;
+    @SerializedName("dependency_type")
+    private final String dependencyType;
+
+}
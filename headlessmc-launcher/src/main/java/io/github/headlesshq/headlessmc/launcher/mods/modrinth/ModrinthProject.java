@@ -5,6 +5,8 @@ import lombok.Data;
 
 @Data
 class ModrinthProject {
+    @SerializedName(value = "id", alternate = "project_id")
+    private final String id;
     @SerializedName("slug")
     private final String slug;
     @SerializedName("author")
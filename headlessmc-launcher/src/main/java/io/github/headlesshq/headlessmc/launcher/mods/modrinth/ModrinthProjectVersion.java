@@ -7,11 +7,19 @@ import java.util.List;
 
 @Data
 class ModrinthProjectVersion {
+    @SerializedName("id")
+    private final String id;
+    @SerializedName("project_id")
+    private final String projectId;
+    @SerializedName("version_number")
+    private final String versionNumber;
     @SerializedName("game_versions")
     private final List<String> gameVersions;
     @SerializedName("loaders")
     private final List<String> loaders;
     @SerializedName("files")
     private final List<ModrinthFile> files;
+    @SerializedName("dependencies")
+    private final List<ModrinthDependency> dependencies;
 
 }
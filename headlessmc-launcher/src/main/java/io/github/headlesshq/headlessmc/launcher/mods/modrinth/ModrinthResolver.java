@@ -0,0 +1,348 @@
+package io.github.headlesshq.headlessmc.launcher.mods.modrinth;
+
+import io.github.headlesshq.headlessmc.launcher.api.VersionId;
+import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves mods and their required dependencies on Modrinth and downloads them.
+ * The dependency tree is resolved level by level: the projects of a level are looked up with one batch request,
+ * their compatible versions are requested concurrently and dependencies on a specific version
+ * are looked up with one batch request as well. Such a pinned version is used instead of the newest compatible one.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class ModrinthResolver {
+    private static final int PARALLELISM = 8;
+
+    private final Modrinth modrinth;
+    private final DownloadService downloadService;
+
+    /**
+     * Resolves the given mods and, transitively, their required dependencies.
+     * For every project the newest version for the platform and Minecraft version of the given {@link VersionId} is picked,
+     * unless a dependency requires a specific version of it, which then has to be compatible as well.
+     *
+     * @param versionId the version to resolve the mods for.
+     * @param mods the slugs or ids of the mods to resolve.
+     * @return the resolved mods, the requested mods first.
+     * @throws IOException if a mod or dependency could not be found, has no compatible version, or two mods are incompatible.
+     */
+    public List<ResolvedMod> resolve(VersionId versionId, Collection<String> mods) throws IOException {
+        Map<String, ResolvedMod> resolved = new LinkedHashMap<>();
+        Map<String, ModrinthProjectVersion> versions = new HashMap<>();
+        Map<String, ModrinthProjectVersion> pinned = new HashMap<>();
+        Map<String, String> requiredBy = new HashMap<>();
+        Set<String> pending = new LinkedHashSet<>(mods);
+        boolean dependencies = false;
+        ExecutorService executor = createExecutor("HeadlessMc-Modrinth-Resolve-");
+        try {
+            while (!pending.isEmpty()) {
+                List<ModrinthProject> projects = new ArrayList<>();
+                Set<String> notFound = new LinkedHashSet<>(pending);
+                for (ModrinthProject project : modrinth.getProjects(pending)) {
+                    notFound.removeIf(id -> id.equalsIgnoreCase(project.getId()) || id.equalsIgnoreCase(project.getSlug()));
+                    if (!resolved.containsKey(project.getId()) && projects.stream().noneMatch(p -> p.getId().equals(project.getId()))) {
+                        projects.add(project);
+                    }
+                }
+
+                if (!notFound.isEmpty()) {
+                    throw new IOException(dependencies
+                            ? "Could not find dependencies " + describe(notFound, requiredBy) + " on Modrinth"
+                            : "Could not find " + String.join(", ", notFound) + " on Modrinth");
+                }
+
+                List<ModrinthProjectVersion> selected = invokeAll(executor, projects, project -> pinned.containsKey(project.getId())
+                        ? checkFiles(project, pinned.get(project.getId()))
+                        : select(versionId, project, requiredBy.get(project.getId())));
+                Set<String> next = new LinkedHashSet<>();
+                Map<String, String> versionDependencies = new LinkedHashMap<>();
+                for (int i = 0; i < projects.size(); i++) {
+                    ModrinthProject project = projects.get(i);
+                    ModrinthProjectVersion version = selected.get(i);
+                    resolved.put(project.getId(), new ResolvedMod(project.getId(), project.getSlug(), version.getId(),
+                            version.getVersionNumber(), getPrimaryFile(version), dependencies));
+                    versions.put(project.getId(), version);
+                    for (ModrinthDependency dependency : getDependencies(version)) {
+                        if (!ModrinthDependency.REQUIRED.equals(dependency.getDependencyType())) {
+                            continue;
+                        }
+
+                        if (dependency.getVersionId() != null) {
+                            versionDependencies.putIfAbsent(dependency.getVersionId(), project.getSlug());
+                        } else if (dependency.getProjectId() != null) {
+                            requiredBy.putIfAbsent(dependency.getProjectId(), project.getSlug());
+                            next.add(dependency.getProjectId());
+                        }
+                    }
+                }
+
+                if (!versionDependencies.isEmpty()) {
+                    Set<String> versionsNotFound = new LinkedHashSet<>(versionDependencies.keySet());
+                    for (ModrinthProjectVersion version : modrinth.getVersionsById(versionDependencies.keySet())) {
+                        if (!versionsNotFound.remove(version.getId())) {
+                            continue;
+                        }
+
+                        String dependent = versionDependencies.get(version.getId());
+                        pin(versionId, version, dependent, resolved, pinned);
+                        requiredBy.putIfAbsent(version.getProjectId(), dependent);
+                        next.add(version.getProjectId());
+                    }
+
+                    if (!versionsNotFound.isEmpty()) {
+                        throw new IOException("Could not find dependency versions " + describe(versionsNotFound, versionDependencies) + " on Modrinth");
+                    }
+                }
+
+                next.removeIf(resolved::containsKey);
+                pending = next;
+                dependencies = true;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        checkIncompatibilities(resolved, versions);
+        return new ArrayList<>(resolved.values());
+    }
+
+    /**
+     * Downloads the given mods concurrently into the given directory.
+     * Files which already exist with the correct hash are not downloaded again.
+     *
+     * @param mods the mods to download.
+     * @param directory the directory to download the mods to.
+     * @return the amount of mods which have been downloaded.
+     * @throws IOException if any of the mods could not be downloaded, after all other mods have been downloaded.
+     */
+    public int download(List<ResolvedMod> mods, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        AtomicInteger downloaded = new AtomicInteger();
+        List<String> failures = new ArrayList<>();
+        ExecutorService executor = createExecutor("HeadlessMc-Modrinth-Download-");
+        try {
+            Map<ResolvedMod, Future<?>> futures = new LinkedHashMap<>();
+            for (ResolvedMod mod : mods) {
+                futures.put(mod, executor.submit(() -> {
+                    if (download(mod, directory)) {
+                        downloaded.incrementAndGet();
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Map.Entry<ResolvedMod, Future<?>> future : futures.entrySet()) {
+                try {
+                    future.getValue().get();
+                } catch (ExecutionException e) {
+                    log.error("Failed to download " + future.getKey().getFilename(), e.getCause());
+                    failures.add(future.getKey().getSlug() + ": " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.add(future.getKey().getSlug() + ": interrupted");
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!failures.isEmpty()) {
+            throw new IOException("Failed to download " + String.join(", ", failures));
+        }
+
+        return downloaded.get();
+    }
+
+    private boolean download(ResolvedMod mod, Path directory) throws IOException {
+        Path file = directory.resolve(mod.getFilename()).normalize();
+        if (!directory.normalize().equals(file.getParent())) {
+            throw new IOException("Invalid file name " + mod.getFilename());
+        }
+
+        if (Files.isRegularFile(file) && downloadService.getChecksumService().checkIntegrity(file, mod.getSize(), mod.getSha1())) {
+            log.debug("Skipping " + file + ", it has been downloaded already");
+            return false;
+        }
+
+        log.debug("Downloading " + mod.getUrl() + " to " + file);
+        downloadService.download(new URL(mod.getUrl()), file, mod.getSize(), mod.getSha1());
+        return true;
+    }
+
+    private ModrinthProjectVersion select(VersionId versionId, ModrinthProject project, @Nullable String requiredBy) throws IOException {
+        List<ModrinthProjectVersion> versions = modrinth.getVersions(versionId, project.getId());
+        if (versions == null || versions.isEmpty()) {
+            throw new IOException("No versions of " + project.getSlug() + " found for " + versionId + (requiredBy == null ? "" : ", required by " + requiredBy));
+        }
+
+        // the versions are sorted from newest to oldest
+        return checkFiles(project, versions.get(0));
+    }
+
+    private static ModrinthProjectVersion checkFiles(ModrinthProject project, ModrinthProjectVersion version) throws IOException {
+        if (version.getFiles() == null || version.getFiles().isEmpty()) {
+            throw new IOException("No files found for version " + version.getVersionNumber() + " of " + project.getSlug());
+        }
+
+        return version;
+    }
+
+    private static void pin(VersionId versionId, ModrinthProjectVersion version, String requiredBy,
+                            Map<String, ResolvedMod> resolved, Map<String, ModrinthProjectVersion> pinned) throws IOException {
+        if (!contains(version.getLoaders(), versionId.getPlatform().getName()) || !contains(version.getGameVersions(), versionId.getName())) {
+            throw new IOException("Version " + version.getVersionNumber() + " (" + version.getId() + ") required by " + requiredBy
+                    + " is not compatible with " + versionId);
+        }
+
+        ResolvedMod resolvedMod = resolved.get(version.getProjectId());
+        if (resolvedMod != null && !resolvedMod.getVersionId().equals(version.getId())) {
+            throw new IOException(requiredBy + " requires version " + version.getId() + " of " + resolvedMod.getSlug()
+                    + ", but version " + resolvedMod.getVersionId() + " has been resolved already");
+        }
+
+        ModrinthProjectVersion pinnedVersion = pinned.putIfAbsent(version.getProjectId(), version);
+        if (pinnedVersion != null && !pinnedVersion.getId().equals(version.getId())) {
+            throw new IOException(requiredBy + " requires version " + version.getId() + " of " + version.getProjectId()
+                    + ", but version " + pinnedVersion.getId() + " is required as well");
+        }
+    }
+
+    private void checkIncompatibilities(Map<String, ResolvedMod> resolved, Map<String, ModrinthProjectVersion> versions) throws IOException {
+        for (Map.Entry<String, ModrinthProjectVersion> entry : versions.entrySet()) {
+            for (ModrinthDependency dependency : getDependencies(entry.getValue())) {
+                if (!ModrinthDependency.INCOMPATIBLE.equals(dependency.getDependencyType())) {
+                    continue;
+                }
+
+                ResolvedMod incompatible = null;
+                if (dependency.getVersionId() != null) {
+                    // only this version of the project is incompatible
+                    for (ResolvedMod mod : resolved.values()) {
+                        if (dependency.getVersionId().equals(mod.getVersionId())) {
+                            incompatible = mod;
+                            break;
+                        }
+                    }
+                } else if (dependency.getProjectId() != null) {
+                    incompatible = resolved.get(dependency.getProjectId());
+                }
+
+                if (incompatible != null) {
+                    throw new IOException(resolved.get(entry.getKey()).getSlug() + " is incompatible with " + incompatible.getSlug());
+                }
+            }
+        }
+    }
+
+    private <T, R> List<R> invokeAll(ExecutorService executor, List<T> values, IOFunction<T, R> function) throws IOException {
+        List<Future<R>> futures = new ArrayList<>(values.size());
+        for (T value : values) {
+            futures.add(executor.submit((Callable<R>) () -> function.apply(value)));
+        }
+
+        List<R> result = new ArrayList<>(values.size());
+        for (Future<R> future : futures) {
+            try {
+                result.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while resolving mods", e);
+            }
+        }
+
+        return result;
+    }
+
+    private static ExecutorService createExecutor(String name) {
+        AtomicInteger threadId = new AtomicInteger();
+        return Executors.newFixedThreadPool(PARALLELISM, runnable -> {
+            Thread thread = new Thread(runnable, name + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static ModrinthFile getPrimaryFile(ModrinthProjectVersion version) {
+        for (ModrinthFile file : version.getFiles()) {
+            if (file.isPrimary()) {
+                return file;
+            }
+        }
+
+        return version.getFiles().get(0);
+    }
+
+    private static List<ModrinthDependency> getDependencies(ModrinthProjectVersion version) {
+        return version.getDependencies() == null ? Collections.emptyList() : version.getDependencies();
+    }
+
+    private static boolean contains(@Nullable List<String> values, String value) {
+        // if Modrinth does not tell us we can not check it
+        return values == null || values.stream().anyMatch(value::equalsIgnoreCase);
+    }
+
+    private static String describe(Collection<String> ids, Map<String, String> requiredBy) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (String id : ids) {
+            joiner.add(requiredBy.containsKey(id) ? id + " (required by " + requiredBy.get(id) + ")" : id);
+        }
+
+        return joiner.toString();
+    }
+
+    @FunctionalInterface
+    private interface IOFunction<T, R> {
+        R apply(T value) throws IOException;
+    }
+
+    /**
+     * A mod which has been resolved to a file of one of its versions.
+     */
+    @Data
+    @RequiredArgsConstructor
+    public static class ResolvedMod {
+        private final String projectId;
+        private final String slug;
+        private final String versionId;
+        private final String versionNumber;
+        private final String filename;
+        private final String url;
+        private final long size;
+        private final @Nullable String sha1;
+        /**
+         * If this mod has not been requested, but is a dependency of another mod.
+         */
+        private final boolean dependency;
+
+        ResolvedMod(String projectId, String slug, String versionId, String versionNumber, ModrinthFile file, boolean dependency) {
+            this(projectId, slug, versionId, versionNumber, file.getFilename(), file.getUrl(), file.getSize(),
+                 file.getHashes() == null ? null : file.getHashes().getSha1(), dependency);
+        }
+    }
+
+}
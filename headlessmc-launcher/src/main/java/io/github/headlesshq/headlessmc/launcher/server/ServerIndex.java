@@ -0,0 +1,214 @@
+package io.github.headlesshq.headlessmc.launcher.server;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.CustomLog;
+import lombok.Data;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * A persisted index of the {@code type/version/build/server} directory tree managed by a {@link ServerManager}.
+ * Every indexed directory is stored with its modification time and the names of its subdirectories.
+ * Adding or removing a subdirectory changes the modification time of a directory,
+ * so validating the index only needs to stat each indexed directory and lists only those that changed.
+ * Like the git index, directories modified shortly before the index has been written are considered racy and are always listed again.
+ */
+@CustomLog
+class ServerIndex {
+    public static final String FILE = ".hmc-servers.json";
+    private static final long RACY_TIME = 2_000L;
+    private static final int SERVER_DEPTH = 3;
+
+    private final Path serversDir;
+    private final Path file;
+    private @Nullable Index index;
+
+    public ServerIndex(Path serversDir) {
+        this.serversDir = serversDir;
+        this.file = serversDir.resolve(FILE);
+    }
+
+    /**
+     * Validates the index against the file system, updates and writes it if anything changed.
+     *
+     * @param types the names of the server types to index.
+     * @return the servers of the given types as {@code type/version/build/name} paths relative to the servers directory.
+     */
+    public synchronized List<String[]> update(List<String> types) {
+        Index index = this.index;
+        if (index == null) {
+            index = this.index = read();
+        }
+
+        boolean changed = false;
+        for (String type : types) {
+            try {
+                changed |= validate(index, type, 1);
+            } catch (IOException e) {
+                log.error("Failed to read files of " + type, e);
+            }
+        }
+
+        if (changed) {
+            write(index);
+        }
+
+        List<String[]> result = new ArrayList<>();
+        for (String type : types) {
+            collect(index, type, new String[]{type}, result);
+        }
+
+        return result;
+    }
+
+    private boolean validate(Index index, String relative, int depth) throws IOException {
+        Path dir = serversDir.resolve(relative);
+        Node node = index.getDirectories().get(relative);
+        BasicFileAttributes attributes = readAttributes(dir);
+        if (attributes == null || !attributes.isDirectory()) {
+            if (node != null) {
+                remove(index, relative);
+                return true;
+            }
+
+            return false;
+        }
+
+        boolean changed = false;
+        long modified = attributes.lastModifiedTime().toMillis();
+        if (node == null || node.getModified() != modified || modified >= index.getWritten() - RACY_TIME) {
+            List<String> children = new ArrayList<>();
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path child : (Iterable<Path>) files::iterator) {
+                    if (Files.isDirectory(child)) {
+                        children.add(child.getFileName().toString());
+                    }
+                }
+            }
+
+            if (node != null) {
+                for (String child : node.getChildren()) {
+                    if (!children.contains(child)) {
+                        remove(index, relative + "/" + child);
+                    }
+                }
+            }
+
+            // also written if nothing changed, so that the directory stops being racy
+            changed = true;
+            node = new Node(modified, children);
+            index.getDirectories().put(relative, node);
+        }
+
+        if (depth < SERVER_DEPTH) {
+            for (String child : node.getChildren()) {
+                changed |= validate(index, relative + "/" + child, depth + 1);
+            }
+        }
+
+        return changed;
+    }
+
+    private void collect(Index index, String relative, String[] segments, List<String[]> result) {
+        Node node = index.getDirectories().get(relative);
+        if (node == null) {
+            return;
+        }
+
+        for (String child : node.getChildren()) {
+            String[] childSegments = new String[segments.length + 1];
+            System.arraycopy(segments, 0, childSegments, 0, segments.length);
+            childSegments[segments.length] = child;
+            if (segments.length == SERVER_DEPTH) {
+                result.add(childSegments);
+            } else {
+                collect(index, relative + "/" + child, childSegments, result);
+            }
+        }
+    }
+
+    private void remove(Index index, String relative) {
+        Node node = index.getDirectories().remove(relative);
+        if (node != null) {
+            for (String child : node.getChildren()) {
+                remove(index, relative + "/" + child);
+            }
+        }
+    }
+
+    private Index read() {
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                Index index = JsonUtil.GSON.fromJson(reader, Index.class);
+                if (index != null && index.getDirectories() != null) {
+                    return index;
+                }
+            } catch (IOException | JsonParseException e) {
+                log.warn("Failed to read server index " + file + ", rebuilding it: " + e.getMessage());
+            }
+        }
+
+        return new Index();
+    }
+
+    private void write(Index index) {
+        try {
+            Files.createDirectories(serversDir);
+            index.setWritten(System.currentTimeMillis());
+            // unique, so that launchers sharing the servers directory do not write into the same file
+            Path tmp = serversDir.resolve(FILE + "." + UUID.randomUUID() + ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    JsonUtil.GSON.toJson(index, writer);
+                }
+
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write server index " + file, e);
+        }
+    }
+
+    private static @Nullable BasicFileAttributes readAttributes(Path dir) {
+        try {
+            return Files.readAttributes(dir, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Data
+    private static class Index {
+        @SerializedName("written")
+        private long written;
+        @SerializedName("directories")
+        private Map<String, Node> directories = new HashMap<>();
+    }
+
+    @Data
+    private static class Node {
+        @SerializedName("modified")
+        private final long modified;
+        @SerializedName("children")
+        private final List<String> children;
+    }
+
+}
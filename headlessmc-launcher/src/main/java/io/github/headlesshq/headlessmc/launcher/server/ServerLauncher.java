@@ -46,7 +46,9 @@ public class ServerLauncher {
 
     private boolean prepare = false;
     private boolean quit = false;
+    private boolean usePool = true;
     private @Nullable String eula;
+    private @Nullable Server instance;
 
     public String readEula() throws IOException {
         try (BufferedReader br = IOUtil.reader(Files.newInputStream(server.getEula(isInMemory())))) {
@@ -69,7 +71,7 @@ public class ServerLauncher {
         if (!server.hasEula(isInMemory())) {
             if (launcher.getConfig().get(LauncherProperties.SERVER_LAUNCH_FOR_EULA, true)) {
                 log.info("Launching server to create EULA...");
-                Process process = launch0(true);
+                Process process = launch0(server, true);
                 try {
                     if (process != null) {
                         process.waitFor();
@@ -86,6 +88,18 @@ public class ServerLauncher {
     }
 
     public @Nullable Process launch() throws CommandException, LaunchException, IOException {
+        if (isPooled()) {
+            // e.g. when retrying
+            releaseInstance();
+            try {
+                instance = new ServerPool(launcher).lease(server);
+                return launch0(instance, false);
+            } catch (IOException | LaunchException e) {
+                log.error("Failed to launch server " + server.getName() + " from the server pool, launching it directly", e);
+                releaseInstance();
+            }
+        }
+
         if (launcher.getConfig().get(LauncherProperties.SERVER_ACCEPT_EULA, false)) {
             eulaLaunch();
             try {
@@ -96,10 +110,42 @@ public class ServerLauncher {
             }
         }
 
-        return launch0(false);
+        return launch0(server, false);
+    }
+
+    /**
+     * Deletes the instance of the {@link ServerPool} this server has been launched in, if any.
+     */
+    public void releaseInstance() {
+        Server leased = instance;
+        instance = null;
+        if (leased != null) {
+            try {
+                new ServerPool(launcher).release(leased);
+            } catch (IOException e) {
+                log.error("Failed to delete server instance " + leased.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the directory the server runs in, which is the directory of an instance of the {@link ServerPool} for pooled tests.
+     */
+    public Path getRunDirectory() {
+        return instance == null ? server.getPath() : instance.getPath();
+    }
+
+    private boolean isPooled() {
+        // quit would delete the instance while the server is still running
+        return usePool
+                && !prepare
+                && !quit
+                && !isInMemory()
+                && launcher.getConfig().get(LauncherProperties.SERVER_TEST, false)
+                && launcher.getConfig().get(LauncherProperties.SERVER_TEST_POOL, false);
     }
 
-    private @Nullable Process launch0(boolean eula) throws CommandException, LaunchException, IOException {
+    private @Nullable Process launch0(Server server, boolean eula) throws CommandException, LaunchException, IOException {
         boolean serverTest = launcher.getConfig().get(LauncherProperties.SERVER_TEST, false);
         Path serverExecutable = server.getExecutable(launcher.getProcessFactory().getOs());
         boolean isJar = serverExecutable.toString().endsWith(".jar");
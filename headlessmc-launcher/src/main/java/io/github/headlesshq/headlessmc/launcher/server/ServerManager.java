@@ -1,7 +1,7 @@
 package io.github.headlesshq.headlessmc.launcher.server;
 
 import io.github.headlesshq.headlessmc.launcher.server.downloader.*;
-import lombok.Cleanup;
+import lombok.AccessLevel;
 import lombok.CustomLog;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +11,7 @@ import io.github.headlesshq.headlessmc.launcher.Launcher;
 import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
 import io.github.headlesshq.headlessmc.launcher.LazyService;
 import io.github.headlesshq.headlessmc.launcher.files.FileManager;
+import io.github.headlesshq.headlessmc.launcher.files.DirectorySnapshot;
 import io.github.headlesshq.headlessmc.launcher.modlauncher.Modlauncher;
 import io.github.headlesshq.headlessmc.launcher.api.VersionId;
 import io.github.headlesshq.headlessmc.launcher.mods.ModdableGame;
@@ -25,8 +26,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Locale;
+import java.util.Map;
 
 @Getter
 @CustomLog
@@ -37,55 +40,84 @@ public class ServerManager extends LazyService<Server> implements ModdableGamePr
     private final Path serversDir;
     private final boolean cache;
 
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Server> serversByName = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, List<Server>> serversByVersion = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private @Nullable ServerIndex index;
+    @Getter(AccessLevel.NONE)
+    private @Nullable ServerManager cacheManager;
+
     @Override
-    protected Collection<Server> update() {
+    protected synchronized Collection<Server> update() {
         List<Server> servers = new ArrayList<>();
         Server testServer = getTestServer();
         if (testServer != null) {
             servers.add(testServer);
         }
 
+        if (index == null) {
+            index = new ServerIndex(serversDir);
+        }
+
+        List<String> typeNames = new ArrayList<>(serverTypes.size());
         for (ServerType type : serverTypes) {
-            Path typeDir = serversDir.resolve(type.getName());
-            if (!Files.exists(typeDir)) {
-                continue;
-            }
+            typeNames.add(type.getName());
+        }
 
-            try (Stream<Path> files = Files.list(typeDir)) {
-                for (Path mcVersion : itr(files.filter(Files::isDirectory))) {
-                    @Cleanup
-                    Stream<Path> builds = Files.list(mcVersion);
-                    for (Path build : itr(builds.filter(Files::isDirectory))) {
-                        @Cleanup
-                        Stream<Path> serverDirs = Files.list(build);
-                        for (Path serverDir : itr(serverDirs.filter(Files::isDirectory))) {
-                            servers.add(new Server(
-                                serverDir,
-                                serverDir.getFileName().toString(),
-                                new ServerVersion(
-                                        type,
-                                        mcVersion.getFileName().toString(),
-                                        build.getFileName().toString()
-                                ),
-                                servers.size()
-                            ));
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                log.error("Failed to read files of " + type, e);
+        for (String[] server : index.update(typeNames)) {
+            ServerType type = getServerType(server[0]);
+            if (type != null) {
+                servers.add(new Server(
+                        serversDir.resolve(server[0]).resolve(server[1]).resolve(server[2]).resolve(server[3]),
+                        server[3],
+                        new ServerVersion(type, server[1], server[2]),
+                        servers.size()
+                ));
             }
         }
 
+        serversByName.clear();
+        serversByVersion.clear();
+        for (Server server : servers) {
+            serversByName.putIfAbsent(server.getName().toLowerCase(Locale.ENGLISH), server);
+            serversByVersion.computeIfAbsent(getVersionKey(server.getVersion().getServerType(), server.getVersion().getVersion()),
+                                             k -> new ArrayList<>()).add(server);
+        }
+
         return servers;
     }
 
     public @Nullable Server getServer(String serverName) {
-        return getContents()
-                .stream()
-                .filter(s -> s.getName().equalsIgnoreCase(serverName))
-                .findFirst()
-                .orElse(null);
+        ensureInitialized();
+        synchronized (this) {
+            return serversByName.get(serverName.toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    /**
+     * Finds a server of the given type and Minecraft version.
+     *
+     * @param type the type of the server.
+     * @param version the Minecraft version of the server.
+     * @param typeVersion the build of the server, or {@code null} for any build.
+     * @return the first matching server or {@code null} if none could be found.
+     */
+    public @Nullable Server getServer(ServerType type, String version, @Nullable String typeVersion) {
+        ensureInitialized();
+        synchronized (this) {
+            List<Server> servers = serversByVersion.get(getVersionKey(type, version));
+            if (servers != null) {
+                for (Server server : servers) {
+                    if (typeVersion == null || typeVersion.equals(server.getVersion().getTypeVersion())) {
+                        return server;
+                    }
+                }
+            }
+
+            return null;
+        }
     }
 
     public void cache(Launcher launcher, Server server) throws IOException {
@@ -98,7 +130,8 @@ public class ServerManager extends LazyService<Server> implements ModdableGamePr
         }
 
         Path path = resolveServerPath(cacheDir, version.getServerType(), version.getVersion(), version.getTypeVersion(), null);
-        FileManager.copyDirectory(server.getPath(), path);
+        DirectorySnapshot.sync(server.getPath(), path);
+        getCacheManager(cacheDir).refresh();
     }
 
     public Path add(Launcher launcher,
@@ -140,7 +173,6 @@ public class ServerManager extends LazyService<Server> implements ModdableGamePr
     public void remove(Server server) throws IOException {
         FileManager fileManager = new FileManager(server.getPath().toAbsolutePath().toString());
         fileManager.delete(server.getPath().toFile());
-        contents.remove(server);
         refresh();
     }
 
@@ -166,10 +198,6 @@ public class ServerManager extends LazyService<Server> implements ModdableGamePr
         return serverManager;
     }
 
-    private <T> Iterable<T> itr(Stream<T> stream) {
-        return stream::iterator;
-    }
-
     private @Nullable Path checkCachedServers(Launcher launcher,
                                               ServerType type,
                                               String version,
@@ -183,7 +211,7 @@ public class ServerManager extends LazyService<Server> implements ModdableGamePr
             if (server != null) {
                 log.info("Restoring server cache " + server.getPath());
                 Path path = resolveServerPath(serversDir, type, version, server.getVersion().getTypeVersion(), nameIn);
-                FileManager.copyDirectory(server.getPath(), path);
+                DirectorySnapshot.sync(server.getPath(), path);
                 return path;
             }
         }
@@ -195,17 +223,18 @@ public class ServerManager extends LazyService<Server> implements ModdableGamePr
                                               ServerType type,
                                               String version,
                                               @Nullable String typeVersion) {
-        ServerManager cache = new ServerManager(config, cacheDir, true);
-        cache.getServerTypes().add(type);
-        cache.refresh();
-
-        return cache.stream()
-                .filter(s -> s.getVersion().getServerType().equals(type))
-                .filter(s -> s.getVersion().getVersion().equals(version))
-                .filter(s -> typeVersion == null
-                        || s.getVersion().getTypeVersion().equals(typeVersion))
-                .findFirst()
-                .orElse(null);
+        return getCacheManager(cacheDir).getServer(type, version, typeVersion);
+    }
+
+    private synchronized ServerManager getCacheManager(Path cacheDir) {
+        ServerManager cacheManager = this.cacheManager;
+        if (cacheManager == null || !cacheManager.getServersDir().equals(cacheDir)) {
+            cacheManager = new ServerManager(config, cacheDir, true);
+            cacheManager.getServerTypes().addAll(serverTypes);
+            this.cacheManager = cacheManager;
+        }
+
+        return cacheManager;
     }
 
     private Path getServerCacheDir(Launcher launcher) {
@@ -216,6 +245,10 @@ public class ServerManager extends LazyService<Server> implements ModdableGamePr
         return launcher.getFileManager().relative("servercache").getBase().toPath();
     }
 
+    private static String getVersionKey(ServerType type, String version) {
+        return type.getName() + "/" + version;
+    }
+
     private String getNewServerName(ServerType type, String version, @Nullable String typeVersion) {
         String name = Server.getName(type, version, typeVersion);
         int i = 1;
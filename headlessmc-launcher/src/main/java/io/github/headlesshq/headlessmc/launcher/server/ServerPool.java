@@ -0,0 +1,197 @@
+package io.github.headlesshq.headlessmc.launcher.server;
+
+import io.github.headlesshq.headlessmc.api.command.CommandException;
+import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.files.DirectorySnapshot;
+import io.github.headlesshq.headlessmc.launcher.files.DirectorySnapshot.FileState;
+import io.github.headlesshq.headlessmc.launcher.files.FileManager;
+import io.github.headlesshq.headlessmc.launcher.launch.LaunchException;
+import io.github.headlesshq.headlessmc.launcher.test.CommandTest;
+import io.github.headlesshq.headlessmc.launcher.test.TestCase;
+import lombok.CustomLog;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps booted snapshots of servers, so that server tests only need one cold boot, including world generation, per server version.
+ * A snapshot is a copy of a server directory, which has been launched once and stopped after it finished starting.
+ * Every test then runs in its own instance of the snapshot, created with {@link DirectorySnapshot#copy(Path, Path)},
+ * and files of the server directory which changed since the snapshot has been taken,
+ * e.g. new builds of the plugins to test, are copied on top.
+ * Instances do not share any mutable files, so multiple threads and HeadlessMc processes can run tests from the same snapshot in parallel.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class ServerPool {
+    public static final String COMPLETE = "snapshot.complete";
+    private static final long STALE_INSTANCE_AGE = TimeUnit.DAYS.toMillis(1L);
+    // threads of this JVM can not overlap file locks, so they are serialized per snapshot first
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final Launcher launcher;
+    private final Path poolDir;
+
+    public ServerPool(Launcher launcher) {
+        this(launcher, launcher.getFileManager().getDir("serverpool").toPath());
+    }
+
+    /**
+     * Creates a new instance of the snapshot for the given server, booting the server to create the snapshot if necessary.
+     *
+     * @param server the server to run.
+     * @return a server in its own directory, which should be {@link #release(Server) released} after it has stopped.
+     */
+    public Server lease(Server server) throws IOException, LaunchException, CommandException {
+        ServerVersion version = server.getVersion();
+        Path dir = poolDir.resolve(version.getServerType().getName())
+                          .resolve(version.getVersion())
+                          .resolve(version.getTypeVersion() == null ? "latest" : version.getTypeVersion());
+        Path snapshot = getSnapshot(server, dir);
+        Map<String, FileState> manifest = DirectorySnapshot.readManifest(snapshot);
+        Path instances = dir.resolve("instances");
+        deleteStaleInstances(instances);
+
+        Path instance = instances.resolve(UUID.randomUUID().toString());
+        log.info("Creating instance " + instance.getFileName() + " of server snapshot " + snapshot);
+        DirectorySnapshot.copy(snapshot, instance);
+        overlay(server.getPath(), manifest, instance);
+        return new Server(instance, server.getName(), version, server.getId());
+    }
+
+    /**
+     * Deletes an instance created by {@link #lease(Server)}.
+     *
+     * @param instance the instance to delete.
+     */
+    public void release(Server instance) throws IOException {
+        log.info("Deleting server instance " + instance.getPath());
+        delete(instance.getPath());
+    }
+
+    private Path getSnapshot(Server server, Path dir) throws IOException, LaunchException, CommandException {
+        Path snapshot = dir.resolve("snapshot");
+        Files.createDirectories(dir);
+        synchronized (LOCKS.computeIfAbsent(dir.toAbsolutePath().normalize(), path -> new Object())) {
+            return getSnapshotLocked(server, dir, snapshot);
+        }
+    }
+
+    private Path getSnapshotLocked(Server server, Path dir, Path snapshot) throws IOException, LaunchException, CommandException {
+        // other HeadlessMc processes wait for the one creating the snapshot
+        try (FileChannel channel = FileChannel.open(dir.resolve("snapshot.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            if (Files.exists(dir.resolve(COMPLETE))) {
+                return snapshot;
+            }
+
+            if (Files.exists(snapshot)) {
+                log.info("Deleting incomplete server snapshot " + snapshot);
+                delete(snapshot);
+            }
+
+            launcher.log("Creating snapshot of server " + server.getName() + ", this launches the server once.");
+            // the manifest records the state of the server at the time of the snapshot
+            DirectorySnapshot.sync(server.getPath(), snapshot);
+            boot(new Server(snapshot, server.getName(), server.getVersion(), server.getId()));
+            // written last, marks the snapshot as complete
+            Files.createFile(dir.resolve(COMPLETE));
+
+            return snapshot;
+        }
+    }
+
+    private void boot(Server server) throws IOException, LaunchException, CommandException {
+        ServerLauncher serverLauncher = new ServerLauncher(launcher, server, new String[0]);
+        serverLauncher.setUsePool(false);
+        Process process = serverLauncher.launch();
+        if (process == null) {
+            throw new LaunchException("Failed to boot server " + server.getName() + " for its snapshot");
+        }
+
+        TestCase bootTest;
+        try (InputStream is = ServerPool.class.getClassLoader().getResourceAsStream(CommandTest.SERVER_TEST_RESOURCE)) {
+            if (is == null) {
+                throw new IOException("Failed to find " + CommandTest.SERVER_TEST_RESOURCE);
+            }
+
+            bootTest = TestCase.load(is);
+        }
+
+        try (CommandTest test = new CommandTest(launcher, bootTest, process)) {
+            test.run();
+            if (!test.wasSuccessful()) {
+                throw new LaunchException("Server " + server.getName() + " failed to boot for its snapshot: " + test.getMessage());
+            }
+
+            test.awaitExitOrKill();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LaunchException("Interrupted while booting server " + server.getName(), e);
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    static void overlay(Path server, Map<String, FileState> manifest, Path instance) throws IOException {
+        Map<String, FileState> current = DirectorySnapshot.scan(server);
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, FileState> entry : current.entrySet()) {
+            if (!entry.getValue().equals(manifest.get(entry.getKey()))) {
+                log.debug("Copying changed file " + entry.getKey() + " into server instance");
+                changed.add(entry.getKey());
+            }
+        }
+
+        // transfer deletes the destination first, so hard-linked files of the snapshot stay untouched
+        DirectorySnapshot.transfer(server, instance, changed);
+
+        Set<String> removed = new HashSet<>(manifest.keySet());
+        removed.removeAll(current.keySet());
+        for (String relative : removed) {
+            log.debug("Deleting file " + relative + " which has been removed from the server");
+            Files.deleteIfExists(instance.resolve(relative));
+        }
+    }
+
+    private static void deleteStaleInstances(Path instances) {
+        if (!Files.isDirectory(instances)) {
+            return;
+        }
+
+        // instances of HeadlessMc processes which have been killed before they could release them
+        long now = System.currentTimeMillis();
+        try (Stream<Path> stream = Files.list(instances)) {
+            for (Path instance : (Iterable<Path>) stream::iterator) {
+                if (now - Files.getLastModifiedTime(instance).toMillis() > STALE_INSTANCE_AGE) {
+                    log.info("Deleting stale server instance " + instance);
+                    delete(instance);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete stale server instances in " + instances, e);
+        }
+    }
+
+    private static void delete(Path path) throws IOException {
+        new FileManager(path.toAbsolutePath().toString()).delete(path.toFile());
+    }
+
+}
@@ -1,11 +1,13 @@
 package io.github.headlesshq.headlessmc.launcher.server;
 
 import lombok.RequiredArgsConstructor;
+import io.github.headlesshq.headlessmc.api.command.line.ProgressBarProvider;
 import io.github.headlesshq.headlessmc.launcher.Launcher;
 import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -26,12 +28,19 @@ public interface ServerTypeDownloader {
         private final DownloadService downloadService;
         private final String url;
         private final @Nullable String typeVersion;
+        private final @Nullable Long size;
+        private final @Nullable String sha1;
+
+        public UrlJarDownloadHandler(DownloadService downloadService, String url, @Nullable String typeVersion) {
+            this(downloadService, url, typeVersion, null, null);
+        }
 
         @Override
         public Path download(TypeVersionToDownloadPathResolve typeVersionToDownloadPathResolve) throws IOException {
             Path path = typeVersionToDownloadPathResolve.resolve(typeVersion);
             Files.createDirectories(path);
-            downloadService.download(url, path.resolve(Server.DEFAULT_JAR));
+            // server jars are large, the download is resumed if it fails
+            downloadService.downloadBigFile(new URL(url), path.resolve(Server.DEFAULT_JAR), size, sha1, "Downloading " + Server.DEFAULT_JAR, ProgressBarProvider.dummy());
             return path;
         }
     }
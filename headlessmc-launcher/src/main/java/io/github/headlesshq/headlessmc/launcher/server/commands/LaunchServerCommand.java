@@ -42,7 +42,7 @@ public class LaunchServerCommand extends AbstractLauncherCommand implements Find
 
         @Override
         protected Path getGameDir() {
-            return server.getPath();
+            return serverLauncher.getRunDirectory();
         }
 
         @Override
@@ -51,6 +51,11 @@ public class LaunchServerCommand extends AbstractLauncherCommand implements Find
             serverLauncher.setQuit(quit);
             return serverLauncher.launch();
         }
+
+        @Override
+        protected void cleanupGameDir() {
+            serverLauncher.releaseInstance();
+        }
     }
 
 }
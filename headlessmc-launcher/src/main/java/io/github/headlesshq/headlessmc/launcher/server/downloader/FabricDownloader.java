@@ -35,7 +35,7 @@ public class FabricDownloader implements ServerTypeDownloader {
         Version parsedVersion = VersionUtil.getVersion(launcher, version);
         String build;
         if (typeVersion == null) {
-            String json = launcher.getDownloadService().download(URL).getContentAsString();
+            String json = launcher.getDownloadService().downloadMetadata(URL).getContentAsString();
             Gson gson = new Gson();
             Type listType = new TypeToken<List<BuildData>>() {}.getType();
             List<BuildData> builds = gson.fromJson(json, listType);
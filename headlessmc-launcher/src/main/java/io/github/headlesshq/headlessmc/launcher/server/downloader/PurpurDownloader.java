@@ -32,7 +32,7 @@ public class PurpurDownloader implements ServerTypeDownloader {
     private String getBuild(DownloadService downloadService, String version, @Nullable String typeVersionIn) throws IOException {
         String build = typeVersionIn;
         if (build == null) {
-            HttpResponse response = downloadService.download(new URL(URL + version + "/"));
+            HttpResponse response = downloadService.downloadMetadata(new URL(URL + version + "/"));
             String string = response.getContentAsString();
             JsonElement element = JsonParser.parseString(string);
             JsonArray array = JsonUtil.getArray(element, "builds", "all");
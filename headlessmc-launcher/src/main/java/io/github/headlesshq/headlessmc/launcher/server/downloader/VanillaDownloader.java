@@ -23,7 +23,7 @@ public class VanillaDownloader implements ServerTypeDownloader {
             throw new IOException("Failed to find server download for version '" + version + "'");
         }
 
-        return new UrlJarDownloadHandler(launcher.getDownloadService(), serverDownload.getUrl(), null);
+        return new UrlJarDownloadHandler(launcher.getDownloadService(), serverDownload.getUrl(), null, serverDownload.getSize(), serverDownload.getSha1());
     }
 
 }
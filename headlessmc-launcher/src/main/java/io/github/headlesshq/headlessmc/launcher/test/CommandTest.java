@@ -2,6 +2,7 @@ package io.github.headlesshq.headlessmc.launcher.test;
 
 import lombok.CustomLog;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import io.github.headlesshq.headlessmc.launcher.Launcher;
 import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
 import org.jetbrains.annotations.Nullable;
@@ -26,6 +27,10 @@ public class CommandTest implements AutoCloseable {
     private final AtomicBoolean success = new AtomicBoolean(false);
     private final AtomicBoolean stopped = new AtomicBoolean(false);
     private final Object lock = new Object();
+    // the main thread only gets interrupted while the test runs, so that no interrupt leaks into the caller
+    private final Object interruptLock = new Object();
+    private boolean finished;
+    private boolean interrupted;
 
     private final Launcher launcher;
     private final TestCase testCase;
@@ -34,6 +39,13 @@ public class CommandTest implements AutoCloseable {
     private volatile TestCaseRunner testCaseRunner;
     private volatile TimeoutHandler timeoutHandler;
     private volatile Thread thread;
+    @Setter
+    private volatile @Nullable CrashDetector crashDetector;
+    /**
+     * The name of the version under test, which keys the baselines of its measurements.
+     */
+    @Setter
+    private volatile @Nullable String versionId;
 
     public void run() {
         if (thread != null) {
@@ -42,40 +54,54 @@ public class CommandTest implements AutoCloseable {
 
         Thread mainThread = Thread.currentThread();
         timeoutHandler = new TimeoutHandler(Executors.newSingleThreadScheduledExecutor(), () -> {
-            stopped.set(true);
-            success.set(false);
-            message.set("Timed out!");
-            mainThread.interrupt();
+            synchronized (interruptLock) {
+                // a test that has been stopped otherwise does not time out anymore
+                if (!finished && !stopped.get()) {
+                    success.set(false);
+                    message.set("Timed out!");
+                    stop(mainThread);
+                }
+            }
         });
 
-        testCaseRunner = new TestCaseRunner(testCase, timeoutHandler);
+        testCaseRunner = new TestCaseRunner(testCase, timeoutHandler, () -> onMeasurementDone(mainThread),
+                                            launcher.getConfig().get(LauncherProperties.TEST_UPDATE_BASELINE, false));
+        testCaseRunner.setVersionId(versionId);
 
         thread = new Thread(() -> {
             testCaseRunner.updateTimeout();
+            boolean crashed = false;
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
                     launcher.log(line);
+                    if (crashed) {
+                        // keep reading, so that the process does not block on a full pipe while writing its crash report
+                        continue;
+                    }
+
                     synchronized (lock) {
                         if (stopped.get()) {
                             log.info("CommandTest Thread stopped.");
                             return;
                         }
 
+                        CrashDetector.Crash crash = crashDetector == null ? null : crashDetector.onLine(line);
+                        if (crash != null) {
+                            message.set(crash.getSummary());
+                            success.set(false);
+                            crashed = true;
+                            // the crash is the result, neither a timeout nor a measurement may overwrite it
+                            stopped.set(true);
+                            timeoutHandler.removeTimeout();
+                            terminate();
+                            continue;
+                        }
+
                         TestCase.Result result = testCaseRunner.runStep(process, line);
-                        log.debug("Result: " + result);
-                        switch (result) {
-                            case MATCH:
-                                log.info("Matched Line.");
-                                break;
-                            case END_SUCCESS:
-                                success.set(true);
-                                return;
-                            case END_FAIL:
-                                success.set(false);
-                                return;
-                            default:
-                                break;
+                        log.debug(() -> "Result: " + result);
+                        if (handleResult(result)) {
+                            return;
                         }
                     }
                 }
@@ -100,8 +126,82 @@ public class CommandTest implements AutoCloseable {
             }
         } catch (InterruptedException e) {
             if (!stopped.get()) {
+                Thread.currentThread().interrupt();
                 throw new TestException("Unexpected Interrupt", e);
             }
+
+            synchronized (interruptLock) {
+                // our interrupt has been consumed by the exception
+                interrupted = false;
+            }
+        } finally {
+            synchronized (interruptLock) {
+                finished = true;
+                if (interrupted) {
+                    // an interrupt we sent after the join returned must not leak into the caller,
+                    // interrupts from anywhere else have been merged with it and are lost either way
+                    //noinspection ResultOfMethodCallIgnored
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    private void stop(Thread mainThread) {
+        synchronized (interruptLock) {
+            // only the first stop interrupts, so that the interrupt consumed by the join is the only one
+            if (stopped.compareAndSet(false, true) && !finished) {
+                interrupted = true;
+                mainThread.interrupt();
+            }
+        }
+    }
+
+    private void terminate() {
+        long gracePeriod = launcher.getConfig().get(LauncherProperties.CRASH_GRACE_PERIOD, 10_000L);
+        Thread terminator = new Thread(() -> CrashDetector.terminate(process, gracePeriod));
+        terminator.setDaemon(true);
+        terminator.setName("HeadlessMc-CrashDetector-Terminate");
+        terminator.start();
+    }
+
+    private boolean handleResult(TestCase.Result result) {
+        switch (result) {
+            case MATCH:
+                log.info("Matched Line.");
+                return false;
+            case END_SUCCESS:
+                success.set(true);
+                return true;
+            case END_FAIL:
+                success.set(false);
+                if (testCaseRunner.getMessage() != null) {
+                    message.set(testCaseRunner.getMessage());
+                }
+
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void onMeasurementDone(Thread mainThread) {
+        synchronized (lock) {
+            if (stopped.get()) {
+                return;
+            }
+
+            try {
+                if (handleResult(testCaseRunner.finishMeasurement(process))) {
+                    // like a timeout, stops the reading thread on its next line and the main thread waiting for it
+                    stop(mainThread);
+                }
+            } catch (Throwable t) {
+                log.error(t);
+                message.set(t.getMessage());
+                success.set(false);
+                stop(mainThread);
+            }
         }
     }
 
@@ -121,6 +221,10 @@ public class CommandTest implements AutoCloseable {
 
     @Override
     public void close() {
+        if (testCaseRunner != null) {
+            testCaseRunner.stopMeasurement();
+        }
+
         if (timeoutHandler != null) {
             timeoutHandler.close();
         }
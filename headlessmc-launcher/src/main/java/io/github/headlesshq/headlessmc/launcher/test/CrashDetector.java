@@ -0,0 +1,294 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects crashes of a game or server process, without watching any directories.
+ * Every line of output is checked for known crash signatures in a single pass.
+ * Fatal signatures, like a JVM fatal error or an {@link OutOfMemoryError},
+ * are reported immediately, so that the process can be ended early.
+ * Others, like a {@link NoClassDefFoundError}, are only remembered,
+ * as mods catch them regularly, and used to classify the crash once the process has exited.
+ * After exit, {@link #analyze(Integer)} also looks for crash reports and {@code hs_err_pid*.log} files
+ * created since the launch and checks the exit code.
+ */
+@CustomLog
+public class CrashDetector {
+    private static final Signature[] SIGNATURES = {
+        new Signature("A fatal error has been detected by the Java Runtime Environment", Type.NATIVE_CRASH, true),
+        new Signature("There is insufficient memory for the Java Runtime Environment", Type.OUT_OF_MEMORY, true),
+        new Signature("java.lang.OutOfMemoryError", Type.OUT_OF_MEMORY, true),
+        new Signature("org.spongepowered.asm.mixin.transformer.throwables.MixinTransformerError", Type.MIXIN, true),
+        new Signature("org.spongepowered.asm.mixin.throwables.MixinApplyError", Type.MIXIN, true),
+        new Signature("org.spongepowered.asm.mixin.injection.throwables.InvalidInjectionException", Type.MIXIN, false),
+        new Signature("org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException", Type.MIXIN, false),
+        new Signature("java.lang.NoClassDefFoundError", Type.MISSING_CLASS, false),
+        new Signature("java.lang.ClassNotFoundException", Type.MISSING_CLASS, false),
+        new Signature("java.lang.NoSuchMethodError", Type.MISSING_CLASS, false),
+        new Signature("java.lang.NoSuchFieldError", Type.MISSING_CLASS, false),
+        // printed after the crash report has been saved, "---- Minecraft Crash Report ----" is printed before
+        new Signature("#@!@# Game crashed! Crash report saved to:", Type.CRASH_REPORT, true),
+        // the server only logs where its crash report has been saved
+        new Signature("This crash report has been saved to", Type.CRASH_REPORT, true),
+    };
+
+    private static final TestCaseMatcher.Automaton AUTOMATON;
+    private static final int MAX_HINTS = 10;
+    private static final int HS_ERR_HEADER_LINES = 20;
+
+    static {
+        Map<String, Integer> literals = new HashMap<>();
+        for (int i = 0; i < SIGNATURES.length; i++) {
+            literals.put(SIGNATURES[i].getLiteral(), i);
+        }
+
+        AUTOMATON = new TestCaseMatcher.Automaton(literals, false);
+    }
+
+    private final boolean[] contains = new boolean[SIGNATURES.length];
+    private final boolean[] endsWith = new boolean[SIGNATURES.length];
+    private final List<Crash> hints = new ArrayList<>();
+
+    private final Path gameDir;
+    private final long startTime;
+    private volatile @Nullable Crash crash;
+
+    public CrashDetector(Path gameDir) {
+        this(gameDir, System.currentTimeMillis());
+    }
+
+    public CrashDetector(Path gameDir, long startTime) {
+        this.gameDir = gameDir;
+        // file systems only store modification times with a precision of a few seconds
+        this.startTime = startTime - TimeUnit.SECONDS.toMillis(2L);
+    }
+
+    /**
+     * Checks a line of output for crash signatures.
+     *
+     * @param line the line of output.
+     * @return the crash, if the line contained a fatal signature and no crash has been detected before.
+     */
+    public synchronized @Nullable Crash onLine(String line) {
+        if (crash != null) {
+            return null;
+        }
+
+        AUTOMATON.scan(line, contains, endsWith);
+        Crash result = null;
+        for (int i = 0; i < SIGNATURES.length; i++) {
+            if (contains[i]) {
+                contains[i] = false;
+                endsWith[i] = false;
+                Signature signature = SIGNATURES[i];
+                if (signature.isFatal() && result == null) {
+                    result = new Crash(signature.getType(), line.trim(), null, null, getHints());
+                } else if (hints.size() < MAX_HINTS) {
+                    hints.add(new Crash(signature.getType(), line.trim(), null, null, Collections.emptyList()));
+                }
+            }
+        }
+
+        if (result != null) {
+            log.error("Detected crash: " + result.getType() + ": " + result.getLine());
+            crash = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the crash detected by {@link #onLine(String)}, if one has been detected.
+     */
+    public @Nullable Crash getCrash() {
+        return crash;
+    }
+
+    /**
+     * Analyzes how the process ended.
+     *
+     * @param exitCode the exit code of the process, or {@code null} if it is unknown, e.g. for in-memory launches.
+     * @return the crash, or {@code null} if the process ended normally.
+     */
+    public @Nullable Crash analyze(@Nullable Integer exitCode) {
+        Path hsErr = findNewest(gameDir, "hs_err_pid*.log");
+        Path crashReport = findNewest(gameDir.resolve("crash-reports"), "crash-*.txt");
+        Crash detected = crash;
+        if (detected != null) {
+            Path file = detected.getType() == Type.NATIVE_CRASH && hsErr != null || crashReport == null ? hsErr : crashReport;
+            return new Crash(detected.getType(), detected.getLine(), file, exitCode, detected.getHints());
+        }
+
+        List<Crash> hints = getHints();
+        if (hsErr != null) {
+            Type type = readsOutOfMemory(hsErr) ? Type.OUT_OF_MEMORY : Type.NATIVE_CRASH;
+            return new Crash(type, null, hsErr, exitCode, hints);
+        }
+
+        Crash hint = hints.isEmpty() ? null : hints.get(0);
+        if (crashReport != null) {
+            return hint == null
+                ? new Crash(Type.CRASH_REPORT, null, crashReport, exitCode, hints)
+                : new Crash(hint.getType(), hint.getLine(), crashReport, exitCode, hints);
+        }
+
+        if (exitCode != null && exitCode != 0) {
+            return hint == null
+                ? new Crash(Type.EXIT_CODE, null, null, exitCode, hints)
+                : new Crash(hint.getType(), hint.getLine(), null, exitCode, hints);
+        }
+
+        return null;
+    }
+
+    /**
+     * Waits a short time for the process to end by itself, so that it can finish writing its crash report, and then destroys it.
+     *
+     * @param process the crashed process.
+     * @param gracePeriod the time to wait in milliseconds.
+     */
+    public static void terminate(Process process, long gracePeriod) {
+        try {
+            if (!process.waitFor(gracePeriod, TimeUnit.MILLISECONDS)) {
+                log.warn("Process did not exit after crashing, destroying it.");
+                process.destroy();
+                if (!process.waitFor(5L, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+
+    private synchronized List<Crash> getHints() {
+        return new ArrayList<>(hints);
+    }
+
+    private @Nullable Path findNewest(Path directory, String glob) {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+
+        Path newest = null;
+        long newestTime = startTime;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : stream) {
+                long time = Files.getLastModifiedTime(path).toMillis();
+                if (time >= newestTime) {
+                    newest = path;
+                    newestTime = time;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to list " + directory, e);
+        }
+
+        return newest;
+    }
+
+    private static boolean readsOutOfMemory(Path hsErr) {
+        try (BufferedReader reader = Files.newBufferedReader(hsErr, StandardCharsets.ISO_8859_1)) {
+            String line;
+            for (int i = 0; i < HS_ERR_HEADER_LINES && (line = reader.readLine()) != null; i++) {
+                if (line.contains("insufficient memory") || line.contains("OutOfMemory")) {
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to read " + hsErr, e);
+        }
+
+        return false;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Type {
+        NATIVE_CRASH("The JVM crashed in native code"),
+        OUT_OF_MEMORY("The game ran out of memory"),
+        MIXIN("A mixin failed to apply"),
+        MISSING_CLASS("A class, method or field is missing, probably because of an incompatible mod"),
+        CRASH_REPORT("The game crashed and wrote a crash report"),
+        EXIT_CODE("The process exited with a non-zero exit code");
+
+        private final String description;
+    }
+
+    /**
+     * A structured summary of a crash.
+     */
+    @Data
+    public static class Crash {
+        private final Type type;
+        private final @Nullable String line;
+        private final @Nullable Path file;
+        private final @Nullable Integer exitCode;
+        private final List<Crash> hints;
+
+        public String getSummary() {
+            StringBuilder sb = new StringBuilder("Crash detected: ").append(type).append(" - ").append(type.getDescription());
+            if (line != null) {
+                sb.append("\n  Cause: ").append(line);
+            }
+
+            if (file != null) {
+                sb.append("\n  File: ").append(file.toAbsolutePath());
+            }
+
+            if (exitCode != null) {
+                sb.append("\n  Exit code: ").append(exitCode);
+                String exitReason = getExitReason(exitCode);
+                if (exitReason != null) {
+                    sb.append(" (").append(exitReason).append(')');
+                }
+            }
+
+            for (Crash hint : hints) {
+                if (hint.getLine() != null && !hint.getLine().equals(line)) {
+                    sb.append("\n  ").append(hint.getType()).append(": ").append(hint.getLine());
+                }
+            }
+
+            return sb.toString();
+        }
+
+        static @Nullable String getExitReason(int exitCode) {
+            switch (exitCode) {
+                case 134: return "SIGABRT, the JVM aborted";
+                case 137: return "SIGKILL, possibly by the OOM killer";
+                case 139: return "SIGSEGV";
+                case 143: return "SIGTERM";
+                case -1073741819: return "access violation";
+                case -1073740791: return "stack buffer overrun";
+                default: return null;
+            }
+        }
+    }
+
+    @Data
+    private static class Signature {
+        private final String literal;
+        private final Type type;
+        private final boolean fatal;
+    }
+
+}
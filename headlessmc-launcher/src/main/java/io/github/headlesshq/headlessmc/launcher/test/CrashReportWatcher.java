@@ -10,6 +10,10 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
+/**
+ * Watches a crash-reports directory for new files.
+ * Used for games running in memory, whose output can not be read by the {@link CrashDetector}.
+ */
 @CustomLog
 public class CrashReportWatcher implements AutoCloseable {
     private final CopyOnWriteArrayList<Consumer<Path>> listeners = new CopyOnWriteArrayList<>();
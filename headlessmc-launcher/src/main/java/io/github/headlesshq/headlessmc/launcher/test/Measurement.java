@@ -0,0 +1,338 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.CustomLog;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the performance of a game or server process over a window of time for a {@link TestCase.Action.Type#MEASURE} action.
+ * Tick times, TPS and FPS are parsed from the output of the process with the regex of the action,
+ * GC pauses are counted from the output of {@code -verbose:gc}, and CPU time and memory are sampled from {@code /proc} on Linux.
+ * The results can be checked against thresholds and a baseline file, to catch performance regressions.
+ * Baselines are keyed by the version and the name of the measurement,
+ * and the baseline file is only rewritten under a lock, as the runs of a test matrix can share it.
+ */
+@CustomLog
+public class Measurement {
+    public static final String TICK_TIME_MEAN = "tickTime.mean";
+    public static final String TICK_TIME_MAX = "tickTime.max";
+    public static final String TPS_MEAN = "tps.mean";
+    public static final String TPS_MIN = "tps.min";
+    public static final String FPS_MEAN = "fps.mean";
+    public static final String FPS_MIN = "fps.min";
+    public static final String CPU_TIME = "cpu.time";
+    public static final String CPU_LOAD = "cpu.load";
+    public static final String RSS_MEAN = "rss.mean";
+    public static final String RSS_MAX = "rss.max";
+    public static final String GC_COUNT = "gc.count";
+
+    // Java 8 -verbose:gc prints "[GC (Allocation Failure) ...", unified logging "[0.1s][info][gc] GC(0) Pause Young ..."
+    private static final Pattern GC_PATTERN = Pattern.compile("^\\[(Full )?GC[ (]|\\[gc\\s*] GC\\(\\d+\\) Pause");
+
+    private final Statistics tickTime = new Statistics();
+    private final Statistics tps = new Statistics();
+    private final Statistics fps = new Statistics();
+    private final Statistics rss = new Statistics();
+    private int gcCount;
+    private double startCpuTime = -1.0;
+    private double endCpuTime = -1.0;
+
+    @Getter
+    private final String name;
+    private final String baselineKey;
+    private final TestCase.Measure measure;
+    private final Process process;
+    private final Runnable onDone;
+    private final @Nullable Matcher matcher;
+    private final boolean tickGroup;
+    private final boolean tpsGroup;
+    private final boolean fpsGroup;
+    private final @Nullable ProcessSampler sampler;
+    private final ScheduledExecutorService executor;
+    private long start;
+    private long end;
+
+    public Measurement(String name, TestCase.Measure measure, @Nullable String regex, Process process, Runnable onDone) {
+        this(name, null, measure, regex, process, onDone);
+    }
+
+    /**
+     * @param name the name of the measurement.
+     * @param versionId the version measured, used together with the name as the key in the baseline file.
+     * @param measure the configuration of the measurement.
+     * @param regex the regex to parse tick times, TPS and FPS with.
+     * @param process the process to measure.
+     * @param onDone called once the window of the measurement has passed.
+     */
+    public Measurement(String name, @Nullable String versionId, TestCase.Measure measure, @Nullable String regex, Process process, Runnable onDone) {
+        this.name = name;
+        this.baselineKey = versionId == null ? name : versionId + "/" + name;
+        this.measure = measure;
+        this.process = process;
+        this.onDone = onDone;
+        this.matcher = regex == null ? null : Pattern.compile(regex).matcher("");
+        this.tickGroup = regex != null && regex.contains("(?<tick>");
+        this.tpsGroup = regex != null && regex.contains("(?<tps>");
+        this.fpsGroup = regex != null && regex.contains("(?<fps>");
+        this.sampler = ProcessSampler.create(process);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HeadlessMc-Measurement-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        if (sampler == null) {
+            log.warn("Cannot sample CPU time and memory of the process on this system.");
+        }
+
+        log.info("Measuring " + name + " for " + measure.getDuration() + "s");
+        start = System.nanoTime();
+        end = start + TimeUnit.SECONDS.toNanos(measure.getDuration());
+        executor.scheduleAtFixedRate(() -> sample(true), 0L, measure.getInterval(), TimeUnit.MILLISECONDS);
+        executor.schedule(onDone, measure.getDuration(), TimeUnit.SECONDS);
+    }
+
+    public boolean isDone() {
+        return System.nanoTime() - end >= 0;
+    }
+
+    public synchronized void onLine(String line) {
+        if (matcher != null && matcher.reset(line).find()) {
+            if (tickGroup || tpsGroup || fpsGroup) {
+                record(tickTime, tickGroup ? matcher.group("tick") : null);
+                record(tps, tpsGroup ? matcher.group("tps") : null);
+                record(fps, fpsGroup ? matcher.group("fps") : null);
+            } else if (matcher.groupCount() > 0) {
+                record(tickTime, matcher.group(1));
+            }
+        }
+
+        if (line.indexOf('G') >= 0 && GC_PATTERN.matcher(line).find()) {
+            gcCount++;
+        }
+    }
+
+    /**
+     * Stops sampling and computes the results.
+     *
+     * @return the results, mapped from their names to their values.
+     */
+    public synchronized Map<String, Double> finish() {
+        // not shutdownNow, this might be called on the thread of the executor
+        executor.shutdown();
+        sample(false);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        Map<String, Double> results = new LinkedHashMap<>();
+        putStatistics(results, tickTime, TICK_TIME_MEAN, TICK_TIME_MAX, true);
+        putStatistics(results, tps, TPS_MEAN, TPS_MIN, false);
+        putStatistics(results, fps, FPS_MEAN, FPS_MIN, false);
+        if (startCpuTime >= 0.0 && endCpuTime >= 0.0) {
+            results.put(CPU_TIME, endCpuTime - startCpuTime);
+            results.put(CPU_LOAD, seconds <= 0.0 ? 0.0 : (endCpuTime - startCpuTime) / seconds);
+        }
+
+        putStatistics(results, rss, RSS_MEAN, RSS_MAX, true);
+        results.put(GC_COUNT, (double) gcCount);
+        return results;
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks the results against the thresholds of the measure and its baseline file.
+     * The results are written to the baseline file if it does not contain results for this measurement yet.
+     *
+     * @param results the results of {@link #finish()}.
+     * @param updateBaseline whether to overwrite existing results in the baseline file.
+     * @return a message describing the failed checks, or {@code null} if all checks passed.
+     */
+    public @Nullable String check(Map<String, Double> results, boolean updateBaseline) throws IOException {
+        List<String> failures = new ArrayList<>();
+        checkThresholds(results, measure.getMax(), true, failures);
+        checkThresholds(results, measure.getMin(), false, failures);
+        if (measure.getBaseline() != null) {
+            Path path = Paths.get(measure.getBaseline()).toAbsolutePath();
+            // threads of this JVM can not overlap file locks, so they are serialized first
+            synchronized (Measurement.class) {
+                Path parent = path.getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+
+                try (FileChannel lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+                                                                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = lockChannel.lock()) {
+                    JsonObject baselines = readBaselines(path);
+                    JsonElement baseline = baselines.get(baselineKey);
+                    if (baseline != null && baseline.isJsonObject() && !updateBaseline) {
+                        checkBaseline(results, baseline.getAsJsonObject(), failures);
+                    } else {
+                        log.info("Writing baseline for " + baselineKey + " to " + path);
+                        baselines.add(baselineKey, JsonUtil.GSON.toJsonTree(results));
+                        writeBaselines(path, baselines);
+                    }
+                }
+            }
+        }
+
+        return failures.isEmpty() ? null : "Measurement " + name + " failed: " + String.join(", ", failures);
+    }
+
+    private void checkThresholds(Map<String, Double> results, @Nullable Map<String, Double> thresholds, boolean max, List<String> failures) {
+        if (thresholds == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Double> threshold : thresholds.entrySet()) {
+            Double value = results.get(threshold.getKey());
+            if (value == null) {
+                log.warn("Measurement " + name + " has no result for " + threshold.getKey() + ", cannot check threshold.");
+            } else if (max ? value > threshold.getValue() : value < threshold.getValue()) {
+                failures.add(String.format(Locale.ROOT, "%s %.2f %s %.2f", threshold.getKey(), value, max ? ">" : "<", threshold.getValue()));
+            }
+        }
+    }
+
+    private void checkBaseline(Map<String, Double> results, JsonObject baseline, List<String> failures) {
+        if (measure.getTolerance() == null) {
+            return;
+        }
+
+        double tolerance = measure.getTolerance();
+        for (Map.Entry<String, Double> result : results.entrySet()) {
+            JsonElement element = baseline.get(result.getKey());
+            if (element == null || !element.isJsonPrimitive()) {
+                continue;
+            }
+
+            double expected = element.getAsDouble();
+            double value = result.getValue();
+            boolean higherIsBetter = isHigherBetter(result.getKey());
+            if (higherIsBetter ? value < expected * (1.0 - tolerance) : value > expected * (1.0 + tolerance)) {
+                failures.add(String.format(Locale.ROOT, "%s regressed from %.2f to %.2f", result.getKey(), expected, value));
+            }
+        }
+    }
+
+    private void sample(boolean sendCommand) {
+        if (sampler == null || !process.isAlive()) {
+            return;
+        }
+
+        try {
+            double cpuTime = sampler.readCpuTime();
+            double rssMb = sampler.readRss();
+            synchronized (this) {
+                if (startCpuTime < 0.0) {
+                    startCpuTime = cpuTime;
+                }
+
+                endCpuTime = cpuTime;
+                rss.add(rssMb);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to sample process: " + e);
+        }
+
+        String command = measure.getCommand();
+        if (sendCommand && command != null) {
+            try {
+                TestCase.send(process, command);
+            } catch (IOException e) {
+                log.debug("Failed to send " + command + ": " + e);
+            }
+        }
+    }
+
+    private void record(Statistics statistics, @Nullable String value) {
+        if (value == null) {
+            return;
+        }
+
+        try {
+            statistics.add(Double.parseDouble(value.replace(',', '.')));
+        } catch (NumberFormatException e) {
+            log.debug("Failed to parse " + value + " for measurement " + name);
+        }
+    }
+
+    private static void putStatistics(Map<String, Double> results, Statistics statistics, String mean, String extreme, boolean max) {
+        if (statistics.count > 0) {
+            results.put(mean, statistics.sum / statistics.count);
+            results.put(extreme, max ? statistics.max : statistics.min);
+        }
+    }
+
+    static boolean isHigherBetter(String result) {
+        return result.startsWith("tps.") || result.startsWith("fps.");
+    }
+
+    private static JsonObject readBaselines(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new JsonObject();
+        }
+
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            JsonObject object = JsonUtil.GSON.fromJson(reader, JsonObject.class);
+            return object == null ? new JsonObject() : object;
+        }
+    }
+
+    private static void writeBaselines(Path path, JsonObject baselines) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                JsonUtil.GSON.toJson(baselines, writer);
+            }
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static final class Statistics {
+        private int count;
+        private double sum;
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+
+        private void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+    }
+
+}
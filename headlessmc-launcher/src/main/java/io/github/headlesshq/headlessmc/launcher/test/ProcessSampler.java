@@ -0,0 +1,97 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import lombok.CustomLog;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Reads the CPU time and the resident set size of a process from {@code /proc}, which is only available on Linux.
+ */
+@CustomLog
+@RequiredArgsConstructor
+class ProcessSampler {
+    // USER_HZ, which is 100 on practically every Linux system
+    private static final double CLOCK_TICKS_PER_SECOND = 100.0;
+
+    private final Path stat;
+    private final Path status;
+
+    /**
+     * @return the CPU time the process has spent in user and kernel mode in seconds.
+     */
+    double readCpuTime() throws IOException {
+        return parseCpuTime(new String(Files.readAllBytes(stat), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the resident set size of the process in megabytes.
+     */
+    double readRss() throws IOException {
+        return parseRss(Files.readAllLines(status, StandardCharsets.US_ASCII));
+    }
+
+    static double parseCpuTime(String stat) throws IOException {
+        // the name of the executable in the second field can contain spaces, all other fields can not
+        int nameEnd = stat.lastIndexOf(')');
+        String[] fields = nameEnd < 0 ? new String[0] : stat.substring(nameEnd + 1).trim().split(" ");
+        if (fields.length < 13) {
+            throw new IOException("Failed to parse stat " + stat);
+        }
+
+        // utime and stime are the fields 14 and 15, we start at field 3
+        return (Long.parseLong(fields[11]) + Long.parseLong(fields[12])) / CLOCK_TICKS_PER_SECOND;
+    }
+
+    static double parseRss(List<String> status) throws IOException {
+        for (String line : status) {
+            if (line.startsWith("VmRSS:")) {
+                String value = line.substring("VmRSS:".length()).trim();
+                int space = value.indexOf(' ');
+                return Long.parseLong(space < 0 ? value : value.substring(0, space)) / 1024.0;
+            }
+        }
+
+        throw new IOException("Failed to find VmRSS in status");
+    }
+
+    static @Nullable ProcessSampler create(Process process) {
+        Long pid = getPid(process);
+        if (pid == null) {
+            return null;
+        }
+
+        Path proc = Paths.get("/proc", pid.toString());
+        if (!Files.isDirectory(proc)) {
+            return null;
+        }
+
+        return new ProcessSampler(proc.resolve("stat"), proc.resolve("status"));
+    }
+
+    static @Nullable Long getPid(Process process) {
+        try {
+            // Java 9+
+            return (Long) Process.class.getMethod("pid").invoke(process);
+        } catch (ReflectiveOperationException | UnsupportedOperationException ignored) {
+            // Java 8
+        }
+
+        try {
+            Field field = process.getClass().getDeclaredField("pid");
+            field.setAccessible(true);
+            return ((Number) field.get(process)).longValue();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Failed to get pid of " + process + ": " + e);
+            return null;
+        }
+    }
+
+}
@@ -12,9 +12,11 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -65,6 +67,8 @@ public class TestCase implements HasName {
         private final @Nullable List<Action> or;
         @SerializedName("then")
         private final @Nullable List<Action> then;
+        @SerializedName("measure")
+        private final @Nullable Measure measure;
 
         public Long getTimeout(TestCase testCase) {
             return timeout == null ? testCase.getTimeout() : timeout;
@@ -79,10 +83,7 @@ public class TestCase implements HasName {
             SEND((process, action, message) -> {
                 requireNonNull(action.getMessage(), "Message of action was null!");
                 log.info("Sending command: " + action.getMessage());
-                process.getOutputStream().write(
-                        (action.getMessage() + System.lineSeparator())
-                                .getBytes(StandardCharsets.UTF_8));
-                process.getOutputStream().flush();
+                send(process, action.getMessage());
                 return Result.MATCH;
             }, false),
             /**
@@ -162,6 +163,14 @@ public class TestCase implements HasName {
                     throw new RuntimeException(e);
                 }
             }, false),
+            /**
+             * Measures the performance of the process, as specified by the {@link Measure} of the action.
+             * The message is an optional regex, which parses tick times, TPS or FPS from the output.
+             * This action is run by the {@link TestCaseRunner}, which keeps the state of the {@link Measurement}.
+             */
+            MEASURE((process, action, message) -> {
+                throw new IllegalStateException("MEASURE can only be run by a TestCaseRunner");
+            }, false),
             /**
              * Ends the test successfully.
              */
@@ -181,6 +190,51 @@ public class TestCase implements HasName {
         }
     }
 
+    /**
+     * Configures a {@link Action.Type#MEASURE} action.
+     */
+    @Data
+    public static class Measure {
+        @SerializedName("name")
+        private final @Nullable String name;
+        @SerializedName("duration")
+        private final long duration;
+        @SerializedName("interval")
+        private final @Nullable Long interval;
+        @SerializedName("command")
+        private final @Nullable String command;
+        @SerializedName("max")
+        private final @Nullable Map<String, Double> max;
+        @SerializedName("min")
+        private final @Nullable Map<String, Double> min;
+        @SerializedName("baseline")
+        private final @Nullable String baseline;
+        @SerializedName("tolerance")
+        private final @Nullable Double tolerance;
+
+        public Long getInterval() {
+            return interval == null ? 1000L : interval;
+        }
+    }
+
+    /**
+     * Writes a command to the standard input of the process.
+     * Writes are synchronized on the stream, so that commands sent by a {@link Measurement} in the background
+     * do not interleave with commands sent by a {@link Action.Type#SEND} action.
+     *
+     * @param process the process to send the command to.
+     * @param command the command to send.
+     * @throws IOException if writing to the process fails.
+     */
+    public static void send(Process process, String command) throws IOException {
+        OutputStream os = process.getOutputStream();
+        byte[] bytes = (command + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        synchronized (os) {
+            os.write(bytes);
+            os.flush();
+        }
+    }
+
     public static TestCase load(InputStream stream) throws IOException {
         try (InputStreamReader isr = new InputStreamReader(stream)) {
             Gson gson = new Gson();
@@ -0,0 +1,274 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The conditions of a {@link TestCase}, compiled once before the test runs.
+ * Regular expressions are compiled a single time and their {@link Matcher}s are reused,
+ * literals of case-insensitive actions are case-folded once, and the literals of all {@code CONTAINS} and {@code ENDS_WITH}
+ * actions are found with a single pass of an Aho-Corasick automaton over each line.
+ * The pass happens lazily, when the first literal is evaluated against a line,
+ * and its results are reused by all further actions evaluated against that line, e.g. {@code and} and {@code or} conditions.
+ * This class is not thread-safe.
+ */
+public class TestCaseMatcher {
+    private final Map<TestCase.Action, Matcher> matchers = new IdentityHashMap<>();
+    private final Map<TestCase.Action, Integer> literalIds = new IdentityHashMap<>();
+    private final @Nullable Automaton exact;
+    private final @Nullable Automaton folded;
+    private final boolean[] contains;
+    private final boolean[] endsWith;
+    private @Nullable String line;
+
+    public TestCaseMatcher(TestCase testCase) {
+        Map<String, Integer> exactLiterals = new HashMap<>();
+        Map<String, Integer> foldedLiterals = new HashMap<>();
+        Deque<TestCase.Action> queue = new ArrayDeque<>();
+        addAll(queue, testCase.getSteps());
+        while (!queue.isEmpty()) {
+            TestCase.Action action = queue.poll();
+            addAll(queue, action.getAnd());
+            addAll(queue, action.getOr());
+            addAll(queue, action.getThen());
+            if (action.getMessage() == null || matchers.containsKey(action) || literalIds.containsKey(action)) {
+                continue;
+            }
+
+            switch (action.getType()) {
+                case REGEX:
+                    Pattern pattern = action.isIgnoreCase()
+                            ? Pattern.compile(action.getMessage(), Pattern.CASE_INSENSITIVE)
+                            : Pattern.compile(action.getMessage());
+                    matchers.put(action, pattern.matcher(""));
+                    break;
+                case CONTAINS:
+                case ENDS_WITH:
+                    Map<String, Integer> literals = action.isIgnoreCase() ? foldedLiterals : exactLiterals;
+                    String literal = action.isIgnoreCase() ? fold(action.getMessage()) : action.getMessage();
+                    Integer id = literals.get(literal);
+                    if (id == null) {
+                        id = exactLiterals.size() + foldedLiterals.size();
+                        literals.put(literal, id);
+                    }
+
+                    literalIds.put(action, id);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        int size = exactLiterals.size() + foldedLiterals.size();
+        this.contains = new boolean[size];
+        this.endsWith = new boolean[size];
+        this.exact = exactLiterals.isEmpty() ? null : new Automaton(exactLiterals, false);
+        this.folded = foldedLiterals.isEmpty() ? null : new Automaton(foldedLiterals, true);
+    }
+
+    /**
+     * Evaluates a condition against a line of output.
+     *
+     * @param action the condition to evaluate.
+     * @param message the line of output.
+     * @return the result of the condition or {@code null} if the action has not been compiled,
+     *         in which case the {@link TestCase.Action.Type#getFunction()} has to be used.
+     */
+    public @Nullable TestCase.Result evaluate(TestCase.Action action, @Nullable String message) {
+        if (message == null) {
+            return null;
+        }
+
+        Matcher matcher = matchers.get(action);
+        if (matcher != null) {
+            return matcher.reset(message).matches() ? TestCase.Result.MATCH : TestCase.Result.PASS;
+        }
+
+        Integer id = literalIds.get(action);
+        if (id == null) {
+            return null;
+        }
+
+        scan(message);
+        boolean match = action.getType() == TestCase.Action.Type.ENDS_WITH ? endsWith[id] : contains[id];
+        return match ? TestCase.Result.MATCH : TestCase.Result.PASS;
+    }
+
+    private void scan(String message) {
+        // identity is intended, all actions for a line are evaluated with the same String
+        if (message == line) {
+            return;
+        }
+
+        Arrays.fill(contains, false);
+        Arrays.fill(endsWith, false);
+        if (exact != null) {
+            exact.scan(message, contains, endsWith);
+        }
+
+        if (folded != null) {
+            folded.scan(message, contains, endsWith);
+        }
+
+        line = message;
+    }
+
+    private static void addAll(Deque<TestCase.Action> queue, @Nullable List<TestCase.Action> actions) {
+        if (actions != null) {
+            queue.addAll(actions);
+        }
+    }
+
+    static String fold(String string) {
+        char[] chars = string.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * An Aho-Corasick automaton, whose transitions are stored as sorted char arrays for each state.
+     */
+    static final class Automaton {
+        private static final int[] NO_OUTPUT = new int[0];
+
+        private final boolean fold;
+        private final char[][] keys;
+        private final int[][] targets;
+        private final int[] fail;
+        private final int[][] outputs;
+        private final int[] emptyLiterals;
+
+        Automaton(Map<String, Integer> literals, boolean fold) {
+            this.fold = fold;
+            List<TreeMap<Character, Integer>> transitions = new ArrayList<>();
+            List<List<Integer>> outputs = new ArrayList<>();
+            List<Integer> emptyLiterals = new ArrayList<>();
+            transitions.add(new TreeMap<>());
+            outputs.add(new ArrayList<>());
+            for (Map.Entry<String, Integer> entry : literals.entrySet()) {
+                String literal = entry.getKey();
+                if (literal.isEmpty()) {
+                    emptyLiterals.add(entry.getValue());
+                    continue;
+                }
+
+                int state = 0;
+                for (int i = 0; i < literal.length(); i++) {
+                    Integer next = transitions.get(state).get(literal.charAt(i));
+                    if (next == null) {
+                        next = transitions.size();
+                        transitions.add(new TreeMap<>());
+                        outputs.add(new ArrayList<>());
+                        transitions.get(state).put(literal.charAt(i), next);
+                    }
+
+                    state = next;
+                }
+
+                outputs.get(state).add(entry.getValue());
+            }
+
+            int states = transitions.size();
+            this.keys = new char[states][];
+            this.targets = new int[states][];
+            for (int state = 0; state < states; state++) {
+                TreeMap<Character, Integer> map = transitions.get(state);
+                keys[state] = new char[map.size()];
+                targets[state] = new int[map.size()];
+                int i = 0;
+                for (Map.Entry<Character, Integer> transition : map.entrySet()) {
+                    keys[state][i] = transition.getKey();
+                    targets[state][i++] = transition.getValue();
+                }
+            }
+
+            // breadth first, so that the fail state of a state has been computed before the state itself
+            this.fail = new int[states];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int target : targets[0]) {
+                queue.add(target);
+            }
+
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int i = 0; i < keys[state].length; i++) {
+                    int target = targets[state][i];
+                    int f = fail[state];
+                    int next;
+                    while ((next = next(f, keys[state][i])) < 0 && f != 0) {
+                        f = fail[f];
+                    }
+
+                    fail[target] = next < 0 || next == target ? 0 : next;
+                    outputs.get(target).addAll(outputs.get(fail[target]));
+                    queue.add(target);
+                }
+            }
+
+            this.outputs = new int[states][];
+            for (int state = 0; state < states; state++) {
+                this.outputs[state] = toArray(outputs.get(state));
+            }
+
+            this.emptyLiterals = toArray(emptyLiterals);
+        }
+
+        void scan(String line, boolean[] contains, boolean[] endsWith) {
+            for (int id : emptyLiterals) {
+                contains[id] = true;
+                endsWith[id] = true;
+            }
+
+            int state = 0;
+            int last = line.length() - 1;
+            for (int i = 0; i <= last; i++) {
+                char c = fold ? Character.toLowerCase(line.charAt(i)) : line.charAt(i);
+                int next;
+                while ((next = next(state, c)) < 0 && state != 0) {
+                    state = fail[state];
+                }
+
+                state = next < 0 ? 0 : next;
+                for (int id : outputs[state]) {
+                    contains[id] = true;
+                    if (i == last) {
+                        endsWith[id] = true;
+                    }
+                }
+            }
+        }
+
+        private int next(int state, char c) {
+            int index = Arrays.binarySearch(keys[state], c);
+            return index < 0 ? -1 : targets[state][index];
+        }
+
+        private static int[] toArray(List<Integer> list) {
+            if (list.isEmpty()) {
+                return NO_OUTPUT;
+            }
+
+            int[] result = new int[list.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = list.get(i);
+            }
+
+            return result;
+        }
+    }
+
+}
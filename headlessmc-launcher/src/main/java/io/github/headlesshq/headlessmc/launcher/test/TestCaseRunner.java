@@ -1,7 +1,9 @@
 package io.github.headlesshq.headlessmc.launcher.test;
 
 import lombok.CustomLog;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
@@ -9,15 +11,42 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
 
 @CustomLog
 public class TestCaseRunner {
     private final Deque<Frame> stack = new ArrayDeque<>();
     private final TimeoutHandler timeoutHandler;
+    private final TestCaseMatcher matcher;
     private final TestCase test;
+    private final Runnable onMeasurementDone;
+    private final boolean updateBaselines;
+
+    private @Nullable Measurement measurement;
+    /**
+     * The version the test runs for, so that the {@link Measurement}s of different versions have their own baselines.
+     */
+    @Setter
+    private @Nullable String versionId;
+    @Getter
+    private @Nullable String message;
 
     public TestCaseRunner(TestCase test, TimeoutHandler timeoutHandler) {
+        this(test, timeoutHandler, () -> {}, false);
+    }
+
+    /**
+     * @param onMeasurementDone called from another thread when the window of a {@link Measurement} has passed,
+     *                          should call {@link #finishMeasurement(Process)}, as no output might arrive to do that.
+     * @param updateBaselines whether {@link Measurement}s overwrite existing results in their baseline files.
+     */
+    public TestCaseRunner(TestCase test, TimeoutHandler timeoutHandler, Runnable onMeasurementDone, boolean updateBaselines) {
         this.timeoutHandler = timeoutHandler;
+        this.onMeasurementDone = onMeasurementDone;
+        this.updateBaselines = updateBaselines;
+        this.matcher = new TestCaseMatcher(test);
         this.test = test;
         stack.addFirst(new Frame(test.getSteps()));
         if (test.getImplicitWaitForEnd()) {
@@ -29,6 +58,7 @@ public class TestCaseRunner {
                     null,
                     null,
                     null,
+                    null,
                     null
             ));
 
@@ -40,7 +70,12 @@ public class TestCaseRunner {
         Frame nextFrame = getFrame();
         if (nextFrame != null) {
             TestCase.Action nextAction = nextFrame.actions.get(nextFrame.index);
-            timeoutHandler.setTimeout(nextAction.getTimeout(test));
+            long timeout = nextAction.getTimeout(test);
+            if (nextAction.getType() == TestCase.Action.Type.MEASURE && nextAction.getMeasure() != null) {
+                timeout += nextAction.getMeasure().getDuration();
+            }
+
+            timeoutHandler.setTimeout(timeout);
         } else {
             timeoutHandler.removeTimeout();
         }
@@ -54,7 +89,7 @@ public class TestCaseRunner {
         }
 
         TestCase.Action action = frame.actions.get(frame.index);
-        log.debug("Evaluating " + message + " with action " + action);
+        log.debug(() -> "Evaluating " + message + " with action " + action);
         EvaluationResult evaluationResult = evaluate(process, action, message);
         if (evaluationResult.result == TestCase.Result.MATCH) {
             frame.index++;
@@ -78,6 +113,31 @@ public class TestCaseRunner {
         return evaluationResult.result;
     }
 
+    /**
+     * Finishes the running measurement if its window has passed.
+     *
+     * @param process the process to run the next steps for.
+     * @return the result of the measurement and the steps following it, or {@link TestCase.Result#PASS}.
+     */
+    public TestCase.Result finishMeasurement(Process process) throws IOException {
+        if (measurement == null || !measurement.isDone()) {
+            return TestCase.Result.PASS;
+        }
+
+        // the current action is the MEASURE action
+        return runStep(process, null);
+    }
+
+    /**
+     * Stops a measurement that is still running, e.g. because the test timed out.
+     */
+    public void stopMeasurement() {
+        Measurement current = measurement;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
     private TestCase.Result checkNextAction(Process process) throws IOException {
         Frame nextFrame = getFrame();
         if (nextFrame != null) {
@@ -114,7 +174,13 @@ public class TestCaseRunner {
         }
 
         EvaluationResult result = new EvaluationResult();
-        TestCase.Result actionResult = action.getType().getFunction().evaluate(process, action, message);
+        TestCase.Result actionResult = action.getType() == TestCase.Action.Type.MEASURE
+                ? measure(process, action, message)
+                : matcher.evaluate(action, message);
+        if (actionResult == null) {
+            actionResult = action.getType().getFunction().evaluate(process, action, message);
+        }
+
         result.result = actionResult;
         if (actionResult == TestCase.Result.MATCH) {
             evaluateAnds(process, action, message, result);
@@ -125,6 +191,37 @@ public class TestCaseRunner {
         return result;
     }
 
+    private TestCase.Result measure(Process process, TestCase.Action action, @Nullable String message) throws IOException {
+        TestCase.Measure measure = requireNonNull(action.getMeasure(), "Measure of action was null!");
+        if (measurement == null) {
+            measurement = new Measurement(
+                    measure.getName() == null ? test.getName() : measure.getName(), versionId, measure, action.getMessage(), process, onMeasurementDone);
+            measurement.start();
+            return TestCase.Result.PASS;
+        }
+
+        if (message != null) {
+            measurement.onLine(message);
+        }
+
+        if (!measurement.isDone()) {
+            return TestCase.Result.PASS;
+        }
+
+        Measurement finished = measurement;
+        measurement = null;
+        Map<String, Double> results = finished.finish();
+        log.info("Measurement " + finished.getName() + ": " + results);
+        String failure = finished.check(results, updateBaselines);
+        if (failure != null) {
+            log.error(failure);
+            this.message = failure;
+            return TestCase.Result.END_FAIL;
+        }
+
+        return TestCase.Result.MATCH;
+    }
+
     private void evaluateAnds(Process process, TestCase.Action action, @Nullable String message, EvaluationResult result) throws IOException {
         if (action.getAnd() == null) {
             result.result = TestCase.Result.MATCH;
@@ -0,0 +1,91 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.Data;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of versions to launch and the {@link TestCase}s to run against them, e.g.
+ * <pre>{@code
+ * {
+ *   "name": "compatibility",
+ *   "test": "tests/join-world.json",
+ *   "args": ["-lwjgl", "-offline"],
+ *   "runs": [
+ *     { "version": "1.21.4" },
+ *     { "version": "fabric:1.21.4", "args": ["-lwjgl", "-offline", "-specifics"] },
+ *     { "name": "forge-1.20.1", "version": "forge:1.20.1", "test": "tests/forge.json" }
+ *   ]
+ * }
+ * }</pre>
+ * Versions are resolved like the version argument of the launch command, so modloaders are installed if they are missing.
+ */
+@Data
+public class TestMatrix {
+    @SerializedName("name")
+    private @Nullable String name;
+
+    @SerializedName("test")
+    private @Nullable String test;
+
+    @SerializedName("args")
+    private @Nullable List<String> args;
+
+    @SerializedName("runs")
+    private List<Run> runs = new ArrayList<>();
+
+    public String getName() {
+        return name == null ? "matrix" : name;
+    }
+
+    @Data
+    public static class Run {
+        @SerializedName("name")
+        private @Nullable String name;
+
+        @SerializedName("version")
+        private String version;
+
+        @SerializedName("test")
+        private @Nullable String test;
+
+        @SerializedName("args")
+        private @Nullable List<String> args;
+
+        public String getName() {
+            return name == null ? version : name;
+        }
+    }
+
+    public static TestMatrix load(Path path) throws IOException {
+        try (InputStream is = Files.newInputStream(path);
+             InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            TestMatrix matrix = JsonUtil.GSON.fromJson(reader, TestMatrix.class);
+            if (matrix == null || matrix.getRuns() == null) {
+                throw new IOException("Test matrix " + path + " does not contain any runs");
+            }
+
+            for (Run run : matrix.getRuns()) {
+                if (run.getVersion() == null) {
+                    throw new IOException("Run " + run + " in " + path + " does not specify a version");
+                }
+            }
+
+            return matrix;
+        } catch (JsonParseException e) {
+            throw new IOException("Failed to read test matrix " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+}
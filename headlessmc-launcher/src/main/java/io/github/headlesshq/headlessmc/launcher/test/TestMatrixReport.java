@@ -0,0 +1,122 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import com.google.gson.annotations.SerializedName;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import lombok.Data;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The results of a {@link TestMatrix}, which can be written as JSON or in the JUnit-XML format understood by most CI systems.
+ */
+@Data
+public class TestMatrixReport {
+    @SerializedName("name")
+    private final String name;
+
+    @SerializedName("time")
+    private final double time;
+
+    @SerializedName("results")
+    private final List<Result> results;
+
+    public int getFailures() {
+        int failures = 0;
+        for (Result result : results) {
+            if (!result.isSuccessful()) {
+                failures++;
+            }
+        }
+
+        return failures;
+    }
+
+    public void writeJson(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            JsonUtil.GSON.toJson(this, writer);
+        }
+    }
+
+    public void writeJUnitXml(Path path) throws IOException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<testsuite name=\"").append(escape(name))
+           .append("\" tests=\"").append(results.size())
+           .append("\" failures=\"").append(getFailures())
+           .append("\" errors=\"0\" skipped=\"0\" time=\"").append(format(time)).append("\">\n");
+        for (Result result : results) {
+            xml.append("  <testcase name=\"").append(escape(result.getName()))
+               .append("\" classname=\"").append(escape(name + "." + result.getVersion()))
+               .append("\" time=\"").append(format(result.getTime())).append('"');
+            if (result.isSuccessful()) {
+                xml.append("/>\n");
+            } else {
+                String message = result.getMessage() == null ? "Test failed" : result.getMessage();
+                xml.append(">\n    <failure message=\"").append(escape(message)).append('"')
+                   .append(result.getCrash() == null ? "" : " type=\"" + escape(result.getCrash()) + '"').append('>')
+                   .append(escape(message))
+                   .append(result.getExitCode() == null ? "" : escape(" (exit code " + result.getExitCode() + ")"))
+                   .append("</failure>\n  </testcase>\n");
+            }
+        }
+
+        xml.append("</testsuite>\n");
+        Files.write(path, xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String format(double seconds) {
+        return String.format(Locale.ROOT, "%.3f", seconds);
+    }
+
+    static String escape(String string) {
+        StringBuilder sb = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                case '\'': sb.append("&apos;"); break;
+                default:
+                    // characters that are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        sb.append(c);
+                    }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    @Data
+    public static class Result {
+        @SerializedName("name")
+        private final String name;
+
+        @SerializedName("version")
+        private final String version;
+
+        @SerializedName("successful")
+        private final boolean successful;
+
+        @SerializedName("message")
+        private final @Nullable String message;
+
+        @SerializedName("crash")
+        private final @Nullable String crash;
+
+        @SerializedName("exitCode")
+        private final @Nullable Integer exitCode;
+
+        @SerializedName("time")
+        private final double time;
+    }
+
+}
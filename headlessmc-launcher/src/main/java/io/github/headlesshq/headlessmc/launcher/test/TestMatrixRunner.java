@@ -0,0 +1,238 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.LauncherProperties;
+import io.github.headlesshq.headlessmc.launcher.auth.LaunchAccount;
+import io.github.headlesshq.headlessmc.launcher.files.FileManager;
+import io.github.headlesshq.headlessmc.launcher.launch.LaunchOptions;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import lombok.CustomLog;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Launches the runs of a {@link TestMatrix} concurrently and runs a {@link CommandTest} against each of them.
+ * All runs are prepared one after another first, so that libraries, assets and instrumented jars shared between versions
+ * are only downloaded and written once. Afterwards up to {@code parallelism} processes run at the same time,
+ * each with its own game directory. A {@link CrashDetector} ends crashed runs early and classifies their failure.
+ */
+@CustomLog
+@RequiredArgsConstructor
+public class TestMatrixRunner {
+    private final Launcher launcher;
+    private final int parallelism;
+
+    public TestMatrixReport run(String name, List<Entry> entries, LaunchAccount account) {
+        long start = System.nanoTime();
+        TestMatrixReport.Result[] results = new TestMatrixReport.Result[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            long prepareStart = System.nanoTime();
+            try {
+                launcher.log("Preparing " + entry.getName() + " (" + (i + 1) + "/" + entries.size() + ")");
+                launch(name, i, entry, account, createFiles(), true);
+            } catch (Throwable t) {
+                log.error("Failed to prepare " + entry.getName(), t);
+                results[i] = failure(entry, "Failed to prepare: " + t.getMessage(), null, prepareStart);
+            }
+        }
+
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "HeadlessMc-TestMatrix-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // written by the runs when they start, read after their futures completed
+        long[] starts = new long[entries.size()];
+        try {
+            List<Future<TestMatrixReport.Result>> futures = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                int index = i;
+                Entry entry = entries.get(i);
+                futures.add(results[i] == null ? executor.submit(() -> {
+                    starts[index] = System.nanoTime();
+                    return run(name, index, entry, account, starts[index]);
+                }) : null);
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                Future<TestMatrixReport.Result> future = futures.get(i);
+                if (future != null) {
+                    try {
+                        results[i] = future.get();
+                    } catch (ExecutionException e) {
+                        results[i] = failure(entries.get(i), String.valueOf(e.getCause()), null, starts[i]);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        // a run that has not started yet did not take any time
+                        results[i] = failure(entries.get(i), "Interrupted", null, starts[i] == 0L ? System.nanoTime() : starts[i]);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new TestMatrixReport(name, seconds(start), Arrays.asList(results));
+    }
+
+    private TestMatrixReport.Result run(String name, int index, Entry entry, LaunchAccount account, long start) {
+        FileManager files = createFiles();
+        CrashDetector crashDetector = new CrashDetector(getGameDir(name, index, entry).toPath());
+        Process process = null;
+        try {
+            launcher.log("Launching " + entry.getName());
+            process = launch(name, index, entry, account, files, false);
+            if (process == null) {
+                return failure(entry, "No process has been created, running in memory is not supported", null, start);
+            }
+
+            drain(process, entry.getName(), crashDetector);
+            try (CommandTest test = new CommandTest(launcher, entry.getTestCase(), process)) {
+                test.setCrashDetector(crashDetector);
+                test.setVersionId(entry.getVersion().getName());
+                test.run();
+                boolean successful = test.wasSuccessful();
+                String message = test.getMessage();
+                test.awaitExitOrKill();
+                Integer exitCode = process.waitFor(10, TimeUnit.SECONDS) ? process.exitValue() : null;
+                CrashDetector.Crash crash = crashDetector.analyze(exitCode);
+                String crashType = null;
+                // a successful test might have stopped the game with a non-zero exit code
+                if (crash != null && (!successful || crash.getType() != CrashDetector.Type.EXIT_CODE)) {
+                    successful = false;
+                    message = crash.getSummary();
+                    crashType = crash.getType().name();
+                }
+
+                launcher.log(entry.getName() + (successful ? " was successful." : " failed: " + message));
+                return new TestMatrixReport.Result(
+                        entry.getName(), entry.getVersion().getName(), successful, message, crashType, exitCode, seconds(start));
+            }
+        } catch (Throwable t) {
+            if (t instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            log.error("Failed to run " + entry.getName(), t);
+            return failure(entry, t.getMessage(), null, start);
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+
+            cleanup(files);
+        }
+    }
+
+    private @Nullable Process launch(String name, int index, Entry entry, LaunchAccount account, FileManager files, boolean prepare) throws Exception {
+        File gameDir = getGameDir(name, index, entry);
+        LaunchOptions options = LaunchOptions.builder()
+                .account(account)
+                .version(entry.getVersion())
+                .launcher(launcher)
+                .files(files)
+                .gameDir(gameDir)
+                .closeCommandLine(false)
+                .parseFlags(launcher, false, entry.getArgs())
+                // the CommandTest needs to read the output and send commands
+                .noOut(true)
+                .noIn(true)
+                .inMemory(false)
+                .prepare(prepare)
+                .build();
+
+        try {
+            return launcher.getProcessFactory().run(options);
+        } finally {
+            if (prepare) {
+                cleanup(files);
+            }
+        }
+    }
+
+    private File getGameDir(String name, int index, Entry entry) {
+        // the index keeps runs apart whose names only differ in replaced characters
+        return launcher.getFileManager().getDir("matrix", name, index + "-" + entry.getName().replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    private FileManager createFiles() {
+        return launcher.getFileManager().createRelative(UUID.randomUUID().toString());
+    }
+
+    private void cleanup(FileManager files) {
+        if (!launcher.getConfig().get(LauncherProperties.KEEP_FILES, false)) {
+            try {
+                launcher.getFileManager().delete(files.getBase());
+            } catch (IOException e) {
+                log.error("Couldn't delete files " + files.getBase().getName(), e);
+            }
+        }
+    }
+
+    private void drain(Process process, String name, CrashDetector crashDetector) {
+        Thread thread = new Thread(() -> {
+            InputStream stream = process.getErrorStream();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    launcher.log("[" + name + "] " + line);
+                    if (crashDetector.onLine(line) != null) {
+                        // the CommandTest stops once the process has been destroyed, keep draining meanwhile
+                        Thread terminator = new Thread(() -> CrashDetector.terminate(
+                                process, launcher.getConfig().get(LauncherProperties.CRASH_GRACE_PERIOD, 10_000L)));
+                        terminator.setDaemon(true);
+                        terminator.setName("HeadlessMc-TestMatrix-Terminate-" + name);
+                        terminator.start();
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Stopped reading error stream of " + name + ": " + e.getMessage());
+            }
+        });
+
+        thread.setDaemon(true);
+        thread.setName("HeadlessMc-TestMatrix-" + name);
+        thread.start();
+    }
+
+    private static TestMatrixReport.Result failure(Entry entry, @Nullable String message, @Nullable Integer exitCode, long start) {
+        return new TestMatrixReport.Result(entry.getName(), entry.getVersion().getName(), false, message, null, exitCode, seconds(start));
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1_000_000_000.0;
+    }
+
+    /**
+     * A resolved {@link TestMatrix.Run}.
+     */
+    @Data
+    public static class Entry {
+        private final String name;
+        private final Version version;
+        private final TestCase testCase;
+        private final String[] args;
+    }
+
+}
@@ -31,11 +31,7 @@ public abstract class AbstractDownloadService<T> extends Service<T> {
         log.debug("Downloading from " + url);
         String str = null;
         try {
-            HttpResponse response = launcher.getDownloadService().get(url);
-            if (response.getStatusCode() > 299 || response.getStatusCode() < 200) {
-                throw new IOException("Response code " + response.getStatusCode());
-            }
-
+            HttpResponse response = launcher.getDownloadService().downloadMetadata(url);
             str = response.getContentAsString();
             val je = JsonParser.parseString(str);
             result = read(je);
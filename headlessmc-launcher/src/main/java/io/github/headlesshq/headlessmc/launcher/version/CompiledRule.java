@@ -0,0 +1,137 @@
+package io.github.headlesshq.headlessmc.launcher.version;
+
+import io.github.headlesshq.headlessmc.os.OS;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link Rule} compiled from the {@code rules} array of a library or argument.
+ * The conditions are stored flat and evaluated without allocating.
+ * Which conditions match the {@link OS} is memoized for the last OS, as a launch evaluates every rule for the same OS multiple times.
+ * If no condition depends on {@link Features} the whole result is memoized.
+ */
+final class CompiledRule implements Rule {
+    private final Condition[] conditions;
+    private final boolean dependsOnFeatures;
+    private volatile @Nullable Memo memo;
+
+    CompiledRule(Condition[] conditions) {
+        this.conditions = conditions;
+        boolean dependsOnFeatures = false;
+        for (Condition condition : conditions) {
+            dependsOnFeatures |= condition.featureNames.length > 0;
+        }
+
+        this.dependsOnFeatures = dependsOnFeatures;
+    }
+
+    @Override
+    public Action apply(OS os, Features features) {
+        Memo memo = this.memo;
+        if (memo == null || memo.os != os) {
+            memo = memoize(os);
+            this.memo = memo;
+        }
+
+        if (!dependsOnFeatures) {
+            return memo.result;
+        }
+
+        Action result = Action.DISALLOW; // libraries seem to be disallowed by default
+        for (int i = 0; i < conditions.length; i++) {
+            if (memo.osMatches[i] && conditions[i].matchesFeatures(features)) {
+                result = conditions[i].action;
+            }
+        }
+
+        return result;
+    }
+
+    private Memo memoize(OS os) {
+        boolean[] osMatches = new boolean[conditions.length];
+        Action result = Action.DISALLOW;
+        for (int i = 0; i < conditions.length; i++) {
+            osMatches[i] = conditions[i].matchesOs(os);
+            if (osMatches[i]) {
+                result = conditions[i].action;
+            }
+        }
+
+        return new Memo(os, osMatches, result);
+    }
+
+    static String normalizeArch(String arch) {
+        String lowerCase = arch.toLowerCase(Locale.ENGLISH);
+        switch (lowerCase) {
+            case "i386":
+            case "i486":
+            case "i586":
+            case "i686":
+            case "x86_32":
+                return "x86";
+            case "amd64":
+            case "x64":
+                return "x86_64";
+            case "aarch64":
+                return "arm64";
+            default:
+                return lowerCase;
+        }
+    }
+
+    /**
+     * A single entry of the rules array. All of its criteria have to match for its action to apply.
+     */
+    @RequiredArgsConstructor
+    static final class Condition {
+        private final Action action;
+        private final @Nullable OS.Type type;
+        private final @Nullable Pattern version;
+        /**
+         * The normalized architecture, see {@link #normalizeArch(String)}.
+         */
+        private final @Nullable String arch;
+        private final String[] featureNames;
+        private final boolean[] featureValues;
+
+        boolean matchesOs(OS os) {
+            if (type != null && type != os.getType()) {
+                return false;
+            }
+
+            if (version != null && !version.matcher(os.getVersion()).find()) {
+                return false;
+            }
+
+            if (arch != null && (os.getArchitecture() == null || !arch.equals(normalizeArch(os.getArchitecture())))) {
+                return false;
+            }
+
+            return true;
+        }
+
+        boolean matchesFeatures(Features features) {
+            for (int i = 0; i < featureNames.length; i++) {
+                if (features.getFeature(featureNames[i]) != featureValues[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Memo {
+        private final OS os;
+        private final boolean[] osMatches;
+        /**
+         * The result if no condition depends on features.
+         */
+        private final Action result;
+    }
+
+}
@@ -1,20 +1,33 @@
 package io.github.headlesshq.headlessmc.launcher.version;
 
-import lombok.Cleanup;
 import lombok.CustomLog;
 import lombok.RequiredArgsConstructor;
-import lombok.val;
 import io.github.headlesshq.headlessmc.launcher.files.FileManager;
-import io.github.headlesshq.headlessmc.launcher.util.IOUtil;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
-import java.util.jar.JarFile;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+/**
+ * Extracts the natives from a jar.
+ * Entries whose target already has the size and CRC recorded in the central directory of the jar are skipped,
+ * the others are written in parallel.
+ */
 @CustomLog
 @RequiredArgsConstructor
 class ExtractorImpl implements Extractor {
@@ -26,26 +39,84 @@ class ExtractorImpl implements Extractor {
 
     @Override
     public void extract(String from, FileManager fileManager) throws IOException {
-        log.debug("Extracting " + from);
-        @Cleanup
-        val jar = new JarFile(from);
-        val enumeration = jar.entries();
-        while (enumeration.hasMoreElements()) {
-            val je = enumeration.nextElement();
-            if (shouldExtract(je.getName()) && !je.isDirectory()) {
-                log.debug(
-                    String.format("Extracting  : %s from %s to %s%s%s",
-                                  je.getName(), jar.getName(),
-                                  fileManager.getBase(), File.separator,
-                                  je.getName()));
-                @Cleanup
-                val is = jar.getInputStream(je);
-                File file = fileManager.create(je.getName());
-                @Cleanup
-                OutputStream os = new FileOutputStream(file);
-                IOUtil.copy(is, os);
+        long time = System.nanoTime();
+        Path base = fileManager.getBase().toPath().toAbsolutePath().normalize();
+        try (ZipFile jar = new ZipFile(from)) {
+            List<ZipEntry> entries = new ArrayList<>();
+            Enumeration<? extends ZipEntry> enumeration = jar.entries();
+            while (enumeration.hasMoreElements()) {
+                ZipEntry entry = enumeration.nextElement();
+                if (!entry.isDirectory() && shouldExtract(entry.getName())) {
+                    entries.add(entry);
+                }
             }
+
+            AtomicInteger extracted = new AtomicInteger();
+            try {
+                entries.parallelStream().forEach(entry -> {
+                    try {
+                        if (extract(jar, entry, base)) {
+                            extracted.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            log.debug(() -> String.format("Extracted %d of %d entries from %s in %dms",
+                    extracted.get(), entries.size(), from, (System.nanoTime() - time) / 1_000_000L));
+        }
+    }
+
+    private boolean extract(ZipFile jar, ZipEntry entry, Path base) throws IOException {
+        Path target = base.resolve(entry.getName()).normalize();
+        if (!target.startsWith(base)) {
+            throw new IOException("Entry " + entry.getName() + " of " + jar.getName() + " is outside of " + base);
+        }
+
+        if (isUpToDate(entry, target)) {
+            log.debug(() -> "Up to date  : " + entry.getName() + " from " + jar.getName());
+            return false;
+        }
+
+        log.debug(() -> "Extracting  : " + entry.getName() + " from " + jar.getName() + " to " + target);
+        Files.createDirectories(target.getParent());
+        try (InputStream is = jar.getInputStream(entry);
+             ReadableByteChannel in = Channels.newChannel(is);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0L;
+            long transferred;
+            while ((transferred = out.transferFrom(in, position, 1024 * 1024)) > 0) {
+                position += transferred;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the target has the size and CRC of the entry.
+     */
+    static boolean isUpToDate(ZipEntry entry, Path target) throws IOException {
+        if (entry.getSize() < 0 || entry.getCrc() < 0 || !Files.isRegularFile(target) || Files.size(target) != entry.getSize()) {
+            return false;
         }
+
+        // not memory mapped, on Windows a mapped file cannot be overwritten until the mapping has been garbage collected
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return crc.getValue() == entry.getCrc();
     }
 
     @Override
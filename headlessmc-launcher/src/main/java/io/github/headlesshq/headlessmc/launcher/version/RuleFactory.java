@@ -7,98 +7,71 @@ import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
 import io.github.headlesshq.headlessmc.os.OS;
 
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Pattern;
 
 class RuleFactory {
+    private static final String[] NO_FEATURES = new String[0];
+    private static final boolean[] NO_FEATURE_VALUES = new boolean[0];
+
     public Rule parse(JsonElement jsonElement) {
         if (jsonElement == null || !jsonElement.isJsonArray()) {
             return Rule.ALLOW;
         }
 
         val jsonArray = jsonElement.getAsJsonArray();
-        val rules = new ArrayList<Rule>(jsonArray.size() + 1);
-        rules.add(Rule.DISALLOW); // libraries seem to be disallowed by default
+        val conditions = new ArrayList<CompiledRule.Condition>(jsonArray.size());
         for (val ruleElement : jsonArray) {
             if (!ruleElement.isJsonObject()) {
                 continue;
             }
 
-            val ruleJo = ruleElement.getAsJsonObject();
-            rules.add(parse(ruleJo));
+            val condition = parse(ruleElement.getAsJsonObject());
+            if (condition != null) {
+                conditions.add(condition);
+            }
         }
 
-        return ofRules(rules);
+        return new CompiledRule(conditions.toArray(new CompiledRule.Condition[0]));
     }
 
-    private Rule parse(JsonObject ruleJo) {
+    private CompiledRule.Condition parse(JsonObject ruleJo) {
         val a = ruleJo.get("action");
         if (a == null) {
-            return Rule.UNDECIDED;
+            return null; // undecided, does not change the result
         }
 
         val action = Rule.Action.valueOf(a.getAsString().toUpperCase(Locale.ENGLISH));
+        OS.Type type = null;
+        Pattern version = null;
+        String arch = null;
         val os = ruleJo.get("os");
-        val feat = ruleJo.get("features");
-        val rules = new ArrayList<Rule>(os != null && feat != null ? 3 : 2);
         if (os != null) {
-            rules.add(parseOs(os.getAsJsonObject(), action));
+            val osJo = os.getAsJsonObject();
+            val osType = osJo.get("name");
+            type = osType == null ? null : OS.Type.valueOf(osType.getAsString().toUpperCase(Locale.ENGLISH));
+            val versionObject = osJo.get("version");
+            version = versionObject == null ? null : Pattern.compile(versionObject.getAsString());
+            val archObject = osJo.get("arch");
+            arch = archObject == null ? null : CompiledRule.normalizeArch(archObject.getAsString());
         }
 
+        String[] featureNames = NO_FEATURES;
+        boolean[] featureValues = NO_FEATURE_VALUES;
+        val feat = ruleJo.get("features");
         if (feat != null) {
-            val m = JsonUtil.toBoolMap(feat.getAsJsonObject());
-            rules.add(ofFeature(m, action));
-        }
-
-        if (rules.isEmpty()) {
-            rules.add((operatingSystem, feature) -> action);
-        }
-
-        return ofRules(rules);
-    }
-
-    private Rule parseOs(JsonObject os, Rule.Action action) {
-        val osType = os.getAsJsonObject().get("name");
-        val type = osType == null ? null : osType.getAsString();
-
-        Pattern version = null;
-        val versionObject = os.getAsJsonObject().get("version");
-        if (versionObject != null) {
-            version = Pattern.compile(versionObject.getAsString());
-        }
-
-        // val arch = os.getAsJsonObject().get("arch"); TODO: this?
-        return ofOs(type, version, action);
-    }
-
-    private Rule ofOs(String type, Pattern version, Rule.Action action) {
-        val osType = type == null ? null : OS.Type.valueOf(type.toUpperCase(Locale.ENGLISH));
-        return (os, features) -> osType != null && osType != os.getType()
-            || version != null && !version.matcher(os.getVersion()).find()
-            ? Rule.Action.UNDECIDED
-            : action;
-    }
-
-    private Rule ofFeature(Map<String, Boolean> features, Rule.Action action) {
-        return (os, f) ->
-            features.entrySet()
-                    .stream()
-                    .allMatch(e -> f.getFeature(e.getKey()) == e.getValue())
-                ? action : Rule.Action.UNDECIDED;
-    }
-
-    private Rule ofRules(List<Rule> rules) {
-        return (os, features) -> {
-            Rule.Action result = Rule.Action.UNDECIDED;
-            for (val rule : rules) {
-                val action = rule.apply(os, features);
-                result = action == Rule.Action.UNDECIDED ? result : action;
+            Map<String, Boolean> features = JsonUtil.toBoolMap(feat.getAsJsonObject());
+            featureNames = new String[features.size()];
+            featureValues = new boolean[features.size()];
+            int i = 0;
+            for (Map.Entry<String, Boolean> entry : features.entrySet()) {
+                featureNames[i] = entry.getKey();
+                featureValues[i++] = entry.getValue();
             }
+        }
 
-            return result;
-        };
+        return new CompiledRule.Condition(action, type, version, arch, featureNames, featureValues);
     }
 
 }
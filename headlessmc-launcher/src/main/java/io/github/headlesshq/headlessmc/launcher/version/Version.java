@@ -29,6 +29,10 @@ public interface Version extends HasName, HasId, HasParent<Version> {
 
     String getAssetsUrl();
 
+    @Nullable String getAssetsSha1();
+
+    @Nullable Long getAssetsSize();
+
     Integer getJava();
 
     String getMainClass();
@@ -32,6 +32,8 @@ class VersionFactory {
         }
 
         val assetsUrl = JsonUtil.getString(json, "assetIndex", "url");
+        val assetsSha1 = JsonUtil.getString(json, "assetIndex", "sha1");
+        val assetsSize = JsonUtil.getLong(json, "assetIndex", "size");
 
         val clientUrl = JsonUtil.getString(json, "downloads", "client", "url");
         val clientSha1 = JsonUtil.getString(json, "downloads", "client", "sha1");
@@ -60,6 +62,8 @@ class VersionFactory {
                 .id(id.get())
                 .assets(assets)
                 .assetsUrl(assetsUrl)
+                .assetsSha1(assetsSha1)
+                .assetsSize(assetsSize)
                 .name(name)
                 .parentName(parentName)
                 .mainClass(mainClass)
@@ -19,6 +19,8 @@ public class VersionImpl implements Version {
     private final String assets;
     private final String type;
     private final String assetsUrl;
+    private final @Nullable String assetsSha1;
+    private final @Nullable Long assetsSize;
     private final Integer java;
     private final String mainClass;
     private final List<Library> libraries;
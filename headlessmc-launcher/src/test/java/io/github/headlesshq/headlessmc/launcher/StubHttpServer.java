@@ -0,0 +1,80 @@
+package io.github.headlesshq.headlessmc.launcher;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local HTTP server for tests, listening on a random port of the loopback address.
+ * Requests are handled on a cached thread pool, so that concurrent requests do not wait for each other.
+ */
+public final class StubHttpServer implements AutoCloseable {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpServer server;
+
+    private StubHttpServer(String path, HttpHandler handler) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(path, handler);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts a server which handles all requests below the given path.
+     *
+     * @param path the path to handle, e.g. {@code /}.
+     * @param handler the handler for the requests.
+     * @return the started server.
+     * @throws IOException if the server could not be created.
+     */
+    public static StubHttpServer start(String path, HttpHandler handler) throws IOException {
+        StubHttpServer server = new StubHttpServer(path, handler);
+        server.server.start();
+        return server;
+    }
+
+    /**
+     * @param path the path on this server, starting with a {@code /}.
+     * @return the url of the path on this server.
+     */
+    public String getUrl(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Sends a response with the given status code.
+     *
+     * @param exchange the exchange to respond to.
+     * @param code the status code.
+     * @param body the body to send, or {@code null} to send no body.
+     * @throws IOException if writing the response fails.
+     */
+    public static void respond(HttpExchange exchange, int code, byte @Nullable [] body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(code, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * Stops the server, closing all open connections.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
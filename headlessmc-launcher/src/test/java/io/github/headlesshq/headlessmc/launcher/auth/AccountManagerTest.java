@@ -0,0 +1,72 @@
+package io.github.headlesshq.headlessmc.launcher.auth;
+
+import io.github.headlesshq.headlessmc.auth.ValidatedAccount;
+import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.LauncherMock;
+import io.github.headlesshq.headlessmc.launcher.StubHttpServer;
+import io.github.headlesshq.headlessmc.launcher.TestOfflineChecker;
+import io.github.headlesshq.headlessmc.launcher.UsesResources;
+import net.raphimc.minecraftauth.step.java.StepMCProfile;
+import net.raphimc.minecraftauth.step.java.StepMCToken;
+import net.raphimc.minecraftauth.step.java.session.StepFullJavaSession;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountManagerTest implements UsesResources {
+    @Test
+    public void testValidateUsesCachedEntitlements() throws Exception {
+        byte[] entitlements = getJsonObject("entitlements.json").toString().getBytes(StandardCharsets.UTF_8);
+        AtomicInteger requests = new AtomicInteger();
+        try (StubHttpServer server = StubHttpServer.start("/entitlements/mcstore", exchange -> {
+            requests.incrementAndGet();
+            int code = "Bearer token".equals(exchange.getRequestHeaders().getFirst("Authorization")) ? 200 : 401;
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            StubHttpServer.respond(exchange, code, entitlements);
+        })) {
+            Launcher launcher = LauncherMock.INSTANCE;
+            URL url = new URL(server.getUrl("/entitlements/mcstore"));
+            AccountManager accountManager = new AccountManager(
+                    new AccountValidator(url), new TestOfflineChecker(), new AccountStore(launcher.getLauncherConfig()));
+
+            StepFullJavaSession.FullJavaSession session = session(System.currentTimeMillis() + 86_400_000L);
+            ValidatedAccount account = accountManager.validate(session, launcher.getConfig());
+            assertEquals("1234567", account.getXuid());
+            assertEquals(1, requests.get());
+
+            ValidatedAccount cached = accountManager.validate(session, launcher.getConfig());
+            assertEquals("1234567", cached.getXuid());
+            assertEquals(1, requests.get());
+        }
+    }
+
+    @Test
+    public void testIsExpiring() {
+        AccountManager accountManager = LauncherMock.INSTANCE.getAccountManager();
+        ValidatedAccount valid = new ValidatedAccount(session(System.currentTimeMillis() + 86_400_000L), "xuid");
+        assertFalse(accountManager.isExpiring(valid, 3_600_000L));
+        assertTrue(accountManager.isExpiring(valid, 90_000_000L));
+
+        ValidatedAccount expired = new ValidatedAccount(session(System.currentTimeMillis() - 1000L), "xuid");
+        assertTrue(accountManager.isExpiring(expired, 0L));
+    }
+
+    @Test
+    public void testRefreshAccountIfExpiringDoesNotRefreshValidToken() throws AuthException {
+        AccountManager accountManager = LauncherMock.INSTANCE.getAccountManager();
+        ValidatedAccount account = new ValidatedAccount(session(System.currentTimeMillis() + 86_400_000L), "xuid");
+        // refreshing would fail, because the session has no Microsoft token
+        assertSame(account, accountManager.refreshAccountIfExpiring(account, null, 3_600_000L));
+    }
+
+    private static StepFullJavaSession.FullJavaSession session(long expireTimeMs) {
+        StepMCToken.MCToken token = new StepMCToken.MCToken("token", "Bearer", expireTimeMs, null);
+        return new StepFullJavaSession.FullJavaSession(new StepMCProfile.MCProfile(UUID.randomUUID(), "test", "", token), null);
+    }
+
+}
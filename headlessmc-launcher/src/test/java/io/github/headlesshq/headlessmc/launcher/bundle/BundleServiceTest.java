@@ -0,0 +1,123 @@
+package io.github.headlesshq.headlessmc.launcher.bundle;
+
+import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import io.github.headlesshq.headlessmc.launcher.version.DefaultVersionFactory;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import io.github.headlesshq.headlessmc.os.OS;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BundleServiceTest {
+    private static final OS LINUX = new OS("linux", OS.Type.LINUX, "6", true);
+
+    private final ChecksumService checksumService = new ChecksumService();
+    private final BundleService bundleService = new BundleService(checksumService);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testExportAndImport() throws IOException {
+        Path source = tempDir.resolve("source");
+        Version version = createVersion(source);
+        Path archive = tempDir.resolve("bundle.zip");
+        Map<String, Map<String, Path>> roots = Collections.singletonMap(BundleService.MINECRAFT, bundleService.collect(version, LINUX, source));
+        BundleManifest manifest = bundleService.export(version.getName(), LINUX, roots, archive);
+        assertEquals(5, manifest.getFiles().size());
+
+        Path target = tempDir.resolve("target");
+        Files.createDirectories(target.resolve("libraries/com/example/lib/1.0"));
+        Files.write(target.resolve("libraries/com/example/lib/1.0/lib-1.0.jar"), bytes("library"));
+        BundleService.Result result = bundleService.importBundle(archive, Collections.singletonMap(BundleService.MINECRAFT, target));
+        assertEquals(4, result.getExtracted());
+        assertEquals(1, result.getSkipped());
+        for (BundleManifest.Entry entry : manifest.getFiles()) {
+            assertArrayEquals(Files.readAllBytes(source.resolve(entry.getPath())), Files.readAllBytes(target.resolve(entry.getPath())));
+        }
+
+        // a changed file gets replaced, identical files are skipped
+        Files.write(target.resolve("versions/test/test.jar"), bytes("changed"));
+        result = bundleService.importBundle(archive, Collections.singletonMap(BundleService.MINECRAFT, target));
+        assertEquals(1, result.getExtracted());
+        assertEquals(4, result.getSkipped());
+        assertArrayEquals(bytes("client"), Files.readAllBytes(target.resolve("versions/test/test.jar")));
+    }
+
+    @Test
+    public void testMissingFiles() throws IOException {
+        Path source = tempDir.resolve("source");
+        Version version = createVersion(source);
+        Files.delete(source.resolve("libraries/com/example/lib/1.0/lib-1.0.jar"));
+        IOException e = assertThrows(IOException.class, () -> bundleService.collect(version, LINUX, source));
+        assertTrue(e.getMessage().contains("libraries/com/example/lib/1.0/lib-1.0.jar"));
+    }
+
+    @Test
+    public void testCorruptedFile() throws IOException {
+        Path archive = writeBundle("versions/test/test.jar", checksumService.hash(bytes("client")), bytes("corrupted"));
+        Path target = tempDir.resolve("target");
+        assertThrows(IOException.class, () -> bundleService.importBundle(archive, Collections.singletonMap(BundleService.MINECRAFT, target)));
+        assertFalse(Files.exists(target.resolve("versions/test/test.jar")));
+    }
+
+    @Test
+    public void testPathOutsideOfRoot() throws IOException {
+        Path archive = writeBundle("../evil.jar", checksumService.hash(bytes("evil")), bytes("evil"));
+        Path target = tempDir.resolve("target");
+        assertThrows(IOException.class, () -> bundleService.importBundle(archive, Collections.singletonMap(BundleService.MINECRAFT, target)));
+        assertFalse(Files.exists(tempDir.resolve("evil.jar")));
+    }
+
+    private Version createVersion(Path mcDir) throws IOException {
+        String assetHash = checksumService.hash(bytes("asset"));
+        String json = "{\"id\": \"test\", \"mainClass\": \"Main\", \"assets\": \"test\", \"javaVersion\": {\"majorVersion\": 21},"
+            + "\"libraries\": [{\"name\": \"com.example:lib:1.0\", \"downloads\": {\"artifact\": {\"path\": \"com/example/lib/1.0/lib-1.0.jar\","
+            + "\"sha1\": \"" + checksumService.hash(bytes("library")) + "\", \"size\": 7, \"url\": \"https://example.com/lib-1.0.jar\"}}},"
+            + "{\"name\": \"com.example:mac:1.0\", \"rules\": [{\"action\": \"allow\", \"os\": {\"name\": \"osx\"}}]}]}";
+        Path folder = mcDir.resolve("versions").resolve("test");
+        write(folder.resolve("test.json"), bytes(json));
+        write(folder.resolve("test.jar"), bytes("client"));
+        write(mcDir.resolve("libraries/com/example/lib/1.0/lib-1.0.jar"), bytes("library"));
+        write(mcDir.resolve("assets/indexes/test.json"), bytes("{\"objects\": {\"icon.png\": {\"hash\": \"" + assetHash + "\", \"size\": 5}}}"));
+        write(mcDir.resolve("assets/objects").resolve(assetHash.substring(0, 2)).resolve(assetHash), bytes("asset"));
+        return new DefaultVersionFactory().parse(JsonUtil.fromFile(folder.resolve("test.json").toFile()).getAsJsonObject(), folder.toFile(), () -> 0);
+    }
+
+    private Path writeBundle(String path, String sha1, byte[] content) throws IOException {
+        BundleManifest manifest = new BundleManifest();
+        manifest.setVersion("test");
+        manifest.setOs(LINUX.getType().name());
+        manifest.getFiles().add(new BundleManifest.Entry(BundleService.MINECRAFT, path, sha1, content.length, false));
+        Path archive = tempDir.resolve("bundle.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry(BundleService.MANIFEST));
+            zip.write(bytes(JsonUtil.GSON.toJson(manifest)));
+            zip.putNextEntry(new ZipEntry(BundleService.MINECRAFT + "/" + path));
+            zip.write(content);
+        }
+
+        return archive;
+    }
+
+    private static void write(Path path, byte[] content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content);
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
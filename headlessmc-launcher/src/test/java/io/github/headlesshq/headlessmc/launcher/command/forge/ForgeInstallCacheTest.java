@@ -0,0 +1,227 @@
+package io.github.headlesshq.headlessmc.launcher.command.forge;
+
+import io.github.headlesshq.headlessmc.java.Java;
+import io.github.headlesshq.headlessmc.launcher.Launcher;
+import io.github.headlesshq.headlessmc.launcher.LauncherMock;
+import io.github.headlesshq.headlessmc.launcher.StubHttpServer;
+import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
+import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ForgeInstallCacheTest {
+    private static final String VERSION_JSON = "versions/1.20.1-forge-47.2.0/1.20.1-forge-47.2.0.json";
+    private static final String LIBRARY = "libraries/net/minecraftforge/forge/1.20.1-47.2.0/forge-1.20.1-47.2.0-universal.jar";
+    private static final String PATCHED = "libraries/net/minecraft/client/1.20.1-20230612.114412/client-1.20.1-20230612.114412-srg.jar";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRecordAndMaterialize() throws IOException {
+        Path installer = tempDir.resolve("installer.jar");
+        Files.write(installer, createInstaller());
+
+        ForgeInstallCache cache = new ForgeInstallCache(tempDir.resolve("cache"), new ChecksumService());
+        String key = cache.getKey(installer, false);
+        assertTrue(key.endsWith("-client"));
+
+        Path first = tempDir.resolve("first");
+        assertFalse(cache.materialize(key, first));
+        // the universal jar already existed before the installer ran
+        write(first, LIBRARY, "universal");
+        ForgeInstallCache.Snapshot snapshot = cache.snapshot(first, false);
+        write(first, VERSION_JSON, "{}");
+        write(first, PATCHED, "patched");
+        write(first, "versions/1.20.1-forge-47.2.0/installer.log", "log");
+        cache.record(key, installer, snapshot, first, false);
+        // the cache holds copies, modifying the game directory does not affect it
+        assertFalse(Files.isSameFile(first.resolve(PATCHED), tempDir.resolve("cache").resolve(key).resolve("files").resolve(PATCHED)));
+        Files.delete(first.resolve(PATCHED));
+        write(first, PATCHED, "modified");
+
+        Path second = tempDir.resolve("second");
+        // a stale file of the same size is replaced
+        write(second, PATCHED, "patchex");
+        assertTrue(cache.materialize(key, second));
+        assertEquals("{}", read(second, VERSION_JSON));
+        assertEquals("patched", read(second, PATCHED));
+        assertEquals("universal", read(second, LIBRARY));
+        assertFalse(Files.exists(second.resolve("versions/1.20.1-forge-47.2.0/installer.log")));
+
+        // placed files are copies as well, writing to them does not affect the cache
+        Files.write(second.resolve(PATCHED), "changed".getBytes(StandardCharsets.UTF_8));
+        Path third = tempDir.resolve("third");
+        assertTrue(cache.materialize(key, third));
+        assertEquals("patched", read(third, PATCHED));
+
+        // a corrupted cache entry is deleted instead of being placed
+        Path cachedFile = tempDir.resolve("cache").resolve(key).resolve("files").resolve(PATCHED);
+        Files.write(cachedFile, "patchex".getBytes(StandardCharsets.UTF_8));
+        assertFalse(cache.materialize(key, tempDir.resolve("fourth")));
+        assertFalse(Files.exists(tempDir.resolve("cache").resolve(key)));
+
+        // a server installation is cached separately
+        assertFalse(cache.materialize(cache.getKey(installer, true), tempDir.resolve("server")));
+    }
+
+    @Test
+    public void testInstallFromCache() throws IOException {
+        Launcher launcher = LauncherMock.create();
+        byte[] installerBytes = createInstaller();
+        AtomicInteger downloads = new AtomicInteger();
+        ForgeInstaller installer = new ForgeInstaller(ForgeRepoFormat.lexForge(), launcher, "Forge", ForgeRepoFormat.LEX_FORGE_URL) {
+            @Override
+            protected void downloadInstaller(ForgeVersion version, File file) throws IOException {
+                downloads.incrementAndGet();
+                Files.write(file.toPath(), installerBytes);
+            }
+
+            @Override
+            protected List<String> getCommand(Java java, File installDir, File jar, File fml, boolean inMemory, boolean server) {
+                throw new AssertionError("The installer should not run for a cached installation");
+            }
+        };
+
+        ForgeVersion version = new ForgeVersion();
+        version.setName("47.2.0");
+        ForgeVersion.Requires requires = new ForgeVersion.Requires();
+        requires.setEquals("1.20.1");
+        version.setRequires(Collections.singletonList(requires));
+
+        // populate the cache as if another game directory had installed this installer before
+        Path installerFile = tempDir.resolve("installer.jar");
+        Files.write(installerFile, installerBytes);
+        Path other = tempDir.resolve("other");
+        ForgeInstallCache cache = installer.getInstallCache();
+        assertNotNull(cache);
+        String key = cache.getKey(installerFile, false);
+        ForgeInstallCache.Snapshot snapshot = cache.snapshot(other, false);
+        write(other, VERSION_JSON, "{}");
+        write(other, PATCHED, "patched");
+        cache.record(key, installerFile, snapshot, other, false);
+
+        installer.install(null, version, launcher.getFileManager(), false);
+        assertEquals(1, downloads.get());
+        Path mcDir = launcher.getMcFiles().getBase().toPath();
+        assertEquals("{}", read(mcDir, VERSION_JSON));
+        assertEquals("patched", read(mcDir, PATCHED));
+    }
+
+    @Test
+    public void testDownloadInstallAndHitCache() throws IOException {
+        byte[] installerBytes = createInstaller(true);
+        AtomicInteger requests = new AtomicInteger();
+        try (StubHttpServer server = StubHttpServer.start("/", exchange -> {
+            requests.incrementAndGet();
+            boolean found = "/maven/1.20.1-47.2.0/forge-1.20.1-47.2.0-installer.jar".equals(exchange.getRequestURI().getPath());
+            StubHttpServer.respond(exchange, found ? 200 : 404, found ? installerBytes : null);
+        })) {
+            ForgeVersion version = new ForgeVersion();
+            version.setName("47.2.0");
+            ForgeVersion.Requires requires = new ForgeVersion.Requires();
+            requires.setEquals("1.20.1");
+            version.setRequires(Collections.singletonList(requires));
+
+            Path cacheDir = tempDir.resolve("cache");
+            Launcher first = LauncherMock.create();
+            Path firstDir = first.getMcFiles().getBase().toPath();
+            // the vanilla jar is already present, the processors are run in process
+            write(firstDir, "versions/1.20.1/1.20.1.jar", "vanilla");
+            createStubInstaller(first, server, cacheDir).install(null, version, first.getFileManager(), true);
+            assertEquals(1, requests.get());
+            assertEquals("patched", read(firstDir, PATCHED));
+
+            Launcher second = LauncherMock.create();
+            Path secondDir = second.getMcFiles().getBase().toPath();
+            // without a vanilla jar or version the processors would fail, so this has to be a cache hit
+            createStubInstaller(second, server, cacheDir).install(null, version, second.getFileManager(), true);
+            assertEquals(2, requests.get());
+            assertEquals(read(firstDir, VERSION_JSON), read(secondDir, VERSION_JSON));
+            assertEquals("patched", read(secondDir, PATCHED));
+            assertFalse(Files.exists(secondDir.resolve("versions/1.20.1/1.20.1.jar")));
+        }
+    }
+
+    @Test
+    public void testGetMavenPath() {
+        assertEquals("net/minecraft/client/1.20.1/client-1.20.1-srg.jar", ForgeInstallCache.getMavenPath("net.minecraft:client:1.20.1:srg"));
+        assertEquals("de/oceanlabs/mcp/mcp_config/1.20.1/mcp_config-1.20.1-mappings.txt", ForgeInstallCache.getMavenPath("de.oceanlabs.mcp:mcp_config:1.20.1:mappings@txt"));
+        assertEquals("com/example/lib/1.0/lib-1.0.jar", ForgeInstallCache.getMavenPath("com.example:lib:1.0"));
+    }
+
+    private ForgeInstaller createStubInstaller(Launcher launcher, StubHttpServer server, Path cacheDir) {
+        return new ForgeInstaller(ForgeRepoFormat.lexForge(), launcher, "Forge", server.getUrl("/maven/")) {
+            @Override
+            protected void downloadInstaller(ForgeVersion version, File file) throws IOException {
+                // the DownloadService of the LauncherMock does not download anything
+                new DownloadService().download(ForgeRepoFormat.lexForge().getUrl(server.getUrl("/maven/"), version), file.toPath());
+            }
+
+            @Override
+            protected ForgeInstallCache getInstallCache() {
+                return new ForgeInstallCache(cacheDir, launcher.getSha1Service());
+            }
+        };
+    }
+
+    private byte[] createInstaller() throws IOException {
+        return createInstaller(false);
+    }
+
+    /**
+     * @param supported whether the ForgeProcessorRunner can install the profile,
+     *                  it has no processors and extracts the patched jar from the installer.
+     */
+    private byte[] createInstaller(boolean supported) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry("install_profile.json"));
+            zos.write(((supported ? "{\"minecraft\": \"1.20.1\", \"libraries\": [{\"name\": \"net.minecraft:client:1.20.1-20230612.114412:srg\"}], " : "{")
+                    + "\"json\": \"/version.json\", \"data\": {"
+                    + "\"PATCHED\": {\"client\": \"[net.minecraft:client:1.20.1-20230612.114412:srg]\", \"server\": \"[net.minecraft:server:1.20.1-20230612.114412:srg]\"},"
+                    + "\"MAPPINGS\": {\"client\": \"/data/client.lzma\", \"server\": \"/data/server.lzma\"}}}").getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("version.json"));
+            zos.write(("{\"id\": \"1.20.1-forge-47.2.0\", \"libraries\": [{\"name\": \"net.minecraftforge:forge:1.20.1-47.2.0:universal\","
+                    + "\"downloads\": {\"artifact\": {\"path\": \"net/minecraftforge/forge/1.20.1-47.2.0/forge-1.20.1-47.2.0-universal.jar\"}}},"
+                    + "{\"name\": \"com.example:missing:1.0\"}]}").getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            if (supported) {
+                zos.putNextEntry(new ZipEntry("maven/" + PATCHED.substring("libraries/".length())));
+                zos.write("patched".getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+                zos.putNextEntry(new ZipEntry("data/client.lzma"));
+                zos.write(new byte[] { 1 });
+                zos.closeEntry();
+            }
+        }
+
+        return baos.toByteArray();
+    }
+
+    private static void write(Path root, String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path root, String path) throws IOException {
+        return new String(Files.readAllBytes(root.resolve(path)), StandardCharsets.UTF_8);
+    }
+
+}
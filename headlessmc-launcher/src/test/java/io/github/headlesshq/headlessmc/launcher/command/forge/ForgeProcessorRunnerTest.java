@@ -0,0 +1,173 @@
+package io.github.headlesshq.headlessmc.launcher.command.forge;
+
+import io.github.headlesshq.headlessmc.launcher.LauncherMock;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ForgeProcessorRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReplace() throws IOException {
+        Path libraries = tempDir.resolve("libraries");
+        Map<String, String> data = new HashMap<>();
+        data.put("SIDE", "client");
+        data.put("MAPPINGS", "/tmp/mappings.txt");
+
+        assertEquals("client", ForgeProcessorRunner.replace("{SIDE}", data, libraries));
+        assertEquals("--side=client", ForgeProcessorRunner.replace("--side={SIDE}", data, libraries));
+        assertEquals("literal", ForgeProcessorRunner.replace("'literal'", data, libraries));
+        assertEquals("{escaped}", ForgeProcessorRunner.replace("\\{escaped\\}", data, libraries));
+        assertEquals(libraries.resolve("net/minecraft/client/1.20.1/client-1.20.1-srg.jar").toAbsolutePath().toString(),
+                     ForgeProcessorRunner.replace("[net.minecraft:client:1.20.1:srg]", data, libraries));
+        assertThrows(IOException.class, () -> ForgeProcessorRunner.replace("{MISSING}", data, libraries));
+    }
+
+    @Test
+    public void testDependencies() throws IOException {
+        Path libraries = tempDir.resolve("libraries");
+        String root = tempDir.toAbsolutePath().toString();
+        String minecraftJar = tempDir.resolve("client.jar").toAbsolutePath().toString();
+        String slim = tempDir.resolve("slim.jar").toAbsolutePath().toString();
+        String mappings = tempDir.resolve("mappings.txt").toAbsolutePath().toString();
+        String merged = tempDir.resolve("merged.txt").toAbsolutePath().toString();
+        String patched = tempDir.resolve("patched.jar").toAbsolutePath().toString();
+        Map<String, String> data = new HashMap<>();
+        data.put("ROOT", root);
+        data.put("MINECRAFT_JAR", minecraftJar);
+        data.put("MC_SLIM", slim);
+        data.put("MAPPINGS", mappings);
+        data.put("MERGED", merged);
+        data.put("PATCHED", patched);
+        Set<String> inputs = new HashSet<>(Arrays.asList(root, minecraftJar));
+
+        ForgeInstallProfile profile = new ForgeInstallProfile();
+        List<ForgeInstallProfile.Processor> processors = new ArrayList<>();
+        processors.add(processor("net.minecraftforge:jarsplitter:1.1.4", "{MC_SLIM}", "--input", "{MINECRAFT_JAR}", "--slim", "{MC_SLIM}"));
+        processors.add(processor("net.minecraftforge:installertools:1.3.0", "{MAPPINGS}", "--task", "DOWNLOAD_MOJMAPS", "--output", "{MAPPINGS}"));
+        processors.add(processor("net.minecraftforge:binarypatcher:1.1.1", "{PATCHED}", "--clean={MC_SLIM}", "--output", "{PATCHED}"));
+        ForgeInstallProfile.Processor server = processor("net.minecraftforge:installertools:1.3.0", "{PATCHED}", "--output", "{PATCHED}");
+        server.setSides(Collections.singletonList("server"));
+        processors.add(server);
+        // does not declare its outputs, so it might write every file passed to it which is not an input
+        processors.add(processor("net.minecraftforge:installertools:1.3.0", null, "--task", "MERGE_MAPPING", "--left", "{MAPPINGS}", "--output", "{MERGED}"));
+        processors.add(processor("net.minecraftforge:jarsplitter:1.1.4", "{MC_SLIM}", "--input", "{MINECRAFT_JAR}"));
+        // only reads inputs
+        processors.add(processor("net.minecraftforge:installertools:1.3.0", null, "--input", "{MINECRAFT_JAR}"));
+        // reads the whole root directory
+        processors.add(processor("net.minecraftforge:installertools:1.3.0", null, "--root", "{ROOT}"));
+        profile.setProcessors(processors);
+
+        List<ForgeProcessorRunner.Task> tasks = new ForgeProcessorRunner(LauncherMock.INSTANCE, 2).createTasks(profile, data, libraries, inputs);
+        assertEquals(7, tasks.size());
+        // the first two processors do not share any files
+        assertTrue(tasks.get(0).getDependencies().isEmpty());
+        assertTrue(tasks.get(1).getDependencies().isEmpty());
+        // the binarypatcher needs the slim jar written by the jarsplitter, passed as --clean=path
+        assertEquals(Collections.singletonList(tasks.get(0)), tasks.get(2).getDependencies());
+        assertEquals(Arrays.asList("--clean=" + slim, "--output", patched), tasks.get(2).getArgs());
+        // the mappings might be written by both processors
+        assertEquals(Collections.singletonList(tasks.get(1)), tasks.get(3).getDependencies());
+        // writes the slim jar, which the first processor writes and the binarypatcher reads
+        assertEquals(Arrays.asList(tasks.get(0), tasks.get(2)), tasks.get(4).getDependencies());
+        assertTrue(tasks.get(5).getDependencies().isEmpty());
+        // every processor which writes below the root directory
+        assertEquals(tasks.subList(0, 5), tasks.get(6).getDependencies());
+    }
+
+    @Test
+    public void testRunTasksInOrder() throws IOException {
+        List<ForgeProcessorRunner.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(new ForgeProcessorRunner.Task(i, tempDir.resolve("processor" + i + ".jar")));
+        }
+
+        // 0 <- 2 <- 3, 1 runs concurrently
+        tasks.get(2).getDependencies().add(tasks.get(0));
+        tasks.get(3).getDependencies().add(tasks.get(2));
+        tasks.get(3).getDependencies().add(tasks.get(1));
+
+        Map<ForgeProcessorRunner.Task, Long> started = new ConcurrentHashMap<>();
+        Map<ForgeProcessorRunner.Task, Long> finished = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ForgeProcessorRunner.runTasks(tasks, executor, task -> {
+                started.put(task, System.nanoTime());
+                try {
+                    // the first task is the slowest, dependents must still wait for it
+                    Thread.sleep(task.getIndex() == 0 ? 200L : 20L);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+
+                finished.put(task, System.nanoTime());
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(4, finished.size());
+        for (ForgeProcessorRunner.Task task : tasks) {
+            for (ForgeProcessorRunner.Task dependency : task.getDependencies()) {
+                assertTrue(finished.get(dependency) <= started.get(task), task.getIndex() + " started before " + dependency.getIndex());
+            }
+        }
+
+        // the independent task did not wait for the first one
+        assertTrue(finished.get(tasks.get(1)) < finished.get(tasks.get(0)));
+    }
+
+    @Test
+    public void testRunTasksFailure() {
+        List<ForgeProcessorRunner.Task> tasks = new ArrayList<>();
+        tasks.add(new ForgeProcessorRunner.Task(0, tempDir.resolve("processor0.jar")));
+        tasks.add(new ForgeProcessorRunner.Task(1, tempDir.resolve("processor1.jar")));
+        tasks.get(1).getDependencies().add(tasks.get(0));
+
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            IOException e = assertThrows(IOException.class, () -> ForgeProcessorRunner.runTasks(tasks, executor, task -> {
+                runs.incrementAndGet();
+                throw new IOException("failed " + task.getIndex());
+            }));
+            assertEquals("failed 0", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the dependent task never runs
+        assertEquals(1, runs.get());
+    }
+
+    private ForgeInstallProfile.Processor processor(String jar, @Nullable String output, String... args) {
+        ForgeInstallProfile.Processor processor = new ForgeInstallProfile.Processor();
+        processor.setJar(jar);
+        processor.setArgs(Arrays.asList(args));
+        if (output != null) {
+            processor.setOutputs(Collections.singletonMap(output, "'0000'"));
+        }
+
+        return processor;
+    }
+
+}
@@ -0,0 +1,68 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssetIndexTest {
+    @Test
+    public void testRead() throws IOException {
+        AssetIndex index = read("{\"objects\": {"
+                + "\"icons/icon_16x16.png\": {\"hash\": \"bdf48ef6b5d0d23bbb02e17d04865216179f510a\", \"size\": 3665},"
+                + "\"sounds/ambient/cave/cave1.ogg\": {\"hash\": \"12dada1fff4d4787ade3333147202c3b443e376f\", \"size\": 4, \"map_to_resources\": true},"
+                + "\"unknown\": {\"hash\": \"0000000000000000000000000000000000000000\", \"other\": [1, 2]}"
+                + "}, \"virtual\": true}");
+
+        assertEquals(3, index.getSize());
+        assertTrue(index.isVirtual());
+        assertFalse(index.isMapAllToResources());
+
+        assertEquals("icons/icon_16x16.png", index.getName(0));
+        assertEquals("bdf48ef6b5d0d23bbb02e17d04865216179f510a", index.getHash(0));
+        assertEquals(3665L, index.getSize(0));
+        assertFalse(index.isMapToResources(0));
+
+        assertEquals("12dada1fff4d4787ade3333147202c3b443e376f", index.getHash(1));
+        assertArrayEquals(new ChecksumService().hashBytes(new byte[]{1, 2, 3, 4}), index.getHashBytes(1));
+        assertTrue(index.isMapToResources(1));
+
+        assertNull(index.getSize(2));
+    }
+
+    @Test
+    public void testMapAllToResources() throws IOException {
+        AssetIndex index = read("{\"map_to_resources\": true, \"objects\": {"
+                + "\"a\": {\"hash\": \"bdf48ef6b5d0d23bbb02e17d04865216179f510a\", \"size\": 1}}}");
+        assertTrue(index.isMapAllToResources());
+        assertTrue(index.isMapToResources(0));
+    }
+
+    @Test
+    public void testGrow() throws IOException {
+        StringBuilder json = new StringBuilder("{\"objects\": {");
+        for (int i = 0; i < 10_000; i++) {
+            json.append(i == 0 ? "" : ",").append("\"asset").append(i).append("\": {\"hash\": \"bdf48ef6b5d0d23bbb02e17d04865216179f510a\", \"size\": ").append(i).append("}");
+        }
+
+        AssetIndex index = read(json.append("}}").toString());
+        assertEquals(10_000, index.getSize());
+        assertEquals("asset9999", index.getName(9999));
+        assertEquals(9999L, index.getSize(9999));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(IOException.class, () -> read("{}"));
+        assertThrows(IOException.class, () -> read("{\"objects\": {\"a\": {\"size\": 1}}}"));
+        assertThrows(IOException.class, () -> read("{\"objects\": {\"a\": {\"hash\": \"xyz\"}}}"));
+    }
+
+    private static AssetIndex read(String json) throws IOException {
+        return AssetIndex.read(new JsonReader(new StringReader(json)));
+    }
+
+}
@@ -8,6 +8,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -105,6 +106,53 @@ public class ChecksumServiceTest {
         assertEquals(expectedHashString, checksumService.toHashString(bytes));
     }
 
+    @Test
+    void testFromHashString() {
+        byte[] bytes = {(byte) 0x12, (byte) 0x34, (byte) 0xab, (byte) 0xcd};
+        assertArrayEquals(bytes, checksumService.fromHashString("1234abcd"));
+        assertArrayEquals(bytes, checksumService.fromHashString("1234ABCD"));
+        assertNull(checksumService.fromHashString("1234abc"));
+        assertNull(checksumService.fromHashString("1234abcg"));
+    }
+
+    @Test
+    void testCheckIntegrityWithUpperCaseHash() {
+        byte[] bytes = "test data".getBytes();
+        String hash = checksumService.hash(bytes).toUpperCase();
+        assertTrue(checksumService.checkIntegrity(bytes, (long) bytes.length, hash));
+    }
+
+    @Test
+    void testHashPath() throws IOException {
+        Path tempFile = Files.createTempFile("test", "data");
+        byte[] bytes = new byte[1024 * 1024 + 17];
+        new Random(0).nextBytes(bytes);
+        Files.write(tempFile, bytes);
+
+        assertEquals(checksumService.hash(bytes), checksumService.hash(tempFile));
+        // the digest of the thread is reused and must be reset
+        assertEquals(checksumService.hash(bytes), checksumService.hash(tempFile));
+        assertFalse(checksumService.checkIntegrity(tempFile, (long) bytes.length, checksumService.hash("test data".getBytes())));
+
+        Files.delete(tempFile);
+    }
+
+    @Test
+    void testCheckIntegrityWithRawHash() throws IOException {
+        Path tempFile = Files.createTempFile("test", "data");
+        byte[] bytes = "test data".getBytes();
+        Files.write(tempFile, bytes);
+
+        byte[] hash = checksumService.hashBytes(bytes);
+        assertTrue(checksumService.checkIntegrity(tempFile, bytes.length, hash));
+        assertTrue(checksumService.checkIntegrity(tempFile, -1L, hash));
+        assertTrue(checksumService.checkIntegrity(tempFile, bytes.length, (byte[]) null));
+        assertFalse(checksumService.checkIntegrity(tempFile, bytes.length + 1L, hash));
+        assertFalse(checksumService.checkIntegrity(tempFile, -1L, checksumService.hashBytes("other data".getBytes())));
+
+        Files.delete(tempFile);
+    }
+
     @Test
     void testGetHashFunction() {
         assertNotNull(checksumService.getHashFunction());
@@ -2,6 +2,7 @@ package io.github.headlesshq.headlessmc.launcher.download;
 
 import io.github.headlesshq.headlessmc.jline.JlineProgressbarProvider;
 import io.github.headlesshq.headlessmc.launcher.LauncherMock;
+import io.github.headlesshq.headlessmc.launcher.StubHttpServer;
 import net.lenni0451.commons.httpclient.HttpResponse;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -9,7 +10,14 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,6 +49,49 @@ public class DownloadServiceTest {
         assertSame(bytes, downloadService.download(new URL("http://example.com"), 4L, null));
     }
 
+    @Test
+    public void testHostLimitAndMetrics() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        StubHttpServer server = StubHttpServer.start("/", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            concurrent.decrementAndGet();
+            StubHttpServer.respond(exchange, 200, new byte[] { 1, 2, 3, 4 });
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            DownloadService downloadService = new DownloadService();
+            downloadService.setMaxConnectionsPerHost(2);
+            URL url = new URL(server.getUrl("/file"));
+            assertSame(downloadService.getHttpClient(), downloadService.getHttpClient());
+            List<Future<HttpResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> downloadService.get(url)));
+            }
+
+            for (Future<HttpResponse> future : futures) {
+                assertEquals(200, future.get().getStatusCode());
+            }
+
+            assertTrue(maxConcurrent.get() <= 2, "Max concurrent requests " + maxConcurrent.get());
+            assertEquals(16, downloadService.getMetrics().getRequests());
+            assertEquals(16, downloadService.getMetrics().getRequests("127.0.0.1"));
+            assertEquals(64, downloadService.getMetrics().getBytes());
+            assertEquals(0, downloadService.getMetrics().getFailures());
+            assertEquals(16, Arrays.stream(downloadService.getMetrics().getLatencyHistogram()).sum());
+        } finally {
+            executor.shutdownNow();
+            server.close();
+        }
+    }
+
     // TODO: spin up simple http server and serve some files to check all download stuff?
     @Test
     @Disabled("downloads stuff")
@@ -0,0 +1,89 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.headlesshq.headlessmc.launcher.StubHttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetadataCacheTest {
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile String content = "{\"versions\":[]}";
+    private StubHttpServer server;
+    private URL url;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = StubHttpServer.start("/index.json", this::handle);
+        url = new URL(server.getUrl("/index.json"));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testTtl() throws IOException {
+        MetadataCache cache = new MetadataCache(new DownloadService(), tempDir, 60_000L);
+        assertEquals(content, cache.get(url).getContentAsString());
+        assertEquals(content, cache.get(url).getContentAsString());
+        assertEquals(1, requests.get());
+
+        // another launcher run uses the persisted response
+        assertEquals(content, new MetadataCache(new DownloadService(), tempDir, 60_000L).get(url).getContentAsString());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testRevalidation() throws IOException {
+        MetadataCache cache = new MetadataCache(new DownloadService(), tempDir, 0L);
+        assertEquals(content, cache.get(url).getContentAsString());
+        assertEquals(content, cache.get(url).getContentAsString());
+        assertEquals(2, requests.get());
+        assertEquals(1, notModified.get());
+
+        content = "{\"versions\":[\"1.21.4\"]}";
+        assertEquals(content, cache.get(url).getContentAsString());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testStaleWhenOffline() throws IOException {
+        MetadataCache cache = new MetadataCache(new DownloadService(), tempDir, 0L);
+        String expected = content;
+        assertEquals(expected, cache.get(url).getContentAsString());
+
+        server.close();
+        assertEquals(expected, cache.get(url).getContentAsString());
+        MetadataCache empty = new MetadataCache(new DownloadService(), tempDir.resolve("empty"), 0L);
+        assertThrows(IOException.class, () -> empty.get(url));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String etag = "\"" + Integer.toHexString(content.hashCode()) + "\"";
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            StubHttpServer.respond(exchange, 304, null);
+            return;
+        }
+
+        exchange.getResponseHeaders().add("ETag", etag);
+        StubHttpServer.respond(exchange, 200, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
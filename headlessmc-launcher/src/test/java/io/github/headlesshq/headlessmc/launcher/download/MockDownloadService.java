@@ -1,9 +1,11 @@
 package io.github.headlesshq.headlessmc.launcher.download;
 
+import io.github.headlesshq.headlessmc.api.command.line.ProgressBarProvider;
 import io.github.headlesshq.headlessmc.launcher.util.IOConsumer;
 import org.jetbrains.annotations.Nullable;
 
 import java.net.URL;
+import java.nio.file.Path;
 
 public class MockDownloadService extends DownloadService {
     @Override
@@ -11,4 +13,10 @@ public class MockDownloadService extends DownloadService {
         // NOP
     }
 
+    @Override
+    public void downloadBigFile(URL url, Path destination, @Nullable Long size, @Nullable String hash,
+                                String progressBarTitle, ProgressBarProvider progressBarProvider) {
+        // NOP
+    }
+
 }
@@ -0,0 +1,145 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.headlesshq.headlessmc.api.command.line.Progressbar;
+import io.github.headlesshq.headlessmc.api.config.ConfigImpl;
+import io.github.headlesshq.headlessmc.launcher.StubHttpServer;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import io.github.headlesshq.headlessmc.launcher.version.DefaultVersionFactory;
+import io.github.headlesshq.headlessmc.launcher.version.Version;
+import io.github.headlesshq.headlessmc.os.OS;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefetchServiceTest {
+    private static final OS LINUX = new OS("linux", OS.Type.LINUX, "6", true);
+
+    private final ChecksumService checksumService = new ChecksumService();
+    private final Map<String, byte[]> content = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private StubHttpServer server;
+    private String url;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = StubHttpServer.start("/", this::handle);
+        url = server.getUrl("/");
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testPrefetch() throws IOException {
+        List<Version> versions = Arrays.asList(createVersion("a", "lib.jar"), createVersion("b", "lib.jar"));
+        PrefetchService prefetchService = createPrefetchService();
+        PrefetchService.Plan plan = prefetchService.plan(versions);
+        // 2 client jars, the shared library and the shared asset object
+        assertEquals(4, plan.getDownloads().size());
+        assertEquals(2, plan.getDuplicates());
+
+        PrefetchService.Result result = prefetchService.execute(plan, 4, Progressbar.dummy());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(4, result.getDownloaded());
+        assertEquals(1, requests.get("/lib.jar").get());
+        assertEquals(1, requests.get("/index.json").get());
+        assertArrayEquals(bytes("lib.jar"), Files.readAllBytes(tempDir.resolve("libraries/com/example/lib/1.0/lib-1.0.jar")));
+        assertArrayEquals(bytes("client-a"), Files.readAllBytes(tempDir.resolve("versions/a/a.jar")));
+        String assetHash = checksumService.hash(bytes("asset"));
+        assertTrue(Files.exists(tempDir.resolve("assets/objects").resolve(assetHash.substring(0, 2)).resolve(assetHash)));
+
+        plan = prefetchService.plan(versions);
+        assertTrue(plan.getDownloads().isEmpty());
+        assertEquals(4, plan.getPresent());
+        assertEquals(1, requests.get("/index.json").get());
+    }
+
+    @Test
+    public void testCorruptedFilesAreDownloadedAgain() throws IOException {
+        List<Version> versions = Arrays.asList(createVersion("a", "lib.jar"), createVersion("b", "lib.jar"));
+        PrefetchService prefetchService = createPrefetchService();
+        assertTrue(prefetchService.execute(prefetchService.plan(versions), 4, Progressbar.dummy()).getFailures().isEmpty());
+
+        Path library = tempDir.resolve("libraries/com/example/lib/1.0/lib-1.0.jar");
+        Files.write(library, bytes("corrupted"));
+        String assetHash = checksumService.hash(bytes("asset"));
+        Path asset = tempDir.resolve("assets/objects").resolve(assetHash.substring(0, 2)).resolve(assetHash);
+        // same size, different hash
+        Files.write(asset, bytes("assex"));
+        Files.write(tempDir.resolve("assets/indexes/test.json"), bytes("{}"));
+
+        PrefetchService.Plan plan = prefetchService.plan(versions);
+        assertEquals(2, requests.get("/index.json").get());
+        assertEquals(2, plan.getDownloads().size());
+        assertEquals(2, plan.getPresent());
+
+        assertTrue(prefetchService.execute(plan, 4, Progressbar.dummy()).getFailures().isEmpty());
+        assertArrayEquals(bytes("lib.jar"), Files.readAllBytes(library));
+        assertArrayEquals(bytes("asset"), Files.readAllBytes(asset));
+    }
+
+    @Test
+    public void testFailedDownloadDoesNotStopOthers() throws IOException {
+        List<Version> versions = Arrays.asList(createVersion("a", "missing.jar"), createVersion("b", "missing.jar"));
+        PrefetchService prefetchService = createPrefetchService();
+        PrefetchService.Result result = prefetchService.execute(prefetchService.plan(versions), 2, Progressbar.dummy());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(3, result.getDownloaded());
+        assertTrue(Files.exists(tempDir.resolve("versions/b/b.jar")));
+    }
+
+    private PrefetchService createPrefetchService() {
+        PrefetchService prefetchService = new PrefetchService(new DownloadService(), ConfigImpl::empty, LINUX, tempDir);
+        prefetchService.setAssetsUrl(url + "assets/");
+        return prefetchService;
+    }
+
+    private Version createVersion(String name, String library) throws IOException {
+        String assetHash = checksumService.hash(bytes("asset"));
+        content.put("/client-" + name + ".jar", bytes("client-" + name));
+        content.put("/lib.jar", bytes("lib.jar"));
+        content.put("/assets/" + assetHash.substring(0, 2) + "/" + assetHash, bytes("asset"));
+        byte[] index = bytes("{\"objects\": {\"icon.png\": {\"hash\": \"" + assetHash + "\", \"size\": 5}}}");
+        content.put("/index.json", index);
+        String json = "{\"id\": \"" + name + "\", \"mainClass\": \"Main\", \"assets\": \"test\","
+            + "\"assetIndex\": {\"id\": \"test\", \"url\": \"" + url + "index.json\", \"sha1\": \"" + checksumService.hash(index) + "\"},"
+            + "\"downloads\": {\"client\": {\"url\": \"" + url + "client-" + name + ".jar\"}},"
+            + "\"libraries\": [{\"name\": \"com.example:lib:1.0\", \"downloads\": {\"artifact\": {\"path\": \"com/example/lib/1.0/lib-1.0.jar\","
+            + "\"sha1\": \"" + checksumService.hash(bytes("lib.jar")) + "\", \"url\": \"" + url + library + "\"}}}]}";
+        Path folder = tempDir.resolve("versions").resolve(name);
+        Files.createDirectories(folder);
+        Files.write(folder.resolve(name + ".json"), bytes(json));
+        return new DefaultVersionFactory().parse(JsonUtil.fromFile(folder.resolve(name + ".json").toFile()).getAsJsonObject(), folder.toFile(), () -> 0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        byte[] bytes = content.get(path);
+        StubHttpServer.respond(exchange, bytes == null ? 404 : 200, bytes);
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,184 @@
+package io.github.headlesshq.headlessmc.launcher.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.headlesshq.headlessmc.api.command.line.ProgressBarProvider;
+import io.github.headlesshq.headlessmc.launcher.StubHttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResumableDownloaderTest {
+    private static final byte[] DATA = new byte[300_000];
+
+    static {
+        new Random(0).nextBytes(DATA);
+    }
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicInteger openRangeRequests = new AtomicInteger();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private final ChecksumService checksumService = new ChecksumService();
+    private volatile boolean supportRanges = true;
+    private final AtomicInteger failingRequests = new AtomicInteger();
+    private StubHttpServer server;
+    private URL url;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = StubHttpServer.start("/file", this::handle);
+        url = new URL(server.getUrl("/file"));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testParallelRangesWithFailures() throws IOException {
+        failingRequests.set(2);
+        Path destination = tempDir.resolve("file.bin");
+        downloader(4).download(url, destination, (long) DATA.length, checksumService.hash(DATA), "Test", ProgressBarProvider.dummy());
+
+        assertArrayEquals(DATA, Files.readAllBytes(destination));
+        assertTrue(rangeRequests.get() > 1);
+        assertFalse(Files.exists(tempDir.resolve("file.bin.part")));
+        assertFalse(Files.exists(tempDir.resolve("file.bin.part.json")));
+    }
+
+    @Test
+    public void testKnownSizeRequestsAllRangesAtOnce() throws IOException {
+        Path destination = tempDir.resolve("file.bin");
+        downloader(4).download(url, destination, (long) DATA.length, checksumService.hash(DATA), "Test", ProgressBarProvider.dummy());
+
+        assertArrayEquals(DATA, Files.readAllBytes(destination));
+        // no probe for the whole file, every range has been requested with its end
+        assertEquals(4, requests.get());
+        assertEquals(4, rangeRequests.get());
+        assertEquals(0, openRangeRequests.get());
+    }
+
+    @Test
+    public void testResumeSequentialAcrossRuns() throws IOException {
+        failingRequests.set(Integer.MAX_VALUE);
+        Path destination = tempDir.resolve("file.bin");
+        ResumableDownloader downloader = new ResumableDownloader(new DownloadService(), checksumService, 1, 50_000L, 1);
+        assertThrows(IOException.class, () -> downloader.download(url, destination, null, null, "Test", ProgressBarProvider.dummy()));
+        assertTrue(Files.exists(tempDir.resolve("file.bin.part.json")));
+        long partSize = Files.size(tempDir.resolve("file.bin.part"));
+        assertTrue(partSize > 0 && partSize < DATA.length);
+
+        failingRequests.set(0);
+        requests.set(0);
+        downloader.download(url, destination, (long) DATA.length, checksumService.hash(DATA), "Test", ProgressBarProvider.dummy());
+        assertArrayEquals(DATA, Files.readAllBytes(destination));
+        assertEquals(1, requests.get());
+        assertFalse(Files.exists(tempDir.resolve("file.bin.part.json")));
+    }
+
+    @Test
+    public void testServerWithoutRanges() throws IOException {
+        supportRanges = false;
+        failingRequests.set(1);
+        Path destination = tempDir.resolve("file.bin");
+        downloader(4).download(url, destination, (long) DATA.length, checksumService.hash(DATA), "Test", ProgressBarProvider.dummy());
+        assertArrayEquals(DATA, Files.readAllBytes(destination));
+        assertEquals(0, rangeRequests.get());
+    }
+
+    @Test
+    public void testWrongHash() {
+        Path destination = tempDir.resolve("file.bin");
+        assertThrows(IOException.class, () -> downloader(4).download(url, destination, null, checksumService.hash(new byte[0]), "Test", ProgressBarProvider.dummy()));
+        assertFalse(Files.exists(destination));
+        assertFalse(Files.exists(tempDir.resolve("file.bin.part")));
+    }
+
+    @Test
+    public void testRangesCountTowardsHostLimit() throws IOException {
+        DownloadService downloadService = new DownloadService();
+        downloadService.setMaxConnectionsPerHost(1);
+        Path destination = tempDir.resolve("file.bin");
+        new ResumableDownloader(downloadService, checksumService, 4, 50_000L, 3)
+                .download(url, destination, (long) DATA.length, checksumService.hash(DATA), "Test", ProgressBarProvider.dummy());
+
+        assertArrayEquals(DATA, Files.readAllBytes(destination));
+        assertTrue(rangeRequests.get() > 1);
+        assertEquals(1, maxConcurrentRequests.get());
+        assertEquals(requests.get(), downloadService.getMetrics().getRequests());
+        assertEquals(0, downloadService.getMetrics().getFailures());
+        // every range is read exactly once
+        assertEquals(DATA.length, downloadService.getMetrics().getBytes());
+    }
+
+    private ResumableDownloader downloader(int parallelRanges) {
+        return new ResumableDownloader(new DownloadService(), checksumService, parallelRanges, 50_000L, 3);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        // requests which overlap before the response is sent have been made at the same time by the client
+        int concurrent = concurrentRequests.incrementAndGet();
+        maxConcurrentRequests.accumulateAndGet(concurrent, Math::max);
+        try {
+            Thread.sleep(20L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrentRequests.decrementAndGet();
+        }
+
+        respond(exchange);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        int start = 0;
+        int end = DATA.length - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        boolean partial = supportRanges && range != null;
+        if (partial) {
+            rangeRequests.incrementAndGet();
+            String[] startEnd = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(startEnd[0]);
+            if (startEnd[1].isEmpty()) {
+                openRangeRequests.incrementAndGet();
+            } else {
+                end = Integer.parseInt(startEnd[1]);
+            }
+
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + DATA.length);
+        }
+
+        int length = end - start + 1;
+        exchange.getResponseHeaders().add("ETag", "\"test\"");
+        exchange.sendResponseHeaders(partial ? 206 : 200, length);
+        OutputStream os = exchange.getResponseBody();
+        if (failingRequests.getAndDecrement() > 0) {
+            os.write(DATA, start, length / 2);
+            os.flush();
+            // closing before all bytes have been written drops the connection
+            exchange.close();
+            return;
+        }
+
+        os.write(DATA, start, length);
+        os.close();
+    }
+
+}
@@ -0,0 +1,130 @@
+package io.github.headlesshq.headlessmc.launcher.files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirectorySnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCopy() throws IOException {
+        Path src = tempDir.resolve("src");
+        write(src.resolve("server.jar"), "jar");
+        write(src.resolve("world/level.dat"), "level");
+        Files.createDirectories(src.resolve("plugins"));
+
+        Path dest = tempDir.resolve("dest");
+        DirectorySnapshot.copy(src, dest);
+        assertEquals("jar", read(dest.resolve("server.jar")));
+        assertEquals("level", read(dest.resolve("world/level.dat")));
+        assertTrue(Files.isDirectory(dest.resolve("plugins")));
+        assertEquals(Files.getLastModifiedTime(src.resolve("world/level.dat")), Files.getLastModifiedTime(dest.resolve("world/level.dat")));
+
+        // copies do not share mutable files
+        write(dest.resolve("world/level.dat"), "changed");
+        assertEquals("level", read(src.resolve("world/level.dat")));
+    }
+
+    @Test
+    public void testSync() throws IOException {
+        Path src = tempDir.resolve("src");
+        write(src.resolve("server.jar"), "jar");
+        write(src.resolve("server.properties"), "motd=A Minecraft Server");
+        write(src.resolve("plugins/old.jar"), "old plugin");
+
+        Path dest = tempDir.resolve("dest");
+        DirectorySnapshot.sync(src, dest);
+        assertTrue(Files.exists(dest.resolve(DirectorySnapshot.MANIFEST)));
+        assertEquals(3, DirectorySnapshot.readManifest(dest).size());
+
+        // files created and modified in the target, e.g. by a test run
+        write(dest.resolve("logs/latest.log"), "log");
+        write(dest.resolve("server.properties"), "motd=changed");
+        Files.setLastModifiedTime(dest.resolve("server.properties"), FileTime.fromMillis(0L));
+        write(src.resolve("plugins/new.jar"), "new plugin");
+        Files.delete(src.resolve("plugins/old.jar"));
+
+        DirectorySnapshot.sync(src, dest);
+        assertEquals("motd=A Minecraft Server", read(dest.resolve("server.properties")));
+        assertEquals("new plugin", read(dest.resolve("plugins/new.jar")));
+        assertFalse(Files.exists(dest.resolve("plugins/old.jar")));
+        assertEquals("log", read(dest.resolve("logs/latest.log")));
+        assertFalse(DirectorySnapshot.scan(dest).containsKey(DirectorySnapshot.MANIFEST));
+    }
+
+    @Test
+    public void testSyncOnlyTouchesChangedFiles() throws IOException {
+        Path src = tempDir.resolve("src");
+        write(src.resolve("world/level.dat"), "level");
+        write(src.resolve("eula.txt"), "eula=true");
+
+        Path dest = tempDir.resolve("dest");
+        DirectorySnapshot.sync(src, dest);
+        // copying a file again would replace it with a new file
+        Object key = Files.readAttributes(dest.resolve("eula.txt"), BasicFileAttributes.class).fileKey();
+
+        write(src.resolve("world/level.dat"), "level v2");
+        Files.setLastModifiedTime(src.resolve("world/level.dat"), FileTime.fromMillis(System.currentTimeMillis() + 10_000L));
+        DirectorySnapshot.sync(src, dest);
+        assertEquals("level v2", read(dest.resolve("world/level.dat")));
+        assertEquals(key, Files.readAttributes(dest.resolve("eula.txt"), BasicFileAttributes.class).fileKey());
+    }
+
+    @Test
+    public void testTransferDoesNotWriteThroughLinks() throws IOException {
+        Path src = tempDir.resolve("src");
+        write(src.resolve("plugins/test.jar"), "v1");
+        Path dest = tempDir.resolve("dest");
+        DirectorySnapshot.copy(src, dest);
+
+        Path other = tempDir.resolve("other");
+        write(other.resolve("plugins/test.jar"), "v2");
+        DirectorySnapshot.transfer(other, dest, Collections.singletonList("plugins/test.jar"));
+        assertEquals("v2", read(dest.resolve("plugins/test.jar")));
+        assertEquals("v1", read(src.resolve("plugins/test.jar")));
+    }
+
+    @Test
+    public void testIsImmutable() {
+        assertTrue(DirectorySnapshot.isImmutable("server.jar"));
+        assertTrue(DirectorySnapshot.isImmutable("libraries/com/google/gson/gson.pom"));
+        assertFalse(DirectorySnapshot.isImmutable("world/region/r.0.0.mca"));
+        assertFalse(DirectorySnapshot.isImmutable("eula.txt"));
+        // users overwrite plugins and mods in place
+        assertFalse(DirectorySnapshot.isImmutable("plugins/test.jar"));
+        assertFalse(DirectorySnapshot.isImmutable("mods/test.jar"));
+    }
+
+    @Test
+    public void testSyncDoesNotShareMods() throws IOException {
+        Path src = tempDir.resolve("src");
+        write(src.resolve("mods/test.jar"), "v1");
+        Path dest = tempDir.resolve("dest");
+        DirectorySnapshot.sync(src, dest);
+
+        // overwriting the mod in place must not change the cached copy
+        Files.write(dest.resolve("mods/test.jar"), "v2".getBytes(StandardCharsets.UTF_8));
+        assertEquals("v1", read(src.resolve("mods/test.jar")));
+    }
+
+    private static void write(Path path, String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,53 @@
+package io.github.headlesshq.headlessmc.launcher.files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileLinkerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLink() throws IOException {
+        Path object = tempDir.resolve("objects").resolve("ab").resolve("abcdef");
+        Files.createDirectories(object.getParent());
+        Files.write(object, "test".getBytes(StandardCharsets.UTF_8));
+
+        FileLinker linker = new FileLinker("Test", true);
+        Path target = tempDir.resolve("virtual").resolve("legacy").resolve("sounds").resolve("test.ogg");
+        linker.place(object, target);
+        assertEquals("test", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertTrue(linker.isLinked(object, target));
+        assertEquals(1, linker.getLinked().get());
+        assertEquals(4L, linker.getBytesSaved().get());
+
+        // placing again does not do anything
+        linker.place(object, target);
+        assertTrue(linker.isLinked(object, target));
+        assertEquals(0, linker.getCopied().get());
+    }
+
+    @Test
+    public void testCopy() throws IOException {
+        Path object = tempDir.resolve("object");
+        Files.write(object, "test".getBytes(StandardCharsets.UTF_8));
+        Path target = tempDir.resolve("resources").resolve("test.ogg");
+        Files.createDirectories(target.getParent());
+        Files.write(target, "corrupted".getBytes(StandardCharsets.UTF_8));
+
+        FileLinker linker = new FileLinker("Test", false);
+        linker.place(object, target);
+        assertFalse(linker.isLinked(object, target));
+        assertEquals("test", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertEquals(1, linker.getCopied().get());
+        assertEquals(0L, linker.getBytesSaved().get());
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.github.headlesshq.headlessmc.launcher.integrity;
+
+import io.github.headlesshq.headlessmc.api.config.ConfigImpl;
+import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
+import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
+import io.github.headlesshq.headlessmc.os.OS;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntegrityServiceTest {
+    private static final OS LINUX = new OS("linux", OS.Type.LINUX, "6", true);
+
+    private final ChecksumService checksumService = new ChecksumService();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testVerifyAndRepair() throws IOException {
+        Path valid = write("valid.jar", "valid");
+        Path corrupted = write("corrupted.jar", "tampered");
+        Path missing = tempDir.resolve("missing.jar");
+        List<IntegrityService.Item> items = Arrays.asList(
+                item(valid, "valid"),
+                item(corrupted, "original"),
+                item(missing, "missing"),
+                new IntegrityService.Item("library", write("unknown.jar", "unknown"), null, null, null, false));
+
+        Path checkpoint = tempDir.resolve("checkpoint.json");
+        IntegrityReport report = createService().verify("test", items, checkpoint);
+        assertEquals(4, report.getChecked());
+        assertEquals(2, report.getSuccessful());
+        assertEquals(1, report.getFailed().size());
+        assertEquals("corrupted.jar", report.getFailed().get(0).getName());
+        assertEquals(checksumService.hash(bytes("tampered")), report.getFailed().get(0).getActualSha1());
+        assertEquals(1, report.getMissing().size());
+        assertFalse(Files.exists(corrupted));
+        assertFalse(Files.exists(checkpoint));
+
+        createService().repair(report, items);
+        assertEquals(2, report.getRepaired().size());
+        assertArrayEquals(bytes("original"), Files.readAllBytes(corrupted));
+        assertArrayEquals(bytes("missing"), Files.readAllBytes(missing));
+
+        Path reportFile = tempDir.resolve("report").resolve("test.json");
+        report.write(reportFile);
+        assertTrue(new String(Files.readAllBytes(reportFile), StandardCharsets.UTF_8).contains("\"repaired\""));
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws IOException {
+        Path verified = write("verified.jar", "verified");
+        Path changed = write("changed.jar", "changed");
+        Path checkpoint = tempDir.resolve("checkpoint.json");
+        String sha1 = checksumService.hash(bytes("verified"));
+        String checkpointJson = "{"
+                + "\"" + escape(verified) + "\": {\"size\": 8, \"modified\": " + Files.getLastModifiedTime(verified).toMillis() + ", \"sha1\": \"" + sha1 + "\"},"
+                + "\"" + escape(changed) + "\": {\"size\": 7, \"modified\": 0, \"sha1\": \"" + checksumService.hash(bytes("changed")) + "\"}"
+                + "}";
+        Files.write(checkpoint, bytes(checkpointJson));
+
+        IntegrityReport report = createService().verify("test", Arrays.asList(item(verified, "verified"), item(changed, "changed")), checkpoint);
+        assertEquals(2, report.getSuccessful());
+        // the changed file has a different modification time and gets hashed again
+        assertEquals(1, report.getResumed());
+    }
+
+    @Test
+    public void testVerifyWithoutCheckpoint() throws IOException {
+        IntegrityReport report = createService().verify("test", Arrays.asList(item(write("a.jar", "a"), "a")), null);
+        assertEquals(1, report.getSuccessful());
+        assertEquals(0, report.getResumed());
+    }
+
+    private IntegrityService createService() {
+        return new IntegrityService(checksumService, new DownloadService(), ConfigImpl::empty, LINUX, tempDir);
+    }
+
+    private IntegrityService.Item item(Path file, String content) {
+        byte[] bytes = bytes(content);
+        return new IntegrityService.Item("library", file, checksumService.hash(bytes), (long) bytes.length, to -> Files.write(to, bytes), false);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, bytes(content));
+        return file;
+    }
+
+    private static String escape(Path path) {
+        return path.toAbsolutePath().toString().replace("\\", "\\\\");
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -54,6 +54,7 @@ public class JavaLaunchCommandBuilderTest implements UsesResources {
                       .runtime(true)
                       .version(version)
                       .launcher(LauncherMock.INSTANCE)
+                      .gameDir(new File(LauncherMock.INSTANCE.getGameDir(version).getPath()))
                       .build();
     }
 
@@ -0,0 +1,122 @@
+package io.github.headlesshq.headlessmc.launcher.mods.files;
+
+import io.github.headlesshq.headlessmc.launcher.api.Platform;
+import io.github.headlesshq.headlessmc.launcher.mods.ModdableGame;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModFileReaderManagerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadWithCache() throws IOException {
+        Path mods = tempDir.resolve("mods");
+        Files.createDirectories(mods);
+        Files.move(ModFileReaderTest.createModFile("fabric.mod.json", "fabric.mod.json"), mods.resolve("b-fabric-api.jar"));
+        Files.move(ModFileReaderTest.createModFile("mcmod.info", "mcmod.info"), mods.resolve("a-other.jar"));
+        Files.write(mods.resolve("readme.txt"), new byte[0]);
+
+        CountingReader reader = new CountingReader();
+        ModFileReaderManager manager = new ModFileReaderManager();
+        manager.add(Platform.FABRIC, reader);
+        Path cacheFile = tempDir.resolve("cache").resolve("mod-files.json");
+        manager.setCache(new ModFileCache(cacheFile));
+
+        ModFileReadResult result = manager.read(new Game(mods));
+        assertEquals(1, result.getMods().size());
+        assertEquals(1, result.getNonModFiles());
+        assertEquals("fabric-api", result.getMods().get(0).getName());
+        assertEquals(0, result.getMods().get(0).getId());
+        assertEquals(2, reader.reads.get());
+        assertTrue(Files.exists(cacheFile));
+        // the temporary file the cache has been written to has been moved
+        try (Stream<Path> files = Files.list(cacheFile.getParent())) {
+            assertEquals(1, files.count());
+        }
+
+        // a new manager with the same cache file does not need to open any jars
+        ModFileReaderManager cached = new ModFileReaderManager();
+        cached.add(Platform.FABRIC, reader);
+        cached.setCache(new ModFileCache(cacheFile));
+        ModFileReadResult cachedResult = cached.read(new Game(mods));
+        assertEquals(result, cachedResult);
+        assertEquals(2, reader.reads.get());
+
+        Files.delete(mods.resolve("a-other.jar"));
+        Files.move(ModFileReaderTest.createModFile("fabric.mod.json", "fabric.mod.json"), mods.resolve("c-fabric-api.jar"));
+        result = cached.read(new Game(mods));
+        assertEquals(2, result.getMods().size());
+        assertEquals(0, result.getNonModFiles());
+        assertEquals(1, result.getMods().get(1).getId());
+        assertEquals(3, reader.reads.get());
+        assertFalse(new String(Files.readAllBytes(cacheFile)).contains("a-other.jar"));
+    }
+
+    private static final class CountingReader implements ModFileReader {
+        private final FabricModFileReader delegate = new FabricModFileReader();
+        private final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public List<ModFile> read(Supplier<Integer> id, Path path, JarFile jarFile) throws IOException {
+            reads.incrementAndGet();
+            return delegate.read(id, path, jarFile);
+        }
+    }
+
+    private static final class Game implements ModdableGame {
+        private final Path modsDirectory;
+
+        private Game(Path modsDirectory) {
+            this.modsDirectory = modsDirectory;
+        }
+
+        @Override
+        public Path getModsDirectory() {
+            return modsDirectory;
+        }
+
+        @Override
+        public String getVersionName() {
+            return "1.21.4";
+        }
+
+        @Override
+        public Platform getPlatform() {
+            return Platform.FABRIC;
+        }
+
+        @Override
+        public @Nullable String getBuild() {
+            return null;
+        }
+
+        @Override
+        public boolean isServer() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public int getId() {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,288 @@
+package io.github.headlesshq.headlessmc.launcher.mods.modrinth;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import io.github.headlesshq.headlessmc.launcher.StubHttpServer;
+import io.github.headlesshq.headlessmc.launcher.api.VersionId;
+import io.github.headlesshq.headlessmc.launcher.download.ChecksumService;
+import io.github.headlesshq.headlessmc.launcher.download.DownloadService;
+import io.github.headlesshq.headlessmc.launcher.util.URLs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModrinthResolverTest {
+    private static final VersionId VERSION = VersionId.parse("fabric:1.21.5");
+
+    private final ChecksumService checksumService = new ChecksumService();
+    private final Map<String, JsonObject> projects = new ConcurrentHashMap<>();
+    // in the order they have been added, oldest first
+    private final Map<String, JsonObject> versions = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private StubHttpServer server;
+    private String url;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = StubHttpServer.start("/", this::handle);
+        url = server.getUrl("/");
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testResolveAndDownload() throws IOException {
+        addProject("AAAA", "mod-a", "a1", dependency("project_id", "CCCC", "required"), dependency("project_id", "DDDD", "optional"));
+        addProject("BBBB", "mod-b", "b1", dependency("version_id", "e1", "required"));
+        // lib-c depends on mod-a again, which must not be resolved twice
+        addProject("CCCC", "lib-c", "c1", dependency("project_id", "AAAA", "required"));
+        addProject("EEEE", "lib-e", "e1");
+
+        ModrinthResolver resolver = createResolver();
+        List<ModrinthResolver.ResolvedMod> mods = resolver.resolve(VERSION, Arrays.asList("mod-a", "mod-b"));
+        assertEquals(4, mods.size());
+        assertEquals("mod-a", mods.get(0).getSlug());
+        assertFalse(mods.get(0).isDependency());
+        assertEquals("mod-b", mods.get(1).getSlug());
+        assertEquals("lib-c", mods.get(2).getSlug());
+        assertTrue(mods.get(2).isDependency());
+        assertEquals("lib-e", mods.get(3).getSlug());
+        assertEquals("e1", mods.get(3).getVersionId());
+        // one batch request for each level of the dependency tree
+        assertEquals(2, requests.get("/v2/projects").get());
+        assertEquals(1, requests.get("/v2/versions").get());
+
+        Path modsDir = tempDir.resolve("mods");
+        assertEquals(4, resolver.download(mods, modsDir));
+        assertArrayEquals(bytes("lib-e"), Files.readAllBytes(modsDir.resolve("lib-e.jar")));
+        assertEquals(0, resolver.download(mods, modsDir));
+        assertEquals(1, requests.get("/files/lib-e.jar").get());
+    }
+
+    @Test
+    public void testUnknownMod() {
+        addProject("AAAA", "mod-a", "a1");
+        IOException e = assertThrows(IOException.class, () -> createResolver().resolve(VERSION, Arrays.asList("mod-a", "unknown")));
+        assertTrue(e.getMessage().contains("unknown"));
+    }
+
+    @Test
+    public void testDependencyWithoutCompatibleVersion() {
+        addProject("AAAA", "mod-a", "a1", dependency("project_id", "CCCC", "required"));
+        addProject("CCCC", "lib-c", null);
+        IOException e = assertThrows(IOException.class, () -> createResolver().resolve(VERSION, Collections.singletonList("mod-a")));
+        assertTrue(e.getMessage().contains("lib-c"));
+        assertTrue(e.getMessage().contains("required by mod-a"));
+    }
+
+    @Test
+    public void testIncompatibleMods() {
+        addProject("AAAA", "mod-a", "a1", dependency("project_id", "BBBB", "incompatible"));
+        addProject("BBBB", "mod-b", "b1");
+        IOException e = assertThrows(IOException.class, () -> createResolver().resolve(VERSION, Arrays.asList("mod-a", "mod-b")));
+        assertEquals("mod-a is incompatible with mod-b", e.getMessage());
+    }
+
+    @Test
+    public void testNewestCompatibleVersion() throws IOException {
+        addProject("AAAA", "mod-a", "a0");
+        addVersion("AAAA", "mod-a", "a1", "1.21.5", "fabric");
+        addVersion("AAAA", "mod-a", "a2", "1.21.5", "forge");
+        addVersion("AAAA", "mod-a", "a3", "1.20.1", "fabric");
+
+        List<ModrinthResolver.ResolvedMod> mods = createResolver().resolve(VERSION, Collections.singletonList("mod-a"));
+        assertEquals(1, mods.size());
+        assertEquals("a1", mods.get(0).getVersionId());
+    }
+
+    @Test
+    public void testPinnedVersion() throws IOException {
+        addProject("AAAA", "mod-a", "a0");
+        addVersion("AAAA", "mod-a", "a1", "1.21.5", "fabric");
+        addProject("BBBB", "mod-b", "b1", dependency("version_id", "a0", "required"));
+
+        // the pinned version is used, even though there is a newer compatible one
+        List<ModrinthResolver.ResolvedMod> mods = createResolver().resolve(VERSION, Collections.singletonList("mod-b"));
+        assertEquals(2, mods.size());
+        assertEquals("mod-a", mods.get(1).getSlug());
+        assertEquals("a0", mods.get(1).getVersionId());
+        assertNull(requests.get("/v2/project/AAAA/version"));
+
+        // mod-a itself resolves to its newest version, which conflicts with the pinned one
+        IOException e = assertThrows(IOException.class, () -> createResolver().resolve(VERSION, Arrays.asList("mod-a", "mod-b")));
+        assertEquals("mod-b requires version a0 of mod-a, but version a1 has been resolved already", e.getMessage());
+    }
+
+    @Test
+    public void testPinnedVersionNotCompatible() {
+        addProject("AAAA", "mod-a", "a0");
+        addVersion("AAAA", "mod-a", "a1", "1.20.1", "fabric");
+        addVersion("AAAA", "mod-a", "a2", "1.21.5", "forge");
+        addProject("BBBB", "mod-b", "b1", dependency("version_id", "a1", "required"));
+        addProject("CCCC", "mod-c", "c1", dependency("version_id", "a2", "required"));
+
+        IOException e = assertThrows(IOException.class, () -> createResolver().resolve(VERSION, Collections.singletonList("mod-b")));
+        assertTrue(e.getMessage().contains("(a1) required by mod-b is not compatible"));
+        e = assertThrows(IOException.class, () -> createResolver().resolve(VERSION, Collections.singletonList("mod-c")));
+        assertTrue(e.getMessage().contains("(a2) required by mod-c is not compatible"));
+    }
+
+    @Test
+    public void testUnknownVersionDependency() {
+        addProject("AAAA", "mod-a", "a1", dependency("version_id", "missing", "required"));
+        IOException e = assertThrows(IOException.class, () -> createResolver().resolve(VERSION, Collections.singletonList("mod-a")));
+        assertEquals("Could not find dependency versions missing (required by mod-a) on Modrinth", e.getMessage());
+    }
+
+    @Test
+    public void testIncompatibleVersion() throws IOException {
+        addProject("AAAA", "mod-a", "a1", dependency("version_id", "b0", "incompatible"));
+        addProject("BBBB", "mod-b", "b0");
+        IOException e = assertThrows(IOException.class, () -> createResolver().resolve(VERSION, Arrays.asList("mod-a", "mod-b")));
+        assertEquals("mod-a is incompatible with mod-b", e.getMessage());
+
+        // only the given version is incompatible
+        addVersion("BBBB", "mod-b", "b1", "1.21.5", "fabric");
+        assertEquals(2, createResolver().resolve(VERSION, Arrays.asList("mod-a", "mod-b")).size());
+    }
+
+    private ModrinthResolver createResolver() {
+        DownloadService downloadService = new DownloadService();
+        return new ModrinthResolver(new Modrinth(downloadService, URLs.url(url + "v2/")), downloadService);
+    }
+
+    private void addProject(String id, String slug, String versionId, JsonObject... dependencies) {
+        JsonObject project = new JsonObject();
+        project.addProperty("id", id);
+        project.addProperty("slug", slug);
+        projects.put(id, project);
+        if (versionId != null) {
+            addVersion(id, slug, versionId, VERSION.getName(), VERSION.getPlatform().getName(), dependencies);
+        }
+    }
+
+    private void addVersion(String projectId, String slug, String versionId, String gameVersion, String loader, JsonObject... dependencies) {
+        byte[] file = bytes(slug);
+        JsonObject hashes = new JsonObject();
+        hashes.addProperty("sha1", checksumService.hash(file));
+        JsonObject fileJson = new JsonObject();
+        fileJson.add("hashes", hashes);
+        fileJson.addProperty("url", url + "files/" + slug + ".jar");
+        fileJson.addProperty("filename", slug + ".jar");
+        fileJson.addProperty("primary", true);
+        fileJson.addProperty("size", file.length);
+        JsonArray files = new JsonArray();
+        files.add(fileJson);
+
+        JsonArray dependencyArray = new JsonArray();
+        for (JsonObject dependency : dependencies) {
+            dependencyArray.add(dependency);
+        }
+
+        JsonArray gameVersions = new JsonArray();
+        gameVersions.add(gameVersion);
+        JsonArray loaders = new JsonArray();
+        loaders.add(loader);
+
+        JsonObject version = new JsonObject();
+        version.addProperty("id", versionId);
+        version.addProperty("project_id", projectId);
+        version.addProperty("version_number", "1.0.0");
+        version.add("game_versions", gameVersions);
+        version.add("loaders", loaders);
+        version.add("files", files);
+        version.add("dependencies", dependencyArray);
+        versions.put(versionId, version);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        byte[] response = null;
+        if (path.equals("/v2/projects") || path.equals("/v2/versions")) {
+            Map<String, JsonObject> objects = path.equals("/v2/projects") ? projects : versions;
+            String ids = URLDecoder.decode(exchange.getRequestURI().getRawQuery().substring("ids=".length()), "UTF-8");
+            JsonArray result = new JsonArray();
+            for (JsonElement id : JsonParser.parseString(ids).getAsJsonArray()) {
+                synchronized (versions) {
+                    objects.values()
+                           .stream()
+                           .filter(o -> o.get("id").getAsString().equals(id.getAsString())
+                                   || o.has("slug") && o.get("slug").getAsString().equals(id.getAsString()))
+                           .findFirst()
+                           .ifPresent(result::add);
+                }
+            }
+
+            response = bytes(result.toString());
+        } else if (path.startsWith("/v2/project/") && path.endsWith("/version")) {
+            String projectId = path.substring("/v2/project/".length(), path.length() - "/version".length());
+            Map<String, JsonArray> query = new HashMap<>();
+            for (String parameter : exchange.getRequestURI().getRawQuery().split("&")) {
+                int equals = parameter.indexOf('=');
+                String value = URLDecoder.decode(parameter.substring(equals + 1), "UTF-8");
+                query.put(parameter.substring(0, equals), JsonParser.parseString(value).getAsJsonArray());
+            }
+
+            List<JsonObject> matching = new ArrayList<>();
+            synchronized (versions) {
+                for (JsonObject version : versions.values()) {
+                    if (version.get("project_id").getAsString().equals(projectId)
+                            && version.getAsJsonArray("game_versions").equals(query.get("game_versions"))
+                            && version.getAsJsonArray("loaders").equals(query.get("loaders"))) {
+                        matching.add(version);
+                    }
+                }
+            }
+
+            // newest first, like Modrinth
+            Collections.reverse(matching);
+            JsonArray result = new JsonArray();
+            matching.forEach(result::add);
+            response = bytes(result.toString());
+        } else if (path.startsWith("/files/")) {
+            response = bytes(path.substring("/files/".length(), path.length() - ".jar".length()));
+        }
+
+        StubHttpServer.respond(exchange, response == null ? 404 : 200, response);
+    }
+
+    private static JsonObject dependency(String key, String value, String type) {
+        JsonObject dependency = new JsonObject();
+        dependency.addProperty(key, value);
+        dependency.addProperty("dependency_type", type);
+        return dependency;
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
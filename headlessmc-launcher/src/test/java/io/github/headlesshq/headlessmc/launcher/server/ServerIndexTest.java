@@ -0,0 +1,79 @@
+package io.github.headlesshq.headlessmc.launcher.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerIndexTest {
+    private static final List<String> TYPES = Arrays.asList("paper", "fabric");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testUpdate() throws IOException {
+        Files.createDirectories(tempDir.resolve("paper/1.21.4/232/paper-1.21.4-232"));
+        Files.createDirectories(tempDir.resolve("fabric/1.20.1/latest/fabric-1.20.1"));
+        Files.createDirectories(tempDir.resolve("vanilla/1.21.4/latest/vanilla-1.21.4"));
+        Files.createFile(tempDir.resolve("paper/1.21.4/232/not-a-server.txt"));
+
+        ServerIndex index = new ServerIndex(tempDir);
+        assertEquals(Arrays.asList("fabric/1.20.1/latest/fabric-1.20.1", "paper/1.21.4/232/paper-1.21.4-232"), list(index.update(TYPES)));
+        assertTrue(Files.exists(tempDir.resolve(ServerIndex.FILE)));
+
+        Files.createDirectories(tempDir.resolve("paper/1.21.4/232/custom"));
+        Files.delete(tempDir.resolve("fabric/1.20.1/latest/fabric-1.20.1"));
+        assertEquals(Arrays.asList("paper/1.21.4/232/custom", "paper/1.21.4/232/paper-1.21.4-232"), list(index.update(TYPES)));
+
+        // a new process reads the persisted index
+        assertEquals(Arrays.asList("paper/1.21.4/232/custom", "paper/1.21.4/232/paper-1.21.4-232"),
+                     list(new ServerIndex(tempDir).update(TYPES)));
+    }
+
+    @Test
+    public void testUnchangedDirectoriesAreNotListed() throws IOException {
+        Path build = tempDir.resolve("paper/1.21.4/232");
+        Files.createDirectories(build.resolve("paper-1.21.4-232"));
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 60_000L);
+        for (Path dir : Arrays.asList(tempDir.resolve("paper"), tempDir.resolve("paper/1.21.4"), build)) {
+            Files.setLastModifiedTime(dir, old);
+        }
+
+        ServerIndex index = new ServerIndex(tempDir);
+        assertEquals(Collections.singletonList("paper/1.21.4/232/paper-1.21.4-232"), list(index.update(TYPES)));
+
+        // a directory added without changing the modification time of its parent is not noticed
+        Files.createDirectories(build.resolve("hidden"));
+        Files.setLastModifiedTime(build, old);
+        assertEquals(Collections.singletonList("paper/1.21.4/232/paper-1.21.4-232"), list(new ServerIndex(tempDir).update(TYPES)));
+    }
+
+    @Test
+    public void testInvalidIndexIsRebuilt() throws IOException {
+        Files.createDirectories(tempDir.resolve("paper/1.21.4/232/paper-1.21.4-232"));
+        Files.write(tempDir.resolve(ServerIndex.FILE), "{ invalid".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Collections.singletonList("paper/1.21.4/232/paper-1.21.4-232"), list(new ServerIndex(tempDir).update(TYPES)));
+    }
+
+    private static List<String> list(List<String[]> servers) {
+        List<String> result = new ArrayList<>();
+        for (String[] server : servers) {
+            result.add(String.join("/", server));
+        }
+
+        Collections.sort(result);
+        return result;
+    }
+
+}
@@ -0,0 +1,120 @@
+package io.github.headlesshq.headlessmc.launcher.server;
+
+import io.github.headlesshq.headlessmc.launcher.LauncherMock;
+import io.github.headlesshq.headlessmc.launcher.api.Platform;
+import io.github.headlesshq.headlessmc.launcher.files.DirectorySnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerPoolTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testMaterializeAndOverlay() throws IOException {
+        Path server = tempDir.resolve("server");
+        write(server.resolve("server.jar"), "jar");
+        write(server.resolve("plugins/old.jar"), "old plugin");
+        write(server.resolve("plugins/test.jar"), "test plugin v1");
+        write(server.resolve("server.properties"), "motd=A Minecraft Server");
+        Map<String, DirectorySnapshot.FileState> manifest = DirectorySnapshot.scan(server);
+        assertEquals(4, manifest.size());
+        assertTrue(manifest.containsKey("plugins/test.jar"));
+
+        // the snapshot has been booted, which generated a world
+        Path snapshot = tempDir.resolve("snapshot");
+        write(snapshot.resolve("server.jar"), "jar");
+        write(snapshot.resolve("plugins/old.jar"), "old plugin");
+        write(snapshot.resolve("plugins/test.jar"), "test plugin v1");
+        write(snapshot.resolve("server.properties"), "motd=A Minecraft Server");
+        write(snapshot.resolve("world/level.dat"), "level");
+        write(snapshot.resolve(DirectorySnapshot.MANIFEST), "{}");
+
+        // a new build of the plugin to test
+        write(server.resolve("plugins/test.jar"), "test plugin v2");
+        Files.setLastModifiedTime(server.resolve("plugins/test.jar"), FileTime.fromMillis(System.currentTimeMillis() + 10_000L));
+        Files.delete(server.resolve("plugins/old.jar"));
+        write(server.resolve("plugins/new.jar"), "new plugin");
+
+        Path instance = tempDir.resolve("instance");
+        DirectorySnapshot.copy(snapshot, instance);
+        ServerPool.overlay(server, manifest, instance);
+
+        assertEquals("level", read(instance.resolve("world/level.dat")));
+        assertEquals("jar", read(instance.resolve("server.jar")));
+        assertEquals("test plugin v2", read(instance.resolve("plugins/test.jar")));
+        assertEquals("new plugin", read(instance.resolve("plugins/new.jar")));
+        assertFalse(Files.exists(instance.resolve("plugins/old.jar")));
+        assertFalse(Files.exists(instance.resolve(DirectorySnapshot.MANIFEST)));
+        // the overlay must not write through hard links into the snapshot
+        assertEquals("test plugin v1", read(snapshot.resolve("plugins/test.jar")));
+
+        // instances do not share mutable files with the snapshot
+        write(instance.resolve("world/level.dat"), "changed");
+        assertEquals("level", read(snapshot.resolve("world/level.dat")));
+    }
+
+    @Test
+    public void testConcurrentLeases() throws Exception {
+        Path server = tempDir.resolve("server");
+        write(server.resolve("server.jar"), "jar");
+        ServerVersion version = new ServerVersion(new ServerType(Platform.PAPER, null), "1.21.4", "100");
+        // a snapshot which has been booted already
+        Path dir = tempDir.resolve("pool").resolve("paper").resolve("1.21.4").resolve("100");
+        write(dir.resolve("snapshot").resolve("server.jar"), "jar");
+        write(dir.resolve("snapshot").resolve(DirectorySnapshot.MANIFEST), "{}");
+        write(dir.resolve(ServerPool.COMPLETE), "");
+
+        ServerPool pool = new ServerPool(LauncherMock.INSTANCE, tempDir.resolve("pool"));
+        int threads = 8;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Server>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    return pool.lease(new Server(server, "server", version, 0));
+                }));
+            }
+
+            Set<Path> instances = new HashSet<>();
+            for (Future<Server> future : futures) {
+                Server instance = future.get();
+                assertEquals("jar", read(instance.getPath().resolve("server.jar")));
+                instances.add(instance.getPath());
+            }
+
+            assertEquals(threads, instances.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void write(Path path, String content) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+}
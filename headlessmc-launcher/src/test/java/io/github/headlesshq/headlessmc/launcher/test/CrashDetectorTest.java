@@ -0,0 +1,106 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CrashDetectorTest {
+    @TempDir
+    Path gameDir;
+
+    @Test
+    public void testOutputSignatures() {
+        CrashDetector detector = new CrashDetector(gameDir);
+        assertNull(detector.onLine("[12:00:00] [Render thread/INFO]: Setting user: Player"));
+        assertNull(detector.onLine("java.lang.NoClassDefFoundError: net/minecraft/class_310"));
+        assertNull(detector.getCrash());
+
+        CrashDetector.Crash crash = detector.onLine("Exception in thread \"main\" java.lang.OutOfMemoryError: Java heap space");
+        assertNotNull(crash);
+        assertEquals(CrashDetector.Type.OUT_OF_MEMORY, crash.getType());
+        assertEquals(1, crash.getHints().size());
+        assertEquals(CrashDetector.Type.MISSING_CLASS, crash.getHints().get(0).getType());
+        assertTrue(crash.getSummary().contains("Java heap space"));
+        assertTrue(crash.getSummary().contains("net/minecraft/class_310"));
+
+        // only the first crash is reported
+        assertNull(detector.onLine("#@!@# Game crashed! Crash report saved to: #@!@# crash-reports/crash.txt"));
+        assertSame(crash, detector.getCrash());
+    }
+
+    @Test
+    public void testMixinSignature() {
+        CrashDetector detector = new CrashDetector(gameDir);
+        CrashDetector.Crash crash = detector.onLine("Caused by: org.spongepowered.asm.mixin.transformer.throwables.MixinTransformerError: "
+                                                        + "An unexpected critical error was encountered");
+        assertNotNull(crash);
+        assertEquals(CrashDetector.Type.MIXIN, crash.getType());
+    }
+
+    @Test
+    public void testServerCrashReportSignature() {
+        CrashDetector detector = new CrashDetector(gameDir);
+        CrashDetector.Crash crash = detector.onLine("[12:00:00] [Server thread/ERROR]: This crash report has been saved to: "
+                                                        + "/server/crash-reports/crash-2026-01-01_00.00.00-server.txt");
+        assertNotNull(crash);
+        assertEquals(CrashDetector.Type.CRASH_REPORT, crash.getType());
+    }
+
+    @Test
+    public void testNativeCrash() throws IOException {
+        CrashDetector detector = new CrashDetector(gameDir);
+        Path hsErr = gameDir.resolve("hs_err_pid1234.log");
+        Files.write(hsErr, "#\n# A fatal error has been detected by the Java Runtime Environment:\n#\n".getBytes(StandardCharsets.UTF_8));
+        CrashDetector.Crash crash = detector.analyze(134);
+        assertNotNull(crash);
+        assertEquals(CrashDetector.Type.NATIVE_CRASH, crash.getType());
+        assertEquals(hsErr, crash.getFile());
+        assertTrue(crash.getSummary().contains("SIGABRT"));
+
+        Files.write(hsErr, "#\n# There is insufficient memory for the Java Runtime Environment to continue.\n".getBytes(StandardCharsets.UTF_8));
+        crash = detector.analyze(1);
+        assertNotNull(crash);
+        assertEquals(CrashDetector.Type.OUT_OF_MEMORY, crash.getType());
+    }
+
+    @Test
+    public void testCrashReport() throws IOException {
+        CrashDetector detector = new CrashDetector(gameDir);
+        Path crashReports = Files.createDirectories(gameDir.resolve("crash-reports"));
+        Path old = Files.write(crashReports.resolve("crash-2020-01-01_00.00.00-client.txt"), new byte[0]);
+        Files.setLastModifiedTime(old, FileTime.fromMillis(0L));
+        assertNull(detector.analyze(0));
+
+        Path report = Files.write(crashReports.resolve("crash-2026-01-01_00.00.00-client.txt"), new byte[0]);
+        CrashDetector.Crash crash = detector.analyze(0);
+        assertNotNull(crash);
+        assertEquals(CrashDetector.Type.CRASH_REPORT, crash.getType());
+        assertEquals(report, crash.getFile());
+
+        detector.onLine("Caused by: java.lang.NoSuchMethodError: 'void net.minecraft.class_310.method_1507()'");
+        crash = detector.analyze(-1);
+        assertNotNull(crash);
+        assertEquals(CrashDetector.Type.MISSING_CLASS, crash.getType());
+        assertEquals(report, crash.getFile());
+    }
+
+    @Test
+    public void testExitCode() {
+        CrashDetector detector = new CrashDetector(gameDir);
+        assertNull(detector.analyze(0));
+        assertNull(detector.analyze(null));
+
+        CrashDetector.Crash crash = detector.analyze(137);
+        assertNotNull(crash);
+        assertEquals(CrashDetector.Type.EXIT_CODE, crash.getType());
+        assertTrue(crash.getSummary().contains("OOM killer"));
+    }
+
+}
@@ -0,0 +1,142 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import com.google.gson.JsonObject;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MeasurementTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testOutputMetrics() {
+        TestCase.Measure measure = new TestCase.Measure("test", 0L, null, null, null, null, null, null);
+        Measurement measurement = new Measurement(
+                "test", measure, "Average time per tick: (?<tick>[0-9.]+)ms, TPS: (?<tps>[0-9.]+)", new DummyProcess(), () -> {});
+        measurement.onLine("Average time per tick: 10.0ms, TPS: 20.0");
+        measurement.onLine("Average time per tick: 30.0ms, TPS: 18.5");
+        measurement.onLine("[Server thread/INFO]: Done (1.234s)! For help, type \"help\"");
+        measurement.onLine("[GC (Allocation Failure)  262144K->12345K(1004032K), 0.0123456 secs]");
+        measurement.onLine("[0.123s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 2.345ms");
+        measurement.onLine("[0.124s][info][gc] Using G1");
+
+        Map<String, Double> results = measurement.finish();
+        assertEquals(20.0, results.get(Measurement.TICK_TIME_MEAN), 0.001);
+        assertEquals(30.0, results.get(Measurement.TICK_TIME_MAX), 0.001);
+        assertEquals(19.25, results.get(Measurement.TPS_MEAN), 0.001);
+        assertEquals(18.5, results.get(Measurement.TPS_MIN), 0.001);
+        assertEquals(2.0, results.get(Measurement.GC_COUNT), 0.001);
+        assertFalse(results.containsKey(Measurement.FPS_MEAN));
+    }
+
+    @Test
+    public void testThresholdsAndBaseline() throws IOException {
+        Path baseline = tempDir.resolve("baseline.json");
+        TestCase.Measure measure = new TestCase.Measure(
+                "idle", 0L, null, null,
+                Collections.singletonMap(Measurement.TICK_TIME_MEAN, 50.0),
+                Collections.singletonMap(Measurement.TPS_MIN, 19.0),
+                baseline.toString(), 0.1);
+        Measurement measurement = new Measurement("idle", measure, "tick: ([0-9.]+)", new DummyProcess(), () -> {});
+        measurement.onLine("tick: 10.0");
+        Map<String, Double> results = measurement.finish();
+        assertNull(measurement.check(results, false));
+
+        JsonObject written = JsonUtil.GSON.fromJson(new String(Files.readAllBytes(baseline), StandardCharsets.UTF_8), JsonObject.class);
+        assertEquals(10.0, written.getAsJsonObject("idle").get(Measurement.TICK_TIME_MEAN).getAsDouble(), 0.001);
+
+        results.put(Measurement.TICK_TIME_MEAN, 10.5);
+        assertNull(measurement.check(results, false));
+
+        results.put(Measurement.TICK_TIME_MEAN, 12.0);
+        String failure = measurement.check(results, false);
+        assertNotNull(failure);
+        assertTrue(failure.contains("tickTime.mean regressed from 10.00 to 12.00"), failure);
+
+        results.put(Measurement.TICK_TIME_MEAN, 60.0);
+        results.put(Measurement.TPS_MIN, 15.0);
+        failure = measurement.check(results, true);
+        assertNotNull(failure);
+        assertTrue(failure.contains("tickTime.mean 60.00 > 50.00"), failure);
+        assertTrue(failure.contains("tps.min 15.00 < 19.00"), failure);
+        // updated the baseline
+        results.put(Measurement.TPS_MIN, 20.0);
+        assertTrue(measurement.check(results, false).contains("tickTime.mean 60.00 > 50.00"));
+        assertFalse(measurement.check(results, false).contains("regressed"));
+    }
+
+    @Test
+    public void testBaselinePerVersion() throws IOException {
+        Path baseline = tempDir.resolve("baselines").resolve("baseline.json");
+        TestCase.Measure measure = new TestCase.Measure("idle", 0L, null, null, null, null, baseline.toString(), 0.1);
+        Measurement v1 = new Measurement("idle", "1.20.1", measure, "tick: ([0-9.]+)", new DummyProcess(), () -> {});
+        v1.onLine("tick: 10.0");
+        assertNull(v1.check(v1.finish(), false));
+
+        // another version with the same test does not compare against the baseline of the first one
+        Measurement v2 = new Measurement("idle", "1.21.4", measure, "tick: ([0-9.]+)", new DummyProcess(), () -> {});
+        v2.onLine("tick: 30.0");
+        assertNull(v2.check(v2.finish(), false));
+
+        JsonObject written = JsonUtil.GSON.fromJson(new String(Files.readAllBytes(baseline), StandardCharsets.UTF_8), JsonObject.class);
+        assertEquals(10.0, written.getAsJsonObject("1.20.1/idle").get(Measurement.TICK_TIME_MEAN).getAsDouble(), 0.001);
+        assertEquals(30.0, written.getAsJsonObject("1.21.4/idle").get(Measurement.TICK_TIME_MEAN).getAsDouble(), 0.001);
+    }
+
+    @Test
+    public void testParseProc() throws IOException {
+        String stat = "1234 (java (main)) S 1 1234 1234 0 -1 4194560 123 0 0 0 250 50 0 0 20 0 42 0 100 0 0";
+        assertEquals(3.0, ProcessSampler.parseCpuTime(stat), 0.001);
+        assertThrows(IOException.class, () -> ProcessSampler.parseCpuTime("1234 java"));
+        assertEquals(512.0, ProcessSampler.parseRss(Arrays.asList("Name:\tjava", "VmRSS:\t  524288 kB")), 0.001);
+        assertThrows(IOException.class, () -> ProcessSampler.parseRss(Collections.singletonList("Name:\tjava")));
+    }
+
+    private static final class DummyProcess extends Process {
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public void destroy() {
+            // dummy
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCaseMatcherTest {
+    private static final String[] LINES = {
+            "[12:00:00] [Render thread/INFO]: Setting user: Player",
+            "[12:00:01] [Server thread/INFO]: Done (3.042s)! For help, type \"help\"",
+            "[12:00:02] [Render thread/WARN]: Missing sound for event: minecraft:item.goat_horn.play",
+            "hehehe he",
+            "",
+            "DONE",
+            "abcd",
+    };
+
+    @Test
+    public void testMatchesLikeActionFunctions() throws Exception {
+        List<TestCase.Action> actions = new ArrayList<>();
+        for (String message : new String[] { "Done", "done", "help\"", "he", "hehe", "e he", "abc", "bcd", "c", "", "Render thread", "PLAY" }) {
+            for (boolean ignoreCase : new boolean[] { false, true }) {
+                actions.add(action(TestCase.Action.Type.CONTAINS, ignoreCase, message));
+                actions.add(action(TestCase.Action.Type.ENDS_WITH, ignoreCase, message));
+            }
+        }
+
+        actions.add(action(TestCase.Action.Type.REGEX, false, ".*Done \\(.*"));
+        actions.add(action(TestCase.Action.Type.REGEX, true, "done"));
+        // a nested condition has to be compiled as well
+        TestCase.Action nested = action(TestCase.Action.Type.CONTAINS, true, "goat_HORN");
+        actions.add(new TestCase.Action(TestCase.Action.Type.CONTAINS, false, null, "Missing", null, Collections.singletonList(nested), null, null));
+        actions.add(nested);
+
+        TestCaseMatcher matcher = new TestCaseMatcher(new TestCase(actions, "test", null, null, null));
+        for (String line : LINES) {
+            for (TestCase.Action action : actions) {
+                TestCase.Result expected = action.getType().getFunction().evaluate(null, action, line);
+                assertEquals(expected, matcher.evaluate(action, line), action + " on " + line);
+            }
+        }
+    }
+
+    @Test
+    public void testUncompiledActions() {
+        TestCase.Action contains = action(TestCase.Action.Type.CONTAINS, false, "test");
+        TestCaseMatcher matcher = new TestCaseMatcher(new TestCase(Collections.singletonList(contains), "test", null, null, null));
+        assertEquals(TestCase.Result.MATCH, matcher.evaluate(contains, "a test line"));
+        assertNull(matcher.evaluate(contains, null));
+        assertNull(matcher.evaluate(action(TestCase.Action.Type.CONTAINS, false, "test"), "a test line"));
+        assertNull(matcher.evaluate(action(TestCase.Action.Type.SUCCESS, false, null), "a test line"));
+    }
+
+    @Test
+    public void testAutomaton() {
+        Map<String, Integer> literals = new HashMap<>();
+        List<String> words = Arrays.asList("he", "she", "his", "hers");
+        for (String word : words) {
+            literals.put(word, literals.size());
+        }
+
+        TestCaseMatcher.Automaton automaton = new TestCaseMatcher.Automaton(literals, false);
+        boolean[] contains = new boolean[words.size()];
+        boolean[] endsWith = new boolean[words.size()];
+        automaton.scan("ushers", contains, endsWith);
+        assertTrue(contains[literals.get("he")]);
+        assertTrue(contains[literals.get("she")]);
+        assertFalse(contains[literals.get("his")]);
+        assertTrue(contains[literals.get("hers")]);
+        assertTrue(endsWith[literals.get("hers")]);
+        assertFalse(endsWith[literals.get("she")]);
+    }
+
+    private static TestCase.Action action(TestCase.Action.Type type, boolean ignoreCase, String message) {
+        return new TestCase.Action(type, ignoreCase, null, message, null, null, null, null);
+    }
+
+}
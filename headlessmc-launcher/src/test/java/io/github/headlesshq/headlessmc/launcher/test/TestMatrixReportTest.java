@@ -0,0 +1,66 @@
+package io.github.headlesshq.headlessmc.launcher.test;
+
+import com.google.gson.JsonObject;
+import io.github.headlesshq.headlessmc.launcher.util.JsonUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMatrixReportTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReports() throws IOException {
+        TestMatrixReport report = new TestMatrixReport("compat", 12.5, Arrays.asList(
+                new TestMatrixReport.Result("1.21.5", "1.21.5", true, null, null, 0, 5.0),
+                new TestMatrixReport.Result("fabric:1.21.5", "fabric-loader-0.16.14-1.21.5", false, "Expected <\"Done\"> & more", "MIXIN", 1, 7.25)));
+        assertEquals(1, report.getFailures());
+
+        Path xml = tempDir.resolve("TEST-compat.xml");
+        report.writeJUnitXml(xml);
+        String content = new String(Files.readAllBytes(xml), StandardCharsets.UTF_8);
+        assertTrue(content.contains("<testsuite name=\"compat\" tests=\"2\" failures=\"1\" errors=\"0\" skipped=\"0\" time=\"12.500\">"));
+        assertTrue(content.contains("<testcase name=\"1.21.5\" classname=\"compat.1.21.5\" time=\"5.000\"/>"));
+        assertTrue(content.contains("<failure message=\"Expected &lt;&quot;Done&quot;&gt; &amp; more\" type=\"MIXIN\">"));
+        assertTrue(content.contains("(exit code 1)</failure>"));
+
+        Path json = tempDir.resolve("compat.json");
+        report.writeJson(json);
+        JsonObject object = JsonUtil.GSON.fromJson(new String(Files.readAllBytes(json), StandardCharsets.UTF_8), JsonObject.class);
+        assertEquals("compat", object.get("name").getAsString());
+        assertEquals(2, object.getAsJsonArray("results").size());
+        assertFalse(object.getAsJsonArray("results").get(1).getAsJsonObject().get("successful").getAsBoolean());
+        assertEquals("MIXIN", object.getAsJsonArray("results").get(1).getAsJsonObject().get("crash").getAsString());
+    }
+
+    @Test
+    public void testEscape() {
+        assertEquals("a&amp;b&apos;c", TestMatrixReport.escape("a&b'c\u0001"));
+    }
+
+    @Test
+    public void testLoadMatrix() throws IOException {
+        Path file = tempDir.resolve("matrix.json");
+        Files.write(file, ("{\"test\": \"test.json\", \"runs\": [{\"version\": \"1.21.5\"}, {\"name\": \"fabric\", \"version\": \"fabric:1.21.5\", \"args\": [\"-lwjgl\"]}]}")
+                .getBytes(StandardCharsets.UTF_8));
+        TestMatrix matrix = TestMatrix.load(file);
+        assertEquals("matrix", matrix.getName());
+        assertEquals("test.json", matrix.getTest());
+        assertEquals(2, matrix.getRuns().size());
+        assertEquals("1.21.5", matrix.getRuns().get(0).getName());
+        assertEquals("fabric", matrix.getRuns().get(1).getName());
+        assertEquals(Arrays.asList("-lwjgl"), matrix.getRuns().get(1).getArgs());
+
+        Files.write(file, "{\"runs\": [{\"name\": \"missing version\"}]}".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> TestMatrix.load(file));
+    }
+
+}
@@ -0,0 +1,60 @@
+package io.github.headlesshq.headlessmc.launcher.version;
+
+import io.github.headlesshq.headlessmc.launcher.files.FileManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtractorImplTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testExtract() throws IOException {
+        Path jar = tempDir.resolve("natives.jar");
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(jar))) {
+            write(zos, "lwjgl.dll", "lwjgl");
+            write(zos, "sub/openal.dll", "openal");
+            write(zos, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0");
+        }
+
+        Path target = tempDir.resolve("natives");
+        ExtractorImpl extractor = new ExtractorImpl(Collections.singletonList("META-INF/"));
+        extractor.extract(jar.toString(), FileManager.forPath(target.toString()));
+        assertEquals("lwjgl", read(target.resolve("lwjgl.dll")));
+        assertEquals("openal", read(target.resolve("sub").resolve("openal.dll")));
+        assertFalse(Files.exists(target.resolve("META-INF")));
+
+        try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+            ZipEntry entry = zipFile.getEntry("lwjgl.dll");
+            assertTrue(ExtractorImpl.isUpToDate(entry, target.resolve("lwjgl.dll")));
+            // same size, different content
+            Files.write(target.resolve("lwjgl.dll"), "LWJGL".getBytes(StandardCharsets.UTF_8));
+            assertFalse(ExtractorImpl.isUpToDate(entry, target.resolve("lwjgl.dll")));
+        }
+
+        extractor.extract(jar.toString(), FileManager.forPath(target.toString()));
+        assertEquals("lwjgl", read(target.resolve("lwjgl.dll")));
+    }
+
+    private static void write(ZipOutputStream zos, String name, String content) throws IOException {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(content.getBytes(StandardCharsets.UTF_8));
+        zos.closeEntry();
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+}
@@ -40,4 +40,27 @@ public class RuleFactoryTest implements UsesResources {
         Assertions.assertEquals(Rule.Action.ALLOW, rule.apply(os, features));
     }
 
+    @Test
+    public void testRuleWithArch() {
+        val element = getJsonElement("rule_arch.json");
+        val rule = new RuleFactory().parse(element);
+        assertEquals(Rule.Action.ALLOW, rule.apply(new OS("windows", OS.Type.WINDOWS, "10.0", "x86", false), Features.EMPTY));
+        assertEquals(Rule.Action.ALLOW, rule.apply(new OS("windows", OS.Type.WINDOWS, "10.0", "i686", false), Features.EMPTY));
+        assertEquals(Rule.Action.DISALLOW, rule.apply(new OS("windows", OS.Type.WINDOWS, "10.0", "amd64", true), Features.EMPTY));
+        // all criteria of a rule have to match
+        assertEquals(Rule.Action.DISALLOW, rule.apply(new OS("linux", OS.Type.LINUX, "6.0", "x86", false), Features.EMPTY));
+    }
+
+    @Test
+    public void testRuleIsMemoizedPerOs() {
+        val element = getJsonElement("rule_os.json");
+        val rule = new RuleFactory().parse(element);
+        val os = new OS("osx", OS.Type.OSX, "1.0.0", false);
+        val windows = new OS("windows", OS.Type.WINDOWS, "1.0.0", false);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Rule.Action.DISALLOW, rule.apply(os, Features.EMPTY));
+            assertEquals(Rule.Action.ALLOW, rule.apply(windows, Features.EMPTY));
+        }
+    }
+
 }
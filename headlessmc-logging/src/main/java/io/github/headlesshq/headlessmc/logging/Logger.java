@@ -3,6 +3,7 @@ package io.github.headlesshq.headlessmc.logging;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Delegate;
 
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 @RequiredArgsConstructor
@@ -14,6 +15,15 @@ public class Logger {
         logger.fine(message);
     }
 
+    /**
+     * Logs a debug message, which is only built if debug messages are actually logged.
+     *
+     * @param message supplies the message.
+     */
+    public void debug(Supplier<String> message) {
+        logger.fine(message);
+    }
+
     public void debug(String message, Throwable throwable) {
         logger.log(Level.FINE, message, throwable);
     }